@@ -0,0 +1,34 @@
+package pl.r6lab.rapidaws.benchmark;
+
+import pl.r6lab.rapidaws.http.HttpRequest;
+import pl.r6lab.rapidaws.http.HttpResponse;
+import pl.r6lab.rapidaws.http.Transport;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * Returns the same response without touching the network, so client benchmarks measure request building, signing
+ * and response handling only
+ */
+final class CannedTransport implements Transport {
+
+    private final HttpResponse response;
+
+    private CannedTransport(HttpResponse response) {
+        this.response = response;
+    }
+
+    static CannedTransport of(String body) {
+        return new CannedTransport(HttpResponse.of(200, Collections.emptyMap(), body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) {
+        return response;
+    }
+
+    @Override
+    public void close() {
+    }
+}
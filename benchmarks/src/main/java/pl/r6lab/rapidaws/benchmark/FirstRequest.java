@@ -0,0 +1,57 @@
+package pl.r6lab.rapidaws.benchmark;
+
+import pl.r6lab.rapidaws.BasicRequest;
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClient;
+import pl.r6lab.rapidaws.Response;
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.http.ConnectionPool;
+import pl.r6lab.rapidaws.http.ConnectionPoolConfig;
+
+/**
+ * Process started by {@link StartupBenchmark}: creates a client, sends one GetItem to the endpoint given as the
+ * first argument and prints time since main started. With --train it sends requests to its own stub over HTTP and
+ * HTTPS instead, e.g. to record an AppCDS archive.
+ */
+public final class FirstRequest {
+
+    static final String RESULT_PREFIX = "first-request-nanos=";
+
+    private static final String TRAIN = "--train";
+    private static final String GET_ITEM = "{\"TableName\":\"rapid-aws-data\",\"Key\":{\"uuid\":{\"S\":\"2c6f0b1e-5a1d-4f6c-9e0a-7d3b8c1f2a4e\"}}}";
+
+    private FirstRequest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long start = System.nanoTime();
+        if (args.length != 1) {
+            System.err.println("Usage: FirstRequest <endpoint url> | " + TRAIN);
+            System.exit(1);
+        }
+        if (TRAIN.equals(args[0])) {
+            train();
+            return;
+        }
+        RapidClient client = RapidClient.of(Clients.ACCESS_KEY, Clients.SECRET_KEY, null, Clients.REGION);
+        client.setEndpointOverride(ServiceName.DYNAMODB, args[0]);
+        Response response = client.execute(BasicRequest.of(ServiceName.DYNAMODB, "GetItem", HttpMethod.POST, GET_ITEM));
+        long elapsed = System.nanoTime() - start;
+        if (!response.isSuccess()) {
+            throw new IllegalStateException("Unexpected response " + response.getStatusCode());
+        }
+        System.out.println(RESULT_PREFIX + elapsed);
+    }
+
+    private static void train() throws Exception {
+        try (StubServer server = StubServer.start()) {
+            RapidClient client = RapidClient.of(Clients.ACCESS_KEY, Clients.SECRET_KEY, null, Clients.REGION);
+            client.setTransport(ConnectionPool.of(ConnectionPoolConfig.defaults().withSslContext(server.getSslContext())));
+            for (boolean https : new boolean[]{false, true}) {
+                client.setEndpointOverride(ServiceName.DYNAMODB, server.getEndpoint(https).toString());
+                client.execute(BasicRequest.of(ServiceName.DYNAMODB, "GetItem", HttpMethod.POST, GET_ITEM));
+            }
+            client.getTransport().close();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package pl.r6lab.rapidaws.benchmark;
+
+import pl.r6lab.rapidaws.http.Endpoint;
+import pl.r6lab.rapidaws.http.HttpRequest;
+import pl.r6lab.rapidaws.http.HttpResponse;
+import pl.r6lab.rapidaws.http.Transport;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends signed requests to {@link StubServer} instead of AWS. Host header and signature are left as computed for the
+ * AWS endpoint.
+ */
+final class RedirectingTransport implements Transport {
+
+    private final Transport transport;
+    private final Endpoint endpoint;
+
+    private RedirectingTransport(Transport transport, Endpoint endpoint) {
+        this.transport = transport;
+        this.endpoint = endpoint;
+    }
+
+    static RedirectingTransport of(Transport transport, Endpoint endpoint) {
+        return new RedirectingTransport(transport, endpoint);
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        return transport.execute(redirect(request));
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> executeAsync(HttpRequest request) {
+        return transport.executeAsync(redirect(request));
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return transport.isNonBlocking();
+    }
+
+    @Override
+    public void close() {
+        transport.close();
+    }
+
+    private HttpRequest redirect(HttpRequest request) {
+        HttpRequest redirected = HttpRequest.of(request.getMethod(), endpoint, request.getPath());
+        for (int i = 0; i < request.getHeaderCount(); ++i) {
+            redirected.setHeader(request.getHeaderName(i), request.getHeaderValue(i));
+        }
+        redirected.setBody(request.getBody());
+        redirected.setTimings(request.getTimings());
+        return redirected;
+    }
+}
@@ -0,0 +1,80 @@
+package pl.r6lab.rapidaws.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.r6lab.rapidaws.BasicRequest;
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClient;
+import pl.r6lab.rapidaws.Response;
+import pl.r6lab.rapidaws.RetryPolicy;
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.lambda.LambdaInvokeRequest;
+import pl.r6lab.rapidaws.lambda.RapidLambdaInvocationClient;
+import pl.r6lab.rapidaws.sqs.RapidSQSClient;
+import pl.r6lab.rapidaws.sqs.SQSRequest;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload encoding, canonical request, signature and headers of each client, measured through execute() on a
+ * transport that answers without network
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBuildingBenchmark {
+
+    private static final String ITEM = "{\"TableName\":\"rapid-aws-data\",\"Item\":{\"uuid\":{\"S\":\"2c6f0b1e-5a1d-4f6c-9e0a-7d3b8c1f2a4e\"},"
+            + "\"input\":{\"S\":\"Text to be persisted in DynamoDB and analyzed by Comprehend\"}}}";
+    private static final String QUEUE_URL = "https://sqs.eu-west-1.amazonaws.com/123456789012/rapid-aws-example";
+
+    private RapidClient dynamoDBClient;
+    private RapidSQSClient sqsClient;
+    private RapidLambdaInvocationClient lambdaClient;
+    private BasicRequest putItem;
+    private SQSRequest sendMessage;
+    private LambdaInvokeRequest invoke;
+
+    @Setup
+    public void setUp() {
+        dynamoDBClient = RapidClient.of(Clients.ACCESS_KEY, Clients.SECRET_KEY, null, Clients.REGION);
+        sqsClient = RapidSQSClient.of(Clients.ACCESS_KEY, Clients.SECRET_KEY, null, Clients.REGION);
+        lambdaClient = RapidLambdaInvocationClient.of(Clients.ACCESS_KEY, Clients.SECRET_KEY, null, Clients.REGION);
+        dynamoDBClient.setTransport(CannedTransport.of("{}"));
+        sqsClient.setTransport(CannedTransport.of("<SendMessageResponse/>"));
+        lambdaClient.setTransport(CannedTransport.of("{}"));
+        dynamoDBClient.setRetryPolicy(RetryPolicy.none());
+        sqsClient.setRetryPolicy(RetryPolicy.none());
+        lambdaClient.setRetryPolicy(RetryPolicy.none());
+        putItem = BasicRequest.of(ServiceName.DYNAMODB, "PutItem", HttpMethod.POST, ITEM);
+        sendMessage = SQSRequest.of("SendMessage", ITEM, Collections.singletonMap("DelaySeconds", "0"), QUEUE_URL, HttpMethod.POST);
+        invoke = LambdaInvokeRequest.of("detected-entities-processor", ITEM, HttpMethod.POST);
+    }
+
+    @Benchmark
+    public Response dynamoDBPutItem() {
+        return dynamoDBClient.execute(putItem);
+    }
+
+    @Benchmark
+    public Response sqsSendMessage() {
+        return sqsClient.execute(sendMessage);
+    }
+
+    @Benchmark
+    public Response lambdaInvoke() {
+        return lambdaClient.execute(invoke);
+    }
+}
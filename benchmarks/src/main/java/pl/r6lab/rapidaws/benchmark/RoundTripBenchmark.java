@@ -0,0 +1,77 @@
+package pl.r6lab.rapidaws.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.r6lab.rapidaws.BasicRequest;
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClient;
+import pl.r6lab.rapidaws.Response;
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.http.ConnectionPool;
+import pl.r6lab.rapidaws.http.ConnectionPoolConfig;
+import pl.r6lab.rapidaws.http.NioTransport;
+import pl.r6lab.rapidaws.http.Transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full execute() round trips over keep-alive connections to the in-process stub, with both transports, over plain
+ * HTTP and TLS
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RoundTripBenchmark {
+
+    private static final String GET_ITEM = "{\"TableName\":\"rapid-aws-data\",\"Key\":{\"uuid\":{\"S\":\"2c6f0b1e-5a1d-4f6c-9e0a-7d3b8c1f2a4e\"}}}";
+
+    @Param({"pool", "nio"})
+    public String transport;
+
+    @Param({"false", "true"})
+    public boolean https;
+
+    private StubServer server;
+    private RapidClient client;
+    private BasicRequest getItem;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = StubServer.start();
+        ConnectionPoolConfig config = ConnectionPoolConfig.defaults().withSslContext(server.getSslContext());
+        Transport delegate = "nio".equals(transport) ? NioTransport.of(config) : ConnectionPool.of(config);
+        client = RapidClient.of(Clients.ACCESS_KEY, Clients.SECRET_KEY, null, Clients.REGION);
+        client.setTransport(RedirectingTransport.of(delegate, server.getEndpoint(https)));
+        getItem = BasicRequest.of(ServiceName.DYNAMODB, "GetItem", HttpMethod.POST, GET_ITEM);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.getTransport().close();
+        server.close();
+    }
+
+    @Benchmark
+    public Response execute() {
+        Response response = client.execute(getItem);
+        if (!response.isSuccess()) {
+            throw new IllegalStateException("Unexpected response " + response.getStatusCode());
+        }
+        return response;
+    }
+}
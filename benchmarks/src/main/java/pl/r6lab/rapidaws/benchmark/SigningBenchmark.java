@@ -0,0 +1,59 @@
+package pl.r6lab.rapidaws.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.r6lab.rapidaws.SignatureVersion4;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SigV4 primitives: signing key derivation and hashing of payloads of different sizes
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SigningBenchmark {
+
+    private static final String SECRET_KEY = "wJalrXUtnFEMI/K7MDENG/bPxRfiCYEXAMPLEKEY";
+
+    @Param({"64", "1024", "65536"})
+    public int payloadSize;
+
+    private byte[] payload;
+    private byte[] signingKey;
+
+    @Setup
+    public void setUp() throws Exception {
+        payload = new byte[payloadSize];
+        Arrays.fill(payload, (byte) 'a');
+        signingKey = SignatureVersion4.getSignatureKey(SECRET_KEY, "20240101", "eu-west-1", "dynamodb");
+    }
+
+    @Benchmark
+    public byte[] getSignatureKey() throws Exception {
+        return SignatureVersion4.getSignatureKey(SECRET_KEY, "20240101", "eu-west-1", "dynamodb");
+    }
+
+    @Benchmark
+    public byte[] hmacSHA256() throws Exception {
+        return SignatureVersion4.hmacSHA256(payload, signingKey);
+    }
+
+    @Benchmark
+    public byte[] sha256() {
+        return SignatureVersion4.sha256(payload);
+    }
+}
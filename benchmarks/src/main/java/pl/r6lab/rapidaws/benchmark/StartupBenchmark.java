@@ -0,0 +1,137 @@
+package pl.r6lab.rapidaws.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to first request of a fresh process in every startup mode: plain JVM, C1 only, AppCDS archive (Java 13+),
+ * both, and optionally a native image of {@link FirstRequest}. Each run starts a new process sending one request
+ * to the in-process stub. Wall time is measured from process start until the result is printed, in-process time
+ * from the start of main.
+ * <p>
+ * Options: --runs N (default 5), --https, --native &lt;path to first-request executable&gt;
+ */
+public final class StartupBenchmark {
+
+    private static final int DEFAULT_RUNS = 5;
+    private static final int MIN_CDS_VERSION = 13;
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = DEFAULT_RUNS;
+        boolean https = false;
+        String nativeImage = null;
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "--runs":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                case "--https":
+                    https = true;
+                    break;
+                case "--native":
+                    nativeImage = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        try (StubServer server = StubServer.start()) {
+            String url = server.getEndpoint(https).toString();
+            List<String> trustStore = Arrays.asList(
+                    "-Djavax.net.ssl.trustStore=" + server.getKeyStore().getPath(),
+                    "-Djavax.net.ssl.trustStoreType=PKCS12",
+                    "-Djavax.net.ssl.trustStorePassword=" + StubServer.KEY_STORE_PASSWORD);
+            System.out.printf("Time to first request to %s, %d runs per mode, java %s%n", url, runs, System.getProperty("java.version"));
+            System.out.printf("%-12s %12s %12s %12s%n", "mode", "wall p50 ms", "wall min ms", "main p50 ms");
+            measure("jvm", java(trustStore), url, runs);
+            measure("jvm-c1", java(trustStore, "-XX:TieredStopAtLevel=1"), url, runs);
+            if (javaVersion() >= MIN_CDS_VERSION) {
+                File archive = File.createTempFile("rapid-aws-startup", ".jsa");
+                archive.delete();
+                archive.deleteOnExit();
+                run(java(Collections.emptyList(), "-XX:ArchiveClassesAtExit=" + archive.getPath()), "--train");
+                measure("appcds", java(trustStore, "-XX:SharedArchiveFile=" + archive.getPath()), url, runs);
+                measure("appcds-c1", java(trustStore, "-XX:SharedArchiveFile=" + archive.getPath(), "-XX:TieredStopAtLevel=1"), url, runs);
+            } else {
+                System.out.printf("%-12s requires Java %d+%n", "appcds", MIN_CDS_VERSION);
+            }
+            if (nativeImage != null) {
+                List<String> command = new ArrayList<>();
+                command.add(nativeImage);
+                command.addAll(trustStore);
+                measure("native", command, url, runs);
+            }
+        }
+    }
+
+    private static List<String> java(List<String> properties, String... options) {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(Arrays.asList(options));
+        command.addAll(properties);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(FirstRequest.class.getName());
+        return command;
+    }
+
+    private static void measure(String mode, List<String> command, String url, int runs) throws Exception {
+        long[] wall = new long[runs];
+        long[] main = new long[runs];
+        for (int i = 0; i < runs; ++i) {
+            long[] result = run(command, url);
+            wall[i] = result[0];
+            main[i] = result[1];
+        }
+        Arrays.sort(wall);
+        Arrays.sort(main);
+        System.out.printf("%-12s %12.1f %12.1f %12.1f%n", mode, millis(wall[runs / 2]), millis(wall[0]), millis(main[runs / 2]));
+    }
+
+    /**
+     * @return time until the child printed its result and in-process time it reported, zeros when it reported none
+     */
+    private static long[] run(List<String> command, String argument) throws IOException, InterruptedException {
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add(argument);
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(arguments).redirectErrorStream(true).start();
+        long[] result = new long[2];
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(FirstRequest.RESULT_PREFIX)) {
+                    result[0] = System.nanoTime() - start;
+                    result[1] = Long.parseLong(line.substring(FirstRequest.RESULT_PREFIX.length()));
+                } else {
+                    output.append(line).append('\n');
+                }
+            }
+        }
+        if (!process.waitFor(1, TimeUnit.MINUTES) || process.exitValue() != 0) {
+            throw new IllegalStateException("Failed: " + String.join(" ", arguments) + '\n' + output);
+        }
+        return result;
+    }
+
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version");
+        return version.startsWith("1.") ? Integer.parseInt(version.substring(2)) : Integer.parseInt(version);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,132 @@
+package pl.r6lab.rapidaws.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import pl.r6lab.rapidaws.http.Endpoint;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process HTTP and HTTPS server answering every request with 200 and a small JSON body. HTTPS uses a throwaway
+ * self-signed certificate for localhost generated with keytool; {@link #getSslContext()} trusts it.
+ */
+final class StubServer implements AutoCloseable {
+
+    private static final byte[] RESPONSE = "{}".getBytes(StandardCharsets.UTF_8);
+    static final String KEY_STORE_PASSWORD = "changeit";
+    private static final char[] PASSWORD = KEY_STORE_PASSWORD.toCharArray();
+
+    static {
+        // Response headers and body are written separately, without TCP_NODELAY delayed ACK adds 40ms to every call
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer http;
+    private final HttpsServer https;
+    private final File keyStore;
+    private final SSLContext sslContext;
+    private final ExecutorService executor;
+
+    private StubServer() throws Exception {
+        this.keyStore = selfSignedKeyStore();
+        this.sslContext = sslContext(keyStore);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "rapid-aws-benchmark-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.http = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.https = HttpsServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.https.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+        for (HttpServer server : new HttpServer[]{http, https}) {
+            server.createContext("/", StubServer::handle);
+            server.setExecutor(executor);
+            server.start();
+        }
+    }
+
+    static StubServer start() throws Exception {
+        return new StubServer();
+    }
+
+    Endpoint getEndpoint(boolean secure) {
+        return Endpoint.of(secure, "localhost", (secure ? https : http).getAddress().getPort());
+    }
+
+    SSLContext getSslContext() {
+        return sslContext;
+    }
+
+    /**
+     * @return PKCS12 file with the certificate, to be used as trust store of other processes
+     */
+    File getKeyStore() {
+        return keyStore;
+    }
+
+    @Override
+    public void close() {
+        http.stop(0);
+        https.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            while (body.read(buffer) != -1) {
+                // request body is only drained
+            }
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/x-amz-json-1.0");
+        exchange.sendResponseHeaders(200, RESPONSE.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(RESPONSE);
+        }
+    }
+
+    private static File selfSignedKeyStore() throws Exception {
+        File keyStoreFile = File.createTempFile("rapid-aws-stub", ".p12");
+        keyStoreFile.delete();
+        keyStoreFile.deleteOnExit();
+        String keytool = System.getProperty("java.home") + File.separator + "bin" + File.separator + "keytool";
+        Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "stub", "-keyalg", "RSA", "-keysize", "2048",
+                "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1", "-validity", "2",
+                "-storetype", "PKCS12", "-keystore", keyStoreFile.getPath(),
+                "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD))
+                .redirectErrorStream(true)
+                .start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("keytool failed with exit code " + process.exitValue());
+        }
+        return keyStoreFile;
+    }
+
+    private static SSLContext sslContext(File keyStoreFile) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = new FileInputStream(keyStoreFile)) {
+            keyStore.load(in, PASSWORD);
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(keyStore);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), trustManagers.getTrustManagers(), null);
+        return context;
+    }
+}
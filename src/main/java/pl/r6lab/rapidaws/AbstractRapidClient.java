@@ -1,35 +1,37 @@
 package pl.r6lab.rapidaws;
 
-import javax.net.ssl.HttpsURLConnection;
-import javax.xml.bind.DatatypeConverter;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.security.NoSuchAlgorithmException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import pl.r6lab.rapidaws.credentials.Credentials;
+import pl.r6lab.rapidaws.credentials.CredentialsProvider;
+import pl.r6lab.rapidaws.http.ConnectionPool;
+import pl.r6lab.rapidaws.http.Endpoint;
+import pl.r6lab.rapidaws.http.ExchangeTimings;
+import pl.r6lab.rapidaws.http.HttpBody;
+import pl.r6lab.rapidaws.http.HttpRequest;
+import pl.r6lab.rapidaws.http.HttpResponse;
+import pl.r6lab.rapidaws.http.Transport;
+import pl.r6lab.rapidaws.metrics.ClientMetrics;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 public abstract class AbstractRapidClient {
 
-    private static final String INITIAL_SSL_SOCKETS = "INITIAL_SSL_SOCKETS";
     private static final String FORCE_HTTPS = "FORCE_HTTPS";
-
-    static {
-        try {
-            String initialSockets = System.getenv(INITIAL_SSL_SOCKETS);
-            if (nonNull(initialSockets)) {
-                HttpsURLConnection.setDefaultSSLSocketFactory(new BufferedSSLSocketFactory(Integer.valueOf(initialSockets)));
-            }
-        } catch (Exception e) {
-            System.err.println("Unable to set default SSL Socket Factory");
-            e.printStackTrace();
-        }
-    }
+    private static final String AWS_ENDPOINT_URL = "AWS_ENDPOINT_URL";
+    private static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 128;
 
     protected static final String AWS_ACCESS_KEY_ENV_VARIABLE = "AWS_ACCESS_KEY";
     protected static final String AWS_SECRET_KEY_ENV_VARIABLE = "AWS_SECRET_KEY";
@@ -37,80 +39,493 @@ public abstract class AbstractRapidClient {
     protected static final String AWS_REGION_ENV_VARIABLE = "AWS_REGION";
     protected static final String SEPARATOR = "---------------";
 
-    private static final String SIGNATURE_KEY_DATE_PATTERN = "YYYYMMdd";
-    private static final String AWS_DATE_PATTERN = "YYYYMMdd'T'HHmmss'Z'";
-    private static final DateTimeFormatter SIGNATURE_KEY_DATE_FORMATTER = DateTimeFormatter.ofPattern(SIGNATURE_KEY_DATE_PATTERN);
-    private static final DateTimeFormatter AWS_DATE_FORMATTER = DateTimeFormatter.ofPattern(AWS_DATE_PATTERN);
-
     private static final String ALGORITHM = "AWS4-HMAC-SHA256";
-    private static final String NEW_LINE = "\n";
+    private static final char NEW_LINE = '\n';
     private static final String X_AMZ_SECURITY_TOKEN = "x-amz-security-token";
     private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String X_AMZ_CONTENT_SHA256 = "x-amz-content-sha256";
+    private static final String X_AMZ_DECODED_CONTENT_LENGTH = "x-amz-decoded-content-length";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String AWS_CHUNKED = "aws-chunked";
+    private static final String PRIMING_ACTION = "Prime";
+    private static final byte[] PRIMING_RESPONSE = "{}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PRIMING_THROTTLING_ERROR = "{\"__type\":\"ThrottlingException\"}".getBytes(StandardCharsets.UTF_8);
 
-    private final String accessKey;
-    private final String secretKey;
-    private final String sessionToken;
     private final String region;
     private final Boolean forceHttps;
-
+    private final SigningKeyCache signingKeyCache;
+    private final Map<ServiceName, ServiceTemplate> templates;
+    private final Map<ServiceName, Endpoint> endpointOverrides;
+
+    private volatile CredentialsProvider credentialsProvider;
+    private volatile SigningCredentials signingCredentials;
+    private Transport transport;
+    private AsyncRequestExecutor asyncExecutor;
+    private RetryingExecutor retries;
+    private HedgingExecutor hedging;
+    private ClientMetrics metrics;
     private boolean printHeaders;
 
-    protected AbstractRapidClient(String accessKey, String secretKey, String sessionToken, String region) {
-        this.accessKey = accessKey;
-        this.secretKey = secretKey;
-        this.sessionToken = sessionToken;
+    protected AbstractRapidClient(CredentialsProvider credentialsProvider, String region) {
+        this.credentialsProvider = credentialsProvider;
         this.region = region;
+        this.signingKeyCache = SigningKeyCache.of(region);
+        this.templates = new EnumMap<>(ServiceName.class);
+        this.endpointOverrides = new EnumMap<>(ServiceName.class);
+        for (ServiceName serviceName : ServiceName.values()) {
+            String endpointUrl = System.getenv(AWS_ENDPOINT_URL + '_' + serviceName.name());
+            if (isNull(endpointUrl)) {
+                endpointUrl = System.getenv(AWS_ENDPOINT_URL);
+            }
+            if (nonNull(endpointUrl) && !endpointUrl.isEmpty()) {
+                this.endpointOverrides.put(serviceName, Endpoint.of(endpointUrl));
+            }
+        }
+        this.transport = ConnectionPool.defaults();
+        this.asyncExecutor = AsyncRequestExecutor.of(AsyncExecutors.defaultExecutor(), DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+        this.retries = RetryingExecutor.of(RetryPolicy.defaults());
         this.printHeaders = false;
         this.forceHttps = Boolean.valueOf(System.getenv(FORCE_HTTPS));
         System.out.println("Force HTTPS: " + this.forceHttps);
     }
 
     public final Response execute(Request request) {
-        LocalDateTime now = LocalDateTime.now();
-        String signatureDate = now.toLocalDate().format(SIGNATURE_KEY_DATE_FORMATTER);
-        String awsDate = now.format(AWS_DATE_FORMATTER);
+        HedgingExecutor hedging = this.hedging;
+        try {
+            if (nonNull(hedging) && hedging.isHedged(request)) {
+                return this.retries.execute(request, () -> hedging.execute(request, () -> executeAttemptAsync(request)));
+            }
+            return this.retries.execute(request, () -> handleResponse(exchange(request, this.transport::execute)));
+        } catch (RapidClientException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RapidClientException(e);
+        }
+    }
 
-        HttpURLConnection connection = null;
+    /**
+     * Returns response as soon as headers arrive. Body can be consumed with {@link Response#getBodyStream()}, which
+     * must be closed to release the connection, or is buffered on first call to getBody/getPayload.
+     */
+    public final Response executeStreaming(Request request) {
+        try {
+            return this.retries.execute(request, () -> {
+                HttpResponse response = exchange(request, this.transport::executeStreaming);
+                if (!response.isStreaming()) {
+                    return handleResponse(response);
+                }
+                return Response.streaming(isSuccess(response), response.getStatusCode(), response.getHeaders(), response.getBodyStream());
+            });
+        } catch (RapidClientException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RapidClientException(e);
+        }
+    }
 
+    /**
+     * Executes request on async executor. Requests above max in-flight limit are queued without blocking the caller.
+     * With non-blocking transport no thread waits for the response. Retries are queued again after the backoff delay,
+     * so waiting for them doesn't hold an in-flight slot. Cancelling returned future drops queued request or
+     * interrupts the one in progress.
+     */
+    public final CompletableFuture<Response> executeAsync(Request request) {
+        HedgingExecutor hedging = this.hedging;
+        if (nonNull(hedging) && hedging.isHedged(request)) {
+            return this.retries.executeAsync(request, () -> hedging.executeAsync(request, () -> executeAttemptAsync(request)));
+        }
+        return this.retries.executeAsync(request, () -> executeAttemptAsync(request));
+    }
+
+    private CompletableFuture<Response> executeAttemptAsync(Request request) {
+        if (!this.transport.isNonBlocking()) {
+            return this.asyncExecutor.submit(() -> executeOnce(request));
+        }
+        return this.asyncExecutor.submitAsync(() -> exchangeAsync(request).thenApply(this::handleResponse));
+    }
+
+    /**
+     * Opens one connection per service, see {@link #prime(int, ServiceName...)}
+     */
+    public final PrimingReport prime(ServiceName... serviceNames) {
+        return prime(1, serviceNames);
+    }
+
+    /**
+     * Does the work of first requests ahead of time, e.g. in Lambda init phase: resolves endpoint hosts, opens
+     * connections with TLS handshake, derives today's signing keys and loads classes of the request path by signing
+     * requests that are never sent. Priming is best effort, failures are reported instead of thrown.
+     *
+     * @param connections connections opened per service endpoint, idle ones are counted in
+     */
+    public final PrimingReport prime(int connections, ServiceName... serviceNames) {
+        if (serviceNames.length == 0) {
+            throw new IllegalArgumentException("At least one service to prime is required");
+        }
+        long start = System.nanoTime();
+        List<ServicePriming> services = new ArrayList<>(serviceNames.length);
+        for (ServiceName serviceName : serviceNames) {
+            services.add(prime(serviceName, connections));
+        }
+        long responseStart = System.nanoTime();
+        handleResponse(HttpResponse.of(200, Collections.emptyMap(), PRIMING_RESPONSE));
+        RetryReason.of(Response.of(false, 400, Collections.emptyMap(), PRIMING_THROTTLING_ERROR));
+        RetryReason.of(new SocketTimeoutException());
+        long end = System.nanoTime();
+        return PrimingReport.of(services, end - responseStart, end - start);
+    }
+
+    private ServicePriming prime(ServiceName serviceName, int connections) {
+        Endpoint endpoint = null;
+        int addresses = 0;
+        long resolveNanos = 0;
+        long signingKeyNanos = 0;
+        long signingNanos = 0;
+        int opened = 0;
+        long connectNanos = 0;
         try {
-            connection = initConnection(request);
-            byte[] signingKey = SignatureVersion4.getSignatureKey(this.secretKey, now.toLocalDate(), this.region, request.getServiceName().getName());
-            int contentLength = payload(request).getBytes().length;
-            setBasicHeaders(connection, request, awsDate, contentLength);
+            long start = System.nanoTime();
+            this.signingKeyCache.get(this.credentialsProvider.getCredentials().getSecretKey(), SigningDate.now().getDate(), serviceName.getName());
+            signingKeyNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            endpoint = signedRequest(primingRequest(serviceName)).getEndpoint();
+            signingNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            addresses = InetAddress.getAllByName(endpoint.getHost()).length;
+            resolveNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            opened = this.transport.prime(endpoint, connections);
+            connectNanos = System.nanoTime() - start;
+            return ServicePriming.of(serviceName, endpoint, addresses, resolveNanos, signingKeyNanos, signingNanos, opened, connectNanos, null);
+        } catch (Exception e) {
+            return ServicePriming.of(serviceName, endpoint, addresses, resolveNanos, signingKeyNanos, signingNanos, opened, connectNanos, e);
+        }
+    }
+
+    private Response executeOnce(Request request) {
+        try {
+            return handleResponse(exchange(request, this.transport::execute));
+        } catch (RapidClientException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RapidClientException(e);
+        }
+    }
+
+    /**
+     * Sends single attempt of the request, measured when metrics are set
+     */
+    private HttpResponse exchange(Request request, Exchange exchange) throws IOException {
+        ClientMetrics metrics = this.metrics;
+        if (isNull(metrics)) {
+            return exchange.send(signedRequest(request));
+        }
+        long start = System.nanoTime();
+        HttpRequest httpRequest = signedRequest(request);
+        long signingNanos = System.nanoTime() - start;
+        ExchangeTimings timings = ExchangeTimings.create();
+        httpRequest.setTimings(timings);
+        try {
+            HttpResponse response = exchange.send(httpRequest);
+            metrics.record(request.getServiceName(), request.getAction(), response.getStatusCode(), null, signingNanos, System.nanoTime() - start, timings);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            metrics.record(request.getServiceName(), request.getAction(), 0, e, signingNanos, System.nanoTime() - start, timings);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<HttpResponse> exchangeAsync(Request request) {
+        ClientMetrics metrics = this.metrics;
+        if (isNull(metrics)) {
+            return this.transport.executeAsync(signedRequest(request));
+        }
+        long start = System.nanoTime();
+        HttpRequest httpRequest = signedRequest(request);
+        long signingNanos = System.nanoTime() - start;
+        ExchangeTimings timings = ExchangeTimings.create();
+        httpRequest.setTimings(timings);
+        return this.transport.executeAsync(httpRequest).whenComplete((response, error) -> metrics.record(
+                request.getServiceName(), request.getAction(), isNull(error) ? response.getStatusCode() : 0, error,
+                signingNanos, System.nanoTime() - start, timings));
+    }
+
+    private HttpRequest signedRequest(Request request) {
+        SigningDate signingDate = SigningDate.now();
+        String awsDate = signingDate.getAwsDate();
+        ServiceTemplate template = template(request.getServiceName());
+
+        try {
+            SigningCredentials credentials = signingCredentials();
+            HttpRequest httpRequest = HttpRequest.of(request.getMethod().name(), endpointUrl(request));
+            byte[] signingKey = this.signingKeyCache.get(credentials.secretKey, signingDate.getDate(), request.getServiceName().getName());
+            RequestBody body = payload(request);
+            PayloadSigning payloadSigning = body.getPayloadSigning();
+            long contentLength = payloadSigning == PayloadSigning.STREAMING
+                    ? ChunkSigningBody.encodedLength(body.getContentLength(), body.getChunkSize())
+                    : body.getContentLength();
+            setBasicHeaders(httpRequest, request, awsDate, contentLength);
+            byte[] payloadSha256 = payloadSigning == PayloadSigning.SIGNED ? body.sha256() : null;
+            if (payloadSigning != PayloadSigning.SIGNED) {
+                httpRequest.setHeader(X_AMZ_CONTENT_SHA256, payloadSigning.getContentSha256());
+            } else if (template.isContentSha256Signed()) {
+                httpRequest.setHeader(X_AMZ_CONTENT_SHA256, Hex.lowercase(payloadSha256));
+            }
+            if (payloadSigning == PayloadSigning.STREAMING) {
+                httpRequest.setHeader(CONTENT_ENCODING, AWS_CHUNKED);
+                httpRequest.setHeader(X_AMZ_DECODED_CONTENT_LENGTH, Long.toString(body.getContentLength()));
+            }
 
             // Used for Temporary Security Credentials
-            if (nonNull(this.sessionToken)) {
-                connection.setRequestProperty(X_AMZ_SECURITY_TOKEN, sessionToken);
+            if (nonNull(credentials.sessionToken)) {
+                httpRequest.setHeader(X_AMZ_SECURITY_TOKEN, credentials.sessionToken);
             }
 
-            String stringToSign = stringToSign(contentLength, awsDate, signatureDate, request);
+            SigningBuffer buffer = SigningBuffer.get();
+            canonicalRequest(buffer, httpRequest, template, payloadSigning);
+            if (payloadSigning == PayloadSigning.SIGNED) {
+                buffer.appendHex(payloadSha256);
+            } else {
+                buffer.append(payloadSigning.getContentSha256());
+            }
             if (this.printHeaders) {
-                printHeader("String to sign", stringToSign);
+                printHeader("Canonical request", buffer.toString());
+            }
+            byte[] canonicalRequestHash = buffer.sha256();
+
+            buffer.reset();
+            buffer.append(ALGORITHM)
+                    .append(NEW_LINE)
+                    .append(awsDate)
+                    .append(NEW_LINE)
+                    .append(signingDate.getDateStamp())
+                    .append(template.getCredentialsScope())
+                    .append(NEW_LINE)
+                    .appendHex(canonicalRequestHash);
+            if (this.printHeaders) {
+                printHeader("String to sign", buffer.toString());
             }
 
-            String signature = signature(signingKey, stringToSign);
+            String signature = Hex.lowercase(buffer.hmacSHA256(signingKey));
             if (this.printHeaders) {
                 printHeader("Signature", signature);
             }
 
-            String authorizationHeader = authorizationHeader(signature, signatureDate, request.getServiceName().getName());
+            String authorizationSuffix = template.getAuthorizationSuffix(payloadSigning);
+            String authorizationHeader = new StringBuilder(credentials.authorizationPrefix.length() + authorizationSuffix.length() + 72)
+                    .append(credentials.authorizationPrefix)
+                    .append(signingDate.getDateStamp())
+                    .append(authorizationSuffix)
+                    .append(signature)
+                    .toString();
             if (this.printHeaders) {
                 printHeader("Authorization", authorizationHeader);
             }
-            connection.setRequestProperty(AUTHORIZATION_HEADER, authorizationHeader);
-
-            connection.getOutputStream().write(payload(request).getBytes());
-            connection.getOutputStream().flush();
-            return handleResponse(connection);
+            httpRequest.setHeader(AUTHORIZATION_HEADER, authorizationHeader);
+            if (payloadSigning == PayloadSigning.STREAMING) {
+                httpRequest.setBody(ChunkSigningBody.of(body, signingKey, awsDate, signingDate.getDateStamp() + template.getCredentialsScope(), signature));
+            } else {
+                httpRequest.setBody(HttpBody.of(body.getBuffer()));
+            }
+            return httpRequest;
+        } catch (RapidClientException e) {
+            throw e;
         } catch (Exception e) {
             throw new RapidClientException(e);
-        } finally {
-            if (nonNull(connection)) {
-                connection.disconnect();
+        }
+    }
+
+    /**
+     * Credentials are taken once per request, so all parts of the signature come from the same credentials. Rotated
+     * credentials are picked up by the next request, signing keys of the new secret key are derived on first use.
+     */
+    private SigningCredentials signingCredentials() {
+        Credentials credentials = this.credentialsProvider.getCredentials();
+        SigningCredentials current = this.signingCredentials;
+        if (isNull(current) || current.credentials != credentials) {
+            current = new SigningCredentials(credentials);
+            this.signingCredentials = current;
+        }
+        return current;
+    }
+
+    /**
+     * Writes canonical request up to and including signed headers line from the request path and headers, payload
+     * hash is appended by the caller.
+     */
+    private static void canonicalRequest(SigningBuffer buffer, HttpRequest httpRequest, ServiceTemplate template, PayloadSigning payloadSigning) {
+        String path = httpRequest.getPath();
+        int queryStart = path.indexOf('?');
+        buffer.append(httpRequest.getMethod())
+                .append(NEW_LINE)
+                .append(queryStart < 0 ? path : path.substring(0, queryStart))
+                .append(NEW_LINE);
+        if (queryStart >= 0) {
+            appendCanonicalQuery(buffer, path.substring(queryStart + 1));
+        }
+        buffer.append(NEW_LINE);
+        for (String name : template.getSignedHeaderNames(payloadSigning)) {
+            String value = httpRequest.getHeader(name);
+            buffer.append(name)
+                    .append(':')
+                    .append(isNull(value) ? "" : value.trim())
+                    .append(NEW_LINE);
+        }
+        buffer.append(NEW_LINE)
+                .append(template.getSignedHeaders(payloadSigning))
+                .append(NEW_LINE);
+    }
+
+    /**
+     * Query parameters are expected to be URI encoded already, canonical form only orders them by name and value
+     */
+    private static void appendCanonicalQuery(SigningBuffer buffer, String query) {
+        String[] parameters = query.split("&");
+        Arrays.sort(parameters, AbstractRapidClient::compareParameters);
+        for (int i = 0; i < parameters.length; ++i) {
+            if (i > 0) {
+                buffer.append('&');
+            }
+            buffer.append(parameters[i]);
+            if (parameters[i].indexOf('=') < 0) {
+                buffer.append('=');
+            }
+        }
+    }
+
+    /**
+     * Orders by name and then by value. Whole parameters can't be compared, as characters like '-' or '.' sort below
+     * '=' and would put "a-b=1" before "a=2".
+     */
+    private static int compareParameters(String left, String right) {
+        int leftSeparator = separator(left);
+        int rightSeparator = separator(right);
+        int order = compareRegions(left, 0, leftSeparator, right, 0, rightSeparator);
+        if (order != 0) {
+            return order;
+        }
+        return compareRegions(left, Math.min(leftSeparator + 1, left.length()), left.length(),
+                right, Math.min(rightSeparator + 1, right.length()), right.length());
+    }
+
+    private static int separator(String parameter) {
+        int separator = parameter.indexOf('=');
+        return separator < 0 ? parameter.length() : separator;
+    }
+
+    private static int compareRegions(String left, int leftFrom, int leftTo, String right, int rightFrom, int rightTo) {
+        int length = Math.min(leftTo - leftFrom, rightTo - rightFrom);
+        for (int i = 0; i < length; ++i) {
+            int order = left.charAt(leftFrom + i) - right.charAt(rightFrom + i);
+            if (order != 0) {
+                return order;
+            }
+        }
+        return (leftTo - leftFrom) - (rightTo - rightFrom);
+    }
+
+    /**
+     * @param executor executor running asynchronous requests, {@link AsyncExecutors#defaultExecutor()} by default
+     */
+    public void setAsyncExecutor(Executor executor) {
+        this.asyncExecutor = AsyncRequestExecutor.of(executor, this.asyncExecutor.getMaxInFlight());
+    }
+
+    public void setMaxInFlightRequests(int maxInFlightRequests) {
+        this.asyncExecutor = AsyncRequestExecutor.of(this.asyncExecutor.getExecutor(), maxInFlightRequests);
+    }
+
+    /**
+     * Replaces transport used by this client, {@link ConnectionPool} by default. Previous transport is not closed.
+     */
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Replaces retry policy, {@link RetryPolicy#defaults()} by default. Retry budget and adaptive send rate start
+     * from scratch.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retries = RetryingExecutor.of(retryPolicy);
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retries.getPolicy();
+    }
+
+    /**
+     * Hedges requests of the actions listed in the policy. Hedged requests of {@link #execute} are sent like those of
+     * {@link #executeAsync}, counting in max in-flight requests, while the caller waits. Latencies tracked for hedge
+     * delays start from scratch.
+     *
+     * @param hedgingPolicy null turns hedging off (the default)
+     */
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedging = isNull(hedgingPolicy) ? null : HedgingExecutor.of(hedgingPolicy);
+    }
+
+    public HedgingPolicy getHedgingPolicy() {
+        HedgingExecutor hedging = this.hedging;
+        return isNull(hedging) ? null : hedging.getPolicy();
+    }
+
+    /**
+     * @param metrics records timings of every attempt of requests sent by this client, null turns recording off
+     *                (the default)
+     */
+    public void setMetrics(ClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sends requests of the service to given endpoint instead of the regional AWS one, e.g. a local stand-in. By
+     * default endpoints are taken from AWS_ENDPOINT_URL_&lt;SERVICE&gt; and AWS_ENDPOINT_URL environment variables.
+     *
+     * @param endpointUrl scheme, host and optional port, e.g. http://localhost:4566; null restores the AWS endpoint
+     */
+    public void setEndpointOverride(ServiceName serviceName, String endpointUrl) {
+        synchronized (templates) {
+            if (isNull(endpointUrl)) {
+                endpointOverrides.remove(serviceName);
+            } else {
+                endpointOverrides.put(serviceName, Endpoint.of(endpointUrl));
             }
+            templates.remove(serviceName);
         }
     }
 
+    /**
+     * Overrides endpoint of all services
+     */
+    public void setEndpointOverride(String endpointUrl) {
+        for (ServiceName serviceName : ServiceName.values()) {
+            setEndpointOverride(serviceName, endpointUrl);
+        }
+    }
+
+    /**
+     * Replaces credentials of the client, connections and other state are kept
+     */
+    public void setCredentialsProvider(CredentialsProvider credentialsProvider) {
+        this.credentialsProvider = credentialsProvider;
+    }
+
+    public CredentialsProvider getCredentialsProvider() {
+        return credentialsProvider;
+    }
+
     public void setPrintHeaders(boolean printHeaders) {
         this.printHeaders = printHeaders;
     }
@@ -119,19 +534,44 @@ public abstract class AbstractRapidClient {
         return region;
     }
 
-    protected abstract void setBasicHeaders(HttpURLConnection connection, Request request, String awsDate, int contentLength);
+    /**
+     * Sets headers of the request. Values of headers listed in {@link #signedHeaders()} are signed as set here.
+     *
+     * @param contentLength number of bytes sent in the body, including chunk signatures of streaming payloads
+     */
+    protected abstract void setBasicHeaders(HttpRequest httpRequest, Request request, String awsDate, long contentLength);
 
-    protected abstract String canonicalRequest(int contentLength, String awsDate, Request request) throws NoSuchAlgorithmException;
+    protected abstract String endpointUrl(Request request);
 
-    protected abstract String host(String serviceName);
+    /**
+     * @return lower case names of signed headers in canonical order; headers describing unsigned and streaming
+     * payloads are added automatically. Listing x-amz-content-sha256 sends it with signed payloads too.
+     */
+    protected abstract String signedHeaders();
 
-    protected abstract String canonicalHeaders(String awsDate, String serviceName);
+    protected abstract RequestBody payload(Request request);
 
-    protected abstract String endpointUrl(Request request);
+    /**
+     * @return request signed while priming the service, it is never sent; its endpoint is the one primed
+     */
+    protected Request primingRequest(ServiceName serviceName) {
+        return BasicRequest.of(serviceName, PRIMING_ACTION, HttpMethod.POST, "{}");
+    }
 
-    protected abstract String signedHeaders();
+    protected final String host(ServiceName serviceName) {
+        return template(serviceName).getHost();
+    }
+
+    protected final String serviceUrl(ServiceName serviceName, boolean https) {
+        return template(serviceName).getUrl(https);
+    }
 
-    protected abstract String payload(Request request);
+    /**
+     * @return X-Amz-Target header value for JSON protocol services
+     */
+    protected final String target(Request request) {
+        return template(request.getServiceName()).target(request.getAction());
+    }
 
     protected boolean isPrintHeaders() {
         return printHeaders;
@@ -147,55 +587,54 @@ public abstract class AbstractRapidClient {
         System.out.println(SEPARATOR);
     }
 
-    private HttpURLConnection initConnection(Request request) {
-        try {
-            HttpURLConnection connection = (HttpURLConnection) new URL(endpointUrl(request)).openConnection();
-            connection.setRequestMethod(request.getMethod().name());
-            connection.setDoOutput(true);
-            return connection;
-        } catch (IOException e) {
-            throw new RapidClientException(e);
-        }
-    }
-
-    private Response handleResponse(HttpURLConnection connection) throws IOException {
-        if (connection.getResponseCode() == 200) {
-            return Response.success(getResponse(connection.getInputStream()));
-        } else {
-            return Response.fail(getResponse(connection.getErrorStream()));
-        }
+    /**
+     * @return true when requests of the service go to an overridden endpoint
+     */
+    protected final boolean isEndpointOverridden(ServiceName serviceName) {
+        return template(serviceName).isOverridden();
     }
 
-    private String getResponse(InputStream inputStream) throws IOException {
-        BufferedReader in = new BufferedReader(
-                new InputStreamReader(inputStream));
-        String inputLine;
-        StringBuilder content = new StringBuilder();
-        while ((inputLine = in.readLine()) != null) {
-            content.append(inputLine);
+    private ServiceTemplate template(ServiceName serviceName) {
+        ServiceTemplate template = templates.get(serviceName);
+        if (template == null) {
+            synchronized (templates) {
+                template = templates.computeIfAbsent(serviceName, name -> ServiceTemplate.of(name, region, signedHeaders(), endpointOverrides.get(name)));
+            }
         }
-        return content.toString();
-    }
-
-    private String stringToSign(int contentLength, String awsDate, String signatureDate, Request request) throws NoSuchAlgorithmException {
-        String canonicalRequest = hexBinary(SignatureVersion4.sha256(canonicalRequest(contentLength, awsDate, request))).toLowerCase();
-        return ALGORITHM + NEW_LINE + awsDate + NEW_LINE + credentialsScope(signatureDate, request.getServiceName().getName()) + NEW_LINE + canonicalRequest;
+        return template;
     }
 
-    private String authorizationHeader(String signature, String signatureDate, String serviceName) {
-        return ALGORITHM + " Credential=" + this.accessKey + '/' + credentialsScope(signatureDate, serviceName) + ", SignedHeaders=" + signedHeaders() + ", Signature=" + signature;
+    private Response handleResponse(HttpResponse response) {
+        return Response.of(isSuccess(response), response.getStatusCode(), response.getHeaders(), response.getBody());
     }
 
-    private String signature(byte[] signingKey, String stringToSign) throws Exception {
-        return hexBinary(SignatureVersion4.hmacSHA256(stringToSign, signingKey)).toLowerCase();
+    /**
+     * Any 2xx status is a success, e.g. Lambda responds with 202 to Event invocations
+     */
+    private boolean isSuccess(HttpResponse response) {
+        return response.getStatusCode() / 100 == 2;
     }
 
-    protected String hexBinary(byte[] bytes) {
-        return DatatypeConverter.printHexBinary(bytes);
+    /**
+     * Credentials with the Authorization header prefix built once per credentials
+     */
+    private static final class SigningCredentials {
+        private final Credentials credentials;
+        private final String secretKey;
+        private final String sessionToken;
+        private final String authorizationPrefix;
+
+        private SigningCredentials(Credentials credentials) {
+            this.credentials = credentials;
+            this.secretKey = credentials.getSecretKey();
+            this.sessionToken = credentials.getSessionToken();
+            this.authorizationPrefix = ALGORITHM + " Credential=" + credentials.getAccessKey() + '/';
+        }
     }
 
-    private String credentialsScope(String signatureDate, String serviceName) {
-        return signatureDate + "/" + region + "/" + serviceName + "/" + "aws4_request";
+    @FunctionalInterface
+    private interface Exchange {
+        HttpResponse send(HttpRequest request) throws IOException;
     }
 
 }
@@ -0,0 +1,129 @@
+package pl.r6lab.rapidaws;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side send rate limit adjusted with additive increase, multiplicative decrease. It stays inactive until the
+ * first throttling response, which cuts the rate to 70% of the measured send rate. Every following success raises
+ * the rate by 5% of the rate seen at the last throttling per second elapsed, so the pre-throttling rate is reached
+ * again after about 6 seconds without throttling. The limit is lifted once the rate doubles the pre-throttling one.
+ * <p>
+ * Throttling of requests sent before the last cut doesn't cut the rate again, and every cut starts a new epoch in
+ * which slots reserved at the old rate have to be reserved again.
+ */
+final class AdaptiveRateLimiter {
+
+    private static final double DECREASE_FACTOR = 0.7;
+    private static final double INCREASE_PER_SECOND = 0.05;
+    private static final double MIN_RATE = 0.5;
+    private static final long MEASURE_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final double SMOOTHING = 0.8;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private volatile int epoch;
+    private boolean enabled;
+    private double rate;
+    private double throttledRate;
+    private long lastAdjustment;
+    private long lastDecrease;
+    private long nextPermit;
+
+    private long windowStart = System.nanoTime();
+    private int windowCount;
+    private double measuredRate;
+
+    private AdaptiveRateLimiter() {
+    }
+
+    static AdaptiveRateLimiter create() {
+        return new AdaptiveRateLimiter();
+    }
+
+    /**
+     * Reserves a send slot. Caller should read {@link #getEpoch()} before and reserve again when it changed while
+     * waiting.
+     *
+     * @return nanos to wait before sending
+     */
+    synchronized long reserve() {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long permit = Math.max(nextPermit, now);
+        nextPermit = permit + (long) (NANOS_PER_SECOND / rate);
+        return permit - now;
+    }
+
+    int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Records request leaving the client, reservations made ahead of time don't count as sent
+     *
+     * @return send time to be passed to {@link #onResponse(boolean, long)}
+     */
+    synchronized long onSend() {
+        long now = System.nanoTime();
+        measure(now);
+        return now;
+    }
+
+    synchronized void onResponse(boolean throttled, long sentAt) {
+        long now = System.nanoTime();
+        if (throttled) {
+            if (enabled && sentAt - lastDecrease < 0) {
+                return;
+            }
+            double sendRate = Math.max(currentSendRate(now), MIN_RATE);
+            double base = enabled ? Math.min(rate, sendRate) : sendRate;
+            throttledRate = base;
+            rate = Math.max(MIN_RATE, base * DECREASE_FACTOR);
+            enabled = true;
+            lastAdjustment = now;
+            lastDecrease = now;
+            nextPermit = now;
+            ++epoch;
+        } else if (enabled) {
+            rate += throttledRate * INCREASE_PER_SECOND * (now - lastAdjustment) / NANOS_PER_SECOND;
+            lastAdjustment = now;
+            if (rate >= throttledRate * 2) {
+                enabled = false;
+                ++epoch;
+            }
+        }
+    }
+
+    synchronized double getRate() {
+        return enabled ? rate : Double.POSITIVE_INFINITY;
+    }
+
+    private void measure(long now) {
+        long elapsed = now - windowStart;
+        if (elapsed >= 2 * MEASURE_WINDOW_NANOS) {
+            // idle gap says nothing about the rate the client sends at under load
+            windowStart = now;
+            windowCount = 1;
+            return;
+        }
+        ++windowCount;
+        if (elapsed >= MEASURE_WINDOW_NANOS) {
+            double windowRate = windowCount * NANOS_PER_SECOND / elapsed;
+            measuredRate = measuredRate == 0 ? windowRate : SMOOTHING * windowRate + (1 - SMOOTHING) * measuredRate;
+            windowStart = now;
+            windowCount = 0;
+        }
+    }
+
+    /**
+     * Partial window is used until the first one completes, throttling can arrive before that
+     */
+    private double currentSendRate(long now) {
+        if (measuredRate > 0) {
+            return measuredRate;
+        }
+        long elapsed = Math.max(now - windowStart, TimeUnit.MILLISECONDS.toNanos(1));
+        return windowCount * NANOS_PER_SECOND / elapsed;
+    }
+}
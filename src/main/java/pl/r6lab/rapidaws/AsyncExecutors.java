@@ -0,0 +1,38 @@
+package pl.r6lab.rapidaws;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Default executor for asynchronous requests. On Java 21+ the multi-release jar replaces this class with a version
+ * that runs every request on its own virtual thread.
+ */
+public final class AsyncExecutors {
+
+    private static final String THREAD_NAME_PREFIX = "rapid-aws-async-";
+
+    private AsyncExecutors() {
+    }
+
+    public static ExecutorService defaultExecutor() {
+        return Holder.DEFAULT_EXECUTOR;
+    }
+
+    public static ExecutorService newExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static boolean isVirtualThreadsSupported() {
+        return false;
+    }
+
+    private static final class Holder {
+        private static final ExecutorService DEFAULT_EXECUTOR = newExecutor();
+    }
+}
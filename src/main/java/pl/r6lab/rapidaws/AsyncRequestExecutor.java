@@ -0,0 +1,158 @@
+package pl.r6lab.rapidaws;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking calls on the given executor keeping at most maxInFlight of them running. Calls above the limit wait
+ * in a queue without blocking the caller. Cancelling the returned future removes a queued call and interrupts or
+ * cancels a running one.
+ */
+final class AsyncRequestExecutor {
+
+    private final Executor executor;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Task<?>> pending = new ConcurrentLinkedQueue<>();
+
+    private AsyncRequestExecutor(Executor executor, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("At least one in-flight request is required");
+        }
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    static AsyncRequestExecutor of(Executor executor, int maxInFlight) {
+        return new AsyncRequestExecutor(executor, maxInFlight);
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return submitAsync(() -> CompletableFuture.completedFuture(call.get()));
+    }
+
+    /**
+     * In-flight slot of an asynchronous call is held until the future it returned completes
+     */
+    <T> CompletableFuture<T> submitAsync(Supplier<CompletableFuture<T>> call) {
+        Task<T> task = new Task<>(call);
+        pending.offer(task);
+        drain();
+        return task.result;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void drain() {
+        while (!pending.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Task<?> task = pending.poll();
+            if (task == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                inFlight.decrementAndGet();
+                task.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private final class Task<T> implements Runnable {
+
+        private final Supplier<CompletableFuture<T>> call;
+        private CompletableFuture<T> pendingCall;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private Thread runner;
+
+        private Task(Supplier<CompletableFuture<T>> call) {
+            this.call = call;
+            this.result.whenComplete((value, throwable) -> {
+                if (result.isCancelled()) {
+                    interruptRunner();
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            if (result.isDone()) {
+                release();
+                return;
+            }
+            CompletableFuture<T> started;
+            setRunner(Thread.currentThread());
+            try {
+                started = call.get();
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+                release();
+                return;
+            } finally {
+                setRunner(null);
+                // Interrupt caused by cancellation must not leak into the next task run by this thread
+                if (result.isCancelled()) {
+                    Thread.interrupted();
+                }
+            }
+            setPendingCall(started);
+            started.whenComplete((value, throwable) -> {
+                if (throwable != null) {
+                    result.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+                } else {
+                    result.complete(value);
+                }
+                release();
+            });
+        }
+
+        private void release() {
+            inFlight.decrementAndGet();
+            drain();
+        }
+
+        private synchronized void setRunner(Thread runner) {
+            this.runner = runner;
+        }
+
+        private synchronized void setPendingCall(CompletableFuture<T> pendingCall) {
+            this.pendingCall = pendingCall;
+            if (result.isCancelled()) {
+                pendingCall.cancel(true);
+            }
+        }
+
+        private synchronized void interruptRunner() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+            if (pendingCall != null) {
+                pendingCall.cancel(true);
+            }
+        }
+    }
+}
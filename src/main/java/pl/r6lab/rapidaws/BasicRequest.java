@@ -5,12 +5,14 @@ public class BasicRequest implements Request {
     private final String action;
     private final HttpMethod method;
     private final String payload;
+    private volatile RequestBody body;
 
-    private BasicRequest(ServiceName serviceName, String action, HttpMethod method, String payload) {
+    private BasicRequest(ServiceName serviceName, String action, HttpMethod method, String payload, RequestBody body) {
         this.serviceName = serviceName;
         this.action = action;
         this.method = method;
         this.payload = payload;
+        this.body = body;
     }
 
     @Override
@@ -20,7 +22,23 @@ public class BasicRequest implements Request {
 
     @Override
     public String getPayload() {
-        return payload;
+        return payload != null ? payload : body.toString();
+    }
+
+    @Override
+    public RequestBody getBody() {
+        RequestBody encoded = body;
+        if (encoded == null) {
+            encoded = RequestBody.of(payload);
+            body = encoded;
+        }
+        return encoded;
+    }
+
+    @Override
+    public boolean hasStreamBody() {
+        RequestBody encoded = body;
+        return encoded != null && encoded.isStream();
     }
 
     @Override
@@ -34,6 +52,10 @@ public class BasicRequest implements Request {
     }
 
     public static final BasicRequest of(ServiceName serviceName, String action, HttpMethod method, String payload) {
-        return new BasicRequest(serviceName, action, method, payload);
+        return new BasicRequest(serviceName, action, method, payload, null);
+    }
+
+    public static final BasicRequest of(ServiceName serviceName, String action, HttpMethod method, RequestBody body) {
+        return new BasicRequest(serviceName, action, method, null, body);
     }
 }
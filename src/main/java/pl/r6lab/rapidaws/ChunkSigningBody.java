@@ -0,0 +1,127 @@
+package pl.r6lab.rapidaws;
+
+import pl.r6lab.rapidaws.http.HttpBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * aws-chunked body with STREAMING-AWS4-HMAC-SHA256-PAYLOAD signatures. Each chunk is hashed once while it is written
+ * and its signature is chained to the signature of the previous chunk, starting with the request signature.
+ */
+final class ChunkSigningBody implements HttpBody {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256-PAYLOAD";
+    private static final String EMPTY_SHA256 = Hex.lowercase(SignatureVersion4.sha256(new byte[0]));
+    private static final byte[] CHUNK_SIGNATURE = ";chunk-signature=".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final int SIGNATURE_LENGTH = 64;
+    private static final char NEW_LINE = '\n';
+
+    private final InputStream stream;
+    private final long decodedLength;
+    private final int chunkSize;
+    private final byte[] signingKey;
+    private final String awsDate;
+    private final String scope;
+    private final String seedSignature;
+
+    private ChunkSigningBody(RequestBody body, byte[] signingKey, String awsDate, String scope, String seedSignature) {
+        this.stream = body.getStream();
+        this.decodedLength = body.getContentLength();
+        this.chunkSize = body.getChunkSize();
+        this.signingKey = signingKey;
+        this.awsDate = awsDate;
+        this.scope = scope;
+        this.seedSignature = seedSignature;
+    }
+
+    /**
+     * @param scope credentials scope including date stamp
+     */
+    static ChunkSigningBody of(RequestBody body, byte[] signingKey, String awsDate, String scope, String seedSignature) {
+        return new ChunkSigningBody(body, signingKey, awsDate, scope, seedSignature);
+    }
+
+    /**
+     * @return length of aws-chunked encoded content, sent as Content-Length
+     */
+    static long encodedLength(long decodedLength, int chunkSize) {
+        long fullChunks = decodedLength / chunkSize;
+        int lastChunk = (int) (decodedLength % chunkSize);
+        return fullChunks * chunkLength(chunkSize) + (lastChunk > 0 ? chunkLength(lastChunk) : 0) + chunkLength(0);
+    }
+
+    private static long chunkLength(int size) {
+        return Integer.toHexString(size).length() + CHUNK_SIGNATURE.length + SIGNATURE_LENGTH + CRLF.length + size + CRLF.length;
+    }
+
+    @Override
+    public long getContentLength() {
+        return encodedLength(decodedLength, chunkSize);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        SigningBuffer buffer = new SigningBuffer();
+        byte[] chunk = new byte[(int) Math.min(chunkSize, Math.max(decodedLength, 1))];
+        byte[] digest = new byte[32];
+        String previousSignature = seedSignature;
+        long remaining = decodedLength;
+        try {
+            while (remaining > 0) {
+                int size = readChunk(chunk, (int) Math.min(chunk.length, remaining));
+                previousSignature = writeChunk(out, buffer, chunk, size, digest, previousSignature);
+                remaining -= size;
+            }
+            writeChunk(out, buffer, chunk, 0, digest, previousSignature);
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private int readChunk(byte[] chunk, int size) throws IOException {
+        int offset = 0;
+        while (offset < size) {
+            int read = stream.read(chunk, offset, size - offset);
+            if (read == -1) {
+                throw new IOException("Request body stream ended before declared length of " + decodedLength + " bytes");
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private String writeChunk(OutputStream out, SigningBuffer buffer, byte[] chunk, int size, byte[] digest, String previousSignature) throws IOException, GeneralSecurityException {
+        SignatureVersion4.sha256(chunk, 0, size, digest);
+        buffer.reset();
+        buffer.append(ALGORITHM)
+                .append(NEW_LINE)
+                .append(awsDate)
+                .append(NEW_LINE)
+                .append(scope)
+                .append(NEW_LINE)
+                .append(previousSignature)
+                .append(NEW_LINE)
+                .append(EMPTY_SHA256)
+                .append(NEW_LINE)
+                .appendHex(digest);
+        String signature = Hex.lowercase(buffer.hmacSHA256(signingKey));
+
+        out.write(Integer.toHexString(size).getBytes(StandardCharsets.US_ASCII));
+        out.write(CHUNK_SIGNATURE);
+        out.write(signature.getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+        out.write(chunk, 0, size);
+        out.write(CRLF);
+        return signature;
+    }
+}
@@ -0,0 +1,208 @@
+package pl.r6lab.rapidaws;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Applies {@link HedgingPolicy} to single attempts of a request, under the retries of {@link RetryingExecutor}. A
+ * response with a retryable error or a failed attempt doesn't win while the other attempt is still running.
+ */
+final class HedgingExecutor {
+
+    private static final long TOKEN = 1_000;
+    private static final long BUDGET_CAPACITY = 10 * TOKEN;
+
+    private final HedgingPolicy policy;
+    private final long minDelayNanos;
+    private final long deposit;
+    private final AtomicLong budget = new AtomicLong(BUDGET_CAPACITY);
+    private final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+
+    private HedgingExecutor(HedgingPolicy policy) {
+        this.policy = policy;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(policy.getMinDelayMillis());
+        this.deposit = Math.max(1, Math.round(policy.getBudgetRatio() * TOKEN));
+    }
+
+    static HedgingExecutor of(HedgingPolicy policy) {
+        return new HedgingExecutor(policy);
+    }
+
+    /**
+     * Stream bodies can't be sent twice, so their requests are never hedged
+     */
+    boolean isHedged(Request request) {
+        return policy.isHedged(request.getServiceName(), request.getAction()) && !request.hasStreamBody();
+    }
+
+    HedgingPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Waits for the first response of hedged attempts sent asynchronously
+     */
+    Response execute(Request request, Supplier<CompletableFuture<Response>> attempt) throws Exception {
+        CompletableFuture<Response> result = executeAsync(request, attempt);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Cancelling returned future cancels attempts in progress
+     */
+    CompletableFuture<Response> executeAsync(Request request, Supplier<CompletableFuture<Response>> attempt) {
+        LatencyTracker tracker = trackers.computeIfAbsent(request.getServiceName().name() + '.' + request.getAction(),
+                action -> LatencyTracker.of(policy.getPercentile()));
+        Hedge hedge = new Hedge(tracker, attempt);
+        hedge.start();
+        return hedge.result;
+    }
+
+    private boolean tryAcquireHedge() {
+        while (true) {
+            long current = budget.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    private void deposit() {
+        while (true) {
+            long current = budget.get();
+            if (current >= BUDGET_CAPACITY || budget.compareAndSet(current, Math.min(BUDGET_CAPACITY, current + deposit))) {
+                return;
+            }
+        }
+    }
+
+    private final class Hedge {
+
+        private final CompletableFuture<Response> result = new CompletableFuture<>();
+        private final LatencyTracker tracker;
+        private final Supplier<CompletableFuture<Response>> attempt;
+        private CompletableFuture<Response> primary;
+        private CompletableFuture<Response> secondary;
+        private ScheduledFuture<?> timer;
+        private int pending;
+        private boolean closed;
+
+        private Hedge(LatencyTracker tracker, Supplier<CompletableFuture<Response>> attempt) {
+            this.tracker = tracker;
+            this.attempt = attempt;
+            result.whenComplete((response, error) -> cancelOthers());
+        }
+
+        private void start() {
+            deposit();
+            long latency = tracker.latencyNanos(System.nanoTime());
+            CompletableFuture<Response> sent = send();
+            synchronized (this) {
+                primary = sent;
+                if (latency >= 0 && !closed) {
+                    timer = Scheduler.INSTANCE.schedule(this::hedge, Math.max(latency, minDelayNanos), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (closed || result.isDone() || !tryAcquireHedge()) {
+                    return;
+                }
+            }
+            CompletableFuture<Response> sent = send();
+            synchronized (this) {
+                secondary = sent;
+            }
+            if (result.isDone()) {
+                sent.cancel(true);
+            }
+        }
+
+        private CompletableFuture<Response> send() {
+            synchronized (this) {
+                ++pending;
+            }
+            long start = System.nanoTime();
+            CompletableFuture<Response> future;
+            try {
+                future = attempt.get();
+            } catch (Exception e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((response, error) -> onComplete(response, error, start));
+            return future;
+        }
+
+        private void onComplete(Response response, Throwable error, long start) {
+            long now = System.nanoTime();
+            if (isNull(error)) {
+                tracker.record(now - start, now);
+            }
+            boolean won = isNull(error) && RetryReason.of(response) == RetryReason.NONE;
+            synchronized (this) {
+                --pending;
+                if (!won && pending > 0) {
+                    return;
+                }
+                // an attempt that completes before the hedge is sent makes the hedge pointless
+                closed = true;
+            }
+            if (nonNull(error)) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(response);
+            }
+        }
+
+        private void cancelOthers() {
+            CompletableFuture<Response> first;
+            CompletableFuture<Response> second;
+            synchronized (this) {
+                closed = true;
+                if (nonNull(timer)) {
+                    timer.cancel(false);
+                }
+                first = primary;
+                second = secondary;
+            }
+            if (nonNull(first)) {
+                first.cancel(true);
+            }
+            if (nonNull(second)) {
+                second.cancel(true);
+            }
+        }
+    }
+
+    private static final class Scheduler {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rapid-aws-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
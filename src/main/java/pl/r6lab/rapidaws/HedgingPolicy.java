@@ -0,0 +1,111 @@
+package pl.r6lab.rapidaws;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable hedging settings of a client. Start from {@link #of(ServiceName, String...)} or
+ * {@link #dynamoDBReads()} and adjust with the with* methods.
+ * <p>
+ * When a request of a hedged action has no response after the given percentile of recent latencies of the action, a
+ * second attempt is sent on another connection. The first response wins and the other attempt is cancelled. Hedges
+ * are limited by a budget refilled by a fraction of requests, so a slow service gets at most that fraction of extra
+ * load. Only idempotent actions should be hedged, as both attempts may be processed.
+ */
+public final class HedgingPolicy {
+
+    private static final double DEFAULT_PERCENTILE = 95;
+    private static final long DEFAULT_MIN_DELAY_MILLIS = 2;
+    private static final double DEFAULT_BUDGET_RATIO = 0.05;
+
+    private final Map<ServiceName, Set<String>> actions;
+    private final double percentile;
+    private final long minDelayMillis;
+    private final double budgetRatio;
+
+    private HedgingPolicy(Map<ServiceName, Set<String>> actions, double percentile, long minDelayMillis, double budgetRatio) {
+        this.actions = actions;
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.budgetRatio = budgetRatio;
+    }
+
+    /**
+     * @param actions idempotent actions of the service to hedge
+     */
+    public static HedgingPolicy of(ServiceName serviceName, String... actions) {
+        return new HedgingPolicy(Collections.emptyMap(), DEFAULT_PERCENTILE, DEFAULT_MIN_DELAY_MILLIS, DEFAULT_BUDGET_RATIO)
+                .withActions(serviceName, actions);
+    }
+
+    /**
+     * @return policy hedging GetItem, BatchGetItem, Query and Scan
+     */
+    public static HedgingPolicy dynamoDBReads() {
+        return of(ServiceName.DYNAMODB, "GetItem", "BatchGetItem", "Query", "Scan");
+    }
+
+    /**
+     * @return policy hedging also given actions of the service
+     */
+    public HedgingPolicy withActions(ServiceName serviceName, String... actions) {
+        Map<ServiceName, Set<String>> copy = new EnumMap<>(ServiceName.class);
+        copy.putAll(this.actions);
+        Set<String> serviceActions = new HashSet<>(copy.getOrDefault(serviceName, Collections.emptySet()));
+        serviceActions.addAll(Arrays.asList(actions));
+        copy.put(serviceName, Collections.unmodifiableSet(serviceActions));
+        return new HedgingPolicy(Collections.unmodifiableMap(copy), percentile, minDelayMillis, budgetRatio);
+    }
+
+    /**
+     * @param percentile percentile of recent latencies of the action after which the hedge is sent, e.g. 95
+     */
+    public HedgingPolicy withPercentile(double percentile) {
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        return new HedgingPolicy(actions, percentile, minDelayMillis, budgetRatio);
+    }
+
+    /**
+     * @param minDelayMillis hedges are never sent sooner than that, even when the action is faster
+     */
+    public HedgingPolicy withMinDelayMillis(long minDelayMillis) {
+        return new HedgingPolicy(actions, percentile, minDelayMillis, budgetRatio);
+    }
+
+    /**
+     * @param budgetRatio maximum number of hedges per hedged request in the long run, e.g. 0.05 for 5%
+     */
+    public HedgingPolicy withBudgetRatio(double budgetRatio) {
+        if (budgetRatio <= 0 || budgetRatio > 1) {
+            throw new IllegalArgumentException("Budget ratio must be above 0 and at most 1");
+        }
+        return new HedgingPolicy(actions, percentile, minDelayMillis, budgetRatio);
+    }
+
+    public boolean isHedged(ServiceName serviceName, String action) {
+        Set<String> serviceActions = actions.get(serviceName);
+        return serviceActions != null && serviceActions.contains(action);
+    }
+
+    public Map<ServiceName, Set<String>> getActions() {
+        return actions;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public long getMinDelayMillis() {
+        return minDelayMillis;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+}
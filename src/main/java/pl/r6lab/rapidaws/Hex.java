@@ -0,0 +1,18 @@
+package pl.r6lab.rapidaws;
+
+public final class Hex {
+
+    static final byte[] DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    private Hex() {
+    }
+
+    public static String lowercase(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            chars[i * 2] = (char) DIGITS[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = (char) DIGITS[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+}
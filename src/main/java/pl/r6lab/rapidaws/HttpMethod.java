@@ -1,5 +1,5 @@
 package pl.r6lab.rapidaws;
 
 public enum HttpMethod {
-    GET, POST, PUT, HEAD, PATCH, OPTIONS
+    GET, POST, PUT, HEAD, PATCH, OPTIONS, DELETE
 }
@@ -0,0 +1,60 @@
+package pl.r6lab.rapidaws;
+
+import pl.r6lab.rapidaws.metrics.Histogram;
+import pl.r6lab.rapidaws.metrics.HistogramSnapshot;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recent latencies of one action in two histograms, the current one and the previous one, swapped every window. The
+ * percentile is computed from both at most once in a while, so it follows changes within one or two windows without
+ * costing a histogram scan per request.
+ */
+final class LatencyTracker {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long RECOMPUTE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int MIN_SAMPLES = 20;
+
+    private final double percentile;
+    private volatile Histogram current = Histogram.create();
+    private volatile Histogram previous = Histogram.create();
+    private volatile long windowStart = System.nanoTime();
+    private volatile long computedAt = System.nanoTime() - RECOMPUTE_NANOS;
+    private volatile long latencyNanos = -1;
+
+    private LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    static LatencyTracker of(double percentile) {
+        return new LatencyTracker(percentile);
+    }
+
+    void record(long nanos, long now) {
+        if (now - windowStart > WINDOW_NANOS) {
+            rotate(now);
+        }
+        current.record(nanos);
+    }
+
+    /**
+     * @return latency at the percentile or -1 when there are too few recent samples
+     */
+    long latencyNanos(long now) {
+        if (now - computedAt >= RECOMPUTE_NANOS) {
+            computedAt = now;
+            HistogramSnapshot snapshot = current.snapshot().merge(previous.snapshot());
+            latencyNanos = snapshot.getCount() >= MIN_SAMPLES ? snapshot.getValueAtPercentile(percentile) : -1;
+        }
+        return latencyNanos;
+    }
+
+    private synchronized void rotate(long now) {
+        if (now - windowStart > WINDOW_NANOS) {
+            previous = current;
+            current = Histogram.create();
+            windowStart = now;
+        }
+    }
+}
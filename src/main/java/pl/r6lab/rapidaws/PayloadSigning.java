@@ -0,0 +1,32 @@
+package pl.r6lab.rapidaws;
+
+/**
+ * How request body takes part in SigV4 signature
+ */
+public enum PayloadSigning {
+    /**
+     * SHA-256 of the whole body is part of the canonical request
+     */
+    SIGNED(null),
+    /**
+     * Body is not hashed, integrity is left to TLS. Supported by S3 and services accepting x-amz-content-sha256 header
+     */
+    UNSIGNED("UNSIGNED-PAYLOAD"),
+    /**
+     * Body is sent with aws-chunked encoding and every chunk carries its own signature chained to the request signature
+     */
+    STREAMING("STREAMING-AWS4-HMAC-SHA256-PAYLOAD");
+
+    private final String contentSha256;
+
+    PayloadSigning(String contentSha256) {
+        this.contentSha256 = contentSha256;
+    }
+
+    /**
+     * @return value of x-amz-content-sha256 header and payload hash in canonical request, null for signed payload
+     */
+    public String getContentSha256() {
+        return contentSha256;
+    }
+}
@@ -0,0 +1,57 @@
+package pl.r6lab.rapidaws;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of {@link AbstractRapidClient#prime(int, ServiceName...)}, e.g. to be logged at the end of Lambda init phase
+ */
+public final class PrimingReport {
+
+    private final List<ServicePriming> services;
+    private final long responseHandlingNanos;
+    private final long totalNanos;
+
+    private PrimingReport(List<ServicePriming> services, long responseHandlingNanos, long totalNanos) {
+        this.services = Collections.unmodifiableList(services);
+        this.responseHandlingNanos = responseHandlingNanos;
+        this.totalNanos = totalNanos;
+    }
+
+    static PrimingReport of(List<ServicePriming> services, long responseHandlingNanos, long totalNanos) {
+        return new PrimingReport(services, responseHandlingNanos, totalNanos);
+    }
+
+    public List<ServicePriming> getServices() {
+        return services;
+    }
+
+    /**
+     * @return time of handling canned responses, mostly class loading of the response and retry path
+     */
+    public long getResponseHandlingNanos() {
+        return responseHandlingNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return true when all services were fully primed
+     */
+    public boolean isComplete() {
+        return services.stream().allMatch(ServicePriming::isPrimed);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder()
+                .append("Primed in ").append(totalNanos / 1000).append("us")
+                .append(", responseHandling=").append(responseHandlingNanos / 1000).append("us");
+        for (ServicePriming service : services) {
+            builder.append("\n  ").append(service);
+        }
+        return builder.toString();
+    }
+}
@@ -1,91 +1,73 @@
 package pl.r6lab.rapidaws;
 
-import java.net.HttpURLConnection;
-import java.security.NoSuchAlgorithmException;
+import pl.r6lab.rapidaws.credentials.CredentialsProvider;
+import pl.r6lab.rapidaws.credentials.RefreshingCredentialsProvider;
+import pl.r6lab.rapidaws.credentials.StaticCredentialsProvider;
+import pl.r6lab.rapidaws.http.HttpRequest;
 
 import static java.util.Objects.isNull;
 
 public final class RapidClient extends AbstractRapidClient {
 
     private static final String SIGNED_HEADERS = "content-length;content-type;host;x-amz-date;x-amz-target";
-    private static final String CANONICAL_URI = "/";
-    private static final String NEW_LINE = "\n";
-    private static final String DOT = ".";
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String GZIP = "gzip";
 
-    private RapidClient(String accessKey, String secretKey, String sessionToken, String region) {
-        super(accessKey, secretKey, sessionToken, region);
+    private boolean gzipResponses;
+
+    private RapidClient(CredentialsProvider credentialsProvider, String region) {
+        super(credentialsProvider, region);
     }
 
+    /**
+     * Region from AWS_REGION, credentials from {@link RefreshingCredentialsProvider#defaultProvider()}
+     */
     public final static RapidClient envAware() {
-        return new RapidClient(System.getenv(AWS_ACCESS_KEY_ENV_VARIABLE), System.getenv(AWS_SECRET_KEY_ENV_VARIABLE), System.getenv(AWS_SESSION_TOKEN_ENV_VARIABLE), System.getenv(AWS_REGION_ENV_VARIABLE));
+        return new RapidClient(RefreshingCredentialsProvider.defaultProvider(), System.getenv(AWS_REGION_ENV_VARIABLE));
     }
 
     public final static RapidClient of(String accessKey, String secretKey, String sessionToken, String region) {
         if (isNull(accessKey) || isNull(secretKey) || isNull(region)) {
             throw new IllegalArgumentException("Missing mandatory AWS parameters");
         }
-        return new RapidClient(accessKey, secretKey, sessionToken, region);
+        return new RapidClient(StaticCredentialsProvider.of(accessKey, secretKey, sessionToken), region);
     }
 
-    @Override
-    protected void setBasicHeaders(HttpURLConnection connection, Request request, String awsDate, int contentLength) {
-        connection.setRequestProperty("Content-Length", Integer.toString(contentLength));
-        connection.setRequestProperty("Content-Type", request.getServiceName().getContentType());
-        connection.setRequestProperty("Host", host(request.getServiceName().getName()));
-        connection.setRequestProperty("X-Amz-Date", awsDate);
-        connection.setRequestProperty("X-Amz-Target", request.getServiceName().getVersion() + DOT + request.getAction());
+    public final static RapidClient of(CredentialsProvider credentialsProvider, String region) {
+        if (isNull(credentialsProvider) || isNull(region)) {
+            throw new IllegalArgumentException("Missing mandatory AWS parameters");
+        }
+        return new RapidClient(credentialsProvider, region);
     }
 
     @Override
-    protected String canonicalRequest(int contentLength, String awsDate, Request request) throws NoSuchAlgorithmException {
-        String hashedPayload = hexBinary(SignatureVersion4.sha256(request.getPayload())).toLowerCase();
-        String canonicalRequest =
-                new StringBuilder().append(request.getMethod().name())
-                        .append(NEW_LINE)
-                        .append(CANONICAL_URI)
-                        .append(NEW_LINE)
-                        .append(NEW_LINE)
-                        .append("content-length:")
-                        .append(contentLength)
-                        .append(NEW_LINE)
-                        .append("content-type:")
-                        .append(request.getServiceName().getContentType())
-                        .append(NEW_LINE)
-                        .append(canonicalHeaders(awsDate, request.getServiceName().getName()))
-                        .append(NEW_LINE)
-                        .append("x-amz-target:")
-                        .append(request.getServiceName().getVersion())
-                        .append(DOT)
-                        .append(request.getAction())
-                        .append(NEW_LINE)
-                        .append(NEW_LINE)
-                        .append(SIGNED_HEADERS)
-                        .append(NEW_LINE)
-                        .append(hashedPayload)
-                        .toString();
-        if (this.isPrintHeaders()) {
-            this.printHeader("Canonical request", canonicalRequest);
+    protected void setBasicHeaders(HttpRequest httpRequest, Request request, String awsDate, long contentLength) {
+        httpRequest.setHeader("Content-Length", Long.toString(contentLength));
+        httpRequest.setHeader("Content-Type", request.getServiceName().getContentType());
+        httpRequest.setHeader("Host", host(request.getServiceName()));
+        httpRequest.setHeader("X-Amz-Date", awsDate);
+        httpRequest.setHeader("X-Amz-Target", target(request));
+        if (this.gzipResponses) {
+            httpRequest.setHeader(ACCEPT_ENCODING, GZIP);
         }
-        return canonicalRequest;
     }
 
-    @Override
-    protected String canonicalHeaders(String awsDate, String serviceName) {
-        return new StringBuilder()
-                .append("host:")
-                .append(host(serviceName))
-                .append(NEW_LINE)
-                .append("x-amz-date:")
-                .append(awsDate)
-                .toString();
+    /**
+     * Asks for gzip compressed responses, off by default. DynamoDB JSON shrinks 5-10 times, which pays off for big
+     * Query, Scan and BatchGetItem responses on slow or metered networks at the cost of CPU on both ends. Transport
+     * inflates responses as they arrive and checks x-amz-crc32 of the compressed bytes on the way, mismatch is retried.
+     */
+    public void setGzipResponses(boolean gzipResponses) {
+        this.gzipResponses = gzipResponses;
+    }
+
+    public boolean isGzipResponses() {
+        return gzipResponses;
     }
 
     @Override
     protected String endpointUrl(Request request) {
-        return new StringBuilder()
-                .append(getProtocol(request))
-                .append(host(request.getServiceName().getName()))
-                .toString();
+        return serviceUrl(request.getServiceName(), isHttps(request));
     }
 
     @Override
@@ -94,26 +76,12 @@ public final class RapidClient extends AbstractRapidClient {
     }
 
     @Override
-    protected String payload(Request request) {
-        return request.getPayload();
+    protected RequestBody payload(Request request) {
+        return request.getBody();
     }
 
-    @Override
-    protected String host(String serviceName) {
-        return new StringBuilder().append(serviceName)
-                .append(DOT)
-                .append(this.getRegion())
-                .append(DOT)
-                .append("amazonaws.com")
-                .toString();
-    }
-
-    private String getProtocol(Request request) {
-        if (request.getServiceName().isHttpsRequired() || this.isForceHttps()) {
-            return "https://";
-        } else {
-            return "http://";
-        }
+    private boolean isHttps(Request request) {
+        return request.getServiceName().isHttpsRequired() || this.isForceHttps();
     }
 
 }
@@ -5,6 +5,21 @@ public interface Request {
 
     String getPayload();
 
+    /**
+     * @return body sent with the request, UTF-8 encoded payload by default
+     */
+    default RequestBody getBody() {
+        return RequestBody.of(getPayload());
+    }
+
+    /**
+     * @return true when the body is a stream, which can be sent only once; checked without building the body, so
+     * requests with stream bodies have to override it
+     */
+    default boolean hasStreamBody() {
+        return false;
+    }
+
     ServiceName getServiceName();
 
     HttpMethod getMethod();
@@ -0,0 +1,153 @@
+package pl.r6lab.rapidaws;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Request body as bytes, buffer or stream. Byte and buffer bodies are hashed once during signing and written without
+ * copying. Streams are sent with SigV4 chunk signing, so they are never fully buffered by blocking transports.
+ */
+public final class RequestBody {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private static final int MIN_CHUNK_SIZE = 8 * 1024;
+    private static final RequestBody EMPTY = new RequestBody(new byte[0], null, null, 0, PayloadSigning.SIGNED, 0);
+
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private final InputStream stream;
+    private final long contentLength;
+    private final PayloadSigning payloadSigning;
+    private final int chunkSize;
+    private volatile byte[] sha256;
+
+    private RequestBody(byte[] bytes, ByteBuffer buffer, InputStream stream, long contentLength, PayloadSigning payloadSigning, int chunkSize) {
+        this.bytes = bytes;
+        this.buffer = buffer;
+        this.stream = stream;
+        this.contentLength = contentLength;
+        this.payloadSigning = payloadSigning;
+        this.chunkSize = chunkSize;
+    }
+
+    public static RequestBody empty() {
+        return EMPTY;
+    }
+
+    public static RequestBody of(String payload) {
+        return isNull(payload) ? EMPTY : of(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RequestBody of(byte[] bytes) {
+        return new RequestBody(bytes, null, null, bytes.length, PayloadSigning.SIGNED, 0);
+    }
+
+    /**
+     * @param buffer remaining bytes of the buffer are sent, its position is not modified
+     */
+    public static RequestBody of(ByteBuffer buffer) {
+        return new RequestBody(null, buffer.slice(), null, buffer.remaining(), PayloadSigning.SIGNED, 0);
+    }
+
+    /**
+     * Body sent with UNSIGNED-PAYLOAD instead of SHA-256 of the content
+     */
+    public static RequestBody unsigned(byte[] bytes) {
+        return new RequestBody(bytes, null, null, bytes.length, PayloadSigning.UNSIGNED, 0);
+    }
+
+    public static RequestBody unsigned(ByteBuffer buffer) {
+        return new RequestBody(null, buffer.slice(), null, buffer.remaining(), PayloadSigning.UNSIGNED, 0);
+    }
+
+    /**
+     * Body streamed with STREAMING-AWS4-HMAC-SHA256-PAYLOAD chunk signing in chunks of {@link #DEFAULT_CHUNK_SIZE}.
+     * Only S3 PutObject and UploadPart accept aws-chunked bodies.
+     */
+    public static RequestBody stream(InputStream stream, long contentLength) {
+        return stream(stream, contentLength, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize size of signed chunks, at least 8 KB
+     */
+    public static RequestBody stream(InputStream stream, long contentLength, int chunkSize) {
+        if (chunkSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be at least " + MIN_CHUNK_SIZE + " bytes");
+        }
+        return new RequestBody(null, null, stream, contentLength, PayloadSigning.STREAMING, chunkSize);
+    }
+
+    /**
+     * @return length of the content before any transfer encoding
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public PayloadSigning getPayloadSigning() {
+        return payloadSigning;
+    }
+
+    public boolean isStream() {
+        return nonNull(stream);
+    }
+
+    public InputStream getStream() {
+        return stream;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return bytes of in-memory body, without copying when body was created from byte array
+     */
+    public byte[] getBytes() {
+        if (nonNull(bytes)) {
+            return bytes;
+        }
+        if (nonNull(buffer)) {
+            byte[] copy = new byte[buffer.remaining()];
+            buffer.duplicate().get(copy);
+            return copy;
+        }
+        throw new IllegalStateException("Stream body can't be read as bytes");
+    }
+
+    /**
+     * @return in-memory body as buffer, without copying
+     */
+    public ByteBuffer getBuffer() {
+        if (nonNull(buffer)) {
+            return buffer.duplicate();
+        }
+        if (nonNull(bytes)) {
+            return ByteBuffer.wrap(bytes);
+        }
+        throw new IllegalStateException("Stream body can't be read as buffer");
+    }
+
+    /**
+     * @return SHA-256 of the content, computed on first use and reused by retries
+     */
+    byte[] sha256() {
+        byte[] hash = sha256;
+        if (isNull(hash)) {
+            hash = nonNull(bytes) ? SignatureVersion4.sha256(bytes) : SignatureVersion4.sha256(buffer.duplicate());
+            sha256 = hash;
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return isStream() ? "<stream of " + contentLength + " bytes>" : new String(getBytes(), StandardCharsets.UTF_8);
+    }
+}
@@ -1,27 +1,144 @@
 package pl.r6lab.rapidaws;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
 public final class Response {
+    private static final byte[] EMPTY = new byte[0];
+
     private final boolean success;
-    private final String payload;
+    private final int statusCode;
+    private final Map<String, String> headers;
+    private InputStream bodyStream;
+    private byte[] body;
+    private String payload;
 
-    private Response(boolean success, String payload) {
+    private Response(boolean success, int statusCode, Map<String, String> headers, byte[] body, InputStream bodyStream, String payload) {
         this.success = success;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body;
+        this.bodyStream = bodyStream;
         this.payload = payload;
     }
 
     public static Response success(String response) {
-        return new Response(true, response);
+        return new Response(true, 200, Collections.emptyMap(), null, null, response);
     }
 
     public static Response fail(String response) {
-        return new Response(false, response);
+        return new Response(false, 0, Collections.emptyMap(), null, null, response);
+    }
+
+    public static Response of(boolean success, int statusCode, Map<String, String> headers, byte[] body) {
+        return new Response(success, statusCode, headers, body, null, null);
+    }
+
+    /**
+     * @param bodyStream body read directly from the connection, it is buffered on first call to getBody or getPayload
+     */
+    public static Response streaming(boolean success, int statusCode, Map<String, String> headers, InputStream bodyStream) {
+        return new Response(success, statusCode, headers, null, bodyStream, null);
     }
 
     public boolean isSuccess() {
         return success;
     }
 
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return body decoded as UTF-8, decoding happens on first call
+     */
     public String getPayload() {
+        if (isNull(payload)) {
+            payload = new String(getBody(), StandardCharsets.UTF_8);
+        }
         return payload;
     }
+
+    /**
+     * @return raw body; the array is not copied and must not be modified
+     */
+    public byte[] getBody() {
+        if (isNull(body)) {
+            if (nonNull(bodyStream)) {
+                body = readFully(bodyStream, contentLength());
+                bodyStream = null;
+            } else {
+                body = isNull(payload) ? EMPTY : payload.getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        return body;
+    }
+
+    public ByteBuffer getBodyBuffer() {
+        return ByteBuffer.wrap(getBody()).asReadOnlyBuffer();
+    }
+
+    /**
+     * For streaming responses returns the stream read directly from the connection. It has to be closed to release the
+     * connection and can be consumed only once.
+     */
+    public InputStream getBodyStream() {
+        if (nonNull(bodyStream)) {
+            InputStream stream = bodyStream;
+            bodyStream = null;
+            body = EMPTY;
+            return stream;
+        }
+        return new ByteArrayInputStream(getBody());
+    }
+
+    private int contentLength() {
+        String contentLength = headers.get("Content-Length");
+        try {
+            return nonNull(contentLength) ? Integer.parseInt(contentLength) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static byte[] readFully(InputStream stream, int expectedLength) {
+        try (InputStream in = stream) {
+            byte[] buffer = new byte[Math.max(expectedLength, 1024)];
+            int length = 0;
+            while (true) {
+                int read = in.read(buffer, length, buffer.length - length);
+                if (read == -1) {
+                    return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+                }
+                length += read;
+                if (length == buffer.length) {
+                    int next = in.read();
+                    if (next == -1) {
+                        return buffer;
+                    }
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    buffer[length++] = (byte) next;
+                }
+            }
+        } catch (IOException e) {
+            throw new RapidClientException(e);
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package pl.r6lab.rapidaws;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token bucket limiting retries of a client. Retries take tokens, successful responses put them back, so when most
+ * requests fail the bucket drains and requests fail fast instead of multiplying the load.
+ */
+final class RetryBudget {
+
+    private static final int RETRY_COST = 5;
+    private static final int CONNECTION_ERROR_RETRY_COST = 10;
+    private static final int SUCCESS_REFUND = 1;
+
+    private final int capacity;
+    private final AtomicInteger tokens;
+
+    private RetryBudget(int capacity) {
+        this.capacity = capacity;
+        this.tokens = new AtomicInteger(capacity);
+    }
+
+    static RetryBudget of(int capacity) {
+        return new RetryBudget(capacity);
+    }
+
+    /**
+     * @return cost taken from the budget or -1 when there are not enough tokens
+     */
+    int tryAcquire(RetryReason reason) {
+        int cost = reason == RetryReason.CONNECTION ? CONNECTION_ERROR_RETRY_COST : RETRY_COST;
+        while (true) {
+            int current = tokens.get();
+            if (current < cost) {
+                return -1;
+            }
+            if (tokens.compareAndSet(current, current - cost)) {
+                return cost;
+            }
+        }
+    }
+
+    /**
+     * @param retryCost cost of the retry that succeeded, 0 when the first attempt succeeded
+     */
+    void onSuccess(int retryCost) {
+        int refund = retryCost > 0 ? retryCost : SUCCESS_REFUND;
+        while (true) {
+            int current = tokens.get();
+            if (current >= capacity || tokens.compareAndSet(current, Math.min(capacity, current + refund))) {
+                return;
+            }
+        }
+    }
+
+    int getTokens() {
+        return tokens.get();
+    }
+}
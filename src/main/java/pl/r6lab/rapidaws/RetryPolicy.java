@@ -0,0 +1,119 @@
+package pl.r6lab.rapidaws;
+
+/**
+ * Immutable retry settings of a client. Start from {@link #defaults()} or {@link #none()} and adjust with the with*
+ * methods.
+ * <p>
+ * Throttling errors, 5xx responses and connection failures are retried with full jitter exponential backoff. Every
+ * retry takes tokens from a budget shared by all requests of the client and successful responses put them back, so
+ * a failing service gets a few retries instead of a multiple of the regular traffic. In adaptive mode throttling
+ * responses also lower the rate at which the client sends requests, the rate recovers gradually while requests
+ * succeed.
+ */
+public final class RetryPolicy {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long DEFAULT_BASE_DELAY_MILLIS = 25;
+    private static final long DEFAULT_THROTTLING_BASE_DELAY_MILLIS = 500;
+    private static final long DEFAULT_MAX_BACKOFF_MILLIS = 20_000;
+    private static final int DEFAULT_RETRY_BUDGET = 500;
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long throttlingBaseDelayMillis;
+    private final long maxBackoffMillis;
+    private final int retryBudget;
+    private final boolean adaptive;
+
+    private RetryPolicy(int maxAttempts, long baseDelayMillis, long throttlingBaseDelayMillis, long maxBackoffMillis, int retryBudget, boolean adaptive) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.throttlingBaseDelayMillis = throttlingBaseDelayMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.retryBudget = retryBudget;
+        this.adaptive = adaptive;
+    }
+
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_THROTTLING_BASE_DELAY_MILLIS,
+                DEFAULT_MAX_BACKOFF_MILLIS, DEFAULT_RETRY_BUDGET, false);
+    }
+
+    /**
+     * @return policy sending every request exactly once
+     */
+    public static RetryPolicy none() {
+        return defaults().withMaxAttempts(1);
+    }
+
+    /**
+     * @param maxAttempts number of requests sent including the first one
+     */
+    public RetryPolicy withMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is required");
+        }
+        return new RetryPolicy(maxAttempts, baseDelayMillis, throttlingBaseDelayMillis, maxBackoffMillis, retryBudget, adaptive);
+    }
+
+    /**
+     * @param baseDelayMillis upper bound of the first retry delay after 5xx or connection error, doubled with every
+     *                        attempt up to max backoff; actual delay is random below the bound
+     */
+    public RetryPolicy withBaseDelayMillis(long baseDelayMillis) {
+        return new RetryPolicy(maxAttempts, baseDelayMillis, throttlingBaseDelayMillis, maxBackoffMillis, retryBudget, adaptive);
+    }
+
+    /**
+     * @param throttlingBaseDelayMillis same as base delay but used after throttling errors
+     */
+    public RetryPolicy withThrottlingBaseDelayMillis(long throttlingBaseDelayMillis) {
+        return new RetryPolicy(maxAttempts, baseDelayMillis, throttlingBaseDelayMillis, maxBackoffMillis, retryBudget, adaptive);
+    }
+
+    public RetryPolicy withMaxBackoffMillis(long maxBackoffMillis) {
+        return new RetryPolicy(maxAttempts, baseDelayMillis, throttlingBaseDelayMillis, maxBackoffMillis, retryBudget, adaptive);
+    }
+
+    /**
+     * @param retryBudget capacity of the retry token bucket; a retry costs 5 tokens, 10 after a connection error, and
+     *                    every successful response returns 1
+     */
+    public RetryPolicy withRetryBudget(int retryBudget) {
+        if (retryBudget < 0) {
+            throw new IllegalArgumentException("Retry budget can't be negative");
+        }
+        return new RetryPolicy(maxAttempts, baseDelayMillis, throttlingBaseDelayMillis, maxBackoffMillis, retryBudget, adaptive);
+    }
+
+    /**
+     * @param adaptive when true throttling responses lower the send rate of the client
+     */
+    public RetryPolicy withAdaptive(boolean adaptive) {
+        return new RetryPolicy(maxAttempts, baseDelayMillis, throttlingBaseDelayMillis, maxBackoffMillis, retryBudget, adaptive);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    public long getThrottlingBaseDelayMillis() {
+        return throttlingBaseDelayMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    public int getRetryBudget() {
+        return retryBudget;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+}
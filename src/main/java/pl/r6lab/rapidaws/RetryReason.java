@@ -0,0 +1,101 @@
+package pl.r6lab.rapidaws;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Classifies responses and failures of a single attempt
+ */
+enum RetryReason {
+
+    NONE, THROTTLING, TRANSIENT, CONNECTION;
+
+    private static final String ERROR_TYPE_HEADER = "X-Amzn-ErrorType";
+    private static final String JSON_ERROR_TYPE = "\"__type\"";
+    private static final String XML_CODE_START = "<Code>";
+    private static final String XML_CODE_END = "</Code>";
+
+    private static final Set<String> THROTTLING_ERRORS = new HashSet<>(Arrays.asList(
+            "Throttling", "ThrottlingException", "ThrottledException", "RequestThrottledException",
+            "TooManyRequestsException", "ProvisionedThroughputExceededException", "TransactionInProgressException",
+            "RequestLimitExceeded", "BandwidthLimitExceeded", "LimitExceededException", "RequestThrottled",
+            "SlowDown", "PriorRequestNotComplete", "EC2ThrottledException"));
+    private static final Set<String> TRANSIENT_ERRORS = new HashSet<>(Arrays.asList(
+            "RequestTimeout", "RequestTimeoutException", "InternalError", "InternalServerError", "InternalFailure",
+            "ServiceUnavailable"));
+
+    static RetryReason of(Response response) {
+        int statusCode = response.getStatusCode();
+        if (statusCode < 400) {
+            return NONE;
+        }
+        if (statusCode == 429) {
+            return THROTTLING;
+        }
+        String errorCode = errorCode(response);
+        if (nonNull(errorCode) && THROTTLING_ERRORS.contains(errorCode)) {
+            return THROTTLING;
+        }
+        if (statusCode == 500 || statusCode == 502 || statusCode == 503 || statusCode == 504
+                || (nonNull(errorCode) && TRANSIENT_ERRORS.contains(errorCode))) {
+            return TRANSIENT;
+        }
+        return NONE;
+    }
+
+    /**
+     * Connection resets, timeouts and other I/O failures are retryable, everything else is a bug or misconfiguration
+     */
+    static RetryReason of(Throwable error) {
+        Throwable cause = error;
+        while (nonNull(cause)) {
+            if (cause instanceof IOException) {
+                return CONNECTION;
+            }
+            cause = cause.getCause();
+        }
+        return NONE;
+    }
+
+    /**
+     * Finds error code in X-Amzn-ErrorType header, __type field of JSON errors or Code element of XML errors. Codes
+     * are returned without namespace, e.g. "com.amazonaws.dynamodb.v20120810#ThrottlingException" and
+     * "AWS.SimpleQueueService.RequestThrottled" give the last segment.
+     */
+    static String errorCode(Response response) {
+        String errorType = response.getHeader(ERROR_TYPE_HEADER);
+        if (nonNull(errorType)) {
+            int end = errorType.indexOf(':');
+            return end < 0 ? errorType : errorType.substring(0, end);
+        }
+        String payload = response.getPayload();
+        int start = payload.indexOf(JSON_ERROR_TYPE);
+        if (start >= 0) {
+            start = payload.indexOf('"', payload.indexOf(':', start + JSON_ERROR_TYPE.length()) + 1);
+            int end = start < 0 ? -1 : payload.indexOf('"', start + 1);
+            if (end < 0) {
+                return null;
+            }
+            String code = payload.substring(start + 1, end);
+            return code.substring(code.lastIndexOf('#') + 1);
+        }
+        start = payload.indexOf(XML_CODE_START);
+        if (start >= 0) {
+            int end = payload.indexOf(XML_CODE_END, start);
+            if (end < 0) {
+                return null;
+            }
+            String code = payload.substring(start + XML_CODE_START.length(), end).trim();
+            return code.substring(code.lastIndexOf('.') + 1);
+        }
+        return null;
+    }
+
+    boolean isRetryable() {
+        return this != NONE;
+    }
+}
@@ -0,0 +1,198 @@
+package pl.r6lab.rapidaws;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Applies {@link RetryPolicy} to attempts of a request. Every attempt is signed again, so it carries a fresh date.
+ * Requests with stream bodies are sent once because the stream can't be replayed.
+ */
+final class RetryingExecutor {
+
+    private final RetryPolicy policy;
+    private final RetryBudget budget;
+    private final AdaptiveRateLimiter rateLimiter;
+
+    private RetryingExecutor(RetryPolicy policy) {
+        this.policy = policy;
+        this.budget = RetryBudget.of(policy.getRetryBudget());
+        this.rateLimiter = policy.isAdaptive() ? AdaptiveRateLimiter.create() : null;
+    }
+
+    static RetryingExecutor of(RetryPolicy policy) {
+        return new RetryingExecutor(policy);
+    }
+
+    Response execute(Request request, Callable<Response> attempt) throws Exception {
+        int retryCost = 0;
+        for (int attemptNumber = 1; ; ++attemptNumber) {
+            long sentAt = nonNull(rateLimiter) ? acquireSlot() : 0;
+            Response response = null;
+            Exception error = null;
+            try {
+                response = attempt.call();
+            } catch (Exception e) {
+                error = e;
+            }
+            RetryReason reason = nonNull(error) ? RetryReason.of(error) : RetryReason.of(response);
+            onAttempt(reason, response, retryCost, sentAt);
+            if (!reason.isRetryable() || (retryCost = acquireRetry(request, attemptNumber, reason)) < 0) {
+                if (nonNull(error)) {
+                    throw error;
+                }
+                return response;
+            }
+            sleepNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis(attemptNumber, reason)));
+        }
+    }
+
+    /**
+     * Backoff delays are scheduled on a shared timer, no thread waits for them. Cancelling returned future cancels
+     * the attempt in progress and stops further retries.
+     */
+    CompletableFuture<Response> executeAsync(Request request, Supplier<CompletableFuture<Response>> attempt) {
+        AsyncAttempts attempts = new AsyncAttempts(request, attempt);
+        attempts.next(1, 0);
+        return attempts.result;
+    }
+
+    RetryPolicy getPolicy() {
+        return policy;
+    }
+
+    int getRetryBudget() {
+        return budget.getTokens();
+    }
+
+    /**
+     * Waits for a send slot, slots reserved before the rate was cut are reserved again
+     *
+     * @return send time
+     */
+    private long acquireSlot() throws InterruptedException {
+        int epoch;
+        do {
+            epoch = rateLimiter.getEpoch();
+            sleepNanos(rateLimiter.reserve());
+        } while (epoch != rateLimiter.getEpoch());
+        return rateLimiter.onSend();
+    }
+
+    private void onAttempt(RetryReason reason, Response response, int retryCost, long sentAt) {
+        if (nonNull(rateLimiter)) {
+            rateLimiter.onResponse(reason == RetryReason.THROTTLING, sentAt);
+        }
+        if (nonNull(response) && response.isSuccess()) {
+            budget.onSuccess(retryCost);
+        }
+    }
+
+    /**
+     * @return retry cost or -1 when the request should not be retried
+     */
+    private int acquireRetry(Request request, int attemptNumber, RetryReason reason) {
+        if (attemptNumber >= policy.getMaxAttempts() || request.hasStreamBody()) {
+            return -1;
+        }
+        return budget.tryAcquire(reason);
+    }
+
+    private long backoffMillis(int attemptNumber, RetryReason reason) {
+        long base = reason == RetryReason.THROTTLING ? policy.getThrottlingBaseDelayMillis() : policy.getBaseDelayMillis();
+        long bound = Math.min(policy.getMaxBackoffMillis(), base << Math.min(attemptNumber - 1, 20));
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+
+    private final class AsyncAttempts {
+
+        private final CompletableFuture<Response> result = new CompletableFuture<>();
+        private final Request request;
+        private final Supplier<CompletableFuture<Response>> attempt;
+        private volatile CompletableFuture<Response> current;
+
+        private AsyncAttempts(Request request, Supplier<CompletableFuture<Response>> attempt) {
+            this.request = request;
+            this.attempt = attempt;
+            result.whenComplete((response, error) -> {
+                CompletableFuture<Response> inProgress = current;
+                if (result.isCancelled() && nonNull(inProgress)) {
+                    inProgress.cancel(true);
+                }
+            });
+        }
+
+        private void next(int attemptNumber, int retryCost) {
+            if (isNull(rateLimiter)) {
+                send(attemptNumber, retryCost, 0);
+                return;
+            }
+            int epoch = rateLimiter.getEpoch();
+            long delay = rateLimiter.reserve();
+            if (delay > 0) {
+                Scheduler.INSTANCE.schedule(() -> {
+                    if (epoch != rateLimiter.getEpoch()) {
+                        next(attemptNumber, retryCost);
+                    } else {
+                        send(attemptNumber, retryCost, rateLimiter.onSend());
+                    }
+                }, delay, TimeUnit.NANOSECONDS);
+            } else {
+                send(attemptNumber, retryCost, rateLimiter.onSend());
+            }
+        }
+
+        private void send(int attemptNumber, int retryCost, long sentAt) {
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<Response> future;
+            try {
+                future = attempt.get();
+            } catch (Exception e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            current = future;
+            future.whenComplete((response, error) -> {
+                if (result.isDone()) {
+                    return;
+                }
+                RetryReason reason = nonNull(error) ? RetryReason.of(error) : RetryReason.of(response);
+                onAttempt(reason, response, retryCost, sentAt);
+                int nextRetryCost = reason.isRetryable() ? acquireRetry(request, attemptNumber, reason) : -1;
+                if (nextRetryCost < 0) {
+                    if (nonNull(error)) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(response);
+                    }
+                    return;
+                }
+                Scheduler.INSTANCE.schedule(() -> next(attemptNumber + 1, nextRetryCost),
+                        backoffMillis(attemptNumber, reason), TimeUnit.MILLISECONDS);
+            });
+        }
+    }
+
+    private static final class Scheduler {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rapid-aws-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -5,7 +5,8 @@ public enum ServiceName {
     DYNAMODB("dynamodb", "DynamoDB_20120810", "application/x-amz-json-1.0", false),
     COMPREHEND("comprehend", "Comprehend_20171127", "application/x-amz-json-1.1", true),
     LAMBDA("lambda", "Lambda_2015_0331", "application/x-amz-json-1.1", true),
-    SQS("sqs", "AmazonSQSv20121105", "application/x-www-form-urlencoded", false);
+    SQS("sqs", "AmazonSQSv20121105", "application/x-www-form-urlencoded", false),
+    S3("s3", "2006-03-01", "application/octet-stream", false);
 
     private final String name;
     private final String version;
@@ -0,0 +1,115 @@
+package pl.r6lab.rapidaws;
+
+import pl.r6lab.rapidaws.http.Endpoint;
+
+/**
+ * What was warmed up for one service by {@link AbstractRapidClient#prime(int, ServiceName...)}
+ */
+public final class ServicePriming {
+
+    private final ServiceName serviceName;
+    private final Endpoint endpoint;
+    private final int addresses;
+    private final long resolveNanos;
+    private final long signingKeyNanos;
+    private final long signingNanos;
+    private final int connectionsOpened;
+    private final long connectNanos;
+    private final Exception error;
+
+    private ServicePriming(ServiceName serviceName, Endpoint endpoint, int addresses, long resolveNanos, long signingKeyNanos,
+                           long signingNanos, int connectionsOpened, long connectNanos, Exception error) {
+        this.serviceName = serviceName;
+        this.endpoint = endpoint;
+        this.addresses = addresses;
+        this.resolveNanos = resolveNanos;
+        this.signingKeyNanos = signingKeyNanos;
+        this.signingNanos = signingNanos;
+        this.connectionsOpened = connectionsOpened;
+        this.connectNanos = connectNanos;
+        this.error = error;
+    }
+
+    static ServicePriming of(ServiceName serviceName, Endpoint endpoint, int addresses, long resolveNanos, long signingKeyNanos,
+                             long signingNanos, int connectionsOpened, long connectNanos, Exception error) {
+        return new ServicePriming(serviceName, endpoint, addresses, resolveNanos, signingKeyNanos, signingNanos,
+                connectionsOpened, connectNanos, error);
+    }
+
+    public ServiceName getServiceName() {
+        return serviceName;
+    }
+
+    /**
+     * @return endpoint requests of the service are sent to, null when signing failed
+     */
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return number of addresses the endpoint host resolved to
+     */
+    public int getAddresses() {
+        return addresses;
+    }
+
+    public long getResolveNanos() {
+        return resolveNanos;
+    }
+
+    /**
+     * @return time of deriving today's signing key
+     */
+    public long getSigningKeyNanos() {
+        return signingKeyNanos;
+    }
+
+    /**
+     * @return time of signing a request that was never sent, mostly class loading of the request path
+     */
+    public long getSigningNanos() {
+        return signingNanos;
+    }
+
+    /**
+     * @return connections opened by the transport, 0 when enough of them were already idle
+     */
+    public int getConnectionsOpened() {
+        return connectionsOpened;
+    }
+
+    /**
+     * @return time of opening connections, TLS handshake included
+     */
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    /**
+     * @return first failure, steps after it were skipped; null when the service was fully primed
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    public boolean isPrimed() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder()
+                .append(serviceName.getName()).append(' ').append(endpoint)
+                .append(": addresses=").append(addresses)
+                .append(", resolve=").append(resolveNanos / 1000).append("us")
+                .append(", signingKey=").append(signingKeyNanos / 1000).append("us")
+                .append(", signing=").append(signingNanos / 1000).append("us")
+                .append(", connectionsOpened=").append(connectionsOpened)
+                .append(", connect=").append(connectNanos / 1000).append("us");
+        if (error != null) {
+            builder.append(", error=").append(error);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,140 @@
+package pl.r6lab.rapidaws;
+
+import pl.r6lab.rapidaws.http.Endpoint;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Per client and service parts of the request and signature that never change between requests. Endpoint override
+ * replaces scheme, host and port of the service URL; region and service name in the signature stay the same.
+ */
+final class ServiceTemplate {
+
+    private static final char DOT = '.';
+    private static final String X_AMZ_CONTENT_SHA256 = "x-amz-content-sha256";
+
+    private final ServiceName serviceName;
+    private final boolean overridden;
+    private final String host;
+    private final String httpUrl;
+    private final String httpsUrl;
+    private final String credentialsScope;
+    private final String[] signedHeaders;
+    private final String[][] signedHeaderNames;
+    private final String[] authorizationSuffixes;
+    private final boolean contentSha256Signed;
+    private final ConcurrentMap<String, String> targets = new ConcurrentHashMap<>();
+
+    private ServiceTemplate(ServiceName serviceName, String region, String signedHeaders, Endpoint endpointOverride) {
+        this.serviceName = serviceName;
+        this.overridden = nonNull(endpointOverride);
+        if (overridden) {
+            this.host = endpointOverride.getAuthority();
+            this.httpUrl = this.httpsUrl = (endpointOverride.isHttps() ? "https://" : "http://") + host;
+        } else {
+            this.host = serviceName.getName() + DOT + region + DOT + "amazonaws.com";
+            this.httpUrl = "http://" + host;
+            this.httpsUrl = "https://" + host;
+        }
+        this.credentialsScope = "/" + region + "/" + serviceName.getName() + "/aws4_request";
+        PayloadSigning[] payloadSignings = PayloadSigning.values();
+        this.signedHeaders = new String[payloadSignings.length];
+        this.signedHeaderNames = new String[payloadSignings.length][];
+        this.authorizationSuffixes = new String[payloadSignings.length];
+        for (PayloadSigning payloadSigning : payloadSignings) {
+            String[] names = withPayloadHeaders(signedHeaders.split(";"), payloadSigning);
+            int index = payloadSigning.ordinal();
+            this.signedHeaderNames[index] = names;
+            this.signedHeaders[index] = String.join(";", names);
+            this.authorizationSuffixes[index] = credentialsScope + ", SignedHeaders=" + this.signedHeaders[index] + ", Signature=";
+        }
+        this.contentSha256Signed = Arrays.asList(signedHeaderNames[PayloadSigning.SIGNED.ordinal()]).contains(X_AMZ_CONTENT_SHA256);
+    }
+
+    private static String[] withPayloadHeaders(String[] names, PayloadSigning payloadSigning) {
+        String[] extra;
+        switch (payloadSigning) {
+            case UNSIGNED:
+                extra = new String[]{X_AMZ_CONTENT_SHA256};
+                break;
+            case STREAMING:
+                extra = new String[]{"content-encoding", X_AMZ_CONTENT_SHA256, "x-amz-decoded-content-length"};
+                break;
+            default:
+                return names;
+        }
+        String[] merged = Arrays.copyOf(names, names.length + extra.length);
+        System.arraycopy(extra, 0, merged, names.length, extra.length);
+        return Arrays.stream(merged).distinct().sorted().toArray(String[]::new);
+    }
+
+    /**
+     * @param endpointOverride endpoint used instead of the regional AWS one, null for AWS
+     */
+    static ServiceTemplate of(ServiceName serviceName, String region, String signedHeaders, Endpoint endpointOverride) {
+        return new ServiceTemplate(serviceName, region, signedHeaders, endpointOverride);
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    /**
+     * @param https ignored when endpoint is overridden, the override decides the scheme
+     */
+    String getUrl(boolean https) {
+        return https ? httpsUrl : httpUrl;
+    }
+
+    boolean isOverridden() {
+        return overridden;
+    }
+
+    /**
+     * @return credentials scope without leading date stamp
+     */
+    String getCredentialsScope() {
+        return credentialsScope;
+    }
+
+    /**
+     * @return signed headers of the client extended with headers describing payload of given signing mode
+     */
+    String getSignedHeaders(PayloadSigning payloadSigning) {
+        return signedHeaders[payloadSigning.ordinal()];
+    }
+
+    /**
+     * @return lower case names of signed headers in canonical order
+     */
+    String[] getSignedHeaderNames(PayloadSigning payloadSigning) {
+        return signedHeaderNames[payloadSigning.ordinal()];
+    }
+
+    /**
+     * @return part of Authorization header between date stamp and signature
+     */
+    String getAuthorizationSuffix(PayloadSigning payloadSigning) {
+        return authorizationSuffixes[payloadSigning.ordinal()];
+    }
+
+    /**
+     * @return true when the client signs x-amz-content-sha256 for signed payloads too, as S3 requires
+     */
+    boolean isContentSha256Signed() {
+        return contentSha256Signed;
+    }
+
+    String target(String action) {
+        String target = targets.get(action);
+        if (target == null) {
+            target = serviceName.getVersion() + DOT + action;
+            targets.putIfAbsent(action, target);
+        }
+        return target;
+    }
+}
@@ -2,7 +2,9 @@ package pl.r6lab.rapidaws;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
@@ -11,21 +13,75 @@ import java.time.format.DateTimeFormatter;
 public final class SignatureVersion4 {
 
     private static final String HMAC_ALGORITHM = "hmacSHA256";
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("YYYYMMdd");
+    private static final String SHA_256_ALGORITHM = "SHA-256";
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * Provider lookups in Mac.getInstance / MessageDigest.getInstance are expensive compared to the hashing itself,
+     * so every thread keeps its own instances and resets them before use
+     */
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(SHA_256_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RapidClientException(e);
+        }
+    });
+
+    private static final ThreadLocal<Mac> HMAC_SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RapidClientException(e);
+        }
+    });
 
     private SignatureVersion4() {
     }
 
     public static final byte[] sha256(String toEncode) throws NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        return digest.digest(
-                toEncode.getBytes(StandardCharsets.UTF_8));
+        return sha256(toEncode.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static final byte[] sha256(byte[] toEncode) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        return digest.digest(toEncode);
+    }
+
+    public static final byte[] sha256(ByteBuffer toEncode) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        digest.update(toEncode);
+        return digest.digest();
     }
 
     public final static byte[] hmacSHA256(String data, byte[] key) throws Exception {
-        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        return hmacSHA256(data.getBytes(StandardCharsets.UTF_8), key);
+    }
+
+    public final static byte[] hmacSHA256(byte[] data, byte[] key) throws GeneralSecurityException {
+        Mac mac = HMAC_SHA_256.get();
+        mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+        return mac.doFinal(data);
+    }
+
+    static void sha256(byte[] data, int offset, int length, byte[] digest) {
+        MessageDigest messageDigest = SHA_256.get();
+        messageDigest.reset();
+        messageDigest.update(data, offset, length);
+        try {
+            messageDigest.digest(digest, 0, digest.length);
+        } catch (GeneralSecurityException e) {
+            throw new RapidClientException(e);
+        }
+    }
+
+    static void hmacSHA256(byte[] data, int offset, int length, byte[] key, byte[] digest) throws GeneralSecurityException {
+        Mac mac = HMAC_SHA_256.get();
         mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
-        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        mac.update(data, offset, length);
+        mac.doFinal(digest, 0);
     }
 
     /**
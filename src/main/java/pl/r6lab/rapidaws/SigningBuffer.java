@@ -0,0 +1,118 @@
+package pl.r6lab.rapidaws;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * Reusable byte buffer the canonical request and string to sign are written into. The content is hashed in place,
+ * so signing a request does not build intermediate Strings. Instances are not thread safe and are kept per thread.
+ */
+public final class SigningBuffer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int DIGEST_LENGTH = 32;
+    private static final ThreadLocal<SigningBuffer> BUFFERS = ThreadLocal.withInitial(SigningBuffer::new);
+
+    private final byte[] digest = new byte[DIGEST_LENGTH];
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int length;
+
+    SigningBuffer() {
+    }
+
+    static SigningBuffer get() {
+        SigningBuffer buffer = BUFFERS.get();
+        buffer.reset();
+        return buffer;
+    }
+
+    public SigningBuffer append(String value) {
+        int size = value.length();
+        ensureCapacity(size);
+        for (int i = 0; i < size; ++i) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                // Non ASCII values are rare (e.g. resource names), fall back to regular encoding for the rest
+                appendUtf8(value.substring(i));
+                return this;
+            }
+            bytes[length++] = (byte) c;
+        }
+        return this;
+    }
+
+    public SigningBuffer append(char value) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) value;
+        return this;
+    }
+
+    public SigningBuffer append(int value) {
+        if (value < 0) {
+            return append(Integer.toString(value));
+        }
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            ++digits;
+        }
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; --i) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    public SigningBuffer appendHex(byte[] value) {
+        ensureCapacity(value.length * 2);
+        for (byte b : value) {
+            bytes[length++] = Hex.DIGITS[(b >> 4) & 0x0F];
+            bytes[length++] = Hex.DIGITS[b & 0x0F];
+        }
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    void reset() {
+        length = 0;
+    }
+
+    /**
+     * @return SHA-256 of the buffer content; the returned array is reused by subsequent calls
+     */
+    byte[] sha256() {
+        SignatureVersion4.sha256(bytes, 0, length, digest);
+        return digest;
+    }
+
+    /**
+     * @return HMAC-SHA256 of the buffer content; the returned array is reused by subsequent calls
+     */
+    byte[] hmacSHA256(byte[] key) throws GeneralSecurityException {
+        SignatureVersion4.hmacSHA256(bytes, 0, length, key, digest);
+        return digest;
+    }
+
+    private void appendUtf8(String value) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, bytes, length, encoded.length);
+        length += encoded.length;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package pl.r6lab.rapidaws;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * UTC request timestamp in both formats used by SigV4. Formatting is done at most once per second and shared
+ * between all clients.
+ */
+final class SigningDate {
+
+    private static final DateTimeFormatter DATE_STAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter AWS_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private static volatile SigningDate current = of(Instant.now().getEpochSecond());
+
+    private final long epochSecond;
+    private final LocalDate date;
+    private final String dateStamp;
+    private final String awsDate;
+
+    private SigningDate(long epochSecond, LocalDate date, String dateStamp, String awsDate) {
+        this.epochSecond = epochSecond;
+        this.date = date;
+        this.dateStamp = dateStamp;
+        this.awsDate = awsDate;
+    }
+
+    static SigningDate now() {
+        long epochSecond = System.currentTimeMillis() / 1000;
+        SigningDate signingDate = current;
+        if (signingDate.epochSecond != epochSecond) {
+            signingDate = of(epochSecond);
+            current = signingDate;
+        }
+        return signingDate;
+    }
+
+    private static SigningDate of(long epochSecond) {
+        LocalDateTime now = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+        return new SigningDate(epochSecond, now.toLocalDate(), now.format(DATE_STAMP_FORMATTER), now.format(AWS_DATE_FORMATTER));
+    }
+
+    LocalDate getDate() {
+        return date;
+    }
+
+    String getDateStamp() {
+        return dateStamp;
+    }
+
+    String getAwsDate() {
+        return awsDate;
+    }
+}
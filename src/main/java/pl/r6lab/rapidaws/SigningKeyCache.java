@@ -0,0 +1,52 @@
+package pl.r6lab.rapidaws;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Derived SigV4 signing keys depend only on secret key, date, region and service, so they are computed once per
+ * service and day. Keys roll over on the first request after UTC midnight or when the secret key changes.
+ */
+public final class SigningKeyCache {
+
+    private final String region;
+    private final ConcurrentMap<String, SigningKey> keys = new ConcurrentHashMap<>();
+
+    private SigningKeyCache(String region) {
+        this.region = region;
+    }
+
+    public static SigningKeyCache of(String region) {
+        return new SigningKeyCache(region);
+    }
+
+    public byte[] get(String secretKey, LocalDate signatureDate, String serviceName) throws Exception {
+        SigningKey signingKey = keys.get(serviceName);
+        if (signingKey == null || !signingKey.isValidFor(secretKey, signatureDate)) {
+            signingKey = new SigningKey(secretKey, signatureDate, SignatureVersion4.getSignatureKey(secretKey, signatureDate, region, serviceName));
+            keys.put(serviceName, signingKey);
+        }
+        return signingKey.key;
+    }
+
+    public void invalidate() {
+        keys.clear();
+    }
+
+    private static final class SigningKey {
+        private final String secretKey;
+        private final LocalDate signatureDate;
+        private final byte[] key;
+
+        private SigningKey(String secretKey, LocalDate signatureDate, byte[] key) {
+            this.secretKey = secretKey;
+            this.signatureDate = signatureDate;
+            this.key = key;
+        }
+
+        private boolean isValidFor(String secretKey, LocalDate signatureDate) {
+            return this.signatureDate.equals(signatureDate) && this.secretKey.equals(secretKey);
+        }
+    }
+}
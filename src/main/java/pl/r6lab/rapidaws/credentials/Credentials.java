@@ -0,0 +1,61 @@
+package pl.r6lab.rapidaws.credentials;
+
+import java.time.Instant;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Immutable AWS credentials, optionally temporary
+ */
+public final class Credentials {
+
+    private final String accessKey;
+    private final String secretKey;
+    private final String sessionToken;
+    private final Instant expiration;
+
+    private Credentials(String accessKey, String secretKey, String sessionToken, Instant expiration) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.sessionToken = sessionToken;
+        this.expiration = expiration;
+    }
+
+    public static Credentials of(String accessKey, String secretKey, String sessionToken) {
+        return of(accessKey, secretKey, sessionToken, null);
+    }
+
+    /**
+     * @param expiration null when credentials don't expire
+     */
+    public static Credentials of(String accessKey, String secretKey, String sessionToken, Instant expiration) {
+        if (isNull(accessKey) || isNull(secretKey)) {
+            throw new IllegalArgumentException("Access key and secret key are required");
+        }
+        return new Credentials(accessKey, secretKey, sessionToken, expiration);
+    }
+
+    public String getAccessKey() {
+        return accessKey;
+    }
+
+    public String getSecretKey() {
+        return secretKey;
+    }
+
+    /**
+     * @return token of temporary credentials, null for long-term ones
+     */
+    public String getSessionToken() {
+        return sessionToken;
+    }
+
+    public Instant getExpiration() {
+        return expiration;
+    }
+
+    @Override
+    public String toString() {
+        return "Credentials{accessKey=" + accessKey + ", expiration=" + expiration + '}';
+    }
+}
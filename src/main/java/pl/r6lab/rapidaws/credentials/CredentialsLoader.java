@@ -0,0 +1,18 @@
+package pl.r6lab.rapidaws.credentials;
+
+import java.io.IOException;
+
+/**
+ * Fetches credentials from their source, possibly over network. Called by {@link RefreshingCredentialsProvider}
+ * outside of the request path.
+ *
+ * @see CredentialsLoaders
+ */
+@FunctionalInterface
+public interface CredentialsLoader {
+
+    /**
+     * @throws IOException when the source is not available or failed
+     */
+    Credentials load() throws IOException;
+}
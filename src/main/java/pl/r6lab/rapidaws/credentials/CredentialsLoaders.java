@@ -0,0 +1,255 @@
+package pl.r6lab.rapidaws.credentials;
+
+import pl.r6lab.rapidaws.http.ConnectionPool;
+import pl.r6lab.rapidaws.http.ConnectionPoolConfig;
+import pl.r6lab.rapidaws.http.HttpRequest;
+import pl.r6lab.rapidaws.http.HttpResponse;
+import pl.r6lab.rapidaws.json.JsonReader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Loaders of credentials from the usual AWS sources
+ */
+public final class CredentialsLoaders {
+
+    private static final String CONTAINER_HOST = "http://169.254.170.2";
+    private static final String INSTANCE_METADATA_HOST = "http://169.254.169.254";
+    private static final String INSTANCE_METADATA_TOKEN_PATH = "/latest/api/token";
+    private static final String INSTANCE_METADATA_CREDENTIALS_PATH = "/latest/meta-data/iam/security-credentials/";
+    private static final String INSTANCE_METADATA_TOKEN_HEADER = "X-aws-ec2-metadata-token";
+    private static final String INSTANCE_METADATA_TOKEN_TTL_HEADER = "X-aws-ec2-metadata-token-ttl-seconds";
+    private static final String INSTANCE_METADATA_TOKEN_TTL_SECONDS = "21600";
+    private static final String DEFAULT_PROFILE = "default";
+    private static final int METADATA_CONNECT_TIMEOUT_MILLIS = 1_000;
+    private static final int METADATA_READ_TIMEOUT_MILLIS = 2_000;
+
+    private CredentialsLoaders() {
+    }
+
+    /**
+     * AWS_ACCESS_KEY_ID, AWS_SECRET_ACCESS_KEY and AWS_SESSION_TOKEN, with AWS_ACCESS_KEY and AWS_SECRET_KEY as
+     * fallback, as set in Lambda runtime
+     */
+    public static CredentialsLoader environment() {
+        return () -> {
+            String accessKey = env("AWS_ACCESS_KEY_ID", "AWS_ACCESS_KEY");
+            String secretKey = env("AWS_SECRET_ACCESS_KEY", "AWS_SECRET_KEY");
+            if (isNull(accessKey) || isNull(secretKey)) {
+                throw new IOException("No credentials in environment variables");
+            }
+            return Credentials.of(accessKey, secretKey, env("AWS_SESSION_TOKEN", null));
+        };
+    }
+
+    /**
+     * Profile named by AWS_PROFILE, default one otherwise
+     */
+    public static CredentialsLoader profile() {
+        String profile = System.getenv("AWS_PROFILE");
+        return profile(isNull(profile) ? DEFAULT_PROFILE : profile);
+    }
+
+    /**
+     * Profile of the shared credentials file, ~/.aws/credentials or the one set in AWS_SHARED_CREDENTIALS_FILE
+     */
+    public static CredentialsLoader profile(String profile) {
+        return () -> {
+            String path = System.getenv("AWS_SHARED_CREDENTIALS_FILE");
+            File file = isNull(path) ? Paths.get(System.getProperty("user.home"), ".aws", "credentials").toFile() : new File(path);
+            if (!file.isFile()) {
+                throw new IOException("No credentials file " + file);
+            }
+            Map<String, String> properties = readProfile(file, profile);
+            String accessKey = properties.get("aws_access_key_id");
+            String secretKey = properties.get("aws_secret_access_key");
+            if (isNull(accessKey) || isNull(secretKey)) {
+                throw new IOException("No credentials of profile " + profile + " in " + file);
+            }
+            return Credentials.of(accessKey, secretKey, properties.get("aws_session_token"));
+        };
+    }
+
+    /**
+     * Container credentials endpoint of ECS, EKS Pod Identity and similar, set in
+     * AWS_CONTAINER_CREDENTIALS_RELATIVE_URI or AWS_CONTAINER_CREDENTIALS_FULL_URI. Authorization token is read
+     * from AWS_CONTAINER_AUTHORIZATION_TOKEN_FILE or AWS_CONTAINER_AUTHORIZATION_TOKEN on every load.
+     */
+    public static CredentialsLoader container() {
+        return () -> {
+            String relativeUri = System.getenv("AWS_CONTAINER_CREDENTIALS_RELATIVE_URI");
+            String url = nonNull(relativeUri) ? CONTAINER_HOST + relativeUri : System.getenv("AWS_CONTAINER_CREDENTIALS_FULL_URI");
+            if (isNull(url)) {
+                throw new IOException("No container credentials endpoint");
+            }
+            HttpRequest request = HttpRequest.of("GET", url);
+            String tokenFile = System.getenv("AWS_CONTAINER_AUTHORIZATION_TOKEN_FILE");
+            String token = nonNull(tokenFile)
+                    ? new String(Files.readAllBytes(Paths.get(tokenFile)), StandardCharsets.UTF_8).trim()
+                    : System.getenv("AWS_CONTAINER_AUTHORIZATION_TOKEN");
+            if (nonNull(token)) {
+                request.setHeader("Authorization", token);
+            }
+            return parse(send(request));
+        };
+    }
+
+    /**
+     * EC2 instance metadata service with session tokens (IMDSv2), disabled with AWS_EC2_METADATA_DISABLED=true.
+     * Endpoint can be changed with AWS_EC2_METADATA_SERVICE_ENDPOINT.
+     */
+    public static CredentialsLoader instanceMetadata() {
+        return () -> {
+            if (Boolean.parseBoolean(System.getenv("AWS_EC2_METADATA_DISABLED"))) {
+                throw new IOException("Instance metadata service is disabled");
+            }
+            String endpoint = System.getenv("AWS_EC2_METADATA_SERVICE_ENDPOINT");
+            String host = isNull(endpoint) ? INSTANCE_METADATA_HOST : endpoint.replaceAll("/+$", "");
+
+            HttpRequest tokenRequest = HttpRequest.of("PUT", host + INSTANCE_METADATA_TOKEN_PATH);
+            tokenRequest.setHeader(INSTANCE_METADATA_TOKEN_TTL_HEADER, INSTANCE_METADATA_TOKEN_TTL_SECONDS);
+            tokenRequest.setBody(new byte[0]);
+            String token = new String(send(tokenRequest), StandardCharsets.UTF_8).trim();
+
+            HttpRequest roleRequest = HttpRequest.of("GET", host + INSTANCE_METADATA_CREDENTIALS_PATH);
+            roleRequest.setHeader(INSTANCE_METADATA_TOKEN_HEADER, token);
+            String role = new String(send(roleRequest), StandardCharsets.UTF_8).trim().split("\n")[0].trim();
+            if (role.isEmpty()) {
+                throw new IOException("No IAM role attached to the instance");
+            }
+
+            HttpRequest credentialsRequest = HttpRequest.of("GET", host + INSTANCE_METADATA_CREDENTIALS_PATH + role);
+            credentialsRequest.setHeader(INSTANCE_METADATA_TOKEN_HEADER, token);
+            return parse(send(credentialsRequest));
+        };
+    }
+
+    /**
+     * Uses the first loader which succeeds and keeps using it once it did, failures of all loaders are reported
+     * together
+     */
+    public static CredentialsLoader chain(CredentialsLoader... loaders) {
+        List<CredentialsLoader> chain = Arrays.asList(loaders.clone());
+        AtomicReference<CredentialsLoader> selected = new AtomicReference<>();
+        return () -> {
+            CredentialsLoader loader = selected.get();
+            if (nonNull(loader)) {
+                return loader.load();
+            }
+            IOException failure = new IOException("No credentials found in the chain");
+            for (CredentialsLoader candidate : chain) {
+                try {
+                    Credentials credentials = candidate.load();
+                    selected.set(candidate);
+                    return credentials;
+                } catch (IOException | RuntimeException e) {
+                    failure.addSuppressed(e);
+                }
+            }
+            throw failure;
+        };
+    }
+
+    /**
+     * Environment variables, shared credentials file, container endpoint and instance metadata, in that order
+     */
+    public static CredentialsLoader defaultChain() {
+        return chain(environment(), profile(), container(), instanceMetadata());
+    }
+
+    private static String env(String name, String fallbackName) {
+        String value = System.getenv(name);
+        return nonNull(value) || isNull(fallbackName) ? value : System.getenv(fallbackName);
+    }
+
+    private static Map<String, String> readProfile(File file, String profile) throws IOException {
+        Map<String, String> properties = new HashMap<>();
+        boolean inProfile = false;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith(";")) {
+                    continue;
+                }
+                if (line.startsWith("[") && line.endsWith("]")) {
+                    inProfile = profile.equals(line.substring(1, line.length() - 1).trim());
+                } else if (inProfile) {
+                    int separator = line.indexOf('=');
+                    if (separator > 0) {
+                        properties.put(line.substring(0, separator).trim().toLowerCase(), line.substring(separator + 1).trim());
+                    }
+                }
+            }
+        }
+        return properties;
+    }
+
+    private static byte[] send(HttpRequest request) throws IOException {
+        HttpResponse response = Holder.METADATA_POOL.execute(request);
+        if (response.getStatusCode() != 200) {
+            throw new IOException("Credentials endpoint " + request.getEndpoint() + request.getPath() + " responded with " + response.getStatusCode());
+        }
+        return response.getBody();
+    }
+
+    /**
+     * Reads AccessKeyId, SecretAccessKey, Token and Expiration of container and instance metadata responses
+     */
+    private static Credentials parse(byte[] body) throws IOException {
+        String accessKey = null;
+        String secretKey = null;
+        String token = null;
+        Instant expiration = null;
+        JsonReader reader = JsonReader.of(body);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "AccessKeyId":
+                        accessKey = reader.nextString();
+                        break;
+                    case "SecretAccessKey":
+                        secretKey = reader.nextString();
+                        break;
+                    case "Token":
+                        token = reader.nextString();
+                        break;
+                    case "Expiration":
+                        expiration = Instant.parse(reader.nextString());
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid credentials response", e);
+        }
+        if (isNull(accessKey) || isNull(secretKey)) {
+            throw new IOException("Credentials response without keys");
+        }
+        return Credentials.of(accessKey, secretKey, token, expiration);
+    }
+
+    private static final class Holder {
+        private static final ConnectionPool METADATA_POOL = ConnectionPool.of(ConnectionPoolConfig.defaults()
+                .withMaxConnectionsPerHost(2)
+                .withConnectTimeoutMillis(METADATA_CONNECT_TIMEOUT_MILLIS)
+                .withReadTimeoutMillis(METADATA_READ_TIMEOUT_MILLIS)
+                .withAcquireTimeoutMillis(METADATA_READ_TIMEOUT_MILLIS));
+    }
+}
@@ -0,0 +1,15 @@
+package pl.r6lab.rapidaws.credentials;
+
+/**
+ * Source of credentials used to sign every request
+ */
+@FunctionalInterface
+public interface CredentialsProvider {
+
+    /**
+     * Called on every request, so it must return cached credentials without blocking
+     *
+     * @throws pl.r6lab.rapidaws.RapidClientException when no credentials are available
+     */
+    Credentials getCredentials();
+}
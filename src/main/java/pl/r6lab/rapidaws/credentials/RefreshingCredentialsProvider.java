@@ -0,0 +1,124 @@
+package pl.r6lab.rapidaws.credentials;
+
+import pl.r6lab.rapidaws.RapidClientException;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Caches credentials of a loader and refreshes them in the background before they expire, so requests never wait
+ * for a credentials source. Credentials are loaded once when the provider is created, e.g. in Lambda init phase;
+ * later loads run on a shared daemon thread. Until a refresh succeeds the previous credentials are used, failed
+ * refreshes are retried. Credentials without expiration are never refreshed.
+ */
+public final class RefreshingCredentialsProvider implements CredentialsProvider, AutoCloseable {
+
+    private static final long DEFAULT_REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long RETRY_DELAY_MILLIS = 10_000;
+    private static final long MIN_REFRESH_DELAY_MILLIS = 1_000;
+
+    private final CredentialsLoader loader;
+    private final long refreshAheadMillis;
+
+    private volatile Credentials credentials;
+    private volatile Exception failure;
+    private volatile boolean closed;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    private RefreshingCredentialsProvider(CredentialsLoader loader, long refreshAheadMillis) {
+        this.loader = loader;
+        this.refreshAheadMillis = refreshAheadMillis;
+    }
+
+    /**
+     * Loads credentials in the calling thread before returning
+     */
+    public static RefreshingCredentialsProvider of(CredentialsLoader loader) {
+        return of(loader, DEFAULT_REFRESH_AHEAD_MILLIS);
+    }
+
+    /**
+     * @param refreshAheadMillis how long before expiration credentials are refreshed
+     */
+    public static RefreshingCredentialsProvider of(CredentialsLoader loader, long refreshAheadMillis) {
+        RefreshingCredentialsProvider provider = new RefreshingCredentialsProvider(loader, refreshAheadMillis);
+        provider.refresh();
+        return provider;
+    }
+
+    /**
+     * @return provider of {@link CredentialsLoaders#defaultChain()} credentials shared by env aware clients, created
+     * on first use
+     */
+    public static RefreshingCredentialsProvider defaultProvider() {
+        return DefaultHolder.DEFAULT_PROVIDER;
+    }
+
+    @Override
+    public Credentials getCredentials() {
+        Credentials current = credentials;
+        if (isNull(current)) {
+            throw new RapidClientException("No credentials available", failure);
+        }
+        return current;
+    }
+
+    /**
+     * @return error of the last load, null when it succeeded
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * Stops background refreshes
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+    }
+
+    private void refresh() {
+        long delay;
+        try {
+            Credentials loaded = loader.load();
+            this.credentials = loaded;
+            this.failure = null;
+            if (isNull(loaded.getExpiration())) {
+                return;
+            }
+            delay = Math.max(MIN_REFRESH_DELAY_MILLIS, loaded.getExpiration().toEpochMilli() - refreshAheadMillis - Instant.now().toEpochMilli());
+        } catch (IOException | RuntimeException e) {
+            this.failure = e;
+            delay = RETRY_DELAY_MILLIS;
+        }
+        schedule(delay);
+    }
+
+    private synchronized void schedule(long delayMillis) {
+        if (!closed) {
+            scheduledRefresh = Holder.REFRESH_EXECUTOR.schedule(this::refresh, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static final class DefaultHolder {
+        private static final RefreshingCredentialsProvider DEFAULT_PROVIDER = of(CredentialsLoaders.defaultChain());
+    }
+
+    private static final class Holder {
+        private static final ScheduledExecutorService REFRESH_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rapid-aws-credentials");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package pl.r6lab.rapidaws.credentials;
+
+/**
+ * Fixed credentials, e.g. long-term keys passed explicitly
+ */
+public final class StaticCredentialsProvider implements CredentialsProvider {
+
+    private final Credentials credentials;
+
+    private StaticCredentialsProvider(Credentials credentials) {
+        this.credentials = credentials;
+    }
+
+    public static StaticCredentialsProvider of(Credentials credentials) {
+        return new StaticCredentialsProvider(credentials);
+    }
+
+    public static StaticCredentialsProvider of(String accessKey, String secretKey, String sessionToken) {
+        return new StaticCredentialsProvider(Credentials.of(accessKey, secretKey, sessionToken));
+    }
+
+    @Override
+    public Credentials getCredentials() {
+        return credentials;
+    }
+}
@@ -0,0 +1,358 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.json.JsonException;
+import pl.r6lab.rapidaws.json.JsonReader;
+import pl.r6lab.rapidaws.json.Utf8JsonWriter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable DynamoDB attribute value of one of the DynamoDB types. Numbers are kept as written, so no precision is
+ * lost. Getters of other types than the value has return null.
+ */
+public final class AttributeValue {
+
+    public enum Type {
+        S, N, B, BOOL, NULL, M, L, SS, NS, BS
+    }
+
+    private static final AttributeValue NULL = new AttributeValue(Type.NULL, Boolean.TRUE);
+    private static final AttributeValue TRUE = new AttributeValue(Type.BOOL, Boolean.TRUE);
+    private static final AttributeValue FALSE = new AttributeValue(Type.BOOL, Boolean.FALSE);
+
+    private final Type type;
+    private final Object value;
+
+    private AttributeValue(Type type, Object value) {
+        this.type = type;
+        this.value = Objects.requireNonNull(value, "Attribute value must not be null, use AttributeValue.nul()");
+    }
+
+    public static AttributeValue s(String value) {
+        return new AttributeValue(Type.S, value);
+    }
+
+    /**
+     * @param value number as DynamoDB accepts it, up to 38 digits of precision
+     */
+    public static AttributeValue n(String value) {
+        return new AttributeValue(Type.N, value);
+    }
+
+    public static AttributeValue n(long value) {
+        return new AttributeValue(Type.N, Long.toString(value));
+    }
+
+    public static AttributeValue n(BigDecimal value) {
+        return new AttributeValue(Type.N, value.toPlainString());
+    }
+
+    /**
+     * @param value binary value, the array is not copied
+     */
+    public static AttributeValue b(byte[] value) {
+        return new AttributeValue(Type.B, value);
+    }
+
+    public static AttributeValue bool(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    public static AttributeValue nul() {
+        return NULL;
+    }
+
+    public static AttributeValue m(Map<String, AttributeValue> value) {
+        return new AttributeValue(Type.M, Collections.unmodifiableMap(new LinkedHashMap<>(value)));
+    }
+
+    public static AttributeValue m(Item value) {
+        return new AttributeValue(Type.M, value.asMap());
+    }
+
+    public static AttributeValue l(List<AttributeValue> value) {
+        return new AttributeValue(Type.L, Collections.unmodifiableList(new ArrayList<>(value)));
+    }
+
+    public static AttributeValue l(AttributeValue... value) {
+        return l(Arrays.asList(value));
+    }
+
+    public static AttributeValue ss(Collection<String> value) {
+        return new AttributeValue(Type.SS, Collections.unmodifiableList(new ArrayList<>(value)));
+    }
+
+    public static AttributeValue ss(String... value) {
+        return ss(Arrays.asList(value));
+    }
+
+    public static AttributeValue ns(Collection<String> value) {
+        return new AttributeValue(Type.NS, Collections.unmodifiableList(new ArrayList<>(value)));
+    }
+
+    public static AttributeValue bs(Collection<byte[]> value) {
+        return new AttributeValue(Type.BS, Collections.unmodifiableList(new ArrayList<>(value)));
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getS() {
+        return type == Type.S ? (String) value : null;
+    }
+
+    public String getN() {
+        return type == Type.N ? (String) value : null;
+    }
+
+    /**
+     * @return number value as long, throws NumberFormatException for fractions and values out of long range
+     */
+    public long asLong() {
+        if (type != Type.N) {
+            throw new IllegalStateException("Attribute of type " + type + " is not a number");
+        }
+        return Long.parseLong((String) value);
+    }
+
+    public BigDecimal asBigDecimal() {
+        if (type != Type.N) {
+            throw new IllegalStateException("Attribute of type " + type + " is not a number");
+        }
+        return new BigDecimal((String) value);
+    }
+
+    /**
+     * @return binary value, the array is not copied and must not be modified
+     */
+    public byte[] getB() {
+        return type == Type.B ? (byte[]) value : null;
+    }
+
+    public Boolean getBool() {
+        return type == Type.BOOL ? (Boolean) value : null;
+    }
+
+    public boolean isNull() {
+        return type == Type.NULL;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, AttributeValue> getM() {
+        return type == Type.M ? (Map<String, AttributeValue>) value : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<AttributeValue> getL() {
+        return type == Type.L ? (List<AttributeValue>) value : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> getSS() {
+        return type == Type.SS ? (List<String>) value : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> getNS() {
+        return type == Type.NS ? (List<String>) value : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<byte[]> getBS() {
+        return type == Type.BS ? (List<byte[]>) value : null;
+    }
+
+    /**
+     * Writes the value in DynamoDB JSON format, e.g. {"S":"text"}
+     */
+    @SuppressWarnings("unchecked")
+    public void writeTo(Utf8JsonWriter json) {
+        json.beginObject().name(type.name());
+        switch (type) {
+            case S:
+            case N:
+                json.value((String) value);
+                break;
+            case B:
+                json.base64Value((byte[]) value);
+                break;
+            case BOOL:
+            case NULL:
+                json.value((Boolean) value);
+                break;
+            case M:
+                writeMap(json, (Map<String, AttributeValue>) value);
+                break;
+            case L:
+                json.beginArray();
+                for (AttributeValue element : (List<AttributeValue>) value) {
+                    element.writeTo(json);
+                }
+                json.endArray();
+                break;
+            case SS:
+            case NS:
+                json.beginArray();
+                for (String element : (List<String>) value) {
+                    json.value(element);
+                }
+                json.endArray();
+                break;
+            case BS:
+                json.beginArray();
+                for (byte[] element : (List<byte[]>) value) {
+                    json.base64Value(element);
+                }
+                json.endArray();
+                break;
+            default:
+                throw new IllegalStateException(type.name());
+        }
+        json.endObject();
+    }
+
+    /**
+     * Reads value in DynamoDB JSON format
+     */
+    public static AttributeValue readFrom(JsonReader json) {
+        json.beginObject();
+        String typeName = json.nextName();
+        AttributeValue attribute;
+        switch (typeName) {
+            case "S":
+                attribute = s(json.nextString());
+                break;
+            case "N":
+                attribute = n(json.nextString());
+                break;
+            case "B":
+                attribute = b(Base64.getDecoder().decode(json.nextString()));
+                break;
+            case "BOOL":
+                attribute = bool(json.nextBoolean());
+                break;
+            case "NULL":
+                json.nextBoolean();
+                attribute = NULL;
+                break;
+            case "M":
+                attribute = new AttributeValue(Type.M, Collections.unmodifiableMap(readMap(json)));
+                break;
+            case "L":
+                List<AttributeValue> list = new ArrayList<>();
+                json.beginArray();
+                while (json.hasNext()) {
+                    list.add(readFrom(json));
+                }
+                json.endArray();
+                attribute = new AttributeValue(Type.L, Collections.unmodifiableList(list));
+                break;
+            case "SS":
+            case "NS":
+                List<String> strings = new ArrayList<>();
+                json.beginArray();
+                while (json.hasNext()) {
+                    strings.add(json.nextString());
+                }
+                json.endArray();
+                attribute = new AttributeValue(Type.valueOf(typeName), Collections.unmodifiableList(strings));
+                break;
+            case "BS":
+                List<byte[]> binaries = new ArrayList<>();
+                json.beginArray();
+                while (json.hasNext()) {
+                    binaries.add(Base64.getDecoder().decode(json.nextString()));
+                }
+                json.endArray();
+                attribute = new AttributeValue(Type.BS, Collections.unmodifiableList(binaries));
+                break;
+            default:
+                throw new JsonException("Unknown attribute type " + typeName);
+        }
+        json.endObject();
+        return attribute;
+    }
+
+    static void writeMap(Utf8JsonWriter json, Map<String, AttributeValue> attributes) {
+        json.beginObject();
+        for (Map.Entry<String, AttributeValue> attribute : attributes.entrySet()) {
+            json.name(attribute.getKey());
+            attribute.getValue().writeTo(json);
+        }
+        json.endObject();
+    }
+
+    static Map<String, AttributeValue> readMap(JsonReader json) {
+        Map<String, AttributeValue> attributes = new LinkedHashMap<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            attributes.put(name, readFrom(json));
+        }
+        json.endObject();
+        return attributes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AttributeValue)) {
+            return false;
+        }
+        AttributeValue that = (AttributeValue) o;
+        if (type != that.type) {
+            return false;
+        }
+        if (type == Type.B) {
+            return Arrays.equals((byte[]) value, (byte[]) that.value);
+        }
+        if (type == Type.BS) {
+            List<?> values = (List<?>) value;
+            List<?> thatValues = (List<?>) that.value;
+            if (values.size() != thatValues.size()) {
+                return false;
+            }
+            for (int i = 0; i < values.size(); ++i) {
+                if (!Arrays.equals((byte[]) values.get(i), (byte[]) thatValues.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return value.equals(that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        if (type == Type.B) {
+            return Arrays.hashCode((byte[]) value);
+        }
+        if (type == Type.BS) {
+            int hash = 1;
+            for (Object element : (List<?>) value) {
+                hash = 31 * hash + Arrays.hashCode((byte[]) element);
+            }
+            return hash;
+        }
+        return 31 * type.hashCode() + value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        Utf8JsonWriter json = Utf8JsonWriter.create();
+        writeTo(json);
+        return json.toString();
+    }
+}
@@ -0,0 +1,20 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Backoff of unprocessed items shared by batch operations; failed calls are retried by the client
+ */
+final class BatchRetries {
+
+    private BatchRetries() {
+    }
+
+    /**
+     * Sleeps for random time below exponentially growing bound, so retries of parallel chunks don't synchronize
+     */
+    static void backoff(int attempt, DynamoDBBatchConfig config) throws InterruptedException {
+        long bound = Math.min(config.getMaxBackoffMillis(), config.getBaseBackoffMillis() << Math.min(attempt - 1, 20));
+        Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+    }
+}
@@ -0,0 +1,276 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One lock stripe of {@link DynamoDBItemCache}. Lookups read the map without locking. Eviction follows W-TinyLFU:
+ * new entries go to a small LRU window. Entries leaving the window are admitted to the main SLRU space (probation and
+ * protected) only when the frequency sketch says they are accessed more often than the probation entry they would
+ * evict. Accesses are recorded only when the lock is free, losing some of them under contention instead of blocking
+ * readers. Weights are item sizes in bytes.
+ */
+final class CacheSegment<K> {
+
+    private static final int ASSUMED_ITEM_SIZE = 512;
+    private static final int MAX_SKETCH_SIZE = 1 << 16;
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private final Map<K, Node<K>> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AccessOrder<K> window = new AccessOrder<>();
+    private final AccessOrder<K> probation = new AccessOrder<>();
+    private final AccessOrder<K> protectedOrder = new AccessOrder<>();
+    private final FrequencySketch sketch;
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private final long protectedMaxWeight;
+    private final LongAdder evictions;
+    private final LongAdder expirations;
+    private long windowWeight;
+    private long protectedWeight;
+    private volatile long weight;
+
+    CacheSegment(long maxWeight, LongAdder evictions, LongAdder expirations) {
+        this.maxWeight = maxWeight;
+        this.windowMaxWeight = Math.max(1, maxWeight / 100);
+        this.protectedMaxWeight = (maxWeight - windowMaxWeight) * 8 / 10;
+        this.sketch = new FrequencySketch((int) Math.min(MAX_SKETCH_SIZE, maxWeight / ASSUMED_ITEM_SIZE));
+        this.evictions = evictions;
+        this.expirations = expirations;
+    }
+
+    /**
+     * @return entry which has not expired or null
+     */
+    Node<K> get(K key, long nowNanos) {
+        Node<K> node = entries.get(key);
+        if (node != null && node.expiresAtNanos - nowNanos <= 0) {
+            lock.lock();
+            try {
+                if (entries.remove(key, node)) {
+                    unlink(node);
+                    expirations.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+            node = null;
+        }
+        if (lock.tryLock()) {
+            try {
+                sketch.increment(hash(key));
+                if (node != null && node.queue >= 0) {
+                    onAccess(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @param item null caches that there is no item with the key
+     */
+    void put(K key, Item item, int itemWeight, long expiresAtNanos) {
+        if (itemWeight > maxWeight) {
+            return;
+        }
+        Node<K> node = new Node<>(key, item, itemWeight, expiresAtNanos);
+        lock.lock();
+        try {
+            Node<K> old = entries.put(key, node);
+            if (old != null) {
+                unlink(old);
+            }
+            window.add(node);
+            node.queue = WINDOW;
+            windowWeight += itemWeight;
+            weight += itemWeight;
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean invalidate(K key) {
+        lock.lock();
+        try {
+            Node<K> node = entries.remove(key);
+            if (node != null) {
+                unlink(node);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int invalidateAll() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (Node<K> node : entries.values()) {
+                if (entries.remove(node.key, node)) {
+                    unlink(node);
+                    ++count;
+                }
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long weight() {
+        return weight;
+    }
+
+    private void onAccess(Node<K> node) {
+        if (node.queue == WINDOW) {
+            window.moveToEnd(node);
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+            protectedOrder.add(node);
+            node.queue = PROTECTED;
+            protectedWeight += node.weight;
+            while (protectedWeight > protectedMaxWeight) {
+                Node<K> demoted = protectedOrder.first();
+                protectedOrder.remove(demoted);
+                probation.add(demoted);
+                demoted.queue = PROBATION;
+                protectedWeight -= demoted.weight;
+            }
+        } else {
+            protectedOrder.moveToEnd(node);
+        }
+    }
+
+    private void evict() {
+        Node<K> candidate = null;
+        while (windowWeight > windowMaxWeight) {
+            Node<K> moved = window.first();
+            window.remove(moved);
+            probation.add(moved);
+            moved.queue = PROBATION;
+            windowWeight -= moved.weight;
+            if (candidate == null) {
+                candidate = moved;
+            }
+        }
+        while (weight > maxWeight) {
+            Node<K> victim = probation.first();
+            if (victim == null) {
+                victim = protectedOrder.first() != null ? protectedOrder.first() : window.first();
+                if (victim == null) {
+                    return;
+                }
+            } else if (candidate != null && candidate != victim) {
+                Node<K> nextCandidate = probation.next(candidate);
+                if (sketch.frequency(hash(candidate.key)) <= sketch.frequency(hash(victim.key))) {
+                    victim = candidate;
+                    candidate = nextCandidate;
+                }
+            } else if (candidate == victim) {
+                candidate = probation.next(candidate);
+            }
+            entries.remove(victim.key, victim);
+            unlink(victim);
+            evictions.increment();
+        }
+    }
+
+    private void unlink(Node<K> node) {
+        if (node.queue == WINDOW) {
+            window.remove(node);
+            windowWeight -= node.weight;
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+        } else if (node.queue == PROTECTED) {
+            protectedOrder.remove(node);
+            protectedWeight -= node.weight;
+        } else {
+            return;
+        }
+        node.queue = -1;
+        weight -= node.weight;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    static final class Node<K> {
+        private final K key;
+        private final Item item;
+        private final int weight;
+        private final long expiresAtNanos;
+        private byte queue = -1;
+        private Node<K> previous;
+        private Node<K> next;
+
+        private Node(K key, Item item, int weight, long expiresAtNanos) {
+            this.key = key;
+            this.item = item;
+            this.weight = weight;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        /**
+         * @return cached item or null when the cache knows there is no such item
+         */
+        Item getItem() {
+            return item;
+        }
+    }
+
+    /**
+     * Doubly linked list from the least to the most recently used node
+     */
+    private static final class AccessOrder<K> {
+        private final Node<K> head = new Node<>(null, null, 0, 0);
+
+        private AccessOrder() {
+            head.previous = head;
+            head.next = head;
+        }
+
+        private Node<K> first() {
+            return head.next == head ? null : head.next;
+        }
+
+        private Node<K> next(Node<K> node) {
+            return node.next == head ? null : node.next;
+        }
+
+        private void add(Node<K> node) {
+            node.previous = head.previous;
+            node.next = head;
+            head.previous.next = node;
+            head.previous = node;
+        }
+
+        private void remove(Node<K> node) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+        }
+
+        private void moveToEnd(Node<K> node) {
+            remove(node);
+            add(node);
+        }
+    }
+}
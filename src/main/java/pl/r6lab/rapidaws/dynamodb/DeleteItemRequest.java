@@ -0,0 +1,74 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.json.Utf8JsonWriter;
+
+import static java.util.Objects.nonNull;
+
+public final class DeleteItemRequest extends ItemRequest {
+
+    private static final String DELETE_ITEM = "DeleteItem";
+
+    private final String tableName;
+    private final Item key;
+    private final String conditionExpression;
+    private final Expressions expressions;
+    private final ReturnValue returnValue;
+
+    private DeleteItemRequest(String tableName, Item key, String conditionExpression, Expressions expressions, ReturnValue returnValue) {
+        this.tableName = tableName;
+        this.key = key;
+        this.conditionExpression = conditionExpression;
+        this.expressions = expressions;
+        this.returnValue = returnValue;
+    }
+
+    public static DeleteItemRequest of(String tableName, Item key) {
+        return new DeleteItemRequest(tableName, key, null, Expressions.empty(), null);
+    }
+
+    @Override
+    public String getAction() {
+        return DELETE_ITEM;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Item getKey() {
+        return key;
+    }
+
+    public DeleteItemRequest withConditionExpression(String conditionExpression) {
+        return new DeleteItemRequest(tableName, key, conditionExpression, expressions, returnValue);
+    }
+
+    public DeleteItemRequest withExpressionAttributeName(String placeholder, String name) {
+        return new DeleteItemRequest(tableName, key, conditionExpression, expressions.withName(placeholder, name), returnValue);
+    }
+
+    public DeleteItemRequest withExpressionAttributeValue(String placeholder, AttributeValue value) {
+        return new DeleteItemRequest(tableName, key, conditionExpression, expressions.withValue(placeholder, value), returnValue);
+    }
+
+    /**
+     * @param returnValue NONE or ALL_OLD
+     */
+    public DeleteItemRequest withReturnValue(ReturnValue returnValue) {
+        return new DeleteItemRequest(tableName, key, conditionExpression, expressions, returnValue);
+    }
+
+    @Override
+    void writeFields(Utf8JsonWriter json) {
+        json.name("TableName").value(tableName);
+        json.name("Key");
+        key.writeTo(json);
+        if (nonNull(conditionExpression)) {
+            json.name("ConditionExpression").value(conditionExpression);
+        }
+        expressions.writeTo(json);
+        if (nonNull(returnValue)) {
+            json.name("ReturnValues").value(returnValue.name());
+        }
+    }
+}
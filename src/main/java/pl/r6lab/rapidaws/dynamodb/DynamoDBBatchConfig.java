@@ -0,0 +1,76 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+/**
+ * Immutable batch engine settings. Start from {@link #defaults()} and adjust with the with* methods.
+ */
+public final class DynamoDBBatchConfig {
+
+    private static final int DEFAULT_MAX_CONCURRENCY = 8;
+    private static final int DEFAULT_MAX_ATTEMPTS = 10;
+    private static final long DEFAULT_BASE_BACKOFF_MILLIS = 50;
+    private static final long DEFAULT_MAX_BACKOFF_MILLIS = 5_000;
+
+    private final int maxConcurrency;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private DynamoDBBatchConfig(int maxConcurrency, int maxAttempts, long baseBackoffMillis, long maxBackoffMillis) {
+        this.maxConcurrency = maxConcurrency;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public static DynamoDBBatchConfig defaults() {
+        return new DynamoDBBatchConfig(DEFAULT_MAX_CONCURRENCY, DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    /**
+     * @param maxConcurrency number of batch requests in flight
+     */
+    public DynamoDBBatchConfig withMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        return new DynamoDBBatchConfig(maxConcurrency, maxAttempts, baseBackoffMillis, maxBackoffMillis);
+    }
+
+    /**
+     * @param maxAttempts number of requests sent for one chunk before unprocessed items are reported as failure
+     */
+    public DynamoDBBatchConfig withMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is required");
+        }
+        return new DynamoDBBatchConfig(maxConcurrency, maxAttempts, baseBackoffMillis, maxBackoffMillis);
+    }
+
+    /**
+     * @param baseBackoffMillis upper bound of the first retry delay, doubled with every attempt up to max backoff;
+     *                          actual delay is random below the bound
+     */
+    public DynamoDBBatchConfig withBaseBackoffMillis(long baseBackoffMillis) {
+        return new DynamoDBBatchConfig(maxConcurrency, maxAttempts, baseBackoffMillis, maxBackoffMillis);
+    }
+
+    public DynamoDBBatchConfig withMaxBackoffMillis(long maxBackoffMillis) {
+        return new DynamoDBBatchConfig(maxConcurrency, maxAttempts, baseBackoffMillis, maxBackoffMillis);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBaseBackoffMillis() {
+        return baseBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+}
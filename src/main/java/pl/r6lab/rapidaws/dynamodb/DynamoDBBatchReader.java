@@ -0,0 +1,250 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.AsyncExecutors;
+import pl.r6lab.rapidaws.BasicRequest;
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClient;
+import pl.r6lab.rapidaws.RapidClientException;
+import pl.r6lab.rapidaws.Response;
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.json.JsonReader;
+import pl.r6lab.rapidaws.json.JsonWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Reads any number of keys of a table with BatchGetItem. Keys are grouped into chunks of 100 and read in parallel,
+ * unprocessed keys are requested again with backoff. Items are passed to the consumer on the calling thread as soon
+ * as their chunk arrives, so their order does not follow the order of keys. Keys and items are JSON in DynamoDB
+ * format, e.g. {"id":{"S":"1"}}.
+ */
+public final class DynamoDBBatchReader {
+
+    private static final String BATCH_GET_ITEM = "BatchGetItem";
+    private static final int MAX_KEYS = 100;
+    private static final long POLL_INTERVAL_MILLIS = 10;
+
+    private final RapidClient client;
+    private final DynamoDBBatchConfig config;
+    private final Executor executor;
+
+    private DynamoDBBatchReader(RapidClient client, DynamoDBBatchConfig config, Executor executor) {
+        this.client = client;
+        this.config = config;
+        this.executor = executor;
+    }
+
+    public static DynamoDBBatchReader of(RapidClient client) {
+        return new DynamoDBBatchReader(client, DynamoDBBatchConfig.defaults(), AsyncExecutors.defaultExecutor());
+    }
+
+    public static DynamoDBBatchReader of(RapidClient client, DynamoDBBatchConfig config) {
+        return new DynamoDBBatchReader(client, config, AsyncExecutors.defaultExecutor());
+    }
+
+    public static DynamoDBBatchReader of(RapidClient client, DynamoDBBatchConfig config, Executor executor) {
+        return new DynamoDBBatchReader(client, config, executor);
+    }
+
+    /**
+     * @return found items, keys without items are skipped
+     */
+    public List<String> getAll(String tableName, Iterable<String> keysJson) {
+        List<String> items = new ArrayList<>();
+        getAll(tableName, keysJson, items::add);
+        return items;
+    }
+
+    /**
+     * Reads items of all keys, waiting until all chunks are read
+     *
+     * @throws RapidClientException when any chunk could not be read, after items of other chunks were consumed
+     */
+    public void getAll(String tableName, Iterable<String> keysJson, Consumer<String> itemConsumer) {
+        BlockingQueue<ChunkResult> results = new LinkedBlockingQueue<>();
+        Semaphore permits = new Semaphore(config.getMaxConcurrency());
+        Throwable[] failure = new Throwable[1];
+        int submitted = 0;
+        int completed = 0;
+        List<String> chunk = new ArrayList<>(MAX_KEYS);
+        try {
+            for (String key : keysJson) {
+                chunk.add(key);
+                if (chunk.size() == MAX_KEYS) {
+                    while (!permits.tryAcquire(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        completed += drain(results, itemConsumer, failure);
+                    }
+                    submit(tableName, chunk, permits, results);
+                    ++submitted;
+                    chunk = new ArrayList<>(MAX_KEYS);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                permits.acquire();
+                submit(tableName, chunk, permits, results);
+                ++submitted;
+            }
+            while (completed < submitted) {
+                completed += consume(results.take(), itemConsumer, failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RapidClientException("Interrupted while reading " + tableName, e);
+        }
+        if (nonNull(failure[0])) {
+            throw failure[0] instanceof RapidClientException ? (RapidClientException) failure[0] : new RapidClientException(failure[0]);
+        }
+    }
+
+    private void submit(String tableName, List<String> keys, Semaphore permits, BlockingQueue<ChunkResult> results) {
+        CompletableFuture.runAsync(() -> {
+            try {
+                read(tableName, keys, results);
+                results.add(ChunkResult.done(null));
+            } catch (Throwable e) {
+                results.add(ChunkResult.done(e));
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    private static int drain(BlockingQueue<ChunkResult> results, Consumer<String> itemConsumer, Throwable[] failure) {
+        int completed = 0;
+        ChunkResult result;
+        while ((result = results.poll()) != null) {
+            completed += consume(result, itemConsumer, failure);
+        }
+        return completed;
+    }
+
+    private static int consume(ChunkResult result, Consumer<String> itemConsumer, Throwable[] failure) {
+        if (!result.done) {
+            result.items.forEach(itemConsumer);
+            return 0;
+        }
+        if (nonNull(result.error) && failure[0] == null) {
+            failure[0] = result.error;
+        }
+        return 1;
+    }
+
+    private void read(String tableName, List<String> keys, BlockingQueue<ChunkResult> results) throws InterruptedException {
+        List<String> pending = keys;
+        for (int attempt = 1; ; ++attempt) {
+            Response response = client.execute(BasicRequest.of(ServiceName.DYNAMODB, BATCH_GET_ITEM, HttpMethod.POST, requestJson(tableName, pending)));
+            if (response.isSuccess()) {
+                List<String> items = new ArrayList<>(pending.size());
+                pending = parse(response, tableName, items);
+                results.add(ChunkResult.items(items));
+                if (pending.isEmpty()) {
+                    return;
+                }
+            } else {
+                // the call was already retried by the retry policy of the client, only unprocessed items are resent here
+                throw new RapidClientException(BATCH_GET_ITEM + " failed with status " + response.getStatusCode() + ": " + response.getPayload());
+            }
+            if (attempt >= config.getMaxAttempts()) {
+                throw new RapidClientException(pending.size() + " keys not read after " + attempt + " attempts, last status " + response.getStatusCode());
+            }
+            BatchRetries.backoff(attempt, config);
+        }
+    }
+
+    private static String requestJson(String tableName, List<String> keys) {
+        int size = 64 + tableName.length();
+        for (String key : keys) {
+            size += key.length() + 1;
+        }
+        JsonWriter json = JsonWriter.of(new StringBuilder(size));
+        json.beginObject().name("RequestItems").beginObject().name(tableName).beginObject().name("Keys").beginArray();
+        for (String key : keys) {
+            json.rawValue(key);
+        }
+        return json.endArray().endObject().endObject().endObject().toString();
+    }
+
+    /**
+     * Reads {"Responses":{"TableName":[items]},"UnprocessedKeys":{"TableName":{"Keys":[keys]}}}
+     *
+     * @return unprocessed keys
+     */
+    private static List<String> parse(Response response, String tableName, List<String> items) {
+        List<String> unprocessed = new ArrayList<>();
+        JsonReader reader = JsonReader.of(response.getBody());
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("Responses")) {
+                readTables(reader, tableName, items, false);
+            } else if (name.equals("UnprocessedKeys")) {
+                readTables(reader, tableName, unprocessed, true);
+            } else {
+                reader.skipValue();
+            }
+        }
+        return unprocessed;
+    }
+
+    private static void readTables(JsonReader reader, String tableName, List<String> values, boolean keys) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals(tableName)) {
+                reader.skipValue();
+                continue;
+            }
+            if (keys) {
+                reader.beginObject();
+                if (reader.findName("Keys")) {
+                    readArray(reader, values);
+                    while (reader.hasNext()) {
+                        reader.nextName();
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                readArray(reader, values);
+            }
+        }
+        reader.endObject();
+    }
+
+    private static void readArray(JsonReader reader, List<String> values) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            values.add(reader.nextRawValue());
+        }
+        reader.endArray();
+    }
+
+    private static final class ChunkResult {
+        private final List<String> items;
+        private final boolean done;
+        private final Throwable error;
+
+        private ChunkResult(List<String> items, boolean done, Throwable error) {
+            this.items = items;
+            this.done = done;
+            this.error = error;
+        }
+
+        private static ChunkResult items(List<String> items) {
+            return new ChunkResult(items, false, null);
+        }
+
+        private static ChunkResult done(Throwable error) {
+            return new ChunkResult(null, true, error);
+        }
+    }
+}
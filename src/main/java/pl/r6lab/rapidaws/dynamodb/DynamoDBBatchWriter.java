@@ -0,0 +1,269 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.AsyncExecutors;
+import pl.r6lab.rapidaws.BasicRequest;
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClient;
+import pl.r6lab.rapidaws.RapidClientException;
+import pl.r6lab.rapidaws.Response;
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.internal.Utf8;
+import pl.r6lab.rapidaws.json.JsonReader;
+import pl.r6lab.rapidaws.json.JsonWriter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Writes any number of puts and deletes with BatchWriteItem. Items are grouped into chunks of 25 within the 16 MB
+ * request limit and chunks are written in parallel. Unprocessed items returned by DynamoDB are sent again with
+ * backoff until all are written or max attempts are used. Adding items blocks while max concurrency chunks are in
+ * flight. Items are given as JSON in DynamoDB format, e.g. {"id":{"S":"1"}}.
+ */
+public final class DynamoDBBatchWriter implements AutoCloseable {
+
+    private static final String BATCH_WRITE_ITEM = "BatchWriteItem";
+    private static final int MAX_ITEMS = 25;
+    private static final int MAX_REQUEST_BYTES = 16 * 1024 * 1024;
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final RapidClient client;
+    private final DynamoDBBatchConfig config;
+    private final Executor executor;
+    private final Semaphore permits;
+    private final Set<CompletableFuture<Void>> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private List<WriteEntry> chunk = new ArrayList<>(MAX_ITEMS);
+    private int chunkBytes;
+
+    private DynamoDBBatchWriter(RapidClient client, DynamoDBBatchConfig config, Executor executor) {
+        this.client = client;
+        this.config = config;
+        this.executor = executor;
+        this.permits = new Semaphore(config.getMaxConcurrency());
+    }
+
+    public static DynamoDBBatchWriter of(RapidClient client) {
+        return new DynamoDBBatchWriter(client, DynamoDBBatchConfig.defaults(), AsyncExecutors.defaultExecutor());
+    }
+
+    public static DynamoDBBatchWriter of(RapidClient client, DynamoDBBatchConfig config) {
+        return new DynamoDBBatchWriter(client, config, AsyncExecutors.defaultExecutor());
+    }
+
+    public static DynamoDBBatchWriter of(RapidClient client, DynamoDBBatchConfig config, Executor executor) {
+        return new DynamoDBBatchWriter(client, config, executor);
+    }
+
+    public void put(String tableName, String itemJson) {
+        add(new WriteEntry(tableName, true, itemJson));
+    }
+
+    public void delete(String tableName, String keyJson) {
+        add(new WriteEntry(tableName, false, keyJson));
+    }
+
+    public void putAll(String tableName, Iterable<String> itemsJson) {
+        for (String item : itemsJson) {
+            put(tableName, item);
+        }
+    }
+
+    public void deleteAll(String tableName, Iterable<String> keysJson) {
+        for (String key : keysJson) {
+            delete(tableName, key);
+        }
+    }
+
+    /**
+     * Sends buffered items and waits until all chunks are written
+     *
+     * @throws RapidClientException when any chunk could not be written
+     */
+    public void flush() {
+        List<WriteEntry> last;
+        synchronized (this) {
+            last = takeChunk();
+        }
+        submit(last);
+        for (CompletableFuture<Void> request : inFlight) {
+            try {
+                request.join();
+            } catch (CompletionException e) {
+                // reported through failure below
+            }
+        }
+        Throwable error = failure.getAndSet(null);
+        if (nonNull(error)) {
+            throw error instanceof RapidClientException ? (RapidClientException) error : new RapidClientException(error);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * @return number of items confirmed as written
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    private void add(WriteEntry entry) {
+        if (entry.size > MAX_REQUEST_BYTES) {
+            throw new IllegalArgumentException("Item of " + entry.size + " bytes exceeds request limit");
+        }
+        List<WriteEntry> overflow = null;
+        List<WriteEntry> full = null;
+        synchronized (this) {
+            if (!chunk.isEmpty() && chunkBytes + entry.size > MAX_REQUEST_BYTES) {
+                overflow = takeChunk();
+            }
+            chunk.add(entry);
+            chunkBytes += entry.size;
+            if (chunk.size() == MAX_ITEMS) {
+                full = takeChunk();
+            }
+        }
+        submit(overflow);
+        submit(full);
+    }
+
+    private List<WriteEntry> takeChunk() {
+        List<WriteEntry> taken = chunk;
+        chunk = new ArrayList<>(MAX_ITEMS);
+        chunkBytes = 0;
+        return taken;
+    }
+
+    private void submit(List<WriteEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RapidClientException("Interrupted waiting for batch capacity", e);
+        }
+        CompletableFuture<Void> request = CompletableFuture.runAsync(() -> write(entries), executor);
+        inFlight.add(request);
+        request.whenComplete((result, error) -> {
+            inFlight.remove(request);
+            permits.release();
+            if (nonNull(error)) {
+                failure.compareAndSet(null, error instanceof CompletionException ? error.getCause() : error);
+            }
+        });
+    }
+
+    private void write(List<WriteEntry> entries) {
+        List<WriteEntry> pending = entries;
+        for (int attempt = 1; ; ++attempt) {
+            try {
+                Response response = client.execute(BasicRequest.of(ServiceName.DYNAMODB, BATCH_WRITE_ITEM, HttpMethod.POST, requestJson(pending)));
+                if (response.isSuccess()) {
+                    List<WriteEntry> unprocessed = unprocessed(response);
+                    written.addAndGet(pending.size() - unprocessed.size());
+                    pending = unprocessed;
+                    if (pending.isEmpty()) {
+                        return;
+                    }
+                } else {
+                // the call was already retried by the retry policy of the client, only unprocessed items are resent here
+                    throw new RapidClientException(BATCH_WRITE_ITEM + " failed with status " + response.getStatusCode() + ": " + response.getPayload());
+                }
+                if (attempt >= config.getMaxAttempts()) {
+                    throw new RapidClientException(pending.size() + " items not written after " + attempt + " attempts, last status " + response.getStatusCode());
+                }
+                BatchRetries.backoff(attempt, config);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RapidClientException("Interrupted while retrying " + BATCH_WRITE_ITEM, e);
+            }
+        }
+    }
+
+    private static String requestJson(List<WriteEntry> entries) {
+        Map<String, List<WriteEntry>> byTable = new LinkedHashMap<>();
+        int size = 32;
+        for (WriteEntry entry : entries) {
+            byTable.computeIfAbsent(entry.tableName, table -> new ArrayList<>()).add(entry);
+            size += entry.size;
+        }
+        JsonWriter json = JsonWriter.of(new StringBuilder(size));
+        json.beginObject().name("RequestItems").beginObject();
+        for (Map.Entry<String, List<WriteEntry>> table : byTable.entrySet()) {
+            json.name(table.getKey()).beginArray();
+            for (WriteEntry entry : table.getValue()) {
+                json.beginObject()
+                        .name(entry.put ? "PutRequest" : "DeleteRequest")
+                        .beginObject()
+                        .name(entry.put ? "Item" : "Key")
+                        .rawValue(entry.json)
+                        .endObject()
+                        .endObject();
+            }
+            json.endArray();
+        }
+        return json.endObject().endObject().toString();
+    }
+
+    /**
+     * Reads UnprocessedItems: {"TableName":[{"PutRequest":{"Item":{...}}},{"DeleteRequest":{"Key":{...}}}]}
+     */
+    private static List<WriteEntry> unprocessed(Response response) {
+        List<WriteEntry> unprocessed = new ArrayList<>();
+        JsonReader reader = JsonReader.of(response.getBody());
+        reader.beginObject();
+        if (!reader.findName("UnprocessedItems")) {
+            return unprocessed;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String tableName = reader.nextName();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                reader.beginObject();
+                boolean put = reader.nextName().equals("PutRequest");
+                reader.beginObject();
+                reader.nextName();
+                unprocessed.add(new WriteEntry(tableName, put, reader.nextRawValue()));
+                reader.endObject();
+                reader.endObject();
+            }
+            reader.endArray();
+        }
+        return unprocessed;
+    }
+
+
+    private static final class WriteEntry {
+        private final String tableName;
+        private final boolean put;
+        private final String json;
+        private final int size;
+
+        private WriteEntry(String tableName, boolean put, String json) {
+            this.tableName = tableName;
+            this.put = put;
+            this.json = json;
+            this.size = Utf8.length(json) + tableName.length() + ENTRY_OVERHEAD_BYTES;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+/**
+ * Immutable item cache settings. Start from {@link #defaults()} and adjust with the with* methods.
+ */
+public final class DynamoDBCacheConfig {
+
+    private static final long DEFAULT_MAX_WEIGHT_BYTES = 32L * 1024 * 1024;
+    private static final long DEFAULT_TTL_MILLIS = 60_000;
+
+    private final long maxWeightBytes;
+    private final long ttlMillis;
+    private final DynamoDBBatchConfig batchConfig;
+
+    private DynamoDBCacheConfig(long maxWeightBytes, long ttlMillis, DynamoDBBatchConfig batchConfig) {
+        this.maxWeightBytes = maxWeightBytes;
+        this.ttlMillis = ttlMillis;
+        this.batchConfig = batchConfig;
+    }
+
+    public static DynamoDBCacheConfig defaults() {
+        return new DynamoDBCacheConfig(DEFAULT_MAX_WEIGHT_BYTES, DEFAULT_TTL_MILLIS, DynamoDBBatchConfig.defaults());
+    }
+
+    /**
+     * @param maxWeightBytes bound of the total size of cached items in DynamoDB JSON format
+     */
+    public DynamoDBCacheConfig withMaxWeightBytes(long maxWeightBytes) {
+        if (maxWeightBytes < 64 * 1024) {
+            throw new IllegalArgumentException("Cache must hold at least 64 KiB");
+        }
+        return new DynamoDBCacheConfig(maxWeightBytes, ttlMillis, batchConfig);
+    }
+
+    /**
+     * @param ttlMillis how long an item, or the fact that there is no item, is served from the cache after it was read
+     */
+    public DynamoDBCacheConfig withTtlMillis(long ttlMillis) {
+        if (ttlMillis < 1) {
+            throw new IllegalArgumentException("TTL must be positive");
+        }
+        return new DynamoDBCacheConfig(maxWeightBytes, ttlMillis, batchConfig);
+    }
+
+    /**
+     * @param batchConfig settings of BatchGetItem requests reading missing items of getAll
+     */
+    public DynamoDBCacheConfig withBatchConfig(DynamoDBBatchConfig batchConfig) {
+        return new DynamoDBCacheConfig(maxWeightBytes, ttlMillis, batchConfig);
+    }
+
+    public long getMaxWeightBytes() {
+        return maxWeightBytes;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public DynamoDBBatchConfig getBatchConfig() {
+        return batchConfig;
+    }
+}
@@ -0,0 +1,97 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+/**
+ * Immutable copy of item cache counters
+ */
+public final class DynamoDBCacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long loads;
+    private final long coalesced;
+    private final long evictions;
+    private final long expirations;
+    private final long invalidations;
+    private final int entries;
+    private final long weightBytes;
+
+    private DynamoDBCacheStats(long hits, long misses, long loads, long coalesced, long evictions, long expirations,
+                               long invalidations, int entries, long weightBytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.loads = loads;
+        this.coalesced = coalesced;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+        this.entries = entries;
+        this.weightBytes = weightBytes;
+    }
+
+    static DynamoDBCacheStats of(long hits, long misses, long loads, long coalesced, long evictions, long expirations,
+                                 long invalidations, int entries, long weightBytes) {
+        return new DynamoDBCacheStats(hits, misses, loads, coalesced, evictions, expirations, invalidations, entries, weightBytes);
+    }
+
+    /**
+     * @return lookups served from the cache, including cached absence of an item
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return lookups not found in the cache, whether they were loaded or joined a load in flight
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return keys read from DynamoDB, with GetItem or as part of BatchGetItem
+     */
+    public long getLoads() {
+        return loads;
+    }
+
+    /**
+     * @return misses which waited for a load of the same key already in flight instead of sending a request
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * @return keys invalidated by writes through the cache or explicitly
+     */
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public long getWeightBytes() {
+        return weightBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + hits + ", misses=" + misses + ", loads=" + loads + ", coalesced=" + coalesced + ", evictions=" + evictions
+                + ", expirations=" + expirations + ", invalidations=" + invalidations + ", entries=" + entries + ", weightBytes=" + weightBytes;
+    }
+}
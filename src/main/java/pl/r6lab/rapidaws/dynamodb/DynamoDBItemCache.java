@@ -0,0 +1,387 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.AsyncExecutors;
+import pl.r6lab.rapidaws.RapidClient;
+import pl.r6lab.rapidaws.RapidClientException;
+import pl.r6lab.rapidaws.json.Utf8JsonWriter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Read-through cache of DynamoDB items in front of {@link RapidClient}, for tables read much more often than written,
+ * e.g. configuration or feature flags. Items and the absence of items are cached for a TTL within a bound of the
+ * total item size, evicting with W-TinyLFU so keys read once don't push out frequently read ones. Concurrent lookups
+ * of a key missing in the cache wait for a single GetItem, or BatchGetItem of getAll, instead of sending their own.
+ * <p>
+ * Writes through the cache invalidate the key once DynamoDB responded, including loads in flight, so a read started
+ * before the write does not put the old item back. Writes made elsewhere are seen after the TTL, or after
+ * {@link #invalidate}. Consistent reads and reads with a projection bypass the cache.
+ */
+public final class DynamoDBItemCache {
+
+    private static final int SEGMENTS = 16;
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final RapidClient client;
+    private final DynamoDBBatchReader batchReader;
+    private final long ttlNanos;
+    private final List<CacheSegment<CacheKey>> segments;
+    private final Map<CacheKey, CompletableFuture<Item>> loads = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> keyNames = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loaded = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private DynamoDBItemCache(RapidClient client, DynamoDBCacheConfig config) {
+        this.client = client;
+        this.batchReader = DynamoDBBatchReader.of(client, config.getBatchConfig(), AsyncExecutors.defaultExecutor());
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(config.getTtlMillis());
+        List<CacheSegment<CacheKey>> segments = new ArrayList<>(SEGMENTS);
+        for (int i = 0; i < SEGMENTS; ++i) {
+            segments.add(new CacheSegment<>(config.getMaxWeightBytes() / SEGMENTS, evictions, expirations));
+        }
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    public static DynamoDBItemCache of(RapidClient client) {
+        return new DynamoDBItemCache(client, DynamoDBCacheConfig.defaults());
+    }
+
+    public static DynamoDBItemCache of(RapidClient client, DynamoDBCacheConfig config) {
+        return new DynamoDBItemCache(client, config);
+    }
+
+    /**
+     * @return item or null when there is no item with the key
+     * @throws RapidClientException when the item could not be read
+     */
+    public Item get(GetItemRequest request) {
+        if (!isCacheable(request)) {
+            return DynamoDBResult.of(client.execute(request)).getItem();
+        }
+        CacheKey key = key(request.getTableName(), request.getKey());
+        CacheSegment.Node<CacheKey> cached = segment(key).get(key, System.nanoTime());
+        if (nonNull(cached)) {
+            hits.increment();
+            return cached.getItem();
+        }
+        misses.increment();
+        CompletableFuture<Item> load = new CompletableFuture<>();
+        CompletableFuture<Item> inFlight = loads.putIfAbsent(key, load);
+        if (nonNull(inFlight)) {
+            coalesced.increment();
+            return join(inFlight);
+        }
+        loaded.increment();
+        try {
+            Item item = DynamoDBResult.of(client.execute(request)).getItem();
+            complete(key, load, item);
+            return item;
+        } catch (RuntimeException e) {
+            fail(key, load, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Asynchronous {@link #get}, the item is read with {@link RapidClient#executeAsync} on a miss
+     */
+    public CompletableFuture<Item> getAsync(GetItemRequest request) {
+        if (!isCacheable(request)) {
+            return client.executeAsync(request).thenApply(response -> DynamoDBResult.of(response).getItem());
+        }
+        CacheKey key = key(request.getTableName(), request.getKey());
+        CacheSegment.Node<CacheKey> cached = segment(key).get(key, System.nanoTime());
+        if (nonNull(cached)) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached.getItem());
+        }
+        misses.increment();
+        CompletableFuture<Item> load = new CompletableFuture<>();
+        CompletableFuture<Item> inFlight = loads.putIfAbsent(key, load);
+        if (nonNull(inFlight)) {
+            coalesced.increment();
+            return inFlight.thenApply(item -> item);
+        }
+        loaded.increment();
+        client.executeAsync(request).whenComplete((response, error) -> {
+            if (nonNull(error)) {
+                fail(key, load, error instanceof CompletionException ? error.getCause() : error);
+                return;
+            }
+            try {
+                complete(key, load, DynamoDBResult.of(response).getItem());
+            } catch (RuntimeException e) {
+                fail(key, load, e);
+            }
+        });
+        // callers must not complete or cancel the load shared with other lookups
+        return load.thenApply(item -> item);
+    }
+
+    /**
+     * Reads items of the keys, those missing in the cache with BatchGetItem
+     *
+     * @return found items by their keys, keys without items are skipped
+     * @throws RapidClientException when any of missing items could not be read
+     */
+    public Map<Item, Item> getAll(String tableName, Collection<Item> keys) {
+        Map<Item, Item> items = new HashMap<>();
+        Map<CacheKey, Item> requested = new LinkedHashMap<>();
+        Map<CacheKey, CompletableFuture<Item>> ownLoads = new HashMap<>();
+        Map<Item, CompletableFuture<Item>> otherLoads = new HashMap<>();
+        long now = System.nanoTime();
+        for (Item itemKey : keys) {
+            CacheKey key = key(tableName, itemKey);
+            if (requested.containsKey(key)) {
+                continue;
+            }
+            CacheSegment.Node<CacheKey> cached = segment(key).get(key, now);
+            if (nonNull(cached)) {
+                hits.increment();
+                if (nonNull(cached.getItem())) {
+                    items.put(itemKey, cached.getItem());
+                }
+                continue;
+            }
+            misses.increment();
+            CompletableFuture<Item> load = new CompletableFuture<>();
+            CompletableFuture<Item> inFlight = loads.putIfAbsent(key, load);
+            if (nonNull(inFlight)) {
+                coalesced.increment();
+                otherLoads.put(itemKey, inFlight);
+            } else {
+                requested.put(key, itemKey);
+                ownLoads.put(key, load);
+            }
+        }
+        if (!requested.isEmpty()) {
+            loadAll(tableName, requested, ownLoads, items);
+        }
+        for (Map.Entry<Item, CompletableFuture<Item>> load : otherLoads.entrySet()) {
+            Item item = join(load.getValue());
+            if (nonNull(item)) {
+                items.put(load.getKey(), item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Puts the item and invalidates its key
+     *
+     * @throws RapidClientException when DynamoDB returned an error, e.g. a condition failed
+     */
+    public DynamoDBResult put(PutItemRequest request) {
+        try {
+            return DynamoDBResult.of(client.execute(request));
+        } finally {
+            Set<String> names = keyNames.get(request.getTableName());
+            if (nonNull(names)) {
+                Item key = keyOf(request.getItem(), names);
+                if (nonNull(key)) {
+                    invalidate(request.getTableName(), key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the item and invalidates its key
+     *
+     * @throws RapidClientException when DynamoDB returned an error, e.g. a condition failed
+     */
+    public DynamoDBResult update(UpdateItemRequest request) {
+        try {
+            return DynamoDBResult.of(client.execute(request));
+        } finally {
+            invalidate(request.getTableName(), request.getKey());
+        }
+    }
+
+    /**
+     * Deletes the item and invalidates its key
+     *
+     * @throws RapidClientException when DynamoDB returned an error, e.g. a condition failed
+     */
+    public DynamoDBResult delete(DeleteItemRequest request) {
+        try {
+            return DynamoDBResult.of(client.execute(request));
+        } finally {
+            invalidate(request.getTableName(), request.getKey());
+        }
+    }
+
+    /**
+     * Drops cached item of the key, loads in flight still complete but are not cached
+     */
+    public void invalidate(String tableName, Item key) {
+        CacheKey cacheKey = key(tableName, key);
+        boolean invalidated = nonNull(loads.remove(cacheKey));
+        if (segment(cacheKey).invalidate(cacheKey) || invalidated) {
+            invalidations.increment();
+        }
+    }
+
+    public void invalidateAll() {
+        loads.clear();
+        for (CacheSegment<CacheKey> segment : segments) {
+            invalidations.add(segment.invalidateAll());
+        }
+    }
+
+    public DynamoDBCacheStats getStats() {
+        int entries = 0;
+        long weight = 0;
+        for (CacheSegment<CacheKey> segment : segments) {
+            entries += segment.size();
+            weight += segment.weight();
+        }
+        return DynamoDBCacheStats.of(hits.sum(), misses.sum(), loaded.sum(), coalesced.sum(), evictions.sum(), expirations.sum(),
+                invalidations.sum(), entries, weight);
+    }
+
+    private void loadAll(String tableName, Map<CacheKey, Item> requested, Map<CacheKey, CompletableFuture<Item>> ownLoads, Map<Item, Item> items) {
+        loaded.add(requested.size());
+        Set<String> names = requested.values().iterator().next().asMap().keySet();
+        List<String> keysJson = new ArrayList<>(requested.size());
+        for (Item key : requested.values()) {
+            keysJson.add(key.toJson());
+        }
+        Map<CacheKey, Item> found = new HashMap<>();
+        try {
+            batchReader.getAll(tableName, keysJson, json -> {
+                Item item = Item.parse(json);
+                Item key = keyOf(item, names);
+                if (nonNull(key)) {
+                    found.put(key(tableName, key), item);
+                }
+            });
+        } catch (RuntimeException e) {
+            ownLoads.forEach((key, load) -> fail(key, load, e));
+            throw e;
+        }
+        for (Map.Entry<CacheKey, Item> key : requested.entrySet()) {
+            Item item = found.get(key.getKey());
+            complete(key.getKey(), ownLoads.get(key.getKey()), item);
+            if (nonNull(item)) {
+                items.put(key.getValue(), item);
+            }
+        }
+    }
+
+    /**
+     * Caches the item unless the key was invalidated while it was read
+     */
+    private void complete(CacheKey key, CompletableFuture<Item> load, Item item) {
+        if (loads.remove(key, load)) {
+            int weight = ENTRY_OVERHEAD + key.json.length() + (isNull(item) ? 0 : item.sizeInBytes());
+            segment(key).put(key, item, weight, System.nanoTime() + ttlNanos);
+        }
+        load.complete(item);
+    }
+
+    private void fail(CacheKey key, CompletableFuture<Item> load, Throwable error) {
+        loads.remove(key, load);
+        load.completeExceptionally(error);
+    }
+
+    private static Item join(CompletableFuture<Item> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RapidClientException ? (RapidClientException) e.getCause() : new RapidClientException(e.getCause());
+        }
+    }
+
+    private static boolean isCacheable(GetItemRequest request) {
+        return !request.isConsistentRead() && isNull(request.getProjectionExpression());
+    }
+
+    private CacheKey key(String tableName, Item key) {
+        Set<String> names = keyNames.get(tableName);
+        if (isNull(names)) {
+            keyNames.putIfAbsent(tableName, Collections.unmodifiableSet(new HashSet<>(key.asMap().keySet())));
+        }
+        return CacheKey.of(tableName, key);
+    }
+
+    private CacheSegment<CacheKey> segment(CacheKey key) {
+        return segments.get((key.hashCode() * 0x9E3779B9) >>> 28);
+    }
+
+    /**
+     * @return key attributes of the item or null when the item lacks any of them
+     */
+    private static Item keyOf(Item item, Set<String> names) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>(4);
+        for (String name : names) {
+            AttributeValue value = item.get(name);
+            if (isNull(value)) {
+                return null;
+            }
+            key.put(name, value);
+        }
+        return Item.of(key);
+    }
+
+    /**
+     * Table and key JSON with attributes sorted by name, so keys built in different order are equal
+     */
+    private static final class CacheKey {
+        private final String tableName;
+        private final String json;
+        private final int hash;
+
+        private CacheKey(String tableName, String json) {
+            this.tableName = tableName;
+            this.json = json;
+            this.hash = 31 * tableName.hashCode() + json.hashCode();
+        }
+
+        private static CacheKey of(String tableName, Item key) {
+            Map<String, AttributeValue> attributes = key.asMap();
+            Utf8JsonWriter json = Utf8JsonWriter.create(64);
+            AttributeValue.writeMap(json, attributes.size() > 1 ? new TreeMap<>(attributes) : attributes);
+            return new CacheKey(tableName, json.toString());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey that = (CacheKey) o;
+            return hash == that.hash && tableName.equals(that.tableName) && json.equals(that.json);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.AsyncExecutors;
+import pl.r6lab.rapidaws.RapidClient;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily pages through Query and Scan results. Items are returned as JSON in DynamoDB format while next page is
+ * already being fetched. Request is the JSON of Query or Scan call; ExclusiveStartKey given there is used for the
+ * first page. Close the stream when it is not consumed to the end, so prefetched pages are cancelled.
+ */
+public final class DynamoDBPaginator {
+
+    static final String QUERY = "Query";
+    static final String SCAN = "Scan";
+
+    private final RapidClient client;
+    private final Executor executor;
+
+    private DynamoDBPaginator(RapidClient client, Executor executor) {
+        this.client = client;
+        this.executor = executor;
+    }
+
+    public static DynamoDBPaginator of(RapidClient client) {
+        return new DynamoDBPaginator(client, AsyncExecutors.defaultExecutor());
+    }
+
+    /**
+     * @param executor runs segment tasks of parallel scans
+     */
+    public static DynamoDBPaginator of(RapidClient client, Executor executor) {
+        return new DynamoDBPaginator(client, executor);
+    }
+
+    public Stream<String> query(String requestJson) {
+        PageFetcher fetcher = PageFetcher.of(client, QUERY, requestJson);
+        return stream(fetcher::nextPage).onClose(fetcher::close);
+    }
+
+    public Stream<String> scan(String requestJson) {
+        PageFetcher fetcher = PageFetcher.of(client, SCAN, requestJson);
+        return stream(fetcher::nextPage).onClose(fetcher::close);
+    }
+
+    /**
+     * Parallel scan with TotalSegments segments scanned concurrently and merged into one stream. Items of different
+     * segments are interleaved.
+     */
+    public Stream<String> scan(String requestJson, int totalSegments) {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("At least one segment is required");
+        }
+        ParallelScan scan = ParallelScan.of(client, requestJson, totalSegments, executor);
+        return stream(scan::nextPage).onClose(scan::close);
+    }
+
+    private static Stream<String> stream(Supplier<List<String>> pages) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new ItemIterator(pages), Spliterator.NONNULL), false);
+    }
+
+    private static final class ItemIterator implements Iterator<String> {
+
+        private final Supplier<List<String>> pages;
+        private Iterator<String> current = Collections.emptyIterator();
+        private boolean finished;
+
+        private ItemIterator(Supplier<List<String>> pages) {
+            this.pages = pages;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (finished) {
+                    return false;
+                }
+                List<String> page = pages.get();
+                if (page == null) {
+                    finished = true;
+                    return false;
+                }
+                current = page.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
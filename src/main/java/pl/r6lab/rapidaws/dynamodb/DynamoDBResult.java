@@ -0,0 +1,116 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.RapidClientException;
+import pl.r6lab.rapidaws.Response;
+import pl.r6lab.rapidaws.json.JsonReader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Items of GetItem, PutItem, UpdateItem, Query and Scan responses. Response body is scanned once, items keep pointing
+ * into it and are decoded only when their attributes are accessed.
+ */
+public final class DynamoDBResult {
+
+    private final Item item;
+    private final Item attributes;
+    private final List<Item> items;
+    private final Item lastEvaluatedKey;
+    private final int count;
+    private final int scannedCount;
+
+    private DynamoDBResult(Item item, Item attributes, List<Item> items, Item lastEvaluatedKey, int count, int scannedCount) {
+        this.item = item;
+        this.attributes = attributes;
+        this.items = items;
+        this.lastEvaluatedKey = lastEvaluatedKey;
+        this.count = count;
+        this.scannedCount = scannedCount;
+    }
+
+    /**
+     * @throws RapidClientException when the response is an error
+     */
+    public static DynamoDBResult of(Response response) {
+        if (!response.isSuccess()) {
+            throw new RapidClientException("DynamoDB request failed with status " + response.getStatusCode() + ": " + response.getPayload());
+        }
+        Item item = null;
+        Item attributes = null;
+        List<Item> items = Collections.emptyList();
+        Item lastEvaluatedKey = null;
+        int count = 0;
+        int scannedCount = 0;
+        JsonReader reader = JsonReader.of(response.getBody());
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "Item":
+                    item = Item.lazy(reader.nextValueReader());
+                    break;
+                case "Attributes":
+                    attributes = Item.lazy(reader.nextValueReader());
+                    break;
+                case "Items":
+                    items = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        items.add(Item.lazy(reader.nextValueReader()));
+                    }
+                    reader.endArray();
+                    items = Collections.unmodifiableList(items);
+                    break;
+                case "LastEvaluatedKey":
+                    lastEvaluatedKey = Item.lazy(reader.nextValueReader());
+                    break;
+                case "Count":
+                    count = (int) reader.nextLong();
+                    break;
+                case "ScannedCount":
+                    scannedCount = (int) reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        return new DynamoDBResult(item, attributes, items, lastEvaluatedKey, count, scannedCount);
+    }
+
+    /**
+     * @return item of GetItem response or null when there is no item with the key
+     */
+    public Item getItem() {
+        return item;
+    }
+
+    /**
+     * @return attributes requested with ReturnValues of PutItem and UpdateItem or null
+     */
+    public Item getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * @return items of Query or Scan page
+     */
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * @return key to pass as ExclusiveStartKey of the next page, null on the last page
+     */
+    public Item getLastEvaluatedKey() {
+        return lastEvaluatedKey;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getScannedCount() {
+        return scannedCount;
+    }
+}
@@ -0,0 +1,61 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.json.Utf8JsonWriter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ExpressionAttributeNames and ExpressionAttributeValues shared by expressions of one request
+ */
+final class Expressions {
+
+    private static final Expressions EMPTY = new Expressions(Collections.emptyMap(), Collections.emptyMap());
+
+    private final Map<String, String> names;
+    private final Map<String, AttributeValue> values;
+
+    private Expressions(Map<String, String> names, Map<String, AttributeValue> values) {
+        this.names = names;
+        this.values = values;
+    }
+
+    static Expressions empty() {
+        return EMPTY;
+    }
+
+    Expressions withName(String placeholder, String name) {
+        Map<String, String> copy = new LinkedHashMap<>(names);
+        copy.put(placeholder, name);
+        return new Expressions(Collections.unmodifiableMap(copy), values);
+    }
+
+    Expressions withValue(String placeholder, AttributeValue value) {
+        Map<String, AttributeValue> copy = new LinkedHashMap<>(values);
+        copy.put(placeholder, value);
+        return new Expressions(names, Collections.unmodifiableMap(copy));
+    }
+
+    Map<String, String> getNames() {
+        return names;
+    }
+
+    Map<String, AttributeValue> getValues() {
+        return values;
+    }
+
+    void writeTo(Utf8JsonWriter json) {
+        if (!names.isEmpty()) {
+            json.name("ExpressionAttributeNames").beginObject();
+            for (Map.Entry<String, String> name : names.entrySet()) {
+                json.name(name.getKey()).value(name.getValue());
+            }
+            json.endObject();
+        }
+        if (!values.isEmpty()) {
+            json.name("ExpressionAttributeValues");
+            AttributeValue.writeMap(json, values);
+        }
+    }
+}
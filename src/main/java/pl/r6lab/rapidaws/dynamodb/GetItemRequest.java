@@ -0,0 +1,75 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.json.Utf8JsonWriter;
+
+import static java.util.Objects.nonNull;
+
+public final class GetItemRequest extends ItemRequest {
+
+    private static final String GET_ITEM = "GetItem";
+
+    private final String tableName;
+    private final Item key;
+    private final boolean consistentRead;
+    private final String projectionExpression;
+    private final Expressions expressions;
+
+    private GetItemRequest(String tableName, Item key, boolean consistentRead, String projectionExpression, Expressions expressions) {
+        this.tableName = tableName;
+        this.key = key;
+        this.consistentRead = consistentRead;
+        this.projectionExpression = projectionExpression;
+        this.expressions = expressions;
+    }
+
+    public static GetItemRequest of(String tableName, Item key) {
+        return new GetItemRequest(tableName, key, false, null, Expressions.empty());
+    }
+
+    @Override
+    public String getAction() {
+        return GET_ITEM;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Item getKey() {
+        return key;
+    }
+
+    public boolean isConsistentRead() {
+        return consistentRead;
+    }
+
+    public String getProjectionExpression() {
+        return projectionExpression;
+    }
+
+    public GetItemRequest withConsistentRead(boolean consistentRead) {
+        return new GetItemRequest(tableName, key, consistentRead, projectionExpression, expressions);
+    }
+
+    public GetItemRequest withProjectionExpression(String projectionExpression) {
+        return new GetItemRequest(tableName, key, consistentRead, projectionExpression, expressions);
+    }
+
+    public GetItemRequest withExpressionAttributeName(String placeholder, String name) {
+        return new GetItemRequest(tableName, key, consistentRead, projectionExpression, expressions.withName(placeholder, name));
+    }
+
+    @Override
+    void writeFields(Utf8JsonWriter json) {
+        json.name("TableName").value(tableName);
+        json.name("Key");
+        key.writeTo(json);
+        if (consistentRead) {
+            json.name("ConsistentRead").value(true);
+        }
+        if (nonNull(projectionExpression)) {
+            json.name("ProjectionExpression").value(projectionExpression);
+        }
+        expressions.writeTo(json);
+    }
+}
@@ -0,0 +1,173 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.json.JsonReader;
+import pl.r6lab.rapidaws.json.Utf8JsonWriter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * DynamoDB item or key: attribute names with their values. Items read from responses keep their JSON and decode it on
+ * first access to an attribute, so items only passed through, e.g. LastEvaluatedKey, or skipped are never decoded and
+ * are written back as they came.
+ */
+public final class Item {
+
+    private static final Item EMPTY = new Item(Collections.emptyMap(), null);
+
+    private final JsonReader source;
+    private volatile Map<String, AttributeValue> attributes;
+
+    private Item(Map<String, AttributeValue> attributes, JsonReader source) {
+        this.attributes = attributes;
+        this.source = source;
+    }
+
+    public static Item empty() {
+        return EMPTY;
+    }
+
+    public static Item of(Map<String, AttributeValue> attributes) {
+        return new Item(Collections.unmodifiableMap(new LinkedHashMap<>(attributes)), null);
+    }
+
+    public static Item of(String name, AttributeValue value) {
+        return new Item(Collections.singletonMap(name, value), null);
+    }
+
+    /**
+     * Key of partition and sort key attributes
+     */
+    public static Item of(String name, AttributeValue value, String otherName, AttributeValue otherValue) {
+        Map<String, AttributeValue> attributes = new LinkedHashMap<>(4);
+        attributes.put(name, value);
+        attributes.put(otherName, otherValue);
+        return new Item(Collections.unmodifiableMap(attributes), null);
+    }
+
+    /**
+     * @param json item in DynamoDB JSON format, e.g. returned by {@link DynamoDBPaginator}
+     */
+    public static Item parse(String json) {
+        return lazy(JsonReader.of(json).nextValueReader());
+    }
+
+    /**
+     * @param source reader of item JSON only, not consumed by the item
+     */
+    static Item lazy(JsonReader source) {
+        return new Item(null, source);
+    }
+
+    /**
+     * @return new item with the attribute added or replaced
+     */
+    public Item with(String name, AttributeValue value) {
+        Map<String, AttributeValue> copy = new LinkedHashMap<>(asMap());
+        copy.put(name, value);
+        return new Item(Collections.unmodifiableMap(copy), null);
+    }
+
+    /**
+     * @return value of the attribute or null when the item has no such attribute
+     */
+    public AttributeValue get(String name) {
+        return asMap().get(name);
+    }
+
+    /**
+     * @return value of string attribute or null when the item has no such attribute
+     */
+    public String getString(String name) {
+        AttributeValue value = get(name);
+        return isNull(value) ? null : value.getS();
+    }
+
+    /**
+     * @return value of number attribute, throws IllegalStateException when the item has no such attribute
+     */
+    public long getLong(String name) {
+        AttributeValue value = get(name);
+        if (isNull(value)) {
+            throw new IllegalStateException("No attribute " + name);
+        }
+        return value.asLong();
+    }
+
+    public boolean contains(String name) {
+        return asMap().containsKey(name);
+    }
+
+    public int size() {
+        return asMap().size();
+    }
+
+    public boolean isEmpty() {
+        return asMap().isEmpty();
+    }
+
+    /**
+     * @return unmodifiable attributes in the order of the JSON, decoded on first call
+     */
+    public Map<String, AttributeValue> asMap() {
+        Map<String, AttributeValue> decoded = attributes;
+        if (isNull(decoded)) {
+            decoded = Collections.unmodifiableMap(AttributeValue.readMap(source.duplicate()));
+            attributes = decoded;
+        }
+        return decoded;
+    }
+
+    /**
+     * Writes the item in DynamoDB JSON format, items read from responses are copied without decoding
+     */
+    public void writeTo(Utf8JsonWriter json) {
+        if (isNull(source)) {
+            AttributeValue.writeMap(json, attributes);
+        } else {
+            json.rawValue(source);
+        }
+    }
+
+    /**
+     * @return approximate size of the item in DynamoDB JSON format
+     */
+    int sizeInBytes() {
+        if (isNull(source)) {
+            Utf8JsonWriter json = Utf8JsonWriter.create();
+            AttributeValue.writeMap(json, attributes);
+            return json.length();
+        }
+        return source.remaining();
+    }
+
+    public String toJson() {
+        if (isNull(source)) {
+            Utf8JsonWriter json = Utf8JsonWriter.create();
+            AttributeValue.writeMap(json, attributes);
+            return json.toString();
+        }
+        return source.duplicate().nextRawValue();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Item && asMap().equals(((Item) o).asMap());
+    }
+
+    @Override
+    public int hashCode() {
+        return asMap().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
@@ -0,0 +1,59 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.Request;
+import pl.r6lab.rapidaws.RequestBody;
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.json.Utf8JsonWriter;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Typed DynamoDB request serialized straight into UTF-8 body bytes on first use. Requests are immutable, so the body
+ * is reused by retries and later sends of the same request.
+ */
+abstract class ItemRequest implements Request {
+
+    private static final int INITIAL_BODY_SIZE = 256;
+
+    private volatile RequestBody body;
+
+    @Override
+    public final ServiceName getServiceName() {
+        return ServiceName.DYNAMODB;
+    }
+
+    @Override
+    public final HttpMethod getMethod() {
+        return HttpMethod.POST;
+    }
+
+    @Override
+    public final RequestBody getBody() {
+        RequestBody serialized = body;
+        if (isNull(serialized)) {
+            Utf8JsonWriter json = Utf8JsonWriter.create(INITIAL_BODY_SIZE);
+            json.beginObject();
+            writeFields(json);
+            json.endObject();
+            serialized = json.toRequestBody();
+            body = serialized;
+        }
+        return serialized;
+    }
+
+    @Override
+    public final String getPayload() {
+        return getBody().toString();
+    }
+
+    /**
+     * Writes fields of the request object
+     */
+    abstract void writeFields(Utf8JsonWriter json);
+
+    @Override
+    public String toString() {
+        return getAction() + ' ' + getPayload();
+    }
+}
@@ -0,0 +1,152 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.BasicRequest;
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClient;
+import pl.r6lab.rapidaws.RapidClientException;
+import pl.r6lab.rapidaws.Response;
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.json.JsonReader;
+import pl.r6lab.rapidaws.json.JsonWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Fetches pages of Query or Scan following LastEvaluatedKey. Next page is requested as soon as the previous one
+ * arrives, so it is in flight while the caller processes current page.
+ */
+final class PageFetcher implements AutoCloseable {
+
+    private static final String EXCLUSIVE_START_KEY = "ExclusiveStartKey";
+
+    private final RapidClient client;
+    private final String action;
+    private final String requestPrefix;
+    private final boolean hasFields;
+    private CompletableFuture<Page> next;
+
+    private PageFetcher(RapidClient client, String action, String requestJson, int segment, int totalSegments) {
+        this.client = client;
+        this.action = action;
+        JsonReader reader = JsonReader.of(requestJson);
+        JsonWriter prefix = JsonWriter.create().beginObject();
+        String startKey = null;
+        int fields = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals(EXCLUSIVE_START_KEY)) {
+                startKey = reader.nextRawValue();
+                continue;
+            }
+            if (totalSegments > 0 && (name.equals("Segment") || name.equals("TotalSegments"))) {
+                throw new IllegalArgumentException("Parallel scan request must not set " + name);
+            }
+            prefix.name(name).rawValue(reader.nextRawValue());
+            ++fields;
+        }
+        if (totalSegments > 0) {
+            prefix.name("Segment").value(segment).name("TotalSegments").value(totalSegments);
+            fields += 2;
+        }
+        this.requestPrefix = prefix.toString();
+        this.hasFields = fields > 0;
+        this.next = fetch(startKey);
+    }
+
+    static PageFetcher of(RapidClient client, String action, String requestJson) {
+        return new PageFetcher(client, action, requestJson, 0, 0);
+    }
+
+    static PageFetcher segment(RapidClient client, String requestJson, int segment, int totalSegments) {
+        return new PageFetcher(client, DynamoDBPaginator.SCAN, requestJson, segment, totalSegments);
+    }
+
+    /**
+     * Waits for the next page and requests the one after it
+     *
+     * @return items of the page, possibly empty, or null when there are no more pages
+     */
+    synchronized List<String> nextPage() {
+        if (isNull(next)) {
+            return null;
+        }
+        Page page;
+        try {
+            page = next.join();
+        } catch (CompletionException e) {
+            next = null;
+            throw e.getCause() instanceof RapidClientException ? (RapidClientException) e.getCause() : new RapidClientException(e.getCause());
+        }
+        next = nonNull(page.lastEvaluatedKey) ? fetch(page.lastEvaluatedKey) : null;
+        return page.items;
+    }
+
+    /**
+     * Cancels prefetched page
+     */
+    @Override
+    public synchronized void close() {
+        if (nonNull(next)) {
+            next.cancel(true);
+            next = null;
+        }
+    }
+
+    private CompletableFuture<Page> fetch(String exclusiveStartKey) {
+        String request = requestPrefix + '}';
+        if (nonNull(exclusiveStartKey)) {
+            StringBuilder json = new StringBuilder(requestPrefix.length() + exclusiveStartKey.length() + 24).append(requestPrefix);
+            if (hasFields) {
+                json.append(',');
+            }
+            JsonWriter.quote(json, EXCLUSIVE_START_KEY);
+            request = json.append(':').append(exclusiveStartKey).append('}').toString();
+        }
+        return client.executeAsync(BasicRequest.of(ServiceName.DYNAMODB, action, HttpMethod.POST, request)).thenApply(this::parse);
+    }
+
+    /**
+     * Reads {"Items":[...],"Count":n,"ScannedCount":n,"LastEvaluatedKey":{...}}
+     */
+    private Page parse(Response response) {
+        if (!response.isSuccess()) {
+            throw new RapidClientException(action + " failed with status " + response.getStatusCode() + ": " + response.getPayload());
+        }
+        List<String> items = new ArrayList<>();
+        String lastEvaluatedKey = null;
+        JsonReader reader = JsonReader.of(response.getBody());
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("Items")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    items.add(reader.nextRawValue());
+                }
+                reader.endArray();
+            } else if (name.equals("LastEvaluatedKey")) {
+                lastEvaluatedKey = reader.nextRawValue();
+            } else {
+                reader.skipValue();
+            }
+        }
+        return new Page(items, lastEvaluatedKey);
+    }
+
+    private static final class Page {
+        private final List<String> items;
+        private final String lastEvaluatedKey;
+
+        private Page(List<String> items, String lastEvaluatedKey) {
+            this.items = items;
+            this.lastEvaluatedKey = lastEvaluatedKey;
+        }
+    }
+}
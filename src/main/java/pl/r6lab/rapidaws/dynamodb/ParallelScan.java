@@ -0,0 +1,94 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.RapidClient;
+import pl.r6lab.rapidaws.RapidClientException;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans all segments concurrently and merges their pages in arrival order. Every segment runs on its own task
+ * prefetching one page ahead; pages wait in a bounded queue, so segments pause when the consumer is slower.
+ */
+final class ParallelScan implements AutoCloseable {
+
+    private static final Object END = new Object();
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final BlockingQueue<Object> pages;
+    private final int totalSegments;
+    private volatile boolean closed;
+    private int finishedSegments;
+
+    private ParallelScan(RapidClient client, String requestJson, int totalSegments, Executor executor) {
+        this.totalSegments = totalSegments;
+        this.pages = new ArrayBlockingQueue<>(totalSegments * 2);
+        for (int segment = 0; segment < totalSegments; ++segment) {
+            PageFetcher fetcher = PageFetcher.segment(client, requestJson, segment, totalSegments);
+            executor.execute(() -> scan(fetcher));
+        }
+    }
+
+    static ParallelScan of(RapidClient client, String requestJson, int totalSegments, Executor executor) {
+        return new ParallelScan(client, requestJson, totalSegments, executor);
+    }
+
+    /**
+     * @return items of next page of any segment or null when all segments are finished
+     */
+    @SuppressWarnings("unchecked")
+    List<String> nextPage() {
+        try {
+            while (finishedSegments < totalSegments) {
+                Object page = pages.take();
+                if (page == END) {
+                    ++finishedSegments;
+                } else if (page instanceof RapidClientException) {
+                    close();
+                    throw (RapidClientException) page;
+                } else {
+                    return (List<String>) page;
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new RapidClientException("Interrupted during parallel scan", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        pages.clear();
+    }
+
+    private void scan(PageFetcher fetcher) {
+        try {
+            List<String> page;
+            while (!closed && (page = fetcher.nextPage()) != null) {
+                offer(page);
+            }
+        } catch (RapidClientException e) {
+            offer(e);
+        } catch (RuntimeException e) {
+            offer(new RapidClientException(e));
+        } finally {
+            fetcher.close();
+            offer(END);
+        }
+    }
+
+    private void offer(Object page) {
+        try {
+            while (!closed && !pages.offer(page, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
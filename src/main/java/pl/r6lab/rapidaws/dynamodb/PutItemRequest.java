@@ -0,0 +1,74 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.json.Utf8JsonWriter;
+
+import static java.util.Objects.nonNull;
+
+public final class PutItemRequest extends ItemRequest {
+
+    private static final String PUT_ITEM = "PutItem";
+
+    private final String tableName;
+    private final Item item;
+    private final String conditionExpression;
+    private final Expressions expressions;
+    private final ReturnValue returnValue;
+
+    private PutItemRequest(String tableName, Item item, String conditionExpression, Expressions expressions, ReturnValue returnValue) {
+        this.tableName = tableName;
+        this.item = item;
+        this.conditionExpression = conditionExpression;
+        this.expressions = expressions;
+        this.returnValue = returnValue;
+    }
+
+    public static PutItemRequest of(String tableName, Item item) {
+        return new PutItemRequest(tableName, item, null, Expressions.empty(), null);
+    }
+
+    @Override
+    public String getAction() {
+        return PUT_ITEM;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public PutItemRequest withConditionExpression(String conditionExpression) {
+        return new PutItemRequest(tableName, item, conditionExpression, expressions, returnValue);
+    }
+
+    public PutItemRequest withExpressionAttributeName(String placeholder, String name) {
+        return new PutItemRequest(tableName, item, conditionExpression, expressions.withName(placeholder, name), returnValue);
+    }
+
+    public PutItemRequest withExpressionAttributeValue(String placeholder, AttributeValue value) {
+        return new PutItemRequest(tableName, item, conditionExpression, expressions.withValue(placeholder, value), returnValue);
+    }
+
+    /**
+     * @param returnValue NONE or ALL_OLD
+     */
+    public PutItemRequest withReturnValue(ReturnValue returnValue) {
+        return new PutItemRequest(tableName, item, conditionExpression, expressions, returnValue);
+    }
+
+    @Override
+    void writeFields(Utf8JsonWriter json) {
+        json.name("TableName").value(tableName);
+        json.name("Item");
+        item.writeTo(json);
+        if (nonNull(conditionExpression)) {
+            json.name("ConditionExpression").value(conditionExpression);
+        }
+        expressions.writeTo(json);
+        if (nonNull(returnValue)) {
+            json.name("ReturnValues").value(returnValue.name());
+        }
+    }
+}
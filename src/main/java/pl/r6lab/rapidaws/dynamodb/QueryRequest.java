@@ -0,0 +1,137 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.json.Utf8JsonWriter;
+
+import static java.util.Objects.nonNull;
+
+public final class QueryRequest extends ItemRequest {
+
+    private final String tableName;
+    private final String keyConditionExpression;
+    private final Expressions expressions;
+    private final String indexName;
+    private final String filterExpression;
+    private final String projectionExpression;
+    private final int limit;
+    private final boolean scanIndexForward;
+    private final boolean consistentRead;
+    private final Item exclusiveStartKey;
+
+    private QueryRequest(String tableName, String keyConditionExpression, Expressions expressions, String indexName, String filterExpression,
+                         String projectionExpression, int limit, boolean scanIndexForward, boolean consistentRead, Item exclusiveStartKey) {
+        this.tableName = tableName;
+        this.keyConditionExpression = keyConditionExpression;
+        this.expressions = expressions;
+        this.indexName = indexName;
+        this.filterExpression = filterExpression;
+        this.projectionExpression = projectionExpression;
+        this.limit = limit;
+        this.scanIndexForward = scanIndexForward;
+        this.consistentRead = consistentRead;
+        this.exclusiveStartKey = exclusiveStartKey;
+    }
+
+    /**
+     * @param keyConditionExpression e.g. "id = :id AND created > :since", values are given with
+     *                               {@link #withExpressionAttributeValue}
+     */
+    public static QueryRequest of(String tableName, String keyConditionExpression) {
+        return new QueryRequest(tableName, keyConditionExpression, Expressions.empty(), null, null, null, 0, true, false, null);
+    }
+
+    @Override
+    public String getAction() {
+        return DynamoDBPaginator.QUERY;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Item getExclusiveStartKey() {
+        return exclusiveStartKey;
+    }
+
+    public QueryRequest withExpressionAttributeName(String placeholder, String name) {
+        return new QueryRequest(tableName, keyConditionExpression, expressions.withName(placeholder, name), indexName, filterExpression,
+                projectionExpression, limit, scanIndexForward, consistentRead, exclusiveStartKey);
+    }
+
+    public QueryRequest withExpressionAttributeValue(String placeholder, AttributeValue value) {
+        return new QueryRequest(tableName, keyConditionExpression, expressions.withValue(placeholder, value), indexName, filterExpression,
+                projectionExpression, limit, scanIndexForward, consistentRead, exclusiveStartKey);
+    }
+
+    public QueryRequest withIndexName(String indexName) {
+        return new QueryRequest(tableName, keyConditionExpression, expressions, indexName, filterExpression,
+                projectionExpression, limit, scanIndexForward, consistentRead, exclusiveStartKey);
+    }
+
+    public QueryRequest withFilterExpression(String filterExpression) {
+        return new QueryRequest(tableName, keyConditionExpression, expressions, indexName, filterExpression,
+                projectionExpression, limit, scanIndexForward, consistentRead, exclusiveStartKey);
+    }
+
+    public QueryRequest withProjectionExpression(String projectionExpression) {
+        return new QueryRequest(tableName, keyConditionExpression, expressions, indexName, filterExpression,
+                projectionExpression, limit, scanIndexForward, consistentRead, exclusiveStartKey);
+    }
+
+    /**
+     * @param limit maximum number of items evaluated per page, 0 leaves it to DynamoDB
+     */
+    public QueryRequest withLimit(int limit) {
+        return new QueryRequest(tableName, keyConditionExpression, expressions, indexName, filterExpression,
+                projectionExpression, limit, scanIndexForward, consistentRead, exclusiveStartKey);
+    }
+
+    /**
+     * @param scanIndexForward false returns items in descending sort key order
+     */
+    public QueryRequest withScanIndexForward(boolean scanIndexForward) {
+        return new QueryRequest(tableName, keyConditionExpression, expressions, indexName, filterExpression,
+                projectionExpression, limit, scanIndexForward, consistentRead, exclusiveStartKey);
+    }
+
+    public QueryRequest withConsistentRead(boolean consistentRead) {
+        return new QueryRequest(tableName, keyConditionExpression, expressions, indexName, filterExpression,
+                projectionExpression, limit, scanIndexForward, consistentRead, exclusiveStartKey);
+    }
+
+    /**
+     * @param exclusiveStartKey LastEvaluatedKey of the previous page, see {@link DynamoDBResult#getLastEvaluatedKey()}
+     */
+    public QueryRequest withExclusiveStartKey(Item exclusiveStartKey) {
+        return new QueryRequest(tableName, keyConditionExpression, expressions, indexName, filterExpression,
+                projectionExpression, limit, scanIndexForward, consistentRead, exclusiveStartKey);
+    }
+
+    @Override
+    void writeFields(Utf8JsonWriter json) {
+        json.name("TableName").value(tableName);
+        if (nonNull(indexName)) {
+            json.name("IndexName").value(indexName);
+        }
+        json.name("KeyConditionExpression").value(keyConditionExpression);
+        if (nonNull(filterExpression)) {
+            json.name("FilterExpression").value(filterExpression);
+        }
+        if (nonNull(projectionExpression)) {
+            json.name("ProjectionExpression").value(projectionExpression);
+        }
+        expressions.writeTo(json);
+        if (limit > 0) {
+            json.name("Limit").value(limit);
+        }
+        if (!scanIndexForward) {
+            json.name("ScanIndexForward").value(false);
+        }
+        if (consistentRead) {
+            json.name("ConsistentRead").value(true);
+        }
+        if (nonNull(exclusiveStartKey)) {
+            json.name("ExclusiveStartKey");
+            exclusiveStartKey.writeTo(json);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+/**
+ * Attributes returned in Attributes of PutItem and UpdateItem responses
+ */
+public enum ReturnValue {
+    NONE, ALL_OLD, UPDATED_OLD, ALL_NEW, UPDATED_NEW
+}
@@ -0,0 +1,78 @@
+package pl.r6lab.rapidaws.dynamodb;
+
+import pl.r6lab.rapidaws.json.Utf8JsonWriter;
+
+import static java.util.Objects.nonNull;
+
+public final class UpdateItemRequest extends ItemRequest {
+
+    private static final String UPDATE_ITEM = "UpdateItem";
+
+    private final String tableName;
+    private final Item key;
+    private final String updateExpression;
+    private final String conditionExpression;
+    private final Expressions expressions;
+    private final ReturnValue returnValue;
+
+    private UpdateItemRequest(String tableName, Item key, String updateExpression, String conditionExpression, Expressions expressions,
+                              ReturnValue returnValue) {
+        this.tableName = tableName;
+        this.key = key;
+        this.updateExpression = updateExpression;
+        this.conditionExpression = conditionExpression;
+        this.expressions = expressions;
+        this.returnValue = returnValue;
+    }
+
+    /**
+     * @param updateExpression e.g. "SET #count = #count + :one"
+     */
+    public static UpdateItemRequest of(String tableName, Item key, String updateExpression) {
+        return new UpdateItemRequest(tableName, key, updateExpression, null, Expressions.empty(), null);
+    }
+
+    @Override
+    public String getAction() {
+        return UPDATE_ITEM;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Item getKey() {
+        return key;
+    }
+
+    public UpdateItemRequest withConditionExpression(String conditionExpression) {
+        return new UpdateItemRequest(tableName, key, updateExpression, conditionExpression, expressions, returnValue);
+    }
+
+    public UpdateItemRequest withExpressionAttributeName(String placeholder, String name) {
+        return new UpdateItemRequest(tableName, key, updateExpression, conditionExpression, expressions.withName(placeholder, name), returnValue);
+    }
+
+    public UpdateItemRequest withExpressionAttributeValue(String placeholder, AttributeValue value) {
+        return new UpdateItemRequest(tableName, key, updateExpression, conditionExpression, expressions.withValue(placeholder, value), returnValue);
+    }
+
+    public UpdateItemRequest withReturnValue(ReturnValue returnValue) {
+        return new UpdateItemRequest(tableName, key, updateExpression, conditionExpression, expressions, returnValue);
+    }
+
+    @Override
+    void writeFields(Utf8JsonWriter json) {
+        json.name("TableName").value(tableName);
+        json.name("Key");
+        key.writeTo(json);
+        json.name("UpdateExpression").value(updateExpression);
+        if (nonNull(conditionExpression)) {
+            json.name("ConditionExpression").value(conditionExpression);
+        }
+        expressions.writeTo(json);
+        if (nonNull(returnValue)) {
+            json.name("ReturnValues").value(returnValue.name());
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package pl.r6lab.rapidaws.http;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Collects response body as it arrives from the network. Gzip content of responses to requests which accepted it is
+ * inflated on the way and x-amz-crc32 of the received bytes is checked on the way too, no second pass over the body is
+ * needed. Decoder belongs to one connection and is reused by its exchanges together with its inflater, input buffer
+ * and output buffer; only bodies of known length which need no inflating are read straight into their final array.
+ * <p>
+ * Checksum mismatch and malformed gzip content fail the exchange with {@link IOException}, so the request is retried
+ * like after a broken connection.
+ */
+final class BodyDecoder {
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String GZIP = "gzip";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String CONTENT_LENGTH = "Content-Length";
+    private static final String CRC32_HEADER = "x-amz-crc32";
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+    private static final int INPUT_BUFFER_SIZE = 8192;
+    private static final int EXPECTED_COMPRESSION_RATIO = 4;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_HEADER_LENGTH = 10;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int MAX_GZIP_HEADER_LENGTH = 64 * 1024;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private enum Gzip {
+        HEADER, DEFLATE, TRAILER, DONE
+    }
+
+    private final CRC32 received = new CRC32();
+    private final CRC32 inflated = new CRC32();
+
+    private Inflater inflater;
+    private byte[] input;
+    private byte[] buffer;
+    private byte[] gzipPart = new byte[GZIP_HEADER_LENGTH];
+    private int gzipPartLength;
+    private Map<String, String> headers;
+    private Gzip gzip;
+    private long expectedChecksum;
+    private byte[] body;
+    private int bodyLength;
+
+    /**
+     * @param contentLength length of the body on the wire, -1 when unknown
+     */
+    void start(HttpRequest request, Map<String, String> headers, long contentLength) {
+        this.headers = headers;
+        this.expectedChecksum = expectedChecksum(headers);
+        this.received.reset();
+        this.bodyLength = 0;
+        if (isGzip(request, headers)) {
+            this.gzip = Gzip.HEADER;
+            this.gzipPartLength = 0;
+            this.inflated.reset();
+            if (inflater == null) {
+                inflater = new Inflater(true);
+                input = new byte[INPUT_BUFFER_SIZE];
+            } else {
+                inflater.reset();
+            }
+            this.body = buffer(contentLength < 0 ? INITIAL_BUFFER_SIZE : (int) Math.min(contentLength * EXPECTED_COMPRESSION_RATIO, MAX_RETAINED_BUFFER_SIZE));
+        } else {
+            this.gzip = null;
+            this.body = contentLength < 0 ? buffer(INITIAL_BUFFER_SIZE) : new byte[Math.toIntExact(contentLength)];
+        }
+    }
+
+    /**
+     * Reads at most length bytes of the body from the stream
+     *
+     * @return number of bytes read from the stream or -1 at its end
+     */
+    int read(InputStream in, int length) throws IOException {
+        int read;
+        if (gzip == null) {
+            ensureCapacity(1);
+            read = in.read(body, bodyLength, Math.min(length, body.length - bodyLength));
+            if (read > 0) {
+                updateChecksum(body, bodyLength, read);
+                bodyLength += read;
+            }
+        } else {
+            read = in.read(input, 0, Math.min(length, input.length));
+            if (read > 0) {
+                updateChecksum(input, 0, read);
+                decode(input, 0, read);
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Takes length bytes of the body from the buffer
+     */
+    void read(ByteBuffer in, int length) throws IOException {
+        if (gzip == null) {
+            ensureCapacity(length);
+            in.get(body, bodyLength, length);
+            updateChecksum(body, bodyLength, length);
+            bodyLength += length;
+            return;
+        }
+        while (length > 0) {
+            int chunk = Math.min(length, input.length);
+            in.get(input, 0, chunk);
+            updateChecksum(input, 0, chunk);
+            decode(input, 0, chunk);
+            length -= chunk;
+        }
+    }
+
+    /**
+     * @return complete body, headers of inflated response describe it without Content-Encoding
+     */
+    byte[] finish() throws IOException {
+        if (expectedChecksum >= 0 && received.getValue() != expectedChecksum) {
+            throw new IOException("Response checksum mismatch, x-amz-crc32 is " + expectedChecksum + " but received body has " + received.getValue());
+        }
+        if (gzip != null && gzip != Gzip.DONE) {
+            throw new EOFException("Unexpected end of gzip response body");
+        }
+        if (gzip != null) {
+            headers.remove(CONTENT_ENCODING);
+            if (headers.containsKey(CONTENT_LENGTH)) {
+                headers.put(CONTENT_LENGTH, Integer.toString(bodyLength));
+            }
+        }
+        byte[] content = body;
+        if (body == buffer) {
+            content = Arrays.copyOf(body, bodyLength);
+            if (buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+                buffer = null;
+            }
+        }
+        body = null;
+        headers = null;
+        return content;
+    }
+
+    /**
+     * Releases native memory of the inflater, called when the connection is closed
+     */
+    void close() {
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+
+    /**
+     * Wraps body stream of a streaming response. Checksum is verified when the stream reaches its end, too late for a
+     * retry, so the reader gets {@link IOException} instead of a silently corrupted body.
+     */
+    static InputStream decoding(HttpRequest request, Map<String, String> headers, InputStream body) throws IOException {
+        long expectedChecksum = expectedChecksum(headers);
+        InputStream decoded = expectedChecksum < 0 ? body : new ChecksumStream(body, expectedChecksum);
+        if (!isGzip(request, headers)) {
+            return decoded;
+        }
+        headers.remove(CONTENT_ENCODING);
+        headers.remove(CONTENT_LENGTH);
+        try {
+            return new InflatingStream(decoded);
+        } catch (IOException | RuntimeException e) {
+            body.close();
+            throw e;
+        }
+    }
+
+    private static boolean isGzip(HttpRequest request, Map<String, String> headers) {
+        String accepted = request.getHeader(ACCEPT_ENCODING);
+        return accepted != null && accepted.contains(GZIP) && GZIP.equalsIgnoreCase(headers.get(CONTENT_ENCODING));
+    }
+
+    private static long expectedChecksum(Map<String, String> headers) {
+        String checksum = headers.get(CRC32_HEADER);
+        if (checksum == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(checksum.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void updateChecksum(byte[] bytes, int offset, int length) {
+        if (expectedChecksum >= 0) {
+            received.update(bytes, offset, length);
+        }
+    }
+
+    private void decode(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            int used;
+            switch (gzip) {
+                case HEADER:
+                    used = header(bytes, offset, length);
+                    break;
+                case DEFLATE:
+                    used = inflate(bytes, offset, length);
+                    break;
+                case TRAILER:
+                    used = trailer(bytes, offset, length);
+                    break;
+                default:
+                    throw new ZipException("Unexpected data after gzip trailer");
+            }
+            offset += used;
+            length -= used;
+        }
+    }
+
+    /**
+     * Collects header bytes until the whole header with optional fields is there
+     *
+     * @return bytes used by the header
+     */
+    private int header(byte[] bytes, int offset, int length) throws IOException {
+        int previous = gzipPartLength;
+        int copied = Math.min(length, MAX_GZIP_HEADER_LENGTH - gzipPartLength);
+        if (gzipPart.length < gzipPartLength + copied) {
+            gzipPart = Arrays.copyOf(gzipPart, Math.max(gzipPart.length * 2, gzipPartLength + copied));
+        }
+        System.arraycopy(bytes, offset, gzipPart, gzipPartLength, copied);
+        gzipPartLength += copied;
+        int headerLength = headerLength(gzipPart, gzipPartLength);
+        if (headerLength < 0) {
+            if (gzipPartLength == MAX_GZIP_HEADER_LENGTH) {
+                throw new ZipException("Gzip header too long");
+            }
+            return copied;
+        }
+        gzip = Gzip.DEFLATE;
+        gzipPartLength = 0;
+        return headerLength - previous;
+    }
+
+    /**
+     * @return length of complete header or -1 when more bytes are needed
+     */
+    private static int headerLength(byte[] header, int length) throws IOException {
+        if (length < GZIP_HEADER_LENGTH) {
+            return -1;
+        }
+        if (((header[0] & 0xFF) | (header[1] & 0xFF) << 8) != GZIP_MAGIC || header[2] != 8) {
+            throw new ZipException("Not in gzip format");
+        }
+        int flags = header[3] & 0xFF;
+        int position = GZIP_HEADER_LENGTH;
+        if ((flags & FEXTRA) != 0) {
+            if (length < position + 2) {
+                return -1;
+            }
+            position += 2 + ((header[position] & 0xFF) | (header[position + 1] & 0xFF) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            position = skipZeroTerminated(header, position, length);
+        }
+        if ((flags & FCOMMENT) != 0 && position >= 0) {
+            position = skipZeroTerminated(header, position, length);
+        }
+        if ((flags & FHCRC) != 0 && position >= 0) {
+            position += 2;
+        }
+        return position >= 0 && position <= length ? position : -1;
+    }
+
+    private static int skipZeroTerminated(byte[] header, int position, int length) {
+        for (int i = position; i < length; ++i) {
+            if (header[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return bytes used by the deflate stream, the rest belongs to the trailer
+     */
+    private int inflate(byte[] bytes, int offset, int length) throws IOException {
+        inflater.setInput(bytes, offset, length);
+        try {
+            while (!inflater.finished()) {
+                ensureCapacity(1);
+                int inflatedLength = inflater.inflate(body, bodyLength, body.length - bodyLength);
+                if (inflatedLength == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    if (inflater.needsDictionary()) {
+                        throw new ZipException("Gzip content with preset dictionary");
+                    }
+                    return length;
+                }
+                if (expectedChecksum < 0) {
+                    inflated.update(body, bodyLength, inflatedLength);
+                }
+                bodyLength += inflatedLength;
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid gzip content: " + e.getMessage());
+        }
+        gzip = Gzip.TRAILER;
+        return length - inflater.getRemaining();
+    }
+
+    /**
+     * Checks size of the content and, when there is no x-amz-crc32 covering it already, its CRC32
+     */
+    private int trailer(byte[] bytes, int offset, int length) throws IOException {
+        int copied = Math.min(length, GZIP_TRAILER_LENGTH - gzipPartLength);
+        System.arraycopy(bytes, offset, gzipPart, gzipPartLength, copied);
+        gzipPartLength += copied;
+        if (gzipPartLength < GZIP_TRAILER_LENGTH) {
+            return copied;
+        }
+        long checksum = littleEndianInt(gzipPart, 0);
+        long size = littleEndianInt(gzipPart, 4);
+        if (size != (bodyLength & 0xFFFFFFFFL) || (expectedChecksum < 0 && checksum != inflated.getValue())) {
+            throw new ZipException("Corrupt gzip trailer");
+        }
+        gzip = Gzip.DONE;
+        return copied;
+    }
+
+    private static long littleEndianInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL)
+                | (bytes[offset + 1] & 0xFFL) << 8
+                | (bytes[offset + 2] & 0xFFL) << 16
+                | (bytes[offset + 3] & 0xFFL) << 24;
+    }
+
+    private byte[] buffer(int minimumSize) {
+        if (buffer == null || buffer.length < minimumSize) {
+            buffer = new byte[Math.max(minimumSize, INITIAL_BUFFER_SIZE)];
+        }
+        return buffer;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (bodyLength + additional > body.length) {
+            body = Arrays.copyOf(body, Math.max(body.length * 2, bodyLength + additional));
+            buffer = body;
+        }
+    }
+
+    /**
+     * Gzip stream stops reading at the end of the trailer, the rest of the body is read then so that checksum gets
+     * verified and the connection can be reused
+     */
+    private static final class InflatingStream extends GZIPInputStream {
+
+        private final InputStream body;
+
+        private InflatingStream(InputStream body) throws IOException {
+            super(body, INPUT_BUFFER_SIZE);
+            this.body = body;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read == -1) {
+                byte[] rest = new byte[64];
+                while (body.read(rest, 0, rest.length) != -1) {
+                    // bytes after the gzip member are ignored like by GZIPInputStream
+                }
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Verifies x-amz-crc32 of a streamed body once its end is reached
+     */
+    private static final class ChecksumStream extends FilterInputStream {
+
+        private final CRC32 checksum = new CRC32();
+        private final long expected;
+
+        private ChecksumStream(InputStream in, long expected) {
+            super(in);
+            this.expected = expected;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = in.read();
+            if (read == -1) {
+                verify();
+            } else {
+                checksum.update(read);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = in.read(bytes, offset, length);
+            if (read == -1) {
+                verify();
+            } else {
+                checksum.update(bytes, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] skipped = new byte[(int) Math.min(n, INPUT_BUFFER_SIZE)];
+            int read = read(skipped, 0, skipped.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void verify() throws IOException {
+            if (checksum.getValue() != expected) {
+                throw new IOException("Response checksum mismatch, x-amz-crc32 is " + expected + " but received body has " + checksum.getValue());
+            }
+        }
+    }
+}
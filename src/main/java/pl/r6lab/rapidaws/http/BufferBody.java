@@ -0,0 +1,41 @@
+package pl.r6lab.rapidaws.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+final class BufferBody implements HttpBody {
+
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private final ByteBuffer buffer;
+
+    BufferBody(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public long getContentLength() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return;
+        }
+        ByteBuffer source = buffer.duplicate();
+        byte[] copy = new byte[Math.min(COPY_BUFFER_SIZE, source.remaining())];
+        while (source.hasRemaining()) {
+            int length = Math.min(copy.length, source.remaining());
+            source.get(copy, 0, length);
+            out.write(copy, 0, length);
+        }
+    }
+
+    @Override
+    public ByteBuffer asByteBuffer() {
+        return buffer.duplicate();
+    }
+}
@@ -0,0 +1,48 @@
+package pl.r6lab.rapidaws.http;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of equally sized direct buffers. Direct buffers are expensive to allocate and are released only by GC, so
+ * they are recycled instead. Requests for bigger buffers are served with non pooled ones.
+ */
+final class ByteBufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    private ByteBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    static ByteBufferPool of(int bufferSize, int maxPooled) {
+        return new ByteBufferPool(bufferSize, maxPooled);
+    }
+
+    ByteBuffer acquire(int minimumSize) {
+        if (minimumSize > bufferSize) {
+            return ByteBuffer.allocateDirect(minimumSize);
+        }
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != bufferSize || pooled.get() >= maxPooled) {
+            return;
+        }
+        pooled.incrementAndGet();
+        buffers.offer(buffer);
+    }
+}
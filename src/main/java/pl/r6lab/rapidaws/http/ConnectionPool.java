@@ -0,0 +1,341 @@
+package pl.r6lab.rapidaws.http;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Blocking transport backed by per endpoint pool of keep-alive HTTP/1.1 connections. Idle connections are reused in LIFO order so the most
+ * recently used (and most likely alive) connection is taken first, expired ones are evicted on access.
+ */
+public final class ConnectionPool implements Transport {
+
+    private final ConnectionPoolConfig config;
+    private final SSLSocketFactory sslSocketFactory;
+    private final DnsResolver dnsResolver;
+    private final ConcurrentMap<Endpoint, HostPool> pools = new ConcurrentHashMap<>();
+
+    private ConnectionPool(ConnectionPoolConfig config) {
+        this.config = config;
+        this.sslSocketFactory = (isNull(config.getSslContext()) ? defaultSslContext() : config.getSslContext()).getSocketFactory();
+        this.dnsResolver = isNull(config.getDnsResolver()) ? DnsResolver.defaultResolver() : config.getDnsResolver();
+    }
+
+    public static ConnectionPool of(ConnectionPoolConfig config) {
+        return new ConnectionPool(config);
+    }
+
+    public static ConnectionPool defaults() {
+        return new ConnectionPool(ConnectionPoolConfig.defaults());
+    }
+
+    /**
+     * Sends request over pooled connection. Request is repeated once on a new connection when a reused connection
+     * turns out to be closed by the server while idle: writing the request failed, or the connection was closed or
+     * reset before any response byte arrived. Timeouts and requests with body that can't be written again are not
+     * repeated.
+     */
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        HttpConnection connection = acquire(request.getEndpoint(), request.getTimings());
+        try {
+            HttpResponse response = connection.exchange(request);
+            release(connection);
+            return response;
+        } catch (IOException e) {
+            discard(connection);
+            if (!isResendable(connection, request, e)) {
+                throw e;
+            }
+        }
+        HttpConnection freshConnection = acquireNew(request.getEndpoint(), request.getTimings());
+        try {
+            HttpResponse response = freshConnection.exchange(request);
+            release(freshConnection);
+            return response;
+        } catch (IOException e) {
+            discard(freshConnection);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns response as soon as headers arrive, connection goes back to the pool when body stream is closed
+     */
+    @Override
+    public HttpResponse executeStreaming(HttpRequest request) throws IOException {
+        HttpConnection connection = acquire(request.getEndpoint(), request.getTimings());
+        try {
+            return connection.exchangeStreaming(request, this::release);
+        } catch (IOException e) {
+            discard(connection);
+            if (!isResendable(connection, request, e)) {
+                throw e;
+            }
+        }
+        HttpConnection freshConnection = acquireNew(request.getEndpoint(), request.getTimings());
+        try {
+            return freshConnection.exchangeStreaming(request, this::release);
+        } catch (IOException e) {
+            discard(freshConnection);
+            throw e;
+        }
+    }
+
+    private static boolean isResendable(HttpConnection connection, HttpRequest request, IOException failure) {
+        // only failures of a stale connection are resent, never a timeout as the server may have processed the request
+        return connection.isReused()
+                && StaleConnections.isStale(failure, connection.isRequestWritten(), connection.isResponseStarted())
+                && isRepeatable(request);
+    }
+
+    private static boolean isRepeatable(HttpRequest request) {
+        return isNull(request.getBody()) || request.getBody().isRepeatable();
+    }
+
+    public HttpConnection acquire(Endpoint endpoint) throws IOException {
+        return acquire(endpoint, null);
+    }
+
+    /**
+     * Returns connection to the pool or closes it when it can't be reused
+     */
+    public void release(HttpConnection connection) {
+        HostPool pool = pool(connection.getEndpoint());
+        if (connection.isReusable()) {
+            pool.offerIdle(connection);
+        } else {
+            connection.close();
+        }
+        pool.permits.release();
+    }
+
+    public void discard(HttpConnection connection) {
+        connection.close();
+        pool(connection.getEndpoint()).permits.release();
+    }
+
+    /**
+     * Closes idle connections that exceeded max idle time
+     */
+    public void evictIdle() {
+        pools.values().forEach(HostPool::evictExpired);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HostPool::closeAll);
+    }
+
+    /**
+     * Connections are opened one after another in the calling thread
+     */
+    @Override
+    public int prime(Endpoint endpoint, int connections) throws IOException {
+        HostPool pool = pool(endpoint);
+        int missing = Math.min(connections, config.getMaxConnectionsPerHost()) - pool.idleCount();
+        int opened = 0;
+        for (; opened < missing; ++opened) {
+            HttpConnection connection = acquireNew(endpoint, null);
+            connection.primed();
+            pool.offerIdle(connection);
+            pool.permits.release();
+        }
+        return opened;
+    }
+
+    public int getIdleCount(Endpoint endpoint) {
+        HostPool pool = pools.get(endpoint);
+        return pool == null ? 0 : pool.idleCount();
+    }
+
+    public ConnectionPoolConfig getConfig() {
+        return config;
+    }
+
+    private HttpConnection acquire(Endpoint endpoint, ExchangeTimings timings) throws IOException {
+        long start = isNull(timings) ? 0 : System.nanoTime();
+        HostPool pool = pool(endpoint);
+        pool.acquirePermit();
+        try {
+            HttpConnection connection = pool.pollIdle();
+            if (connection == null) {
+                connection = connect(endpoint, timings);
+            }
+            if (nonNull(timings)) {
+                timings.acquired(System.nanoTime() - start);
+            }
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            pool.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Used to repeat request that failed on a stale connection, timings of the failed attempt are dropped
+     */
+    private HttpConnection acquireNew(Endpoint endpoint, ExchangeTimings timings) throws IOException {
+        long start = 0;
+        if (nonNull(timings)) {
+            timings.reset();
+            start = System.nanoTime();
+        }
+        HostPool pool = pool(endpoint);
+        pool.acquirePermit();
+        try {
+            HttpConnection connection = connect(endpoint, timings);
+            if (nonNull(timings)) {
+                timings.acquired(System.nanoTime() - start);
+            }
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            pool.permits.release();
+            throw e;
+        }
+    }
+
+    private HostPool pool(Endpoint endpoint) {
+        HostPool pool = pools.get(endpoint);
+        return pool != null ? pool : pools.computeIfAbsent(endpoint, HostPool::new);
+    }
+
+    private HttpConnection connect(Endpoint endpoint, ExchangeTimings timings) throws IOException {
+        InetAddress address = dnsResolver.next(endpoint.getHost());
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            try {
+                socket.connect(new InetSocketAddress(address, endpoint.getPort()), config.getConnectTimeoutMillis());
+            } catch (IOException e) {
+                socket.close();
+                dnsResolver.failed(endpoint.getHost(), address);
+                throw e;
+            }
+            socket.setSoTimeout(config.getReadTimeoutMillis());
+            if (endpoint.isHttps()) {
+                // Creating TLS socket with host and port enables SNI and lets JSSE resume cached TLS session
+                SSLSocket sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket, endpoint.getHost(), endpoint.getPort(), true);
+                SSLParameters parameters = sslSocket.getSSLParameters();
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                sslSocket.setSSLParameters(parameters);
+                long handshakeStart = System.nanoTime();
+                sslSocket.startHandshake();
+                if (nonNull(timings)) {
+                    timings.handshake(System.nanoTime() - handshakeStart);
+                }
+                socket = sslSocket;
+            }
+            return new HttpConnection(endpoint, socket, config.getReadTimeoutMillis(), dnsResolver, address);
+        } catch (IOException | RuntimeException e) {
+            if (!socket.isClosed()) {
+                socket.close();
+                dnsResolver.release(endpoint.getHost(), address);
+            }
+            throw e;
+        }
+    }
+
+    static SSLContext defaultSslContext() {
+        try {
+            return SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final class HostPool {
+
+        private final Endpoint endpoint;
+        private final Semaphore permits;
+        private final Deque<HttpConnection> idle = new ArrayDeque<>();
+
+        private HostPool(Endpoint endpoint) {
+            this.endpoint = endpoint;
+            this.permits = new Semaphore(config.getMaxConnectionsPerHost(), true);
+        }
+
+        private void acquirePermit() throws IOException {
+            try {
+                if (!permits.tryAcquire(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new IOException("Timeout waiting for connection to " + endpoint);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for connection to " + endpoint, e);
+            }
+        }
+
+        private HttpConnection pollIdle() {
+            long now = System.nanoTime();
+            while (true) {
+                HttpConnection connection;
+                synchronized (idle) {
+                    connection = idle.pollFirst();
+                }
+                if (connection == null) {
+                    return null;
+                }
+                long idleMillis = TimeUnit.NANOSECONDS.toMillis(now - connection.getLastUsed());
+                if (idleMillis > config.getMaxIdleTimeMillis()
+                        || (idleMillis > config.getValidateAfterInactivityMillis() && connection.isStale())) {
+                    connection.close();
+                    continue;
+                }
+                return connection;
+            }
+        }
+
+        private void offerIdle(HttpConnection connection) {
+            synchronized (idle) {
+                idle.offerFirst(connection);
+            }
+            evictExpired();
+        }
+
+        private void evictExpired() {
+            long now = System.nanoTime();
+            synchronized (idle) {
+                Iterator<HttpConnection> iterator = idle.descendingIterator();
+                while (iterator.hasNext()) {
+                    HttpConnection connection = iterator.next();
+                    if (TimeUnit.NANOSECONDS.toMillis(now - connection.getLastUsed()) <= config.getMaxIdleTimeMillis()) {
+                        break;
+                    }
+                    iterator.remove();
+                    connection.close();
+                }
+            }
+        }
+
+        private int idleCount() {
+            synchronized (idle) {
+                return idle.size();
+            }
+        }
+
+        private void closeAll() {
+            synchronized (idle) {
+                idle.forEach(HttpConnection::close);
+                idle.clear();
+            }
+        }
+    }
+}
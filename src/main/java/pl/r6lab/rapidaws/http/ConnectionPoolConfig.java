@@ -0,0 +1,133 @@
+package pl.r6lab.rapidaws.http;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * Immutable connection pool settings. Start from {@link #defaults()} and adjust with the with* methods.
+ */
+public final class ConnectionPoolConfig {
+
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 50;
+    private static final long DEFAULT_MAX_IDLE_TIME_MILLIS = 30_000;
+    private static final long DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS = 2_000;
+    private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 2_000;
+    private static final int DEFAULT_READ_TIMEOUT_MILLIS = 60_000;
+    private static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 10_000;
+
+    private final int maxConnectionsPerHost;
+    private final long maxIdleTimeMillis;
+    private final long validateAfterInactivityMillis;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final long acquireTimeoutMillis;
+    private final SSLContext sslContext;
+    private final DnsResolver dnsResolver;
+
+    private ConnectionPoolConfig(int maxConnectionsPerHost, long maxIdleTimeMillis, long validateAfterInactivityMillis, int connectTimeoutMillis,
+                                 int readTimeoutMillis, long acquireTimeoutMillis, SSLContext sslContext, DnsResolver dnsResolver) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.maxIdleTimeMillis = maxIdleTimeMillis;
+        this.validateAfterInactivityMillis = validateAfterInactivityMillis;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.sslContext = sslContext;
+        this.dnsResolver = dnsResolver;
+    }
+
+    public static ConnectionPoolConfig defaults() {
+        return new ConnectionPoolConfig(DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_MAX_IDLE_TIME_MILLIS, DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS,
+                DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS, DEFAULT_ACQUIRE_TIMEOUT_MILLIS, null, null);
+    }
+
+    public ConnectionPoolConfig withMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        if (maxConnectionsPerHost < 1) {
+            throw new IllegalArgumentException("At least one connection per host is required");
+        }
+        return new ConnectionPoolConfig(maxConnectionsPerHost, maxIdleTimeMillis, validateAfterInactivityMillis, connectTimeoutMillis,
+                readTimeoutMillis, acquireTimeoutMillis, sslContext, dnsResolver);
+    }
+
+    /**
+     * @param maxIdleTimeMillis idle connections older than that are closed instead of being reused
+     */
+    public ConnectionPoolConfig withMaxIdleTimeMillis(long maxIdleTimeMillis) {
+        return new ConnectionPoolConfig(maxConnectionsPerHost, maxIdleTimeMillis, validateAfterInactivityMillis, connectTimeoutMillis,
+                readTimeoutMillis, acquireTimeoutMillis, sslContext, dnsResolver);
+    }
+
+    /**
+     * @param validateAfterInactivityMillis connections idle longer than that are checked for being closed by the server before reuse
+     */
+    public ConnectionPoolConfig withValidateAfterInactivityMillis(long validateAfterInactivityMillis) {
+        return new ConnectionPoolConfig(maxConnectionsPerHost, maxIdleTimeMillis, validateAfterInactivityMillis, connectTimeoutMillis,
+                readTimeoutMillis, acquireTimeoutMillis, sslContext, dnsResolver);
+    }
+
+    public ConnectionPoolConfig withConnectTimeoutMillis(int connectTimeoutMillis) {
+        return new ConnectionPoolConfig(maxConnectionsPerHost, maxIdleTimeMillis, validateAfterInactivityMillis, connectTimeoutMillis,
+                readTimeoutMillis, acquireTimeoutMillis, sslContext, dnsResolver);
+    }
+
+    public ConnectionPoolConfig withReadTimeoutMillis(int readTimeoutMillis) {
+        return new ConnectionPoolConfig(maxConnectionsPerHost, maxIdleTimeMillis, validateAfterInactivityMillis, connectTimeoutMillis,
+                readTimeoutMillis, acquireTimeoutMillis, sslContext, dnsResolver);
+    }
+
+    /**
+     * @param acquireTimeoutMillis maximum time to wait for a connection when all connections to the host are in use
+     */
+    public ConnectionPoolConfig withAcquireTimeoutMillis(long acquireTimeoutMillis) {
+        return new ConnectionPoolConfig(maxConnectionsPerHost, maxIdleTimeMillis, validateAfterInactivityMillis, connectTimeoutMillis,
+                readTimeoutMillis, acquireTimeoutMillis, sslContext, dnsResolver);
+    }
+
+    /**
+     * @param sslContext context used for TLS connections, TLS sessions are resumed within the same context
+     */
+    public ConnectionPoolConfig withSslContext(SSLContext sslContext) {
+        return new ConnectionPoolConfig(maxConnectionsPerHost, maxIdleTimeMillis, validateAfterInactivityMillis, connectTimeoutMillis,
+                readTimeoutMillis, acquireTimeoutMillis, sslContext, dnsResolver);
+    }
+
+    /**
+     * @param dnsResolver resolver caching endpoint addresses and spreading connections over them, null for
+     *                    {@link DnsResolver#defaultResolver()}
+     */
+    public ConnectionPoolConfig withDnsResolver(DnsResolver dnsResolver) {
+        return new ConnectionPoolConfig(maxConnectionsPerHost, maxIdleTimeMillis, validateAfterInactivityMillis, connectTimeoutMillis,
+                readTimeoutMillis, acquireTimeoutMillis, sslContext, dnsResolver);
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public long getMaxIdleTimeMillis() {
+        return maxIdleTimeMillis;
+    }
+
+    public long getValidateAfterInactivityMillis() {
+        return validateAfterInactivityMillis;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+
+    public SSLContext getSslContext() {
+        return sslContext;
+    }
+
+    public DnsResolver getDnsResolver() {
+        return dnsResolver;
+    }
+}
@@ -0,0 +1,205 @@
+package pl.r6lab.rapidaws.http;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches addresses of endpoint hosts and spreads new connections over all of them. Only the first lookup of a host
+ * blocks, later ones get cached addresses while expired entries are refreshed in the background; addresses are kept
+ * when the refresh fails. New connections go to the address with the fewest open connections, ties are broken round
+ * robin. Address that refused or timed out a connection is ejected for a while, unless all addresses are ejected.
+ * <p>
+ * Lookups go through {@link InetAddress#getAllByName(String)}, so the JVM cache (networkaddress.cache.ttl) can delay
+ * changes on top of the TTL set here. IPv4 addresses are used when there are any, unless java.net.preferIPv6Addresses
+ * is set.
+ */
+public final class DnsResolver {
+
+    private static final long DEFAULT_TTL_MILLIS = 10_000;
+    private static final long DEFAULT_EJECTION_MILLIS = 10_000;
+    private static final long RETRY_AFTER_FAILURE_MILLIS = 1_000;
+    private static final boolean PREFER_IPV6 = Boolean.getBoolean("java.net.preferIPv6Addresses");
+
+    private final long ttlMillis;
+    private final long ejectionMillis;
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    private DnsResolver(long ttlMillis, long ejectionMillis) {
+        this.ttlMillis = ttlMillis;
+        this.ejectionMillis = ejectionMillis;
+    }
+
+    /**
+     * @param ttlMillis      addresses older than that are refreshed in the background
+     * @param ejectionMillis how long an address which failed to connect is skipped
+     */
+    public static DnsResolver of(long ttlMillis, long ejectionMillis) {
+        return new DnsResolver(ttlMillis, ejectionMillis);
+    }
+
+    /**
+     * @return resolver shared by transports without one configured
+     */
+    public static DnsResolver defaultResolver() {
+        return Holder.DEFAULT_RESOLVER;
+    }
+
+    /**
+     * Picks address for a new connection and counts the connection in, until {@link #release} or {@link #failed}
+     */
+    InetAddress next(String host) throws UnknownHostException {
+        Host entry = host(host);
+        long now = System.currentTimeMillis();
+        if (now >= entry.refreshAt && entry.refreshing.compareAndSet(false, true)) {
+            Holder.REFRESH_EXECUTOR.execute(() -> refresh(entry));
+        }
+        InetAddress[] addresses = entry.addresses;
+        int start = Math.floorMod(entry.next.getAndIncrement(), addresses.length);
+        Address best = null;
+        for (int i = 0; i < addresses.length; ++i) {
+            Address candidate = entry.address(addresses[(start + i) % addresses.length]);
+            if (candidate.ejectedUntil <= now && (best == null || candidate.connections.get() < best.connections.get())) {
+                best = candidate;
+            }
+        }
+        if (best == null) {
+            best = entry.address(addresses[start]);
+        }
+        best.connections.incrementAndGet();
+        return best.address;
+    }
+
+    /**
+     * Connection to the address was closed
+     */
+    void release(String host, InetAddress address) {
+        Host entry = hosts.get(host);
+        if (entry != null) {
+            Address state = entry.states.get(address);
+            if (state != null) {
+                state.connections.updateAndGet(connections -> connections > 0 ? connections - 1 : 0);
+            }
+        }
+    }
+
+    /**
+     * Connection to the address could not be opened, it is released and the address ejected
+     */
+    void failed(String host, InetAddress address) {
+        release(host, address);
+        Host entry = hosts.get(host);
+        if (entry != null) {
+            entry.address(address).ejectedUntil = System.currentTimeMillis() + ejectionMillis;
+        }
+    }
+
+    /**
+     * @return cached addresses of the host, empty when it was not resolved yet
+     */
+    public List<InetAddress> getAddresses(String host) {
+        Host entry = hosts.get(host);
+        return entry == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(entry.addresses));
+    }
+
+    /**
+     * @return number of open connections to the address
+     */
+    public int getConnections(String host, InetAddress address) {
+        Host entry = hosts.get(host);
+        Address state = entry == null ? null : entry.states.get(address);
+        return state == null ? 0 : state.connections.get();
+    }
+
+    /**
+     * @return true when connections to the address are skipped after a failure
+     */
+    public boolean isEjected(String host, InetAddress address) {
+        Host entry = hosts.get(host);
+        Address state = entry == null ? null : entry.states.get(address);
+        return state != null && state.ejectedUntil > System.currentTimeMillis();
+    }
+
+    private Host host(String host) throws UnknownHostException {
+        Host entry = hosts.get(host);
+        if (entry != null) {
+            return entry;
+        }
+        InetAddress[] addresses = lookup(host);
+        return hosts.computeIfAbsent(host, name -> new Host(name, addresses, System.currentTimeMillis() + ttlMillis));
+    }
+
+    private void refresh(Host entry) {
+        try {
+            InetAddress[] addresses = lookup(entry.name);
+            entry.addresses = addresses;
+            entry.states.values().removeIf(state -> state.connections.get() <= 0 && !Arrays.asList(addresses).contains(state.address));
+            entry.refreshAt = System.currentTimeMillis() + ttlMillis;
+        } catch (UnknownHostException | RuntimeException e) {
+            // cached addresses are still better than none, lookup is retried soon
+            entry.refreshAt = System.currentTimeMillis() + Math.min(ttlMillis, RETRY_AFTER_FAILURE_MILLIS);
+        } finally {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private static InetAddress[] lookup(String host) throws UnknownHostException {
+        InetAddress[] all = InetAddress.getAllByName(host);
+        List<InetAddress> preferred = new ArrayList<>(all.length);
+        for (InetAddress address : all) {
+            if (address instanceof Inet6Address == PREFER_IPV6) {
+                preferred.add(address);
+            }
+        }
+        return preferred.isEmpty() ? all : preferred.toArray(new InetAddress[0]);
+    }
+
+    private static final class Host {
+        private final String name;
+        private final Map<InetAddress, Address> states = new ConcurrentHashMap<>();
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile InetAddress[] addresses;
+        private volatile long refreshAt;
+
+        private Host(String name, InetAddress[] addresses, long refreshAt) {
+            this.name = name;
+            this.addresses = addresses;
+            this.refreshAt = refreshAt;
+        }
+
+        private Address address(InetAddress address) {
+            Address state = states.get(address);
+            return state != null ? state : states.computeIfAbsent(address, Address::new);
+        }
+    }
+
+    private static final class Address {
+        private final InetAddress address;
+        private final AtomicInteger connections = new AtomicInteger();
+        private volatile long ejectedUntil;
+
+        private Address(InetAddress address) {
+            this.address = address;
+        }
+    }
+
+    private static final class Holder {
+        private static final DnsResolver DEFAULT_RESOLVER = new DnsResolver(DEFAULT_TTL_MILLIS, DEFAULT_EJECTION_MILLIS);
+        private static final ExecutorService REFRESH_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rapid-aws-dns");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,102 @@
+package pl.r6lab.rapidaws.http;
+
+import java.util.Objects;
+
+public final class Endpoint {
+
+    private static final String HTTPS = "https";
+    private static final int HTTP_PORT = 80;
+    private static final int HTTPS_PORT = 443;
+
+    private final boolean https;
+    private final String host;
+    private final int port;
+
+    private Endpoint(boolean https, String host, int port) {
+        this.https = https;
+        this.host = host;
+        this.port = port;
+    }
+
+    public static Endpoint of(boolean https, String host, int port) {
+        return new Endpoint(https, host, port);
+    }
+
+    /**
+     * @param url absolute URL, only scheme, host and port are taken into account
+     */
+    public static Endpoint of(String url) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd < 0) {
+            throw new IllegalArgumentException("Not an absolute URL: " + url);
+        }
+        boolean https = schemeEnd == HTTPS.length() && url.regionMatches(true, 0, HTTPS, 0, schemeEnd);
+        int hostStart = schemeEnd + 3;
+        int hostEnd = authorityEnd(url, hostStart);
+        int portStart = url.indexOf(':', hostStart);
+        if (portStart > 0 && portStart < hostEnd) {
+            return new Endpoint(https, url.substring(hostStart, portStart), Integer.parseInt(url.substring(portStart + 1, hostEnd)));
+        }
+        return new Endpoint(https, url.substring(hostStart, hostEnd), https ? HTTPS_PORT : HTTP_PORT);
+    }
+
+    /**
+     * @return path and query of given URL, "/" if URL has no path
+     */
+    public static String pathOf(String url) {
+        int hostStart = url.indexOf("://") + 3;
+        int pathStart = authorityEnd(url, hostStart);
+        return pathStart < url.length() ? url.substring(pathStart) : "/";
+    }
+
+    private static int authorityEnd(String url, int hostStart) {
+        for (int i = hostStart; i < url.length(); ++i) {
+            char c = url.charAt(i);
+            if (c == '/' || c == '?') {
+                return i;
+            }
+        }
+        return url.length();
+    }
+
+    public boolean isHttps() {
+        return https;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return value of Host header
+     */
+    public String getAuthority() {
+        return port == (https ? HTTPS_PORT : HTTP_PORT) ? host : host + ':' + port;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Endpoint)) {
+            return false;
+        }
+        Endpoint endpoint = (Endpoint) o;
+        return https == endpoint.https && port == endpoint.port && host.equals(endpoint.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(https, host, port);
+    }
+
+    @Override
+    public String toString() {
+        return (https ? "https://" : "http://") + host + ':' + port;
+    }
+}
@@ -0,0 +1,106 @@
+package pl.r6lab.rapidaws.http;
+
+/**
+ * Phase durations of a single exchange, filled by the transport when attached with
+ * {@link HttpRequest#setTimings(ExchangeTimings)}. Phases that didn't happen, e.g. handshake on a reused connection,
+ * stay 0. Body read of streaming responses is not measured as the body is read after the transport returns.
+ */
+public final class ExchangeTimings {
+
+    private long acquireNanos;
+    private long handshakeNanos;
+    private long writeNanos;
+    private long firstByteNanos;
+    private long bodyReadNanos;
+    private long bytesSent;
+    private long bytesReceived;
+    private boolean connectionReused;
+
+    private ExchangeTimings() {
+    }
+
+    public static ExchangeTimings create() {
+        return new ExchangeTimings();
+    }
+
+    /**
+     * @return time spent waiting for a pooled connection or opening a new one, including TLS handshake
+     */
+    public long getAcquireNanos() {
+        return acquireNanos;
+    }
+
+    public long getHandshakeNanos() {
+        return handshakeNanos;
+    }
+
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * @return time from the end of request write to the first byte of the response
+     */
+    public long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    /**
+     * @return time from the first byte to the end of the response
+     */
+    public long getBodyReadNanos() {
+        return bodyReadNanos;
+    }
+
+    /**
+     * @return bytes of request head and body as written before TLS encryption
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return bytes of response head and body after TLS decryption, including chunked transfer framing
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public boolean isConnectionReused() {
+        return connectionReused;
+    }
+
+    void acquired(long nanos) {
+        this.acquireNanos = nanos;
+    }
+
+    void connectionReused(boolean reused) {
+        this.connectionReused = reused;
+    }
+
+    void handshake(long nanos) {
+        this.handshakeNanos = nanos;
+    }
+
+    void written(long nanos, long bytes) {
+        this.writeNanos = nanos;
+        this.bytesSent = bytes;
+    }
+
+    void firstByte(long nanos) {
+        this.firstByteNanos = nanos;
+    }
+
+    void received(long nanos, long bytes) {
+        this.bodyReadNanos = nanos;
+        this.bytesReceived = bytes;
+    }
+
+    /**
+     * Request repeated on a new connection is measured from scratch
+     */
+    void reset() {
+        acquireNanos = handshakeNanos = writeNanos = firstByteNanos = bodyReadNanos = bytesSent = bytesReceived = 0;
+        connectionReused = false;
+    }
+}
@@ -0,0 +1,41 @@
+package pl.r6lab.rapidaws.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Request body written by the transport. In-memory bodies are exposed as buffers so they can be written without
+ * copying, other bodies are written to the connection stream as they are produced.
+ */
+public interface HttpBody {
+
+    static HttpBody of(byte[] bytes) {
+        return new BufferBody(ByteBuffer.wrap(bytes));
+    }
+
+    static HttpBody of(ByteBuffer buffer) {
+        return new BufferBody(buffer.slice());
+    }
+
+    /**
+     * @return number of bytes written to the connection
+     */
+    long getContentLength();
+
+    void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * @return true when body can be written again, e.g. when request is retried on another connection
+     */
+    default boolean isRepeatable() {
+        return true;
+    }
+
+    /**
+     * @return whole body as buffer or null when body is produced while written
+     */
+    default ByteBuffer asByteBuffer() {
+        return null;
+    }
+}
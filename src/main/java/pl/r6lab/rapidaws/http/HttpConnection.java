@@ -0,0 +1,461 @@
+package pl.r6lab.rapidaws.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Blocking HTTP/1.1 connection that can be reused for subsequent requests as long as the server keeps it alive
+ */
+public final class HttpConnection {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int HEAD_BUFFER_SIZE = 1024;
+    private static final int STALE_CHECK_TIMEOUT = 1;
+
+    private final Endpoint endpoint;
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final int readTimeout;
+    private final DnsResolver dnsResolver;
+    private final InetAddress address;
+    private final StringBuilder line = new StringBuilder(128);
+    private final BodyDecoder decoder = new BodyDecoder();
+
+    private ByteBuffer head = ByteBuffer.allocate(HEAD_BUFFER_SIZE);
+    private long lastUsed;
+    private int requests;
+    private boolean primed;
+    private boolean reusable;
+    private boolean responseStarted;
+    private boolean requestWritten;
+    private boolean closed;
+    private ExchangeTimings timings;
+    private long writtenAt;
+    private long firstByteAt;
+    private long received;
+
+    HttpConnection(Endpoint endpoint, Socket socket, int readTimeout, DnsResolver dnsResolver, InetAddress address) throws IOException {
+        this.endpoint = endpoint;
+        this.socket = socket;
+        this.dnsResolver = dnsResolver;
+        this.address = address;
+        this.in = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+        this.out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+        this.readTimeout = readTimeout;
+        this.lastUsed = System.nanoTime();
+    }
+
+    public HttpResponse exchange(HttpRequest request) throws IOException {
+        start(request);
+        writeRequest(request);
+        HttpResponse response = readResponse(request);
+        this.lastUsed = System.nanoTime();
+        if (timings != null) {
+            timings.received(lastUsed - firstByteAt, received);
+        }
+        return response;
+    }
+
+    /**
+     * Sends request and reads status line and headers only. Body is read through the stream of returned response,
+     * listener is notified when the stream is closed and the connection can be released.
+     */
+    public HttpResponse exchangeStreaming(HttpRequest request, Consumer<HttpConnection> bodyListener) throws IOException {
+        start(request);
+        writeRequest(request);
+        int statusCode = readStatusLine();
+        Map<String, String> headers = readHeaders();
+        if (timings != null) {
+            timings.received(0, received);
+        }
+        BodyStream body;
+        boolean hasBody = !hasNoBody(request, statusCode);
+        if (!hasBody) {
+            body = new BodyStream(0, false, bodyListener);
+        } else if ("chunked".equalsIgnoreCase(headers.get("Transfer-Encoding"))) {
+            body = new BodyStream(0, true, bodyListener);
+        } else if (headers.containsKey("Content-Length")) {
+            body = new BodyStream(Long.parseLong(headers.get("Content-Length")), false, bodyListener);
+        } else {
+            headers.put("Connection", "close");
+            body = new BodyStream(-1, false, bodyListener);
+        }
+        body.keepAlive = !"close".equalsIgnoreCase(headers.get("Connection"));
+        return HttpResponse.streaming(statusCode, headers, hasBody ? BodyDecoder.decoding(request, headers, body) : body);
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return true when previous requests were already sent over this connection
+     */
+    public boolean isReused() {
+        return requests > 1 || primed;
+    }
+
+    /**
+     * Marks connection opened ahead of the first request, it waits in the pool like a used one
+     */
+    void primed() {
+        this.primed = true;
+        this.reusable = true;
+    }
+
+    /**
+     * @return true when last exchange received at least one byte of the response
+     */
+    public boolean isResponseStarted() {
+        return responseStarted;
+    }
+
+    /**
+     * @return true when whole last request was written to the connection
+     */
+    public boolean isRequestWritten() {
+        return requestWritten;
+    }
+
+    /**
+     * @return true when last response was fully read and server did not ask to close the connection
+     */
+    public boolean isReusable() {
+        return reusable;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Detects connections closed by the server while idle. Closed connection is readable and returns end of stream
+     * immediately, a healthy one times out.
+     */
+    boolean isStale() {
+        if (socket.isClosed() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+            return true;
+        }
+        try {
+            socket.setSoTimeout(STALE_CHECK_TIMEOUT);
+            // Either end of stream or unexpected bytes between responses, connection can't be reused in both cases
+            in.read();
+            return true;
+        } catch (SocketTimeoutException e) {
+            return false;
+        } catch (IOException e) {
+            return true;
+        } finally {
+            try {
+                socket.setSoTimeout(readTimeout);
+            } catch (IOException e) {
+                // connection is going to be closed anyway
+            }
+        }
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing to do with already broken connection
+        }
+        decoder.close();
+        dnsResolver.release(endpoint.getHost(), address);
+    }
+
+    private void start(HttpRequest request) {
+        this.reusable = false;
+        this.responseStarted = false;
+        this.requestWritten = false;
+        ++this.requests;
+        this.timings = request.getTimings();
+        this.received = 0;
+        if (timings != null) {
+            timings.connectionReused(isReused());
+        }
+    }
+
+    private void writeRequest(HttpRequest request) throws IOException {
+        long start = timings == null ? 0 : System.nanoTime();
+        int headLength = HttpRequestEncoder.headLength(request);
+        if (head.capacity() < headLength) {
+            head = ByteBuffer.allocate(Math.max(headLength, head.capacity() * 2));
+        }
+        head.clear();
+        HttpRequestEncoder.encodeHead(request, head);
+        out.write(head.array(), 0, head.position());
+        if (request.getBody() != null) {
+            request.getBody().writeTo(out);
+        }
+        out.flush();
+        requestWritten = true;
+        if (timings != null) {
+            writtenAt = System.nanoTime();
+            timings.written(writtenAt - start, head.position() + (request.getBody() == null ? 0 : request.getBody().getContentLength()));
+        }
+    }
+
+    private HttpResponse readResponse(HttpRequest request) throws IOException {
+        int statusCode = readStatusLine();
+        Map<String, String> headers = readHeaders();
+        boolean keepAlive = !"close".equalsIgnoreCase(headers.get("Connection"));
+        byte[] body;
+        if (hasNoBody(request, statusCode)) {
+            body = new byte[0];
+        } else if ("chunked".equalsIgnoreCase(headers.get("Transfer-Encoding"))) {
+            body = readChunked(request, headers);
+        } else if (headers.containsKey("Content-Length")) {
+            body = readFully(request, headers, Integer.parseInt(headers.get("Content-Length")));
+        } else {
+            body = readToEnd(request, headers);
+            keepAlive = false;
+        }
+        this.reusable = keepAlive;
+        return HttpResponse.of(statusCode, headers, body);
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = HttpResponse.newHeaders();
+        while (readLine().length() > 0) {
+            int separator = line.indexOf(":");
+            if (separator > 0) {
+                String name = line.substring(0, separator).trim();
+                String value = line.substring(separator + 1).trim();
+                String previous = headers.get(name);
+                headers.put(name, previous == null ? value : previous + ',' + value);
+            }
+        }
+        return headers;
+    }
+
+    private static boolean hasNoBody(HttpRequest request, int statusCode) {
+        return "HEAD".equals(request.getMethod()) || statusCode == 204 || statusCode == 304 || statusCode / 100 == 1;
+    }
+
+    private int readStatusLine() throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            throw new EOFException("Connection closed by server before response");
+        }
+        this.responseStarted = true;
+        if (timings != null) {
+            firstByteAt = System.nanoTime();
+            timings.firstByte(firstByteAt - writtenAt);
+        }
+        line.setLength(0);
+        line.append((char) first);
+        appendLine();
+        // HTTP/1.1 200 OK
+        int codeStart = line.indexOf(" ") + 1;
+        if (codeStart == 0 || line.length() < codeStart + 3) {
+            throw new IOException("Malformed status line: " + line);
+        }
+        return Integer.parseInt(line.substring(codeStart, codeStart + 3));
+    }
+
+    private StringBuilder readLine() throws IOException {
+        line.setLength(0);
+        return appendLine();
+    }
+
+    private StringBuilder appendLine() throws IOException {
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                received += line.length() + 1;
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line;
+            }
+            line.append((char) c);
+        }
+        throw new EOFException("Unexpected end of response");
+    }
+
+    private byte[] readFully(HttpRequest request, Map<String, String> headers, int length) throws IOException {
+        decoder.start(request, headers, length);
+        int remaining = length;
+        while (remaining > 0) {
+            int read = decoder.read(in, remaining);
+            if (read == -1) {
+                throw new EOFException("Unexpected end of response body");
+            }
+            remaining -= read;
+        }
+        received += length;
+        return decoder.finish();
+    }
+
+    private byte[] readChunked(HttpRequest request, Map<String, String> headers) throws IOException {
+        decoder.start(request, headers, -1);
+        while (true) {
+            String sizeLine = readLine().toString();
+            int extension = sizeLine.indexOf(';');
+            int size = Integer.parseInt((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+            if (size == 0) {
+                // trailers
+                while (readLine().length() > 0) {
+                }
+                return decoder.finish();
+            }
+            while (size > 0) {
+                int read = decoder.read(in, size);
+                if (read == -1) {
+                    throw new EOFException("Unexpected end of chunked response body");
+                }
+                received += read;
+                size -= read;
+            }
+            readLine();
+        }
+    }
+
+    private byte[] readToEnd(HttpRequest request, Map<String, String> headers) throws IOException {
+        decoder.start(request, headers, -1);
+        int read;
+        while ((read = decoder.read(in, Integer.MAX_VALUE)) != -1) {
+            received += read;
+        }
+        return decoder.finish();
+    }
+
+    /**
+     * Response body read directly from the connection. Closing the stream before the end drains small remainders
+     * so the connection can be reused, bigger ones cause the connection to be closed.
+     */
+    private final class BodyStream extends InputStream {
+
+        private static final long MAX_DRAIN = 64 * 1024;
+
+        private final boolean chunked;
+        private final Consumer<HttpConnection> listener;
+        private long remaining;
+        private boolean keepAlive;
+        private boolean eof;
+        private boolean closed;
+
+        private BodyStream(long length, boolean chunked, Consumer<HttpConnection> listener) {
+            this.remaining = length;
+            this.chunked = chunked;
+            this.listener = listener;
+            this.eof = length == 0 && !chunked;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            return readBody(buffer, offset, length);
+        }
+
+        private int readBody(byte[] buffer, int offset, int length) throws IOException {
+            if (eof || length == 0) {
+                return eof ? -1 : 0;
+            }
+            if (chunked && remaining == 0) {
+                remaining = nextChunkSize();
+                if (remaining == 0) {
+                    eof = true;
+                    return -1;
+                }
+            }
+            int toRead = remaining < 0 ? length : (int) Math.min(length, remaining);
+            int read = in.read(buffer, offset, toRead);
+            if (read == -1) {
+                if (remaining < 0) {
+                    eof = true;
+                    return -1;
+                }
+                throw new EOFException("Unexpected end of response body");
+            }
+            if (remaining > 0) {
+                remaining -= read;
+                if (remaining == 0 && chunked) {
+                    readLine();
+                } else if (remaining == 0) {
+                    eof = true;
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (eof || closed) {
+                return 0;
+            }
+            int available = in.available();
+            return remaining > 0 ? (int) Math.min(available, remaining) : chunked ? 0 : available;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            reusable = keepAlive && drain();
+            lastUsed = System.nanoTime();
+            listener.accept(HttpConnection.this);
+        }
+
+        private boolean drain() {
+            if (eof) {
+                return true;
+            }
+            if (remaining < 0 || (!chunked && remaining > MAX_DRAIN)) {
+                return false;
+            }
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long drained = 0;
+                while (!eof && drained <= MAX_DRAIN) {
+                    int read = readBody(buffer, 0, buffer.length);
+                    if (read > 0) {
+                        drained += read;
+                    }
+                }
+                return eof;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private long nextChunkSize() throws IOException {
+            String sizeLine = readLine().toString();
+            int extension = sizeLine.indexOf(';');
+            long size = Long.parseLong((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+            if (size == 0) {
+                // trailers
+                while (readLine().length() > 0) {
+                }
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package pl.r6lab.rapidaws.http;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class HttpRequest {
+
+    private final String method;
+    private final Endpoint endpoint;
+    private final String path;
+    private final List<String> headers = new ArrayList<>(16);
+    private HttpBody body;
+    private ExchangeTimings timings;
+
+    private HttpRequest(String method, Endpoint endpoint, String path) {
+        this.method = method;
+        this.endpoint = endpoint;
+        this.path = path;
+    }
+
+    public static HttpRequest of(String method, String url) {
+        return new HttpRequest(method, Endpoint.of(url), Endpoint.pathOf(url));
+    }
+
+    public static HttpRequest of(String method, Endpoint endpoint, String path) {
+        return new HttpRequest(method, endpoint, path);
+    }
+
+    /**
+     * Sets header value replacing previous one with the same name
+     */
+    public void setHeader(String name, String value) {
+        for (int i = 0; i < headers.size(); i += 2) {
+            if (headers.get(i).equalsIgnoreCase(name)) {
+                headers.set(i + 1, value);
+                return;
+            }
+        }
+        headers.add(name);
+        headers.add(value);
+    }
+
+    public String getHeader(String name) {
+        for (int i = 0; i < headers.size(); i += 2) {
+            if (headers.get(i).equalsIgnoreCase(name)) {
+                return headers.get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    public int getHeaderCount() {
+        return headers.size() / 2;
+    }
+
+    public String getHeaderName(int index) {
+        return headers.get(index * 2);
+    }
+
+    public String getHeaderValue(int index) {
+        return headers.get(index * 2 + 1);
+    }
+
+    public void setBody(byte[] body) {
+        this.body = HttpBody.of(body);
+    }
+
+    public void setBody(HttpBody body) {
+        this.body = body;
+    }
+
+    public HttpBody getBody() {
+        return body;
+    }
+
+    /**
+     * @param timings filled by the transport during the exchange, requests without them are not measured
+     */
+    public void setTimings(ExchangeTimings timings) {
+        this.timings = timings;
+    }
+
+    public ExchangeTimings getTimings() {
+        return timings;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
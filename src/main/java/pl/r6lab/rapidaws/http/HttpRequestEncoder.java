@@ -0,0 +1,61 @@
+package pl.r6lab.rapidaws.http;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes request line and headers. Host and Content-Length are added when not set explicitly.
+ */
+final class HttpRequestEncoder {
+
+    private static final String HTTP_VERSION = " HTTP/1.1\r\n";
+    private static final String HOST = "Host";
+    private static final String CONTENT_LENGTH = "Content-Length";
+    private static final int SEPARATOR_LENGTH = 4;
+
+    private HttpRequestEncoder() {
+    }
+
+    static int headLength(HttpRequest request) {
+        int length = request.getMethod().length() + 1 + request.getPath().length() + HTTP_VERSION.length() + 2;
+        if (request.getHeader(HOST) == null) {
+            length += HOST.length() + request.getEndpoint().getAuthority().length() + SEPARATOR_LENGTH;
+        }
+        if (request.getHeader(CONTENT_LENGTH) == null && request.getBody() != null) {
+            length += CONTENT_LENGTH.length() + 19 + SEPARATOR_LENGTH;
+        }
+        for (int i = 0; i < request.getHeaderCount(); ++i) {
+            length += request.getHeaderName(i).length() + request.getHeaderValue(i).length() + SEPARATOR_LENGTH;
+        }
+        return length;
+    }
+
+    static void encodeHead(HttpRequest request, ByteBuffer buffer) {
+        putAscii(buffer, request.getMethod());
+        buffer.put((byte) ' ');
+        putAscii(buffer, request.getPath());
+        putAscii(buffer, HTTP_VERSION);
+        if (request.getHeader(HOST) == null) {
+            putHeader(buffer, HOST, request.getEndpoint().getAuthority());
+        }
+        if (request.getHeader(CONTENT_LENGTH) == null && request.getBody() != null) {
+            putHeader(buffer, CONTENT_LENGTH, Long.toString(request.getBody().getContentLength()));
+        }
+        for (int i = 0; i < request.getHeaderCount(); ++i) {
+            putHeader(buffer, request.getHeaderName(i), request.getHeaderValue(i));
+        }
+        buffer.put((byte) '\r').put((byte) '\n');
+    }
+
+    private static void putHeader(ByteBuffer buffer, String name, String value) {
+        putAscii(buffer, name);
+        buffer.put((byte) ':').put((byte) ' ');
+        putAscii(buffer, value);
+        buffer.put((byte) '\r').put((byte) '\n');
+    }
+
+    private static void putAscii(ByteBuffer buffer, String value) {
+        for (int i = 0; i < value.length(); ++i) {
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+}
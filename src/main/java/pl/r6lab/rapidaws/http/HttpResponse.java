@@ -0,0 +1,63 @@
+package pl.r6lab.rapidaws.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+public final class HttpResponse {
+
+    private final int statusCode;
+    private final Map<String, String> headers;
+    private final byte[] body;
+    private final InputStream bodyStream;
+
+    private HttpResponse(int statusCode, Map<String, String> headers, byte[] body, InputStream bodyStream) {
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body;
+        this.bodyStream = bodyStream;
+    }
+
+    public static HttpResponse of(int statusCode, Map<String, String> headers, byte[] body) {
+        return new HttpResponse(statusCode, headers, body, null);
+    }
+
+    /**
+     * @param bodyStream body read directly from the connection, connection is released when the stream is closed
+     */
+    public static HttpResponse streaming(int statusCode, Map<String, String> headers, InputStream bodyStream) {
+        return new HttpResponse(statusCode, headers, null, bodyStream);
+    }
+
+    static Map<String, String> newHeaders() {
+        return new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return buffered body or null for streaming response
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    public boolean isStreaming() {
+        return bodyStream != null;
+    }
+
+    public InputStream getBodyStream() {
+        return bodyStream != null ? bodyStream : new ByteArrayInputStream(body);
+    }
+}
@@ -0,0 +1,203 @@
+package pl.r6lab.rapidaws.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Incremental HTTP/1.1 response parser fed with whatever bytes arrived from the network
+ */
+final class HttpResponseParser {
+
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private enum State {
+        STATUS_LINE, HEADERS, FIXED_BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS, UNTIL_CLOSE, DONE
+    }
+
+    private final StringBuilder line = new StringBuilder(128);
+    private final BodyDecoder decoder = new BodyDecoder();
+
+    private State state;
+    private HttpRequest request;
+    private boolean headRequest;
+    private boolean started;
+    private int statusCode;
+    private Map<String, String> headers;
+    private boolean hasBody;
+    private int remaining;
+    private boolean lineCompleted;
+
+    void reset(HttpRequest request) {
+        this.state = State.STATUS_LINE;
+        this.request = request;
+        this.headRequest = "HEAD".equals(request.getMethod());
+        this.started = false;
+        this.statusCode = 0;
+        this.headers = HttpResponse.newHeaders();
+        this.hasBody = false;
+        this.remaining = 0;
+        this.line.setLength(0);
+        this.lineCompleted = false;
+    }
+
+    /**
+     * @return true when the whole response was parsed, remaining bytes of the buffer are left untouched
+     */
+    boolean parse(ByteBuffer in) throws IOException {
+        if (in.hasRemaining()) {
+            started = true;
+        }
+        while (state != State.DONE && in.hasRemaining()) {
+            switch (state) {
+                case STATUS_LINE:
+                    if (readLine(in)) {
+                        parseStatusLine();
+                        state = State.HEADERS;
+                    }
+                    break;
+                case HEADERS:
+                    if (readLine(in)) {
+                        if (line.length() == 0) {
+                            startBody();
+                        } else {
+                            parseHeader();
+                        }
+                    }
+                    break;
+                case FIXED_BODY:
+                case CHUNK_DATA:
+                    int length = Math.min(remaining, in.remaining());
+                    decoder.read(in, length);
+                    remaining -= length;
+                    if (remaining == 0) {
+                        state = state == State.FIXED_BODY ? State.DONE : State.CHUNK_END;
+                    }
+                    break;
+                case CHUNK_SIZE:
+                    if (readLine(in)) {
+                        int extension = line.indexOf(";");
+                        remaining = Integer.parseInt((extension < 0 ? line.toString() : line.substring(0, extension)).trim(), 16);
+                        state = remaining == 0 ? State.TRAILERS : State.CHUNK_DATA;
+                    }
+                    break;
+                case CHUNK_END:
+                    if (readLine(in)) {
+                        state = State.CHUNK_SIZE;
+                    }
+                    break;
+                case TRAILERS:
+                    if (readLine(in) && line.length() == 0) {
+                        state = State.DONE;
+                    }
+                    break;
+                case UNTIL_CLOSE:
+                    decoder.read(in, in.remaining());
+                    break;
+                default:
+                    throw new IllegalStateException(state.name());
+            }
+        }
+        return state == State.DONE;
+    }
+
+    /**
+     * @return true when response delimited by connection close is complete
+     */
+    boolean endOfStream() {
+        if (state == State.UNTIL_CLOSE) {
+            state = State.DONE;
+            return true;
+        }
+        return state == State.DONE;
+    }
+
+    boolean isStarted() {
+        return started;
+    }
+
+    boolean isKeepAlive() {
+        return state == State.DONE && !"close".equalsIgnoreCase(headers.get("Connection"));
+    }
+
+    /**
+     * @throws IOException when body does not match its checksum or can't be inflated
+     */
+    HttpResponse toResponse() throws IOException {
+        byte[] content = hasBody ? decoder.finish() : new byte[0];
+        hasBody = false;
+        request = null;
+        return HttpResponse.of(statusCode, headers, content);
+    }
+
+    /**
+     * Releases the inflater, called when the connection is closed
+     */
+    void close() {
+        decoder.close();
+    }
+
+    private void parseStatusLine() throws IOException {
+        int codeStart = line.indexOf(" ") + 1;
+        if (codeStart == 0 || line.length() < codeStart + 3) {
+            throw new IOException("Malformed status line: " + line);
+        }
+        statusCode = Integer.parseInt(line.substring(codeStart, codeStart + 3));
+    }
+
+    private void parseHeader() {
+        int separator = line.indexOf(":");
+        if (separator > 0) {
+            String name = line.substring(0, separator).trim();
+            String value = line.substring(separator + 1).trim();
+            String previous = headers.get(name);
+            headers.put(name, previous == null ? value : previous + ',' + value);
+        }
+    }
+
+    private void startBody() {
+        String contentLength = headers.get("Content-Length");
+        if (headRequest || statusCode == 204 || statusCode == 304 || statusCode / 100 == 1) {
+            state = State.DONE;
+        } else if ("chunked".equalsIgnoreCase(headers.get("Transfer-Encoding"))) {
+            startDecoder(-1);
+            state = State.CHUNK_SIZE;
+        } else if (contentLength != null) {
+            remaining = Integer.parseInt(contentLength);
+            startDecoder(remaining);
+            state = remaining == 0 ? State.DONE : State.FIXED_BODY;
+        } else {
+            startDecoder(-1);
+            headers.put("Connection", "close");
+            state = State.UNTIL_CLOSE;
+        }
+    }
+
+    private boolean readLine(ByteBuffer in) throws IOException {
+        if (lineCompleted) {
+            line.setLength(0);
+            lineCompleted = false;
+        }
+        while (in.hasRemaining()) {
+            char c = (char) (in.get() & 0xFF);
+            if (c == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                lineCompleted = true;
+                return true;
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("Response line too long");
+            }
+            line.append(c);
+        }
+        return false;
+    }
+
+    private void startDecoder(int contentLength) {
+        decoder.start(request, headers, contentLength);
+        hasBody = true;
+    }
+}
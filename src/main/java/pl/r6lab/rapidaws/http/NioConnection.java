@@ -0,0 +1,443 @@
+package pl.r6lab.rapidaws.http;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking HTTP/1.1 connection driven by {@link NioEventLoop}. All methods are called from the event loop thread.
+ */
+final class NioConnection {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    enum State {
+        CONNECTING, HANDSHAKING, IDLE, WRITING, READING, CLOSED
+    }
+
+    private final NioEventLoop loop;
+    private final Endpoint endpoint;
+    private final SocketChannel channel;
+    private final SSLEngine engine;
+    private final HttpResponseParser parser = new HttpResponseParser();
+    private final ByteBuffer[] outgoing = new ByteBuffer[2];
+
+    private SelectionKey key;
+    private InetAddress address;
+    private boolean unreachable;
+    private ByteBuffer netIn;
+    private ByteBuffer netOut;
+    private ByteBuffer appIn;
+    private ByteBuffer head;
+    private State state;
+    private NioExchange exchange;
+    private CompletableFuture<Boolean> priming;
+    private boolean primed;
+    private int requests;
+    private long lastUsed;
+    private long deadline;
+    private long handshakeStart;
+    private long received;
+
+    private NioConnection(NioEventLoop loop, Endpoint endpoint, SocketChannel channel, SSLEngine engine) {
+        this.loop = loop;
+        this.endpoint = endpoint;
+        this.channel = channel;
+        this.engine = engine;
+    }
+
+    static NioConnection open(NioEventLoop loop, Endpoint endpoint, NioExchange exchange) throws IOException {
+        return open(loop, endpoint, exchange, null);
+    }
+
+    /**
+     * @param priming completed when connection without exchange becomes idle or fails
+     */
+    static NioConnection open(NioEventLoop loop, Endpoint endpoint, NioExchange exchange,
+                              CompletableFuture<Boolean> priming) throws IOException {
+        DnsResolver dnsResolver = loop.getDnsResolver();
+        InetAddress address = dnsResolver.next(endpoint.getHost());
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open();
+        } catch (IOException | RuntimeException e) {
+            dnsResolver.release(endpoint.getHost(), address);
+            throw e;
+        }
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            SSLEngine engine = endpoint.isHttps() ? loop.createEngine(endpoint) : null;
+            NioConnection connection = new NioConnection(loop, endpoint, channel, engine);
+            connection.exchange = exchange;
+            connection.priming = priming;
+            connection.primed = priming != null;
+            connection.allocateBuffers();
+            connection.state = State.CONNECTING;
+            connection.deadline = loop.now() + loop.getConfig().getConnectTimeoutMillis();
+            connection.key = channel.register(loop.getSelector(), 0, connection);
+            connection.address = address;
+            if (channel.connect(new InetSocketAddress(address, endpoint.getPort()))) {
+                connection.connected();
+            } else {
+                connection.key.interestOps(SelectionKey.OP_CONNECT);
+            }
+            return connection;
+        } catch (IOException e) {
+            channel.close();
+            dnsResolver.failed(endpoint.getHost(), address);
+            throw e;
+        } catch (RuntimeException e) {
+            channel.close();
+            dnsResolver.release(endpoint.getHost(), address);
+            throw e;
+        }
+    }
+
+    Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    NioExchange getExchange() {
+        return exchange;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    long getDeadline() {
+        return deadline;
+    }
+
+    boolean isReused() {
+        return requests > 1 || primed;
+    }
+
+    void start(NioExchange exchange) {
+        this.exchange = exchange;
+        ++this.requests;
+        HttpRequest request = exchange.getRequest();
+        parser.reset(request);
+        head = loop.getBufferPool().acquire(HttpRequestEncoder.headLength(request));
+        HttpRequestEncoder.encodeHead(request, head);
+        head.flip();
+        outgoing[0] = head;
+        outgoing[1] = request.getBody() == null ? EMPTY : request.getBody().asByteBuffer();
+        received = 0;
+        exchange.started(isReused());
+        state = State.WRITING;
+        deadline = loop.now() + loop.getConfig().getReadTimeoutMillis();
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    void onReady() {
+        try {
+            if (key.isConnectable()) {
+                if (channel.finishConnect()) {
+                    connected();
+                }
+                return;
+            }
+            if (key.isWritable()) {
+                if (state == State.HANDSHAKING) {
+                    if (flush()) {
+                        handshake();
+                    }
+                } else if (state == State.WRITING) {
+                    write();
+                }
+            }
+            if (key.isValid() && key.isReadable()) {
+                if (state == State.HANDSHAKING) {
+                    handshake();
+                } else if (state == State.READING) {
+                    read();
+                } else if (state == State.IDLE) {
+                    // Idle connection becomes readable only when closed by the server or on unexpected data
+                    close();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    void fail(Throwable cause) {
+        NioExchange failed = this.exchange;
+        boolean stale = isReused() && StaleConnections.isStale(cause, state != State.WRITING, parser.isStarted());
+        unreachable = state == State.CONNECTING;
+        completePriming(cause);
+        close();
+        if (failed != null) {
+            loop.onFailure(failed, cause, stale);
+        }
+    }
+
+    void close() {
+        if (state == State.CLOSED) {
+            return;
+        }
+        state = State.CLOSED;
+        completePriming(new IOException("Connection to " + endpoint + " closed before it was ready"));
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // nothing to do with already broken connection
+        }
+        parser.close();
+        if (address != null) {
+            if (unreachable) {
+                loop.getDnsResolver().failed(endpoint.getHost(), address);
+            } else {
+                loop.getDnsResolver().release(endpoint.getHost(), address);
+            }
+        }
+        loop.getBufferPool().release(netIn);
+        loop.getBufferPool().release(netOut);
+        loop.getBufferPool().release(appIn);
+        loop.getBufferPool().release(head);
+        netIn = netOut = appIn = head = null;
+        loop.onClosed(this);
+    }
+
+    private void allocateBuffers() {
+        int packetSize = engine == null ? 0 : engine.getSession().getPacketBufferSize();
+        int applicationSize = engine == null ? 0 : engine.getSession().getApplicationBufferSize();
+        appIn = loop.getBufferPool().acquire(applicationSize);
+        if (engine != null) {
+            netIn = loop.getBufferPool().acquire(packetSize);
+            netOut = loop.getBufferPool().acquire(packetSize);
+            netOut.flip();
+        }
+    }
+
+    private void connected() throws IOException {
+        if (engine == null) {
+            ready();
+            return;
+        }
+        state = State.HANDSHAKING;
+        deadline = loop.now() + loop.getConfig().getReadTimeoutMillis();
+        handshakeStart = System.nanoTime();
+        engine.beginHandshake();
+        handshake();
+    }
+
+    private void handshake() throws IOException {
+        while (true) {
+            switch (engine.getHandshakeStatus()) {
+                case NEED_TASK:
+                    runDelegatedTasks();
+                    break;
+                case NEED_WRAP:
+                    netOut.clear();
+                    SSLEngineResult wrapResult = engine.wrap(EMPTY, netOut);
+                    netOut.flip();
+                    if (wrapResult.getStatus() == SSLEngineResult.Status.CLOSED) {
+                        throw new SSLException("TLS engine closed during handshake");
+                    }
+                    if (!flush()) {
+                        return;
+                    }
+                    break;
+                case FINISHED:
+                case NOT_HANDSHAKING:
+                    if (!flush()) {
+                        return;
+                    }
+                    ready();
+                    return;
+                default:
+                    // NEED_UNWRAP and Java 9+ NEED_UNWRAP_AGAIN
+                    netIn.flip();
+                    SSLEngineResult unwrapResult = engine.unwrap(netIn, appIn);
+                    netIn.compact();
+                    if (unwrapResult.getStatus() == SSLEngineResult.Status.CLOSED) {
+                        throw new SSLException("TLS engine closed during handshake");
+                    }
+                    if (unwrapResult.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                        int read = channel.read(netIn);
+                        if (read < 0) {
+                            throw new EOFException("Connection closed during TLS handshake");
+                        }
+                        if (read == 0) {
+                            key.interestOps(SelectionKey.OP_READ);
+                            return;
+                        }
+                    }
+            }
+        }
+    }
+
+    private void ready() {
+        NioExchange assigned = this.exchange;
+        if (engine != null && assigned != null) {
+            assigned.handshake(System.nanoTime() - handshakeStart);
+        }
+        this.exchange = null;
+        this.state = State.IDLE;
+        this.lastUsed = loop.now();
+        key.interestOps(SelectionKey.OP_READ);
+        completePriming(null);
+        loop.onReady(this, assigned);
+    }
+
+    private void completePriming(Throwable cause) {
+        if (priming != null) {
+            loop.onPrimed(priming, cause);
+            priming = null;
+        }
+    }
+
+    private void write() throws IOException {
+        if (engine == null) {
+            channel.write(outgoing);
+        } else {
+            while (flush() && (outgoing[0].hasRemaining() || outgoing[1].hasRemaining())) {
+                netOut.clear();
+                SSLEngineResult result = engine.wrap(outgoing, netOut);
+                netOut.flip();
+                if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                    throw new SSLException("TLS engine closed");
+                }
+            }
+        }
+        if (outgoing[0].hasRemaining() || outgoing[1].hasRemaining() || (netOut != null && netOut.hasRemaining())) {
+            key.interestOps(SelectionKey.OP_WRITE);
+            return;
+        }
+        exchange.written(head.limit() + (exchange.getRequest().getBody() == null ? 0 : exchange.getRequest().getBody().getContentLength()));
+        loop.getBufferPool().release(head);
+        head = null;
+        outgoing[0] = outgoing[1] = null;
+        state = State.READING;
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * @return true when all pending TLS records were written
+     */
+    private boolean flush() throws IOException {
+        if (netOut.hasRemaining()) {
+            channel.write(netOut);
+        }
+        if (netOut.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_WRITE);
+            return false;
+        }
+        return true;
+    }
+
+    private void read() throws IOException {
+        boolean endOfStream;
+        if (engine == null) {
+            endOfStream = channel.read(appIn) < 0;
+            if (parse()) {
+                return;
+            }
+        } else {
+            endOfStream = channel.read(netIn) < 0;
+            while (true) {
+                netIn.flip();
+                SSLEngineResult result = engine.unwrap(netIn, appIn);
+                netIn.compact();
+                if (parse()) {
+                    return;
+                }
+                if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                    runDelegatedTasks();
+                }
+                SSLEngineResult.Status status = result.getStatus();
+                if (status == SSLEngineResult.Status.CLOSED) {
+                    endOfStream = true;
+                    break;
+                }
+                if (status == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    enlargeApplicationBuffer();
+                    continue;
+                }
+                if (status == SSLEngineResult.Status.BUFFER_UNDERFLOW || netIn.position() == 0) {
+                    break;
+                }
+            }
+        }
+        if (endOfStream) {
+            if (parser.endOfStream()) {
+                complete(false);
+            } else {
+                throw new EOFException("Connection closed by server before complete response");
+            }
+        }
+    }
+
+    /**
+     * @return true when response is complete
+     */
+    private boolean parse() throws IOException {
+        int available = appIn.position();
+        if (available > 0) {
+            exchange.firstByte();
+        }
+        appIn.flip();
+        boolean done = parser.parse(appIn);
+        appIn.compact();
+        received += available - appIn.position();
+        if (done) {
+            complete(parser.isKeepAlive());
+        }
+        return done;
+    }
+
+    private void complete(boolean keepAlive) throws IOException {
+        NioExchange completed = this.exchange;
+        HttpResponse response = parser.toResponse();
+        completed.completed(received);
+        this.exchange = null;
+        this.lastUsed = loop.now();
+        if (keepAlive) {
+            state = State.IDLE;
+            key.interestOps(SelectionKey.OP_READ);
+            loop.onCompleted(completed, response, this);
+        } else {
+            close();
+            loop.onCompleted(completed, response, null);
+        }
+    }
+
+    private void enlargeApplicationBuffer() {
+        ByteBuffer enlarged = ByteBuffer.allocateDirect(Math.max(appIn.capacity() * 2, engine.getSession().getApplicationBufferSize()));
+        appIn.flip();
+        enlarged.put(appIn);
+        loop.getBufferPool().release(appIn);
+        appIn = enlarged;
+    }
+
+    private void runDelegatedTasks() {
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package pl.r6lab.rapidaws.http;
+
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Selector thread owning a set of connections. Requests are handed over through a task queue, all connection
+ * state is touched only by the loop thread.
+ */
+final class NioEventLoop implements Runnable {
+
+    private static final long CHECK_INTERVAL_MILLIS = 100;
+
+    private final ConnectionPoolConfig config;
+    private final SSLContext sslContext;
+    private final ByteBufferPool bufferPool;
+    private final DnsResolver dnsResolver;
+    private final Executor completionExecutor;
+    private final int maxConnectionsPerHost;
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Map<Endpoint, Host> hosts = new HashMap<>();
+    private final Set<NioConnection> connections = new LinkedHashSet<>();
+    private final Thread thread;
+
+    private volatile boolean running = true;
+    private long now;
+    private long nextCheck;
+
+    NioEventLoop(ConnectionPoolConfig config, SSLContext sslContext, ByteBufferPool bufferPool, DnsResolver dnsResolver,
+                 Executor completionExecutor, int maxConnectionsPerHost, String name) throws IOException {
+        this.config = config;
+        this.sslContext = sslContext;
+        this.bufferPool = bufferPool;
+        this.dnsResolver = dnsResolver;
+        this.completionExecutor = completionExecutor;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    void submit(NioExchange exchange) {
+        exchange.getResult().whenComplete((response, throwable) -> {
+            if (exchange.getResult().isCancelled()) {
+                execute(() -> cancel(exchange));
+            }
+        });
+        execute(() -> {
+            try {
+                dispatch(exchange);
+            } catch (Throwable e) {
+                complete(() -> exchange.getResult().completeExceptionally(e));
+            }
+        });
+        if (!running) {
+            exchange.getResult().completeExceptionally(new IOException("Transport closed"));
+        }
+    }
+
+    /**
+     * Opens connections to the endpoint until given number of them is idle, within the per host limit of this loop
+     *
+     * @return futures completed with true when connection is ready, with false when it was not needed
+     */
+    List<CompletableFuture<Boolean>> prime(Endpoint endpoint, int count) {
+        List<CompletableFuture<Boolean>> primed = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            primed.add(new CompletableFuture<>());
+        }
+        execute(() -> {
+            Host host = host(endpoint);
+            int missing = Math.min(count - host.idle.size(), maxConnectionsPerHost - host.open);
+            for (int i = 0; i < count; ++i) {
+                CompletableFuture<Boolean> future = primed.get(i);
+                if (i >= missing || !running) {
+                    future.complete(false);
+                    continue;
+                }
+                try {
+                    host.open++;
+                    NioConnection connection = NioConnection.open(this, endpoint, null, future);
+                    if (connection.getState() != NioConnection.State.CLOSED) {
+                        connections.add(connection);
+                    }
+                } catch (Throwable e) {
+                    host.open--;
+                    complete(() -> future.completeExceptionally(e));
+                }
+            }
+        });
+        if (!running) {
+            primed.forEach(future -> future.complete(false));
+        }
+        return primed;
+    }
+
+    void shutdown() {
+        execute(() -> running = false);
+    }
+
+    /**
+     * Failures of a single connection or task are reported through its futures and the loop goes on. When the loop
+     * stops, for shutdown or a broken selector, all pending exchanges are failed so no caller waits forever.
+     */
+    @Override
+    public void run() {
+        Throwable cause = null;
+        try {
+            while (running) {
+                selector.select(CHECK_INTERVAL_MILLIS);
+                now = System.currentTimeMillis();
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    if (key.isValid()) {
+                        NioConnection connection = (NioConnection) key.attachment();
+                        try {
+                            connection.onReady();
+                        } catch (Throwable e) {
+                            fail(connection, e);
+                        }
+                    }
+                }
+                runTasks();
+                if (now >= nextCheck) {
+                    checkTimeouts();
+                    nextCheck = now + CHECK_INTERVAL_MILLIS;
+                }
+            }
+        } catch (Throwable e) {
+            cause = e;
+        } finally {
+            running = false;
+            runTasks();
+            IOException closed = isNull(cause) ? new IOException("Transport closed")
+                    : new IOException("Event loop " + thread.getName() + " stopped", cause);
+            for (Host host : hosts.values()) {
+                host.waiting.forEach(exchange -> complete(() -> exchange.getResult().completeExceptionally(closed)));
+                host.waiting.clear();
+            }
+            new ArrayList<>(connections).forEach(connection -> fail(connection, closed));
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // loop is stopping anyway
+            }
+        }
+    }
+
+    ConnectionPoolConfig getConfig() {
+        return config;
+    }
+
+    Selector getSelector() {
+        return selector;
+    }
+
+    ByteBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    DnsResolver getDnsResolver() {
+        return dnsResolver;
+    }
+
+    long now() {
+        return now;
+    }
+
+    SSLEngine createEngine(Endpoint endpoint) {
+        SSLEngine engine = sslContext.createSSLEngine(endpoint.getHost(), endpoint.getPort());
+        engine.setUseClientMode(true);
+        SSLParameters parameters = engine.getSSLParameters();
+        parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        parameters.setServerNames(Collections.singletonList(new SNIHostName(endpoint.getHost())));
+        engine.setSSLParameters(parameters);
+        return engine;
+    }
+
+    void onReady(NioConnection connection, NioExchange assigned) {
+        if (assigned != null && !assigned.getResult().isDone()) {
+            connection.start(assigned);
+        } else {
+            release(connection);
+        }
+    }
+
+    void onCompleted(NioExchange exchange, HttpResponse response, NioConnection connection) {
+        if (connection != null) {
+            release(connection);
+        }
+        complete(() -> exchange.getResult().complete(response));
+    }
+
+    void onFailure(NioExchange exchange, Throwable cause, boolean retryable) {
+        if (retryable && running && !exchange.isRetried() && !exchange.getResult().isDone()) {
+            exchange.markRetried();
+            // back through the queue, so the resend waits for a free slot like any other request
+            dispatch(exchange);
+            return;
+        }
+        complete(() -> exchange.getResult().completeExceptionally(cause));
+    }
+
+    void onPrimed(CompletableFuture<Boolean> priming, Throwable cause) {
+        if (cause == null) {
+            complete(() -> priming.complete(true));
+        } else {
+            complete(() -> priming.completeExceptionally(cause));
+        }
+    }
+
+    void onClosed(NioConnection connection) {
+        connections.remove(connection);
+        Host host = host(connection.getEndpoint());
+        host.open--;
+        host.idle.remove(connection);
+        NioExchange next = pollWaiting(host);
+        if (next != null) {
+            openConnection(host, next);
+        }
+    }
+
+    private void execute(Runnable task) {
+        tasks.offer(task);
+        selector.wakeup();
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                // tasks complete their own futures, a broken one must not take the loop down
+            }
+        }
+    }
+
+    /**
+     * Completes futures on the completion executor, or on the loop thread when the executor rejects the completion
+     */
+    private void complete(Runnable completion) {
+        try {
+            completionExecutor.execute(completion);
+        } catch (RejectedExecutionException e) {
+            completion.run();
+        }
+    }
+
+    private void fail(NioConnection connection, Throwable cause) {
+        try {
+            connection.fail(cause);
+        } catch (Throwable e) {
+            // connection is closed first, a failing completion leaves nothing else to clean up
+        }
+    }
+
+    private void dispatch(NioExchange exchange) {
+        if (exchange.getResult().isDone()) {
+            return;
+        }
+        if (!running) {
+            exchange.getResult().completeExceptionally(new IOException("Transport closed"));
+            return;
+        }
+        Host host = host(exchange.getRequest().getEndpoint());
+        NioConnection connection = pollIdle(host);
+        if (connection != null) {
+            connection.start(exchange);
+        } else if (host.open < maxConnectionsPerHost) {
+            openConnection(host, exchange);
+        } else {
+            host.waiting.offer(exchange);
+        }
+    }
+
+    private void release(NioConnection connection) {
+        Host host = host(connection.getEndpoint());
+        NioExchange next = pollWaiting(host);
+        if (next != null) {
+            connection.start(next);
+        } else {
+            host.idle.offerFirst(connection);
+        }
+    }
+
+    private void openConnection(Host host, NioExchange exchange) {
+        if (!running) {
+            complete(() -> exchange.getResult().completeExceptionally(new IOException("Transport closed")));
+            return;
+        }
+        try {
+            host.open++;
+            NioConnection connection = NioConnection.open(this, host.endpoint, exchange);
+            if (connection.getState() != NioConnection.State.CLOSED) {
+                connections.add(connection);
+            }
+        } catch (IOException | RuntimeException e) {
+            host.open--;
+            complete(() -> exchange.getResult().completeExceptionally(e));
+        }
+    }
+
+    private NioConnection pollIdle(Host host) {
+        NioConnection connection;
+        while ((connection = host.idle.pollFirst()) != null) {
+            if (connection.getState() == NioConnection.State.IDLE && now - connection.getLastUsed() <= config.getMaxIdleTimeMillis()) {
+                return connection;
+            }
+            connection.close();
+        }
+        return null;
+    }
+
+    private NioExchange pollWaiting(Host host) {
+        NioExchange exchange;
+        while ((exchange = host.waiting.poll()) != null) {
+            if (!exchange.getResult().isDone()) {
+                return exchange;
+            }
+        }
+        return null;
+    }
+
+    private void cancel(NioExchange exchange) {
+        for (NioConnection connection : connections) {
+            if (connection.getExchange() == exchange) {
+                connection.close();
+                return;
+            }
+        }
+        host(exchange.getRequest().getEndpoint()).waiting.remove(exchange);
+    }
+
+    private void checkTimeouts() {
+        List<NioConnection> expired = new ArrayList<>();
+        for (NioConnection connection : connections) {
+            NioConnection.State state = connection.getState();
+            if (state == NioConnection.State.IDLE) {
+                if (now - connection.getLastUsed() > config.getMaxIdleTimeMillis()) {
+                    expired.add(connection);
+                }
+            } else if (now > connection.getDeadline()) {
+                expired.add(connection);
+            }
+        }
+        for (NioConnection connection : expired) {
+            if (connection.getState() == NioConnection.State.IDLE) {
+                connection.close();
+            } else {
+                connection.fail(new SocketTimeoutException("Timeout in state " + connection.getState() + " for " + connection.getEndpoint()));
+            }
+        }
+        for (Host host : hosts.values()) {
+            Iterator<NioExchange> waiting = host.waiting.iterator();
+            while (waiting.hasNext()) {
+                NioExchange exchange = waiting.next();
+                if (now > exchange.getAcquireDeadline()) {
+                    waiting.remove();
+                    complete(() -> exchange.getResult().completeExceptionally(
+                            new IOException("Timeout waiting for connection to " + host.endpoint)));
+                }
+            }
+        }
+    }
+
+    private Host host(Endpoint endpoint) {
+        return hosts.computeIfAbsent(endpoint, Host::new);
+    }
+
+    private static final class Host {
+        private final Endpoint endpoint;
+        private final Deque<NioConnection> idle = new ArrayDeque<>();
+        private final Deque<NioExchange> waiting = new ArrayDeque<>();
+        private int open;
+
+        private Host(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+}
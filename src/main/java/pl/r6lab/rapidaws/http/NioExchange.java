@@ -0,0 +1,82 @@
+package pl.r6lab.rapidaws.http;
+
+import java.util.concurrent.CompletableFuture;
+
+final class NioExchange {
+
+    private final HttpRequest request;
+    private final CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+    private final long acquireDeadline;
+    private final ExchangeTimings timings;
+    private long createdAt;
+    private long startedAt;
+    private long writtenAt;
+    private long firstByteAt;
+    private boolean retried;
+
+    NioExchange(HttpRequest request, long acquireDeadline) {
+        this.request = request;
+        this.acquireDeadline = acquireDeadline;
+        this.timings = request.getTimings();
+        this.createdAt = timings == null ? 0 : System.nanoTime();
+    }
+
+    HttpRequest getRequest() {
+        return request;
+    }
+
+    CompletableFuture<HttpResponse> getResult() {
+        return result;
+    }
+
+    long getAcquireDeadline() {
+        return acquireDeadline;
+    }
+
+    boolean isRetried() {
+        return retried;
+    }
+
+    void markRetried() {
+        this.retried = true;
+        if (timings != null) {
+            timings.reset();
+            createdAt = System.nanoTime();
+            firstByteAt = 0;
+        }
+    }
+
+    void handshake(long nanos) {
+        if (timings != null) {
+            timings.handshake(nanos);
+        }
+    }
+
+    void started(boolean connectionReused) {
+        if (timings != null) {
+            startedAt = System.nanoTime();
+            timings.acquired(startedAt - createdAt);
+            timings.connectionReused(connectionReused);
+        }
+    }
+
+    void written(long bytes) {
+        if (timings != null) {
+            writtenAt = System.nanoTime();
+            timings.written(writtenAt - startedAt, bytes);
+        }
+    }
+
+    void firstByte() {
+        if (timings != null && firstByteAt == 0) {
+            firstByteAt = System.nanoTime();
+            timings.firstByte(firstByteAt - writtenAt);
+        }
+    }
+
+    void completed(long bytesReceived) {
+        if (timings != null) {
+            timings.received(System.nanoTime() - firstByteAt, bytesReceived);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package pl.r6lab.rapidaws.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Non-blocking transport multiplexing keep-alive connections over a few selector threads with SSLEngine based TLS.
+ * A request does not hold a thread while waiting for the response, so thousands of requests can be in flight.
+ * Max connections per host limit is split evenly between event loops.
+ */
+public final class NioTransport implements Transport {
+
+    private static final int BUFFER_SIZE = 32 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 1024;
+    private static final byte[] PRIMING_RESPONSE = "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\n{}".getBytes(StandardCharsets.US_ASCII);
+
+    private final ConnectionPoolConfig config;
+    private final NioEventLoop[] eventLoops;
+    private final AtomicInteger nextEventLoop = new AtomicInteger();
+
+    private NioTransport(ConnectionPoolConfig config, int eventLoopCount, Executor completionExecutor) throws IOException {
+        if (eventLoopCount < 1) {
+            throw new IllegalArgumentException("At least one event loop is required");
+        }
+        this.config = config;
+        this.eventLoops = new NioEventLoop[eventLoopCount];
+        ByteBufferPool bufferPool = ByteBufferPool.of(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+        DnsResolver dnsResolver = isNull(config.getDnsResolver()) ? DnsResolver.defaultResolver() : config.getDnsResolver();
+        int maxConnectionsPerHost = Math.max(1, (config.getMaxConnectionsPerHost() + eventLoopCount - 1) / eventLoopCount);
+        for (int i = 0; i < eventLoopCount; ++i) {
+            eventLoops[i] = new NioEventLoop(config, isNull(config.getSslContext()) ? ConnectionPool.defaultSslContext() : config.getSslContext(),
+                    bufferPool, dnsResolver, completionExecutor, maxConnectionsPerHost, "rapid-aws-nio-" + i);
+        }
+    }
+
+    public static NioTransport of(ConnectionPoolConfig config) throws IOException {
+        return new NioTransport(config, 1, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param completionExecutor executor completing response futures, so callbacks never run on selector threads
+     */
+    public static NioTransport of(ConnectionPoolConfig config, int eventLoopCount, Executor completionExecutor) throws IOException {
+        return new NioTransport(config, eventLoopCount, completionExecutor);
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        CompletableFuture<HttpResponse> response = executeAsync(request);
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for response");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Bodies produced while written (e.g. streams) are read into memory on the calling thread before the request is
+     * handed to the event loop.
+     */
+    @Override
+    public CompletableFuture<HttpResponse> executeAsync(HttpRequest request) {
+        if (request.getBody() != null && request.getBody().asByteBuffer() == null) {
+            try {
+                request.setBody(buffered(request.getBody()));
+            } catch (IOException e) {
+                CompletableFuture<HttpResponse> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+        }
+        NioExchange exchange = new NioExchange(request, System.currentTimeMillis() + config.getAcquireTimeoutMillis());
+        eventLoops[Math.floorMod(nextEventLoop.getAndIncrement(), eventLoops.length)].submit(exchange);
+        return exchange.getResult();
+    }
+
+    /**
+     * Connections are split between event loops and handshake concurrently. Request encoding and response parsing
+     * are exercised on a canned exchange, so their classes are loaded too.
+     */
+    @Override
+    public int prime(Endpoint endpoint, int connections) throws IOException {
+        primeCodec(endpoint);
+        List<CompletableFuture<Boolean>> primed = new ArrayList<>(connections);
+        int remaining = connections;
+        for (int i = 0; i < eventLoops.length && remaining > 0; ++i) {
+            int count = (remaining + eventLoops.length - i - 1) / (eventLoops.length - i);
+            primed.addAll(eventLoops[i].prime(endpoint, count));
+            remaining -= count;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getConnectTimeoutMillis() + config.getReadTimeoutMillis());
+        int opened = 0;
+        IOException failure = null;
+        for (CompletableFuture<Boolean> future : primed) {
+            try {
+                if (future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    ++opened;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted priming connections to " + endpoint);
+            } catch (TimeoutException e) {
+                throw new SocketTimeoutException("Timeout priming connections to " + endpoint);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return opened;
+    }
+
+    private static void primeCodec(Endpoint endpoint) throws IOException {
+        HttpRequest request = HttpRequest.of("GET", endpoint, "/");
+        ByteBuffer head = ByteBuffer.allocate(HttpRequestEncoder.headLength(request));
+        HttpRequestEncoder.encodeHead(request, head);
+        HttpResponseParser parser = new HttpResponseParser();
+        parser.reset(request);
+        if (parser.parse(ByteBuffer.wrap(PRIMING_RESPONSE))) {
+            parser.toResponse();
+        }
+    }
+
+    private static HttpBody buffered(HttpBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(body.getContentLength(), Integer.MAX_VALUE - 8));
+        body.writeTo(out);
+        return HttpBody.of(out.toByteArray());
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        for (NioEventLoop eventLoop : eventLoops) {
+            eventLoop.shutdown();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package pl.r6lab.rapidaws.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Tells failures of connections closed by the server while idle from failures of requests the server may have
+ * already processed. Only the former are safe to send again.
+ */
+final class StaleConnections {
+
+    private StaleConnections() {
+    }
+
+    /**
+     * @return true when request failed while being written, or the server closed or reset the connection before any
+     * response byte arrived
+     */
+    static boolean isStale(Throwable failure, boolean requestWritten, boolean responseStarted) {
+        // Never resend after a timeout: the server may still be processing the request, sending it again would
+        // execute it twice
+        if (failure instanceof SocketTimeoutException || responseStarted) {
+            return false;
+        }
+        return !requestWritten || failure instanceof EOFException || isConnectionReset(failure);
+    }
+
+    private static boolean isConnectionReset(Throwable failure) {
+        return failure instanceof IOException && nonNull(failure.getMessage()) && failure.getMessage().contains("Connection reset");
+    }
+}
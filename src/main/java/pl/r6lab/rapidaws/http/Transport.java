@@ -0,0 +1,53 @@
+package pl.r6lab.rapidaws.http;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends signed HTTP requests to AWS endpoints. {@link ConnectionPool} is the default blocking implementation,
+ * {@link NioTransport} multiplexes many in-flight requests over a few selector threads.
+ */
+public interface Transport {
+
+    HttpResponse execute(HttpRequest request) throws IOException;
+
+    /**
+     * Transports supporting streaming return response as soon as headers arrive, others return buffered response
+     */
+    default HttpResponse executeStreaming(HttpRequest request) throws IOException {
+        return execute(request);
+    }
+
+    /**
+     * Blocking transports execute request in the calling thread and return completed future
+     */
+    default CompletableFuture<HttpResponse> executeAsync(HttpRequest request) {
+        CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+        try {
+            result.complete(execute(request));
+        } catch (IOException | RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Opens connections to the endpoint, TLS handshake included, until given number of them is idle in the pool.
+     * Meant for initialization, so the first requests don't pay for connection setup. Transports without pooling
+     * open nothing.
+     *
+     * @return number of connections opened
+     */
+    default int prime(Endpoint endpoint, int connections) throws IOException {
+        return 0;
+    }
+
+    /**
+     * @return true when {@link #executeAsync(HttpRequest)} returns without waiting for the response
+     */
+    default boolean isNonBlocking() {
+        return false;
+    }
+
+    void close();
+}
@@ -0,0 +1,25 @@
+package pl.r6lab.rapidaws.internal;
+
+/**
+ * Shared by the batching components of several packages, not part of the client API
+ */
+public final class Utf8 {
+
+    private Utf8() {
+    }
+
+    /**
+     * @return number of bytes of the value encoded as UTF-8, counted without encoding it
+     */
+    public static int length(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                // surrogate pair is 4 bytes for 2 chars, other chars up to U+07FF take 2 and the rest 3 bytes
+                length += Character.isSurrogate(c) ? 1 : c < 0x800 ? 1 : 2;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,12 @@
+package pl.r6lab.rapidaws.json;
+
+import pl.r6lab.rapidaws.RapidClientException;
+
+public class JsonException extends RapidClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public JsonException(String message) {
+        super(message);
+    }
+}
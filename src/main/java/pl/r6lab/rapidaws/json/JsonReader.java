@@ -0,0 +1,378 @@
+package pl.r6lab.rapidaws.json;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull parser reading JSON directly from UTF-8 bytes, e.g. response body. Values are decoded only when requested,
+ * skipped values are scanned without creating objects. Separators are validated loosely, the reader is meant for
+ * documents produced by AWS services.
+ */
+public final class JsonReader {
+
+    private final byte[] bytes;
+    private final int end;
+    private int position;
+    private StringBuilder buffer;
+
+    private JsonReader(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    public static JsonReader of(byte[] bytes) {
+        return new JsonReader(bytes, 0, bytes.length);
+    }
+
+    public static JsonReader of(byte[] bytes, int offset, int length) {
+        return new JsonReader(bytes, offset, length);
+    }
+
+    public static JsonReader of(String json) {
+        return of(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public JsonToken peek() {
+        skipSeparators();
+        if (position >= end) {
+            return JsonToken.END_DOCUMENT;
+        }
+        switch (bytes[position]) {
+            case '{':
+                return JsonToken.BEGIN_OBJECT;
+            case '}':
+                return JsonToken.END_OBJECT;
+            case '[':
+                return JsonToken.BEGIN_ARRAY;
+            case ']':
+                return JsonToken.END_ARRAY;
+            case '"':
+                return JsonToken.STRING;
+            case 't':
+            case 'f':
+                return JsonToken.BOOLEAN;
+            case 'n':
+                return JsonToken.NULL;
+            default:
+                return JsonToken.NUMBER;
+        }
+    }
+
+    public void beginObject() {
+        expect('{');
+    }
+
+    public void endObject() {
+        expect('}');
+    }
+
+    public void beginArray() {
+        expect('[');
+    }
+
+    public void endArray() {
+        expect(']');
+    }
+
+    /**
+     * @return true when current object or array has more elements
+     */
+    public boolean hasNext() {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+
+    public String nextName() {
+        String name = nextString();
+        skipWhitespace();
+        if (position >= end || bytes[position] != ':') {
+            throw error("Expected ':'");
+        }
+        ++position;
+        return name;
+    }
+
+    public String nextString() {
+        skipSeparators();
+        if (position >= end || bytes[position] != '"') {
+            throw error("Expected string");
+        }
+        int start = ++position;
+        boolean ascii = true;
+        while (position < end) {
+            byte b = bytes[position];
+            if (b == '"') {
+                String value = new String(bytes, start, position - start, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+                ++position;
+                return value;
+            }
+            if (b == '\\') {
+                return nextEscapedString(start);
+            }
+            if (b < 0) {
+                ascii = false;
+            }
+            ++position;
+        }
+        throw error("Unterminated string");
+    }
+
+    /**
+     * @return number literal as written, e.g. to keep precision of big numbers
+     */
+    public String nextNumber() {
+        skipSeparators();
+        int start = position;
+        while (position < end && isNumberPart(bytes[position])) {
+            ++position;
+        }
+        if (start == position) {
+            throw error("Expected number");
+        }
+        return new String(bytes, start, position - start, StandardCharsets.ISO_8859_1);
+    }
+
+    public long nextLong() {
+        return Long.parseLong(nextNumber());
+    }
+
+    public double nextDouble() {
+        return Double.parseDouble(nextNumber());
+    }
+
+    public boolean nextBoolean() {
+        JsonToken token = peek();
+        if (token != JsonToken.BOOLEAN) {
+            throw error("Expected boolean");
+        }
+        boolean value = bytes[position] == 't';
+        position += value ? 4 : 5;
+        return value;
+    }
+
+    public void nextNull() {
+        if (peek() != JsonToken.NULL) {
+            throw error("Expected null");
+        }
+        position += 4;
+    }
+
+    /**
+     * Skips next value including all nested values
+     */
+    public void skipValue() {
+        JsonToken token = peek();
+        switch (token) {
+            case BEGIN_OBJECT:
+            case BEGIN_ARRAY:
+                skipNested();
+                break;
+            case STRING:
+                skipString();
+                break;
+            case BOOLEAN:
+                nextBoolean();
+                break;
+            case NULL:
+                nextNull();
+                break;
+            case NUMBER:
+                nextNumber();
+                break;
+            default:
+                throw error("Expected value");
+        }
+    }
+
+    /**
+     * @return next value as JSON text, without parsing it
+     */
+    public String nextRawValue() {
+        skipSeparators();
+        int start = position;
+        skipValue();
+        return new String(bytes, start, position - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return reader of the next value only, sharing bytes with this reader; this reader skips the value
+     */
+    public JsonReader nextValueReader() {
+        skipSeparators();
+        int start = position;
+        skipValue();
+        return new JsonReader(bytes, start, position - start);
+    }
+
+    /**
+     * @return independent reader starting at the current position of this one
+     */
+    public JsonReader duplicate() {
+        return new JsonReader(bytes, position, end - position);
+    }
+
+    /**
+     * @return number of bytes not read yet
+     */
+    public int remaining() {
+        return end - position;
+    }
+
+    /**
+     * Skips values of current object until the given name
+     *
+     * @return true when name was found, false when object ended
+     */
+    public boolean findName(String name) {
+        while (hasNext()) {
+            if (nextName().equals(name)) {
+                return true;
+            }
+            skipValue();
+        }
+        return false;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int position() {
+        return position;
+    }
+
+    int end() {
+        return end;
+    }
+
+    private void skipNested() {
+        int depth = 0;
+        do {
+            byte b = bytes[position];
+            if (b == '"') {
+                skipString();
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                ++depth;
+            } else if (b == '}' || b == ']') {
+                --depth;
+            }
+            ++position;
+        } while (depth > 0 && position < end);
+        if (depth > 0) {
+            throw error("Unterminated value");
+        }
+    }
+
+    private void skipString() {
+        ++position;
+        while (position < end) {
+            byte b = bytes[position++];
+            if (b == '\\') {
+                ++position;
+            } else if (b == '"') {
+                return;
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private String nextEscapedString(int start) {
+        if (buffer == null) {
+            buffer = new StringBuilder(64);
+        }
+        buffer.setLength(0);
+        int segment = start;
+        while (position < end) {
+            byte b = bytes[position];
+            if (b == '"') {
+                appendUtf8(segment, position);
+                ++position;
+                return buffer.toString();
+            }
+            if (b != '\\') {
+                ++position;
+                continue;
+            }
+            appendUtf8(segment, position);
+            if (position + 1 >= end) {
+                break;
+            }
+            char escaped = (char) bytes[position + 1];
+            position += 2;
+            switch (escaped) {
+                case 'n':
+                    buffer.append('\n');
+                    break;
+                case 't':
+                    buffer.append('\t');
+                    break;
+                case 'r':
+                    buffer.append('\r');
+                    break;
+                case 'b':
+                    buffer.append('\b');
+                    break;
+                case 'f':
+                    buffer.append('\f');
+                    break;
+                case 'u':
+                    if (position + 4 > end) {
+                        throw error("Malformed unicode escape");
+                    }
+                    buffer.append((char) Integer.parseInt(new String(bytes, position, 4, StandardCharsets.ISO_8859_1), 16));
+                    position += 4;
+                    break;
+                default:
+                    buffer.append(escaped);
+            }
+            segment = position;
+        }
+        throw error("Unterminated string");
+    }
+
+    private void appendUtf8(int from, int to) {
+        if (from < to) {
+            buffer.append(new String(bytes, from, to - from, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void expect(char expected) {
+        skipSeparators();
+        if (position >= end || bytes[position] != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        ++position;
+    }
+
+    private void skipSeparators() {
+        while (position < end) {
+            byte b = bytes[position];
+            if (b == ',' || b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                ++position;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < end) {
+            byte b = bytes[position];
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                ++position;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static boolean isNumberPart(byte b) {
+        return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+    }
+
+    private JsonException error(String message) {
+        return new JsonException(message + " at position " + position);
+    }
+}
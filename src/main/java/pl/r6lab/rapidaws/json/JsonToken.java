@@ -0,0 +1,5 @@
+package pl.r6lab.rapidaws.json;
+
+public enum JsonToken {
+    BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+}
@@ -0,0 +1,149 @@
+package pl.r6lab.rapidaws.json;
+
+/**
+ * Writes compact JSON into a StringBuilder. Commas are inserted automatically.
+ */
+public final class JsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder out;
+    private boolean needsComma;
+
+    private JsonWriter(StringBuilder out) {
+        this.out = out;
+    }
+
+    public static JsonWriter of(StringBuilder out) {
+        return new JsonWriter(out);
+    }
+
+    public static JsonWriter create() {
+        return new JsonWriter(new StringBuilder(256));
+    }
+
+    public JsonWriter beginObject() {
+        separate();
+        out.append('{');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        out.append('}');
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separate();
+        out.append('[');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        out.append(']');
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter name(String name) {
+        separate();
+        quote(out, name);
+        out.append(':');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            out.append("null");
+        } else {
+            quote(out, value);
+        }
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separate();
+        out.append(value);
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separate();
+        out.append(value);
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Writes already serialized JSON value as is
+     */
+    public JsonWriter rawValue(String json) {
+        separate();
+        out.append(json);
+        needsComma = true;
+        return this;
+    }
+
+    public int length() {
+        return out.length();
+    }
+
+    public StringBuilder getBuilder() {
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    /**
+     * Appends string literal with quotes, escaping characters JSON requires
+     */
+    public static void quote(StringBuilder out, String value) {
+        out.append('"');
+        int length = value.length();
+        int segment = 0;
+        for (int i = 0; i < length; ++i) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.append(value, segment, i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+            segment = i + 1;
+        }
+        out.append(value, segment, length).append('"');
+    }
+
+    private void separate() {
+        if (needsComma) {
+            out.append(',');
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package pl.r6lab.rapidaws.json;
+
+import pl.r6lab.rapidaws.RequestBody;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Writes compact JSON as UTF-8 bytes into a growing buffer, which becomes the request body without copying. Commas
+ * are inserted automatically like in {@link JsonWriter}.
+ */
+public final class Utf8JsonWriter {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private byte[] bytes;
+    private int length;
+    private boolean needsComma;
+
+    private Utf8JsonWriter(int capacity) {
+        this.bytes = new byte[capacity];
+    }
+
+    public static Utf8JsonWriter create() {
+        return new Utf8JsonWriter(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity initial size of the buffer, the buffer grows when needed
+     */
+    public static Utf8JsonWriter create(int capacity) {
+        return new Utf8JsonWriter(Math.max(capacity, 16));
+    }
+
+    public Utf8JsonWriter beginObject() {
+        separate();
+        append((byte) '{');
+        needsComma = false;
+        return this;
+    }
+
+    public Utf8JsonWriter endObject() {
+        append((byte) '}');
+        needsComma = true;
+        return this;
+    }
+
+    public Utf8JsonWriter beginArray() {
+        separate();
+        append((byte) '[');
+        needsComma = false;
+        return this;
+    }
+
+    public Utf8JsonWriter endArray() {
+        append((byte) ']');
+        needsComma = true;
+        return this;
+    }
+
+    public Utf8JsonWriter name(String name) {
+        separate();
+        quote(name);
+        append((byte) ':');
+        needsComma = false;
+        return this;
+    }
+
+    public Utf8JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            append(NULL);
+        } else {
+            quote(value);
+        }
+        needsComma = true;
+        return this;
+    }
+
+    public Utf8JsonWriter value(long value) {
+        separate();
+        if (value >= 0 && value < 10) {
+            append((byte) ('0' + value));
+        } else {
+            appendAscii(Long.toString(value));
+        }
+        needsComma = true;
+        return this;
+    }
+
+    public Utf8JsonWriter value(boolean value) {
+        separate();
+        append(value ? TRUE : FALSE);
+        needsComma = true;
+        return this;
+    }
+
+    public Utf8JsonWriter nullValue() {
+        separate();
+        append(NULL);
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Writes bytes as base64 string, the format of binary values of AWS JSON protocols
+     */
+    public Utf8JsonWriter base64Value(byte[] value) {
+        separate();
+        append((byte) '"');
+        append(Base64.getEncoder().encode(value));
+        append((byte) '"');
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Writes already serialized JSON value as is
+     */
+    public Utf8JsonWriter rawValue(String json) {
+        separate();
+        byte[] encoded = json.getBytes(StandardCharsets.UTF_8);
+        append(encoded);
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Copies remaining bytes of the reader, e.g. one obtained with {@link JsonReader#nextValueReader()}, without
+     * moving it
+     */
+    public Utf8JsonWriter rawValue(JsonReader reader) {
+        separate();
+        int from = reader.position();
+        int count = reader.end() - from;
+        ensureCapacity(count);
+        System.arraycopy(reader.bytes(), from, bytes, length, count);
+        length += count;
+        needsComma = true;
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return request body backed by the buffer of this writer, nothing should be written afterwards
+     */
+    public RequestBody toRequestBody() {
+        return RequestBody.of(ByteBuffer.wrap(bytes, 0, length));
+    }
+
+    public byte[] toBytes() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes string literal with quotes, escaping characters JSON requires and encoding the rest as UTF-8
+     */
+    private void quote(String value) {
+        int count = value.length();
+        // every char takes at most 3 bytes, escapes take 6 but only replace control chars
+        ensureCapacity(count + 2);
+        bytes[length++] = '"';
+        for (int i = 0; i < count; ++i) {
+            char c = value.charAt(i);
+            if (c < 0x80 && c >= 0x20 && c != '"' && c != '\\') {
+                if (length == bytes.length) {
+                    ensureCapacity(count - i + 1);
+                }
+                bytes[length++] = (byte) c;
+                continue;
+            }
+            ensureCapacity(6 + (count - i) * 3 + 1);
+            if (c < 0x80) {
+                escape(c);
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | c >> 6);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[length++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate can't be encoded, String.getBytes replaces it the same way
+                bytes[length++] = '?';
+            } else {
+                bytes[length++] = (byte) (0xE0 | c >> 12);
+                bytes[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        ensureCapacity(1);
+        bytes[length++] = '"';
+    }
+
+    private void escape(char c) {
+        bytes[length++] = '\\';
+        switch (c) {
+            case '"':
+                bytes[length++] = '"';
+                break;
+            case '\\':
+                bytes[length++] = '\\';
+                break;
+            case '\n':
+                bytes[length++] = 'n';
+                break;
+            case '\r':
+                bytes[length++] = 'r';
+                break;
+            case '\t':
+                bytes[length++] = 't';
+                break;
+            default:
+                bytes[length++] = 'u';
+                bytes[length++] = '0';
+                bytes[length++] = '0';
+                bytes[length++] = HEX[c >> 4];
+                bytes[length++] = HEX[c & 0xF];
+        }
+    }
+
+    private void appendAscii(String value) {
+        int count = value.length();
+        ensureCapacity(count);
+        for (int i = 0; i < count; ++i) {
+            bytes[length++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void append(byte b) {
+        ensureCapacity(1);
+        bytes[length++] = b;
+    }
+
+    private void append(byte[] value) {
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, bytes, length, value.length);
+        length += value.length;
+    }
+
+    private void separate() {
+        if (needsComma) {
+            append((byte) ',');
+        }
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+        }
+    }
+}
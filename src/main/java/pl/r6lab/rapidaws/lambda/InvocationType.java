@@ -0,0 +1,26 @@
+package pl.r6lab.rapidaws.lambda;
+
+public enum InvocationType {
+    /**
+     * Synchronous invocation returning function result, the default
+     */
+    REQUEST_RESPONSE("RequestResponse"),
+    /**
+     * Asynchronous invocation, Lambda queues the event and responds with 202 right away
+     */
+    EVENT("Event"),
+    /**
+     * Validates parameters and permissions without running the function, responds with 204
+     */
+    DRY_RUN("DryRun");
+
+    private final String value;
+
+    InvocationType(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
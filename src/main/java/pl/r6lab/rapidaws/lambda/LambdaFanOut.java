@@ -0,0 +1,151 @@
+package pl.r6lab.rapidaws.lambda;
+
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClientException;
+import pl.r6lab.rapidaws.Response;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Invokes many requests, for one or many functions, in parallel with at most max concurrency invocations in flight.
+ * Next request is sent as soon as any previous one completes, so total time is bound by the slowest invocations
+ * instead of their sum. Concurrency above max in-flight requests of the client is queued by the client.
+ */
+public final class LambdaFanOut {
+
+    private final RapidLambdaInvocationClient client;
+    private final int maxConcurrency;
+
+    private LambdaFanOut(RapidLambdaInvocationClient client, int maxConcurrency) {
+        this.client = client;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public static LambdaFanOut of(RapidLambdaInvocationClient client, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        return new LambdaFanOut(client, maxConcurrency);
+    }
+
+    /**
+     * @return requests invoking the function once per payload
+     */
+    public static List<LambdaInvokeRequest> requests(String functionName, Collection<String> payloads, InvocationType invocationType) {
+        List<LambdaInvokeRequest> requests = new ArrayList<>(payloads.size());
+        for (String payload : payloads) {
+            requests.add(LambdaInvokeRequest.of(functionName, payload, HttpMethod.POST).withInvocationType(invocationType));
+        }
+        return requests;
+    }
+
+    /**
+     * Starts invocations without waiting for them. Cancelling a future skips the request if it was not sent yet.
+     *
+     * @return futures of responses in the order of requests
+     */
+    public List<CompletableFuture<Response>> submitAll(List<LambdaInvokeRequest> requests) {
+        List<CompletableFuture<Response>> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); ++i) {
+            results.add(new CompletableFuture<>());
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger pendingStarts = new AtomicInteger();
+        for (int i = 0; i < Math.min(maxConcurrency, requests.size()); ++i) {
+            startNext(requests, results, next, pendingStarts);
+        }
+        return results;
+    }
+
+    /**
+     * Waits for all invocations
+     *
+     * @return responses in the order of requests
+     * @throws RapidClientException when any request failed with exception, unsuccessful responses are returned
+     */
+    public List<Response> invokeAll(List<LambdaInvokeRequest> requests) {
+        List<CompletableFuture<Response>> results = submitAll(requests);
+        List<Response> responses = new ArrayList<>(results.size());
+        try {
+            for (CompletableFuture<Response> result : results) {
+                responses.add(result.join());
+            }
+        } catch (CompletionException e) {
+            results.forEach(result -> result.cancel(false));
+            throw e.getCause() instanceof RapidClientException ? (RapidClientException) e.getCause() : new RapidClientException(e.getCause());
+        }
+        return responses;
+    }
+
+    /**
+     * Waits for all invocations, passing results to the consumer on the calling thread in order of completion
+     */
+    public void invokeAsCompleted(List<LambdaInvokeRequest> requests, Consumer<LambdaInvocationResult> consumer) {
+        BlockingQueue<LambdaInvocationResult> completed = new LinkedBlockingQueue<>();
+        List<CompletableFuture<Response>> results = submitAll(requests);
+        for (int i = 0; i < results.size(); ++i) {
+            int index = i;
+            results.get(i).whenComplete((response, error) -> completed.add(LambdaInvocationResult.of(index, requests.get(index), response, error)));
+        }
+        try {
+            for (int i = 0; i < results.size(); ++i) {
+                consumer.accept(completed.take());
+            }
+        } catch (InterruptedException e) {
+            results.forEach(result -> result.cancel(false));
+            Thread.currentThread().interrupt();
+            throw new RapidClientException("Interrupted waiting for invocations", e);
+        }
+    }
+
+    /**
+     * Requests start of the next invocation. Only one thread at a time starts invocations, starts requested by
+     * invocations completing synchronously meanwhile are picked up by its loop instead of recursing.
+     */
+    private void startNext(List<LambdaInvokeRequest> requests, List<CompletableFuture<Response>> results, AtomicInteger next,
+                           AtomicInteger pendingStarts) {
+        if (pendingStarts.getAndIncrement() > 0) {
+            return;
+        }
+        do {
+            start(requests, results, next, pendingStarts);
+        } while (pendingStarts.decrementAndGet() > 0);
+    }
+
+    private void start(List<LambdaInvokeRequest> requests, List<CompletableFuture<Response>> results, AtomicInteger next,
+                       AtomicInteger pendingStarts) {
+        int index;
+        while ((index = next.getAndIncrement()) < requests.size()) {
+            CompletableFuture<Response> result = results.get(index);
+            if (result.isDone()) {
+                // cancelled before it was sent
+                continue;
+            }
+            CompletableFuture<Response> invocation = client.executeAsync(requests.get(index));
+            result.whenComplete((response, error) -> {
+                if (result.isCancelled()) {
+                    invocation.cancel(true);
+                }
+            });
+            invocation.whenComplete((response, error) -> {
+                if (isNull(error)) {
+                    result.complete(response);
+                } else {
+                    result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                }
+                startNext(requests, results, next, pendingStarts);
+            });
+            return;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package pl.r6lab.rapidaws.lambda;
+
+import pl.r6lab.rapidaws.Response;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Outcome of one invocation of a fan-out: response or exception thrown while sending the request
+ */
+public final class LambdaInvocationResult {
+
+    private static final String FUNCTION_ERROR_HEADER = "X-Amz-Function-Error";
+
+    private final int index;
+    private final LambdaInvokeRequest request;
+    private final Response response;
+    private final Throwable error;
+
+    private LambdaInvocationResult(int index, LambdaInvokeRequest request, Response response, Throwable error) {
+        this.index = index;
+        this.request = request;
+        this.response = response;
+        this.error = error;
+    }
+
+    static LambdaInvocationResult of(int index, LambdaInvokeRequest request, Response response, Throwable error) {
+        return new LambdaInvocationResult(index, request, response, error);
+    }
+
+    /**
+     * @return position of the request in fan-out requests
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public LambdaInvokeRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * @return response or null when request failed with exception
+     */
+    public Response getResponse() {
+        return response;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return true when Lambda accepted the invocation and the function did not fail
+     */
+    public boolean isSuccess() {
+        return nonNull(response) && response.isSuccess() && !isFunctionError();
+    }
+
+    /**
+     * @return true when function threw an error, Lambda responds with 200 and X-Amz-Function-Error header then
+     */
+    public boolean isFunctionError() {
+        return nonNull(response) && nonNull(response.getHeader(FUNCTION_ERROR_HEADER));
+    }
+}
@@ -2,6 +2,7 @@ package pl.r6lab.rapidaws.lambda;
 
 import pl.r6lab.rapidaws.HttpMethod;
 import pl.r6lab.rapidaws.Request;
+import pl.r6lab.rapidaws.RequestBody;
 import pl.r6lab.rapidaws.ServiceName;
 
 public final class LambdaInvokeRequest implements Request {
@@ -10,12 +11,21 @@ public final class LambdaInvokeRequest implements Request {
     private final ServiceName serviceName = ServiceName.LAMBDA;
     private final String functionName;
     private final String payload;
+    private volatile RequestBody body;
     private final HttpMethod method;
+    private final InvocationType invocationType;
+    private final LogType logType;
+    private final String qualifier;
 
-    private LambdaInvokeRequest(String functionName, String payload, HttpMethod method) {
+    private LambdaInvokeRequest(String functionName, String payload, RequestBody body, HttpMethod method, InvocationType invocationType,
+                                LogType logType, String qualifier) {
         this.functionName = functionName;
         this.payload = payload;
+        this.body = body;
         this.method = method;
+        this.invocationType = invocationType;
+        this.logType = logType;
+        this.qualifier = qualifier;
     }
 
     public ServiceName getServiceName() {
@@ -32,14 +42,64 @@ public final class LambdaInvokeRequest implements Request {
     }
 
     public String getPayload() {
-        return payload;
+        return payload != null ? payload : body.toString();
+    }
+
+    @Override
+    public RequestBody getBody() {
+        RequestBody encoded = body;
+        if (encoded == null) {
+            encoded = RequestBody.of(payload);
+            body = encoded;
+        }
+        return encoded;
     }
 
     public HttpMethod getMethod() {
         return method;
     }
 
+    /**
+     * @return invocation type or null when not set, which Lambda treats as RequestResponse
+     */
+    public InvocationType getInvocationType() {
+        return invocationType;
+    }
+
+    public LogType getLogType() {
+        return logType;
+    }
+
+    /**
+     * @return function version or alias, null invokes $LATEST
+     */
+    public String getQualifier() {
+        return qualifier;
+    }
+
+    public LambdaInvokeRequest withInvocationType(InvocationType invocationType) {
+        return new LambdaInvokeRequest(functionName, payload, body, method, invocationType, logType, qualifier);
+    }
+
+    public LambdaInvokeRequest withLogType(LogType logType) {
+        return new LambdaInvokeRequest(functionName, payload, body, method, invocationType, logType, qualifier);
+    }
+
+    public LambdaInvokeRequest withQualifier(String qualifier) {
+        return new LambdaInvokeRequest(functionName, payload, body, method, invocationType, logType, qualifier);
+    }
+
     public static final LambdaInvokeRequest of(String functionName, String payload, HttpMethod method) {
-        return new LambdaInvokeRequest(functionName, payload, method);
+        return new LambdaInvokeRequest(functionName, payload, null, method, null, null, null);
+    }
+
+    /**
+     * @param body invocation payload as bytes or buffer, Lambda does not accept aws-chunked stream bodies
+     */
+    public static final LambdaInvokeRequest of(String functionName, RequestBody body, HttpMethod method) {
+        if (body.isStream()) {
+            throw new IllegalArgumentException("Lambda does not accept stream bodies, pass the payload as bytes or buffer");
+        }
+        return new LambdaInvokeRequest(functionName, null, body, method, null, null, null);
     }
 }
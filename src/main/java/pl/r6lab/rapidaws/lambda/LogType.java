@@ -0,0 +1,19 @@
+package pl.r6lab.rapidaws.lambda;
+
+public enum LogType {
+    NONE("None"),
+    /**
+     * Last 4 KB of execution log is returned base64 encoded in X-Amz-Log-Result header of synchronous invocations
+     */
+    TAIL("Tail");
+
+    private final String value;
+
+    LogType(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -1,113 +1,109 @@
 package pl.r6lab.rapidaws.lambda;
 
 import pl.r6lab.rapidaws.AbstractRapidClient;
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.PrimingReport;
 import pl.r6lab.rapidaws.Request;
+import pl.r6lab.rapidaws.RequestBody;
 import pl.r6lab.rapidaws.ServiceName;
-import pl.r6lab.rapidaws.SignatureVersion4;
+import pl.r6lab.rapidaws.credentials.CredentialsProvider;
+import pl.r6lab.rapidaws.credentials.RefreshingCredentialsProvider;
+import pl.r6lab.rapidaws.credentials.StaticCredentialsProvider;
+import pl.r6lab.rapidaws.http.HttpRequest;
 
-import java.net.HttpURLConnection;
-import java.security.NoSuchAlgorithmException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 public final class RapidLambdaInvocationClient extends AbstractRapidClient {
 
     private static final String SIGNED_HEADERS = "content-type;host;x-amz-date";
-    private static final String NEW_LINE = "\n";
-    private static final String DOT = ".";
+    private static final String RESOURCE_PATH_PREFIX = "/2015-03-31/functions/";
+    private static final String RESOURCE_PATH_SUFFIX = "/invocations";
+    private static final String QUALIFIER_PARAM = "?Qualifier=";
+    private static final String PRIMING_FUNCTION = "priming";
 
-    private RapidLambdaInvocationClient(String accessKey, String secretKey, String sessionToken, String region) {
-        super(accessKey, secretKey, sessionToken, region);
+    private RapidLambdaInvocationClient(CredentialsProvider credentialsProvider, String region) {
+        super(credentialsProvider, region);
     }
 
+    /**
+     * Region from AWS_REGION, credentials from {@link RefreshingCredentialsProvider#defaultProvider()}
+     */
     public final static RapidLambdaInvocationClient envAware() {
-        return new RapidLambdaInvocationClient(System.getenv(AWS_ACCESS_KEY_ENV_VARIABLE), System.getenv(AWS_SECRET_KEY_ENV_VARIABLE), System.getenv(AWS_SESSION_TOKEN_ENV_VARIABLE), System.getenv(AWS_REGION_ENV_VARIABLE));
+        return new RapidLambdaInvocationClient(RefreshingCredentialsProvider.defaultProvider(), System.getenv(AWS_REGION_ENV_VARIABLE));
     }
 
     public final static RapidLambdaInvocationClient of(String accessKey, String secretKey, String sessionToken, String region) {
         if (isNull(accessKey) || isNull(secretKey) || isNull(region)) {
             throw new IllegalArgumentException("Missing mandatory AWS parameters");
         }
-        return new RapidLambdaInvocationClient(accessKey, secretKey, sessionToken, region);
+        return new RapidLambdaInvocationClient(StaticCredentialsProvider.of(accessKey, secretKey, sessionToken), region);
     }
 
-    @Override
-    protected void setBasicHeaders(HttpURLConnection connection, Request request, String awsDate, int contentLength) {
-        connection.setRequestProperty("Content-Type", "");
-        connection.setRequestProperty("Host", host(ServiceName.LAMBDA.getName()));
-        connection.setRequestProperty("X-Amz-Date", awsDate);
+    public final static RapidLambdaInvocationClient of(CredentialsProvider credentialsProvider, String region) {
+        if (isNull(credentialsProvider) || isNull(region)) {
+            throw new IllegalArgumentException("Missing mandatory AWS parameters");
+        }
+        return new RapidLambdaInvocationClient(credentialsProvider, region);
     }
 
     @Override
-    protected String canonicalRequest(int contentLength, String awsDate, Request request) throws NoSuchAlgorithmException {
-        String hashedPayload = hexBinary(SignatureVersion4.sha256(request.getPayload())).toLowerCase();
-        String canonicalRequest = new StringBuilder()
-                .append(request.getMethod().name())
-                .append(NEW_LINE)
-                .append(resourcePath(((LambdaInvokeRequest) request).getFunctionName()))
-                .append(NEW_LINE)
-                .append(NEW_LINE)
-                .append("content-type:")
-                .append(NEW_LINE)
-                .append(canonicalHeaders(awsDate, ServiceName.LAMBDA.getName()))
-                .append(NEW_LINE)
-                .append(NEW_LINE)
-                .append(SIGNED_HEADERS)
-                .append(NEW_LINE)
-                .append(hashedPayload)
-                .toString();
-        if (this.isPrintHeaders()) {
-            this.printHeader("Canonical request", canonicalRequest);
+    protected void setBasicHeaders(HttpRequest httpRequest, Request request, String awsDate, long contentLength) {
+        httpRequest.setHeader("Content-Type", "");
+        httpRequest.setHeader("Host", host(ServiceName.LAMBDA));
+        httpRequest.setHeader("X-Amz-Date", awsDate);
+        LambdaInvokeRequest invokeRequest = (LambdaInvokeRequest) request;
+        if (nonNull(invokeRequest.getInvocationType())) {
+            httpRequest.setHeader("X-Amz-Invocation-Type", invokeRequest.getInvocationType().getValue());
+        }
+        if (nonNull(invokeRequest.getLogType())) {
+            httpRequest.setHeader("X-Amz-Log-Type", invokeRequest.getLogType().getValue());
         }
-        return canonicalRequest;
     }
 
     @Override
-    protected String canonicalHeaders(String awsDate, String serviceName) {
-        return new StringBuilder()
-                .append("host:")
-                .append(host(serviceName))
-                .append(NEW_LINE)
-                .append("x-amz-date:")
-                .append(awsDate)
-                .toString();
+    protected String endpointUrl(Request request) {
+        LambdaInvokeRequest invokeRequest = (LambdaInvokeRequest) request;
+        StringBuilder url = new StringBuilder()
+                .append(serviceUrl(ServiceName.LAMBDA, true))
+                .append(RESOURCE_PATH_PREFIX)
+                .append(invokeRequest.getFunctionName())
+                .append(RESOURCE_PATH_SUFFIX);
+        if (nonNull(invokeRequest.getQualifier())) {
+            url.append(QUALIFIER_PARAM).append(encode(invokeRequest.getQualifier()));
+        }
+        return url.toString();
     }
 
-    @Override
-    protected String endpointUrl(Request request) {
-        return new StringBuilder()
-                .append("https://")
-                .append(host(ServiceName.LAMBDA.getName()))
-                .append(resourcePath(((LambdaInvokeRequest) request).getFunctionName()))
-                .toString();
+    private static String encode(String value) {
+        try {
+            // SigV4 canonical query uses %20 for spaces, version and alias names don't contain other differing characters
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     @Override
-    protected String signedHeaders() {
-        return SIGNED_HEADERS;
+    protected Request primingRequest(ServiceName serviceName) {
+        return LambdaInvokeRequest.of(PRIMING_FUNCTION, "{}", HttpMethod.POST);
     }
 
-    @Override
-    protected String payload(Request request) {
-        return request.getPayload();
+    public PrimingReport prime() {
+        return prime(1, ServiceName.LAMBDA);
     }
 
     @Override
-    protected String host(String serviceName) {
-        return new StringBuilder().append(serviceName)
-                .append(DOT)
-                .append(this.getRegion())
-                .append(DOT)
-                .append("amazonaws.com")
-                .toString();
+    protected String signedHeaders() {
+        return SIGNED_HEADERS;
     }
 
-    private String resourcePath(String functionName) {
-        return new StringBuilder()
-                .append("/2015-03-31/functions/")
-                .append(functionName)
-                .append("/invocations")
-                .toString();
+    @Override
+    protected RequestBody payload(Request request) {
+        return request.getBody();
     }
 
 }
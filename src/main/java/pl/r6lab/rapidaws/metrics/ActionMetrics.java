@@ -0,0 +1,89 @@
+package pl.r6lab.rapidaws.metrics;
+
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.http.ExchangeTimings;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Counters and histograms of one action of a service
+ */
+final class ActionMetrics {
+
+    private static final int MAX_STATUS_CODE = 599;
+
+    private final ServiceName serviceName;
+    private final String action;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final AtomicLongArray statusCodes = new AtomicLongArray(MAX_STATUS_CODE + 1);
+    private final Histogram[] phases = new Histogram[Phase.values().length];
+
+    ActionMetrics(ServiceName serviceName, String action) {
+        this.serviceName = serviceName;
+        this.action = action;
+        for (int i = 0; i < phases.length; ++i) {
+            phases[i] = Histogram.create();
+        }
+    }
+
+    /**
+     * Transport phases are recorded only for attempts that received a response, handshake only when it happened
+     */
+    void record(int statusCode, long signingNanos, long totalNanos, ExchangeTimings timings) {
+        requests.increment();
+        phases[Phase.SIGNING.ordinal()].record(signingNanos);
+        phases[Phase.TOTAL.ordinal()].record(totalNanos);
+        if (statusCode <= 0) {
+            errors.increment();
+            return;
+        }
+        statusCodes.incrementAndGet(Math.min(statusCode, MAX_STATUS_CODE));
+        if (nonNull(timings)) {
+            bytesSent.add(timings.getBytesSent());
+            bytesReceived.add(timings.getBytesReceived());
+            phases[Phase.CONNECTION_ACQUIRE.ordinal()].record(timings.getAcquireNanos());
+            if (timings.getHandshakeNanos() > 0) {
+                phases[Phase.TLS_HANDSHAKE.ordinal()].record(timings.getHandshakeNanos());
+            }
+            phases[Phase.REQUEST_WRITE.ordinal()].record(timings.getWriteNanos());
+            phases[Phase.TIME_TO_FIRST_BYTE.ordinal()].record(timings.getFirstByteNanos());
+            phases[Phase.BODY_READ.ordinal()].record(timings.getBodyReadNanos());
+        }
+    }
+
+    ActionSnapshot snapshot() {
+        Map<Integer, Long> codes = new TreeMap<>();
+        for (int code = 0; code <= MAX_STATUS_CODE; ++code) {
+            long count = statusCodes.get(code);
+            if (count > 0) {
+                codes.put(code, count);
+            }
+        }
+        HistogramSnapshot[] latencies = new HistogramSnapshot[phases.length];
+        for (int i = 0; i < phases.length; ++i) {
+            latencies[i] = phases[i].snapshot();
+        }
+        return ActionSnapshot.of(serviceName, action, requests.sum(), errors.sum(), bytesSent.sum(), bytesReceived.sum(), codes, latencies);
+    }
+
+    void reset() {
+        requests.reset();
+        errors.reset();
+        bytesSent.reset();
+        bytesReceived.reset();
+        for (int code = 0; code <= MAX_STATUS_CODE; ++code) {
+            statusCodes.set(code, 0);
+        }
+        for (Histogram phase : phases) {
+            phase.reset();
+        }
+    }
+}
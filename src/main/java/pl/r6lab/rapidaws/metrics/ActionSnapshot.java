@@ -0,0 +1,98 @@
+package pl.r6lab.rapidaws.metrics;
+
+import pl.r6lab.rapidaws.ServiceName;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable copy of metrics of one action of a service
+ */
+public final class ActionSnapshot {
+
+    private final ServiceName serviceName;
+    private final String action;
+    private final long requests;
+    private final long errors;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final Map<Integer, Long> statusCodes;
+    private final HistogramSnapshot[] latencies;
+
+    private ActionSnapshot(ServiceName serviceName, String action, long requests, long errors, long bytesSent,
+                           long bytesReceived, Map<Integer, Long> statusCodes, HistogramSnapshot[] latencies) {
+        this.serviceName = serviceName;
+        this.action = action;
+        this.requests = requests;
+        this.errors = errors;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.statusCodes = Collections.unmodifiableMap(statusCodes);
+        this.latencies = latencies;
+    }
+
+    static ActionSnapshot of(ServiceName serviceName, String action, long requests, long errors, long bytesSent,
+                             long bytesReceived, Map<Integer, Long> statusCodes, HistogramSnapshot[] latencies) {
+        return new ActionSnapshot(serviceName, action, requests, errors, bytesSent, bytesReceived, statusCodes, latencies);
+    }
+
+    public ServiceName getServiceName() {
+        return serviceName;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * @return number of attempts, retries are counted separately
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return attempts that failed without a response, e.g. on connection errors
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * @return number of responses by status code in ascending order
+     */
+    public Map<Integer, Long> getStatusCodes() {
+        return statusCodes;
+    }
+
+    /**
+     * @return durations of the phase in nanos
+     */
+    public HistogramSnapshot getLatency(Phase phase) {
+        return latencies[phase.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder()
+                .append(serviceName.getName()).append(' ').append(action)
+                .append(": requests=").append(requests)
+                .append(", errors=").append(errors)
+                .append(", bytesSent=").append(bytesSent)
+                .append(", bytesReceived=").append(bytesReceived)
+                .append(", statusCodes=").append(statusCodes);
+        for (Phase phase : Phase.values()) {
+            HistogramSnapshot latency = latencies[phase.ordinal()];
+            builder.append("\n  ").append(phase).append(" [ns] ").append(latency);
+        }
+        return builder.toString();
+    }
+}
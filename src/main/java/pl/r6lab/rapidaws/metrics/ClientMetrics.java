@@ -0,0 +1,72 @@
+package pl.r6lab.rapidaws.metrics;
+
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.http.ExchangeTimings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Per service and action request counters, status codes, bytes and phase latency histograms. Recording is lock-free
+ * and after the first call of an action it allocates nothing, unless a listener is set. One instance can be shared by
+ * several clients.
+ */
+public final class ClientMetrics {
+
+    private final ConcurrentMap<ServiceName, ConcurrentMap<String, ActionMetrics>> services = new ConcurrentHashMap<>();
+    private volatile MetricsListener listener;
+
+    private ClientMetrics() {
+    }
+
+    public static ClientMetrics create() {
+        return new ClientMetrics();
+    }
+
+    public void setListener(MetricsListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Records single attempt of a request, called by clients
+     *
+     * @param statusCode response status or 0 when the attempt failed without a response
+     * @param timings    transport measurements, null when the transport didn't provide them
+     */
+    public void record(ServiceName serviceName, String action, int statusCode, Throwable error, long signingNanos,
+                       long totalNanos, ExchangeTimings timings) {
+        action(serviceName, action).record(statusCode, signingNanos, totalNanos, timings);
+        MetricsListener current = this.listener;
+        if (nonNull(current)) {
+            try {
+                current.onRequest(RequestTimings.of(serviceName, action, statusCode, error, signingNanos, totalNanos, timings));
+            } catch (RuntimeException e) {
+                // listener must not break requests
+            }
+        }
+    }
+
+    public MetricsSnapshot snapshot() {
+        List<ActionSnapshot> actions = new ArrayList<>();
+        services.values().forEach(serviceActions -> serviceActions.values().forEach(metrics -> actions.add(metrics.snapshot())));
+        return MetricsSnapshot.of(actions);
+    }
+
+    public void reset() {
+        services.values().forEach(serviceActions -> serviceActions.values().forEach(ActionMetrics::reset));
+    }
+
+    private ActionMetrics action(ServiceName serviceName, String action) {
+        ConcurrentMap<String, ActionMetrics> actions = services.get(serviceName);
+        if (isNull(actions)) {
+            actions = services.computeIfAbsent(serviceName, name -> new ConcurrentHashMap<>());
+        }
+        ActionMetrics metrics = actions.get(action);
+        return nonNull(metrics) ? metrics : actions.computeIfAbsent(action, name -> new ActionMetrics(serviceName, name));
+    }
+}
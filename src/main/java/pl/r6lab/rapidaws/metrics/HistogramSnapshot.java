@@ -0,0 +1,80 @@
+package pl.r6lab.rapidaws.metrics;
+
+/**
+ * Immutable copy of {@link Histogram} counts
+ */
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    private HistogramSnapshot(long[] counts, long sum, long max) {
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        this.counts = counts;
+        this.count = total;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    static HistogramSnapshot of(long[] counts, long sum, long max) {
+        return new HistogramSnapshot(counts, sum, max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return upper bound of the bucket holding the value at given percentile, never above the max recorded value
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long upperBound = i + 1 < counts.length ? Histogram.lowestValue(i + 1) - 1 : Long.MAX_VALUE;
+                return Math.min(upperBound, max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return snapshot holding counts of both snapshots
+     */
+    public HistogramSnapshot merge(HistogramSnapshot other) {
+        long[] merged = new long[counts.length];
+        for (int i = 0; i < counts.length; ++i) {
+            merged[i] = counts[i] + other.counts[i];
+        }
+        return new HistogramSnapshot(merged, sum + other.sum, Math.max(max, other.max));
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", mean=" + Math.round(getMean()) + ", p50=" + getValueAtPercentile(50)
+                + ", p99=" + getValueAtPercentile(99) + ", max=" + max;
+    }
+}
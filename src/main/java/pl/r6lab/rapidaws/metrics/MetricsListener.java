@@ -0,0 +1,12 @@
+package pl.r6lab.rapidaws.metrics;
+
+/**
+ * Notified after every attempt of a request on the thread that completed it, e.g. NIO event loop, so it should
+ * return quickly. Exceptions thrown by the listener are ignored.
+ */
+@FunctionalInterface
+public interface MetricsListener {
+
+    void onRequest(RequestTimings timings);
+
+}
@@ -0,0 +1,47 @@
+package pl.r6lab.rapidaws.metrics;
+
+import pl.r6lab.rapidaws.ServiceName;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of {@link ClientMetrics}
+ */
+public final class MetricsSnapshot {
+
+    private final List<ActionSnapshot> actions;
+
+    private MetricsSnapshot(List<ActionSnapshot> actions) {
+        this.actions = Collections.unmodifiableList(actions);
+    }
+
+    static MetricsSnapshot of(List<ActionSnapshot> actions) {
+        return new MetricsSnapshot(actions);
+    }
+
+    public List<ActionSnapshot> getActions() {
+        return actions;
+    }
+
+    /**
+     * @return snapshot of the action or null when it wasn't called
+     */
+    public ActionSnapshot get(ServiceName serviceName, String action) {
+        for (ActionSnapshot snapshot : actions) {
+            if (snapshot.getServiceName() == serviceName && snapshot.getAction().equals(action)) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (ActionSnapshot action : actions) {
+            builder.append(action).append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,11 @@
+package pl.r6lab.rapidaws.metrics;
+
+/**
+ * Measured parts of a request. Connection acquire includes TLS handshake of a new connection, total covers all of
+ * them from the start of signing to the end of the response.
+ */
+public enum Phase {
+
+    SIGNING, CONNECTION_ACQUIRE, TLS_HANDSHAKE, REQUEST_WRITE, TIME_TO_FIRST_BYTE, BODY_READ, TOTAL
+
+}
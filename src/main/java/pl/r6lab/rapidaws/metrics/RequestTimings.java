@@ -0,0 +1,85 @@
+package pl.r6lab.rapidaws.metrics;
+
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.http.ExchangeTimings;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Measurements of a single attempt of a request passed to {@link MetricsListener}
+ */
+public final class RequestTimings {
+
+    private final ServiceName serviceName;
+    private final String action;
+    private final int statusCode;
+    private final Throwable error;
+    private final long[] phaseNanos;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final boolean connectionReused;
+
+    private RequestTimings(ServiceName serviceName, String action, int statusCode, Throwable error, long[] phaseNanos,
+                           long bytesSent, long bytesReceived, boolean connectionReused) {
+        this.serviceName = serviceName;
+        this.action = action;
+        this.statusCode = statusCode;
+        this.error = error;
+        this.phaseNanos = phaseNanos;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.connectionReused = connectionReused;
+    }
+
+    static RequestTimings of(ServiceName serviceName, String action, int statusCode, Throwable error, long signingNanos,
+                             long totalNanos, ExchangeTimings timings) {
+        long[] phaseNanos = new long[Phase.values().length];
+        phaseNanos[Phase.SIGNING.ordinal()] = signingNanos;
+        phaseNanos[Phase.TOTAL.ordinal()] = totalNanos;
+        if (nonNull(timings)) {
+            phaseNanos[Phase.CONNECTION_ACQUIRE.ordinal()] = timings.getAcquireNanos();
+            phaseNanos[Phase.TLS_HANDSHAKE.ordinal()] = timings.getHandshakeNanos();
+            phaseNanos[Phase.REQUEST_WRITE.ordinal()] = timings.getWriteNanos();
+            phaseNanos[Phase.TIME_TO_FIRST_BYTE.ordinal()] = timings.getFirstByteNanos();
+            phaseNanos[Phase.BODY_READ.ordinal()] = timings.getBodyReadNanos();
+            return new RequestTimings(serviceName, action, statusCode, error, phaseNanos, timings.getBytesSent(),
+                    timings.getBytesReceived(), timings.isConnectionReused());
+        }
+        return new RequestTimings(serviceName, action, statusCode, error, phaseNanos, 0, 0, false);
+    }
+
+    public ServiceName getServiceName() {
+        return serviceName;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * @return response status or 0 when no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public long getNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public boolean isConnectionReused() {
+        return connectionReused;
+    }
+}
@@ -0,0 +1,131 @@
+package pl.r6lab.rapidaws.s3;
+
+import pl.r6lab.rapidaws.AbstractRapidClient;
+import pl.r6lab.rapidaws.PrimingReport;
+import pl.r6lab.rapidaws.Request;
+import pl.r6lab.rapidaws.RequestBody;
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.credentials.CredentialsProvider;
+import pl.r6lab.rapidaws.credentials.RefreshingCredentialsProvider;
+import pl.r6lab.rapidaws.credentials.StaticCredentialsProvider;
+import pl.r6lab.rapidaws.http.HttpRequest;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * S3 object client. Buckets are addressed virtual-hosted style, e.g. bucket.s3.eu-west-1.amazonaws.com, unless path
+ * style is turned on, the endpoint is overridden or the bucket name contains dots, which don't match the wildcard
+ * certificate. Large objects are best moved with {@link S3TransferManager}.
+ */
+public final class RapidS3Client extends AbstractRapidClient {
+
+    private static final String SIGNED_HEADERS = "host;x-amz-content-sha256;x-amz-date";
+    private static final String PRIMING_ACTION = "ListBuckets";
+
+    private volatile boolean pathStyleAccess;
+
+    private RapidS3Client(CredentialsProvider credentialsProvider, String region) {
+        super(credentialsProvider, region);
+    }
+
+    /**
+     * Region from AWS_REGION, credentials from {@link RefreshingCredentialsProvider#defaultProvider()}
+     */
+    public final static RapidS3Client envAware() {
+        return new RapidS3Client(RefreshingCredentialsProvider.defaultProvider(), System.getenv(AWS_REGION_ENV_VARIABLE));
+    }
+
+    public final static RapidS3Client of(String accessKey, String secretKey, String sessionToken, String region) {
+        if (isNull(accessKey) || isNull(secretKey) || isNull(region)) {
+            throw new IllegalArgumentException("Missing mandatory AWS parameters");
+        }
+        return new RapidS3Client(StaticCredentialsProvider.of(accessKey, secretKey, sessionToken), region);
+    }
+
+    public final static RapidS3Client of(CredentialsProvider credentialsProvider, String region) {
+        if (isNull(credentialsProvider) || isNull(region)) {
+            throw new IllegalArgumentException("Missing mandatory AWS parameters");
+        }
+        return new RapidS3Client(credentialsProvider, region);
+    }
+
+    @Override
+    protected void setBasicHeaders(HttpRequest httpRequest, Request request, String awsDate, long contentLength) {
+        S3Request s3Request = (S3Request) request;
+        httpRequest.setHeader("Host", host(s3Request.getBucket()));
+        httpRequest.setHeader("X-Amz-Date", awsDate);
+        if (nonNull(s3Request.getRange())) {
+            httpRequest.setHeader("Range", s3Request.getRange());
+        }
+        if (nonNull(s3Request.getIfMatch())) {
+            httpRequest.setHeader("If-Match", s3Request.getIfMatch());
+        }
+    }
+
+    @Override
+    protected String endpointUrl(Request request) {
+        S3Request s3Request = (S3Request) request;
+        String bucket = s3Request.getBucket();
+        StringBuilder url = new StringBuilder(128);
+        if (isNull(bucket) || isPathStyle(bucket)) {
+            url.append(serviceUrl(ServiceName.S3, true));
+            if (nonNull(bucket)) {
+                url.append('/').append(bucket);
+            }
+        } else {
+            url.append("https://").append(bucket).append('.').append(host(ServiceName.S3));
+        }
+        url.append(s3Request.getPath());
+        if (nonNull(s3Request.getQuery())) {
+            url.append('?').append(s3Request.getQuery());
+        }
+        return url.toString();
+    }
+
+    private String host(String bucket) {
+        if (isNull(bucket) || isPathStyle(bucket)) {
+            return host(ServiceName.S3);
+        }
+        return bucket + '.' + host(ServiceName.S3);
+    }
+
+    private boolean isPathStyle(String bucket) {
+        return pathStyleAccess || isEndpointOverridden(ServiceName.S3) || bucket.indexOf('.') >= 0;
+    }
+
+    /**
+     * @param pathStyleAccess true sends requests of all buckets to the regional host, so they share connections,
+     *                        including those opened by {@link #prime()}
+     */
+    public void setPathStyleAccess(boolean pathStyleAccess) {
+        this.pathStyleAccess = pathStyleAccess;
+    }
+
+    public boolean isPathStyleAccess() {
+        return pathStyleAccess;
+    }
+
+    /**
+     * Request of the regional host, virtual-hosted buckets use connections of their own hosts
+     */
+    @Override
+    protected Request primingRequest(ServiceName serviceName) {
+        return S3Request.service(PRIMING_ACTION);
+    }
+
+    public PrimingReport prime() {
+        return prime(1, ServiceName.S3);
+    }
+
+    @Override
+    protected String signedHeaders() {
+        return SIGNED_HEADERS;
+    }
+
+    @Override
+    protected RequestBody payload(Request request) {
+        return request.getBody();
+    }
+
+}
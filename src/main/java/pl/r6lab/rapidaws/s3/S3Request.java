@@ -0,0 +1,190 @@
+package pl.r6lab.rapidaws.s3;
+
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.Request;
+import pl.r6lab.rapidaws.RequestBody;
+import pl.r6lab.rapidaws.ServiceName;
+
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Request of a single S3 object. Keys are URI encoded once, as S3 expects them in both the path and the canonical
+ * request. Requests are immutable, with* methods return copies.
+ */
+public final class S3Request implements Request {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final String action;
+    private final HttpMethod method;
+    private final String bucket;
+    private final String key;
+    private final String query;
+    private final String range;
+    private final String ifMatch;
+    private final RequestBody body;
+
+    private S3Request(String action, HttpMethod method, String bucket, String key, String query, String range, String ifMatch, RequestBody body) {
+        this.action = action;
+        this.method = method;
+        this.bucket = bucket;
+        this.key = key;
+        this.query = query;
+        this.range = range;
+        this.ifMatch = ifMatch;
+        this.body = body;
+    }
+
+    public static S3Request getObject(String bucket, String key) {
+        return of("GetObject", HttpMethod.GET, bucket, key, null, RequestBody.empty());
+    }
+
+    /**
+     * @param body signed, unsigned or streamed content; streams are signed chunk by chunk while they are sent
+     */
+    public static S3Request putObject(String bucket, String key, RequestBody body) {
+        return of("PutObject", HttpMethod.PUT, bucket, key, null, body);
+    }
+
+    public static S3Request deleteObject(String bucket, String key) {
+        return of("DeleteObject", HttpMethod.DELETE, bucket, key, null, RequestBody.empty());
+    }
+
+    static S3Request createMultipartUpload(String bucket, String key) {
+        return of("CreateMultipartUpload", HttpMethod.POST, bucket, key, "uploads", RequestBody.empty());
+    }
+
+    static S3Request uploadPart(String bucket, String key, String uploadId, int partNumber, RequestBody body) {
+        return of("UploadPart", HttpMethod.PUT, bucket, key, "partNumber=" + partNumber + "&uploadId=" + encode(uploadId, true), body);
+    }
+
+    static S3Request completeMultipartUpload(String bucket, String key, String uploadId, RequestBody body) {
+        return of("CompleteMultipartUpload", HttpMethod.POST, bucket, key, "uploadId=" + encode(uploadId, true), body);
+    }
+
+    static S3Request abortMultipartUpload(String bucket, String key, String uploadId) {
+        return of("AbortMultipartUpload", HttpMethod.DELETE, bucket, key, "uploadId=" + encode(uploadId, true), RequestBody.empty());
+    }
+
+    /**
+     * Request of the service root, e.g. ListBuckets
+     */
+    static S3Request service(String action) {
+        return new S3Request(action, HttpMethod.GET, null, null, null, null, null, RequestBody.empty());
+    }
+
+    private static S3Request of(String action, HttpMethod method, String bucket, String key, String query, RequestBody body) {
+        if (isNull(bucket) || bucket.isEmpty() || isNull(key) || key.isEmpty()) {
+            throw new IllegalArgumentException("Bucket and key must not be empty");
+        }
+        return new S3Request(action, method, bucket, key, query, null, null, body);
+    }
+
+    /**
+     * @return request of bytes from first to last, both inclusive
+     */
+    public S3Request withRange(long firstByte, long lastByte) {
+        if (firstByte < 0 || lastByte < firstByte) {
+            throw new IllegalArgumentException("Invalid range " + firstByte + "-" + lastByte);
+        }
+        return new S3Request(action, method, bucket, key, query, "bytes=" + firstByte + '-' + lastByte, ifMatch, body);
+    }
+
+    /**
+     * @param etag request fails with 412 when the object has another ETag, e.g. was replaced in the meantime
+     */
+    public S3Request withIfMatch(String etag) {
+        return new S3Request(action, method, bucket, key, query, range, etag, body);
+    }
+
+    @Override
+    public String getAction() {
+        return action;
+    }
+
+    @Override
+    public String getPayload() {
+        return body.toString();
+    }
+
+    @Override
+    public RequestBody getBody() {
+        return body;
+    }
+
+    @Override
+    public boolean hasStreamBody() {
+        return body.isStream();
+    }
+
+    @Override
+    public ServiceName getServiceName() {
+        return ServiceName.S3;
+    }
+
+    @Override
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * @return bucket name or null for requests of the service root
+     */
+    public String getBucket() {
+        return bucket;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return URI encoded key with leading slash, "/" for requests of the service root
+     */
+    public String getPath() {
+        return isNull(key) ? "/" : '/' + encode(key, false);
+    }
+
+    /**
+     * @return URI encoded query string or null
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @return value of Range header or null
+     */
+    public String getRange() {
+        return range;
+    }
+
+    public String getIfMatch() {
+        return ifMatch;
+    }
+
+    /**
+     * Encodes all but unreserved characters as SigV4 requires, slashes of keys are kept
+     */
+    private static String encode(String value, boolean encodeSlash) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        StringBuilder encoded = new StringBuilder(bytes.length + 16);
+        for (byte b : bytes) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+        }
+        return encoded.toString();
+    }
+
+    @Override
+    public String toString() {
+        return action + " s3://" + bucket + '/' + key + (isNull(range) ? "" : " " + range);
+    }
+}
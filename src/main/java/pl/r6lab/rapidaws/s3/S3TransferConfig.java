@@ -0,0 +1,118 @@
+package pl.r6lab.rapidaws.s3;
+
+import pl.r6lab.rapidaws.RequestBody;
+
+/**
+ * Immutable settings of {@link S3TransferManager}. Start from {@link #defaults()} and adjust with the with* methods.
+ */
+public final class S3TransferConfig {
+
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private static final int DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+    private static final int MAX_PART_SIZE = 1024 * 1024 * 1024;
+    private static final int MIN_CHUNK_SIZE = 8 * 1024;
+    private static final int DEFAULT_MAX_CONCURRENCY = 8;
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final long DEFAULT_BASE_BACKOFF_MILLIS = 50;
+    private static final long DEFAULT_MAX_BACKOFF_MILLIS = 5_000;
+
+    private final int partSize;
+    private final int maxConcurrency;
+    private final int chunkSize;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private S3TransferConfig(int partSize, int maxConcurrency, int chunkSize, int maxAttempts, long baseBackoffMillis, long maxBackoffMillis) {
+        this.partSize = partSize;
+        this.maxConcurrency = maxConcurrency;
+        this.chunkSize = chunkSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public static S3TransferConfig defaults() {
+        return new S3TransferConfig(DEFAULT_PART_SIZE, DEFAULT_MAX_CONCURRENCY, RequestBody.DEFAULT_CHUNK_SIZE, DEFAULT_MAX_ATTEMPTS,
+                DEFAULT_BASE_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    /**
+     * @param partSize bytes of one ranged GET or uploaded part, 5 MiB to 1 GiB; uploads of more than 10000 parts use
+     *                 larger parts
+     */
+    public S3TransferConfig withPartSize(int partSize) {
+        if (partSize < MIN_PART_SIZE || partSize > MAX_PART_SIZE) {
+            throw new IllegalArgumentException("Part size must be between " + MIN_PART_SIZE + " and " + MAX_PART_SIZE + " bytes");
+        }
+        return new S3TransferConfig(partSize, maxConcurrency, chunkSize, maxAttempts, baseBackoffMillis, maxBackoffMillis);
+    }
+
+    /**
+     * @param maxConcurrency number of parts transferred in parallel by one transfer
+     */
+    public S3TransferConfig withMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        return new S3TransferConfig(partSize, maxConcurrency, chunkSize, maxAttempts, baseBackoffMillis, maxBackoffMillis);
+    }
+
+    /**
+     * @param chunkSize size of signed chunks of uploaded parts, at least 8 KB
+     */
+    public S3TransferConfig withChunkSize(int chunkSize) {
+        if (chunkSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be at least " + MIN_CHUNK_SIZE + " bytes");
+        }
+        return new S3TransferConfig(partSize, maxConcurrency, chunkSize, maxAttempts, baseBackoffMillis, maxBackoffMillis);
+    }
+
+    /**
+     * @param maxAttempts attempts of one streamed part or PutObject, which the client can't resend; other requests
+     *                    are retried by the retry policy of the client
+     */
+    public S3TransferConfig withMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is required");
+        }
+        return new S3TransferConfig(partSize, maxConcurrency, chunkSize, maxAttempts, baseBackoffMillis, maxBackoffMillis);
+    }
+
+    /**
+     * @param baseBackoffMillis upper bound of the first retry delay, doubled with every attempt up to max backoff;
+     *                          actual delay is random below the bound
+     */
+    public S3TransferConfig withBaseBackoffMillis(long baseBackoffMillis) {
+        return new S3TransferConfig(partSize, maxConcurrency, chunkSize, maxAttempts, baseBackoffMillis, maxBackoffMillis);
+    }
+
+    public S3TransferConfig withMaxBackoffMillis(long maxBackoffMillis) {
+        return new S3TransferConfig(partSize, maxConcurrency, chunkSize, maxAttempts, baseBackoffMillis, maxBackoffMillis);
+    }
+
+    public int getPartSize() {
+        return partSize;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBaseBackoffMillis() {
+        return baseBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+}
@@ -0,0 +1,502 @@
+package pl.r6lab.rapidaws.s3;
+
+import pl.r6lab.rapidaws.AsyncExecutors;
+import pl.r6lab.rapidaws.RapidClientException;
+import pl.r6lab.rapidaws.RequestBody;
+import pl.r6lab.rapidaws.Response;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Moves large objects with parallel requests, the only way a single client gets past the bandwidth of one connection.
+ * Downloads read the first part to learn the object size, then fetch the others as byte-range GETs straight into a
+ * preallocated array or a memory-mapped file. Later parts are conditional on the ETag of the first one, so an object
+ * replaced midway fails the download instead of mixing versions. Uploads larger than one part use multipart upload
+ * with parts streamed from the source buffer or memory-mapped file and signed chunk by chunk while they are sent.
+ * Failed multipart uploads are aborted.
+ */
+public final class S3TransferManager {
+
+    private static final int MAX_PARTS = 10_000;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private static final int MEBIBYTE = 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int PARTIAL_CONTENT = 206;
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+    private static final String NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+    private static final String[] RETRYABLE_ERRORS = {"<Code>SlowDown</Code>", "<Code>RequestTimeout</Code>", "<Code>InternalError</Code>"};
+
+    private final RapidS3Client client;
+    private final S3TransferConfig config;
+    private final Executor executor;
+
+    private S3TransferManager(RapidS3Client client, S3TransferConfig config, Executor executor) {
+        this.client = client;
+        this.config = config;
+        this.executor = executor;
+    }
+
+    public static S3TransferManager of(RapidS3Client client) {
+        return new S3TransferManager(client, S3TransferConfig.defaults(), AsyncExecutors.defaultExecutor());
+    }
+
+    public static S3TransferManager of(RapidS3Client client, S3TransferConfig config) {
+        return new S3TransferManager(client, config, AsyncExecutors.defaultExecutor());
+    }
+
+    /**
+     * @param executor runs blocking part requests, at most max concurrency of them per transfer
+     */
+    public static S3TransferManager of(RapidS3Client client, S3TransferConfig config, Executor executor) {
+        return new S3TransferManager(client, config, executor);
+    }
+
+    /**
+     * @return content of the object, up to 2 GB
+     */
+    public byte[] download(String bucket, String key) {
+        byte[][] content = new byte[1][];
+        download(bucket, key, size -> {
+            if (size > MAX_ARRAY_SIZE) {
+                throw new RapidClientException("Object of " + size + " bytes does not fit in an array, download it to a file");
+            }
+            content[0] = new byte[(int) size];
+            return (offset, length) -> ByteBuffer.wrap(content[0], (int) offset, length);
+        });
+        return content[0];
+    }
+
+    /**
+     * Downloads the object into the file, replacing its content. The file is preallocated and parts are written
+     * through memory mapping, so the object never passes through the heap. Failed download leaves the file incomplete.
+     *
+     * @return size of the object
+     */
+    public long download(String bucket, String key, Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return download(bucket, key, size -> {
+                channel.truncate(0);
+                if (size > 0) {
+                    channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+                }
+                return (offset, length) -> channel.map(FileChannel.MapMode.READ_WRITE, offset, length);
+            });
+        } catch (IOException e) {
+            throw new RapidClientException(e);
+        }
+    }
+
+    /**
+     * @return ETag of the uploaded object
+     */
+    public String upload(String bucket, String key, byte[] content) {
+        return upload(bucket, key, ByteBuffer.wrap(content));
+    }
+
+    /**
+     * @param content remaining bytes are uploaded, position of the buffer is not modified
+     * @return ETag of the uploaded object
+     */
+    public String upload(String bucket, String key, ByteBuffer content) {
+        ByteBuffer source = content.slice();
+        return upload(bucket, key, source.remaining(), (offset, length) -> {
+            ByteBuffer part = source.duplicate();
+            part.position((int) offset);
+            part.limit((int) offset + length);
+            return part;
+        });
+    }
+
+    /**
+     * Uploads the file with parts read through memory mapping
+     *
+     * @return ETag of the uploaded object
+     */
+    public String upload(String bucket, String key, Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return upload(bucket, key, channel.size(), (offset, length) -> channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+        } catch (IOException e) {
+            throw new RapidClientException(e);
+        }
+    }
+
+    public S3TransferConfig getConfig() {
+        return config;
+    }
+
+    private long download(String bucket, String key, Allocation allocation) {
+        int partSize = config.getPartSize();
+        S3Request request = S3Request.getObject(bucket, key);
+        FirstPart first = execute(() -> request.withRange(0, partSize - 1), response -> readFirstPart(response, allocation, partSize));
+        long size = first.size;
+        if (first.received < size) {
+            S3Request conditional = isNull(first.etag) ? request : request.withIfMatch(first.etag);
+            int parts = (int) ((size + partSize - 1) / partSize);
+            runParallel(parts, 1, request.toString(), part -> {
+                long offset = (long) part * partSize;
+                int length = (int) Math.min(partSize, size - offset);
+                execute(() -> conditional.withRange(offset, offset + length - 1), response -> {
+                    try (InputStream body = response.getBodyStream()) {
+                        String contentRange = response.getHeader("Content-Range");
+                        if (response.getStatusCode() != PARTIAL_CONTENT || isNull(contentRange) || !contentRange.startsWith("bytes " + offset + '-')
+                                || contentLength(response) != length) {
+                            throw new RapidClientException("Unexpected response to range " + offset + '-' + (offset + length - 1) + ": status "
+                                    + response.getStatusCode() + ", Content-Range " + contentRange);
+                        }
+                        readFully(body, first.target.slice(offset, length));
+                    }
+                    return null;
+                });
+            });
+        }
+        return size;
+    }
+
+    /**
+     * Allocates the target once the object size is known. Objects smaller than the range come whole with 206,
+     * servers ignoring ranges answer 200 with the whole object, empty objects can't satisfy any range.
+     */
+    private static FirstPart readFirstPart(Response response, Allocation allocation, int partSize) throws IOException {
+        try (InputStream body = response.getBodyStream()) {
+            if (response.getStatusCode() == RANGE_NOT_SATISFIABLE) {
+                return new FirstPart(0, 0, response.getHeader("ETag"), allocation.allocate(0));
+            }
+            long size;
+            long received;
+            if (response.getStatusCode() == PARTIAL_CONTENT) {
+                String contentRange = response.getHeader("Content-Range");
+                int slash = isNull(contentRange) ? -1 : contentRange.lastIndexOf('/');
+                if (slash < 0 || contentRange.endsWith("*")) {
+                    throw new RapidClientException("Object size unknown, Content-Range " + contentRange);
+                }
+                size = Long.parseLong(contentRange.substring(slash + 1));
+                received = contentLength(response);
+            } else {
+                size = contentLength(response);
+                received = size;
+            }
+            Slicer target = allocation.allocate(size);
+            for (long offset = 0; offset < received; offset += partSize) {
+                readFully(body, target.slice(offset, (int) Math.min(partSize, received - offset)));
+            }
+            return new FirstPart(size, received, response.getHeader("ETag"), target);
+        }
+    }
+
+    private String upload(String bucket, String key, long size, Slicer source) {
+        int partSize = partSize(size);
+        if (size <= partSize) {
+            return execute(() -> S3Request.putObject(bucket, key, stream(source.slice(0, (int) size))), S3TransferManager::etag);
+        }
+        String uploadId = execute(() -> S3Request.createMultipartUpload(bucket, key), response -> {
+            String id = S3Xml.text(response.getPayload(), "UploadId");
+            if (isNull(id)) {
+                throw new RapidClientException("CreateMultipartUpload response without UploadId: " + response.getPayload());
+            }
+            return id;
+        });
+        try {
+            int parts = (int) ((size + partSize - 1) / partSize);
+            String[] etags = new String[parts];
+            runParallel(parts, 0, "upload of s3://" + bucket + '/' + key, part -> {
+                long offset = (long) part * partSize;
+                int length = (int) Math.min(partSize, size - offset);
+                etags[part] = execute(() -> S3Request.uploadPart(bucket, key, uploadId, part + 1, stream(source.slice(offset, length))),
+                        S3TransferManager::etag);
+            });
+            RequestBody complete = RequestBody.of(completeXml(etags));
+            return execute(() -> S3Request.completeMultipartUpload(bucket, key, uploadId, complete), response -> {
+                String payload = response.getPayload();
+                // S3 may fail after it started sending 200
+                if (payload.contains("<Error>")) {
+                    throw new RapidClientException("CompleteMultipartUpload failed: " + payload);
+                }
+                return S3Xml.text(payload, "ETag");
+            });
+        } catch (RuntimeException e) {
+            abort(bucket, key, uploadId, e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return configured part size or larger one when the object would need more than 10000 parts
+     */
+    private int partSize(long size) {
+        long minimum = (size + MAX_PARTS - 1) / MAX_PARTS;
+        if (minimum <= config.getPartSize()) {
+            return config.getPartSize();
+        }
+        long rounded = (minimum + MEBIBYTE - 1) / MEBIBYTE * MEBIBYTE;
+        if (rounded > MAX_ARRAY_SIZE) {
+            throw new RapidClientException("Object of " + size + " bytes is too large for multipart upload");
+        }
+        return (int) rounded;
+    }
+
+    private RequestBody stream(ByteBuffer part) {
+        return RequestBody.stream(new BufferInputStream(part), part.remaining(), config.getChunkSize());
+    }
+
+    private static String completeXml(String[] etags) {
+        StringBuilder xml = new StringBuilder(64 + etags.length * 96)
+                .append("<CompleteMultipartUpload xmlns=\"").append(NAMESPACE).append("\">");
+        for (int i = 0; i < etags.length; ++i) {
+            xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>").append(S3Xml.escape(etags[i])).append("</ETag></Part>");
+        }
+        return xml.append("</CompleteMultipartUpload>").toString();
+    }
+
+    /**
+     * Best effort, so parts uploaded so far are not stored and billed; abort failures are attached to the cause
+     */
+    private void abort(String bucket, String key, String uploadId, RuntimeException cause) {
+        try {
+            Response response = client.execute(S3Request.abortMultipartUpload(bucket, key, uploadId));
+            if (!response.isSuccess()) {
+                cause.addSuppressed(new RapidClientException("AbortMultipartUpload failed with status " + response.getStatusCode() + ": " + response.getPayload()));
+            }
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Runs part tasks with at most max concurrency of them in flight and waits for all started ones. No more parts
+     * are started after the first failure, which is thrown.
+     */
+    private void runParallel(int parts, int firstPart, String description, PartTask task) {
+        int maxConcurrency = config.getMaxConcurrency();
+        Semaphore permits = new Semaphore(maxConcurrency);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            for (int part = firstPart; part < parts && isNull(failure.get()); ++part) {
+                permits.acquire();
+                int index = part;
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        if (isNull(failure.get())) {
+                            task.run(index);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                }, executor);
+            }
+            permits.acquire(maxConcurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RapidClientException("Interrupted during " + description, e);
+        }
+        Throwable error = failure.get();
+        if (nonNull(error)) {
+            throw error instanceof RapidClientException ? (RapidClientException) error : new RapidClientException(error);
+        }
+    }
+
+    /**
+     * Sends request created anew for every attempt. Requests with buffered bodies are retried by the retry policy of
+     * the client, streamed parts can't be resent by the client and are retried here from the beginning of the part.
+     */
+    private <T> T execute(RequestFactory request, ResponseHandler<T> handler) {
+        for (int attempt = 1; ; ++attempt) {
+            RapidClientException failure;
+            boolean retryable;
+            boolean streamed = false;
+            try {
+                S3Request s3Request = request.create();
+                streamed = s3Request.hasStreamBody();
+                Response response = client.executeStreaming(s3Request);
+                if (response.isSuccess() || response.getStatusCode() == RANGE_NOT_SATISFIABLE) {
+                    return handler.handle(response);
+                }
+                failure = new RapidClientException(s3Request.getAction() + " failed with status " + response.getStatusCode() + ": " + response.getPayload());
+                retryable = isRetryable(response);
+            } catch (IOException e) {
+                failure = new RapidClientException(e);
+                retryable = true;
+            } catch (RapidClientException e) {
+                failure = e;
+                retryable = isConnectionFailure(e);
+            }
+            if (!streamed || !retryable || attempt >= config.getMaxAttempts()) {
+                throw failure;
+            }
+            backoff(attempt);
+        }
+    }
+
+    private static boolean isRetryable(Response response) {
+        int statusCode = response.getStatusCode();
+        if (statusCode >= 500 || statusCode == 429) {
+            return true;
+        }
+        String payload = response.getPayload();
+        for (String error : RETRYABLE_ERRORS) {
+            if (payload.contains(error)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isConnectionFailure(Throwable error) {
+        Throwable cause = error;
+        while (nonNull(cause)) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * Sleeps for random time below exponentially growing bound, so retries of parallel parts don't synchronize
+     */
+    private void backoff(int attempt) {
+        long bound = Math.min(config.getMaxBackoffMillis(), config.getBaseBackoffMillis() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RapidClientException("Interrupted while retrying", e);
+        }
+    }
+
+    private static String etag(Response response) {
+        response.getBody();
+        return response.getHeader("ETag");
+    }
+
+    private static long contentLength(Response response) {
+        String contentLength = response.getHeader("Content-Length");
+        if (isNull(contentLength)) {
+            throw new RapidClientException("Response without Content-Length");
+        }
+        return Long.parseLong(contentLength);
+    }
+
+    /**
+     * Reads straight into the array of heap buffers, other buffers are filled through a small copy buffer
+     */
+    private static void readFully(InputStream body, ByteBuffer target) throws IOException {
+        if (target.hasArray()) {
+            byte[] array = target.array();
+            int offset = target.arrayOffset() + target.position();
+            int end = offset + target.remaining();
+            while (offset < end) {
+                int read = body.read(array, offset, end - offset);
+                if (read < 0) {
+                    throw new EOFException("Object body ended " + (end - offset) + " bytes early");
+                }
+                offset += read;
+            }
+            return;
+        }
+        byte[] copy = new byte[Math.min(COPY_BUFFER_SIZE, target.remaining())];
+        while (target.hasRemaining()) {
+            int read = body.read(copy, 0, Math.min(copy.length, target.remaining()));
+            if (read < 0) {
+                throw new EOFException("Object body ended " + target.remaining() + " bytes early");
+            }
+            target.put(copy, 0, read);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Slicer {
+        /**
+         * @return buffer of length bytes of the object starting at offset
+         */
+        ByteBuffer slice(long offset, int length) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Allocation {
+        Slicer allocate(long size) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        S3Request create() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ResponseHandler<T> {
+        /**
+         * @throws IOException when the body breaks off; streamed requests are sent again
+         */
+        T handle(Response response) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface PartTask {
+        void run(int part);
+    }
+
+    private static final class FirstPart {
+        private final long size;
+        private final long received;
+        private final String etag;
+        private final Slicer target;
+
+        private FirstPart(long size, long received, String etag, Slicer target) {
+            this.size = size;
+            this.received = received;
+            this.etag = etag;
+            this.target = target;
+        }
+    }
+
+    /**
+     * Stream of the remaining bytes of a buffer, read by the chunk signer of a part
+     */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package pl.r6lab.rapidaws.s3;
+
+/**
+ * Minimal reading and writing of the flat XML documents of multipart uploads
+ */
+final class S3Xml {
+
+    private S3Xml() {
+    }
+
+    /**
+     * @return unescaped text of the first element with given name or null when there is none
+     */
+    static String text(String xml, String name) {
+        String open = '<' + name + '>';
+        int start = xml.indexOf(open);
+        if (start < 0) {
+            return null;
+        }
+        int end = xml.indexOf("</" + name + '>', start + open.length());
+        return end < 0 ? null : unescape(xml.substring(start + open.length(), end));
+    }
+
+    static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    escaped.append("&lt;");
+                    break;
+                case '>':
+                    escaped.append("&gt;");
+                    break;
+                case '&':
+                    escaped.append("&amp;");
+                    break;
+                case '"':
+                    escaped.append("&quot;");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Replaces predefined entities, S3 escapes quotes of ETags
+     */
+    private static String unescape(String text) {
+        if (text.indexOf('&') < 0) {
+            return text;
+        }
+        return text.replace("&quot;", "\"")
+                .replace("&#34;", "\"")
+                .replace("&apos;", "'")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&amp;", "&");
+    }
+}
@@ -0,0 +1,155 @@
+package pl.r6lab.rapidaws.sqs;
+
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClientException;
+import pl.r6lab.rapidaws.Response;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Coalesces deletes of processed messages into DeleteMessageBatch calls. Batch is sent when it has 10 receipt handles
+ * or on {@link #flush()}, which the consumer calls periodically. Entries failed on server side are sent again with
+ * the next batch. Failed calls were already retried by the retry policy of the client and are only reported.
+ */
+final class DeleteMessageBatcher {
+
+    private static final String DELETE_MESSAGE_BATCH = "DeleteMessageBatch";
+    private static final String ENTRY_PREFIX = "DeleteMessageBatchRequestEntry.";
+    private static final int MAX_ENTRIES = 10;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final RapidSQSClient client;
+    private final String queueUrl;
+    private final Consumer<Throwable> errorListener;
+    private final Set<CompletableFuture<Response>> inFlight = ConcurrentHashMap.newKeySet();
+    private List<Ack> pending = new ArrayList<>(MAX_ENTRIES);
+
+    DeleteMessageBatcher(RapidSQSClient client, String queueUrl, Consumer<Throwable> errorListener) {
+        this.client = client;
+        this.queueUrl = queueUrl;
+        this.errorListener = errorListener;
+    }
+
+    void ack(String receiptHandle) {
+        add(new Ack(receiptHandle));
+    }
+
+    void flush() {
+        List<Ack> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = take();
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * Sends pending deletes and waits for all deletes in flight
+     */
+    void flushAndWait(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        flush();
+        for (CompletableFuture<Response> request : inFlight) {
+            try {
+                request.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException e) {
+                // failures are reported by the request itself
+            }
+        }
+        // retries of failed deletes end up in pending again
+        flush();
+    }
+
+    private void add(Ack ack) {
+        List<Ack> batch = null;
+        synchronized (this) {
+            pending.add(ack);
+            if (pending.size() >= MAX_ENTRIES) {
+                batch = take();
+            }
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+    }
+
+    private List<Ack> take() {
+        List<Ack> batch = pending;
+        pending = new ArrayList<>(MAX_ENTRIES);
+        return batch;
+    }
+
+    private void dispatch(List<Ack> batch) {
+        Map<String, String> params = new LinkedHashMap<>(batch.size() * 4);
+        for (int i = 0; i < batch.size(); ++i) {
+            String prefix = ENTRY_PREFIX + (i + 1) + '.';
+            params.put(prefix + "Id", Integer.toString(i));
+            params.put(prefix + "ReceiptHandle", batch.get(i).receiptHandle);
+        }
+        CompletableFuture<Response> request = client.executeAsync(SQSRequest.of(DELETE_MESSAGE_BATCH, null, params, queueUrl, HttpMethod.POST));
+        inFlight.add(request);
+        request.whenComplete((response, error) -> {
+            inFlight.remove(request);
+            if (nonNull(error) || !response.isSuccess()) {
+                // messages become visible again after visibility timeout and are redelivered
+                errorListener.accept(isNull(error) ? new RapidClientException(DELETE_MESSAGE_BATCH + " failed with status " + response.getStatusCode() + ": " + response.getPayload()) : error);
+                return;
+            }
+            List<Ack> retries = new ArrayList<>();
+            RapidClientException retryError = null;
+            for (String result : SQSXml.elements(response.getPayload(), "BatchResultErrorEntry")) {
+                Ack ack = batch.get(Integer.parseInt(SQSXml.text(result, "Id")));
+                RapidClientException failure = new RapidClientException("Delete of " + ack.receiptHandle + " failed: " + SQSXml.text(result, "Code") + ": " + SQSXml.text(result, "Message"));
+                if (Boolean.parseBoolean(SQSXml.text(result, "SenderFault"))) {
+                    errorListener.accept(failure);
+                } else {
+                    retries.add(ack);
+                    retryError = failure;
+                }
+            }
+            if (!retries.isEmpty()) {
+                retryOrReport(retries, retryError);
+            }
+        });
+    }
+
+    private void retryOrReport(List<Ack> acks, Throwable error) {
+        boolean reported = false;
+        for (Ack ack : acks) {
+            if (++ack.attempts < MAX_ATTEMPTS) {
+                add(ack);
+            } else if (!reported) {
+                // message becomes visible again after visibility timeout and is redelivered
+                errorListener.accept(error);
+                reported = true;
+            }
+        }
+    }
+
+    private static final class Ack {
+        private final String receiptHandle;
+        private int attempts;
+
+        private Ack(String receiptHandle) {
+            this.receiptHandle = receiptHandle;
+        }
+    }
+}
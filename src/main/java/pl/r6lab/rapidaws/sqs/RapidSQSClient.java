@@ -1,115 +1,93 @@
 package pl.r6lab.rapidaws.sqs;
 
 import pl.r6lab.rapidaws.AbstractRapidClient;
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.PrimingReport;
 import pl.r6lab.rapidaws.Request;
+import pl.r6lab.rapidaws.RequestBody;
 import pl.r6lab.rapidaws.ServiceName;
-import pl.r6lab.rapidaws.SignatureVersion4;
+import pl.r6lab.rapidaws.credentials.CredentialsProvider;
+import pl.r6lab.rapidaws.credentials.RefreshingCredentialsProvider;
+import pl.r6lab.rapidaws.credentials.StaticCredentialsProvider;
+import pl.r6lab.rapidaws.http.Endpoint;
+import pl.r6lab.rapidaws.http.HttpRequest;
 
-import java.net.HttpURLConnection;
-import java.security.NoSuchAlgorithmException;
+import java.util.Map;
 
 import static java.util.Objects.isNull;
 
 public final class RapidSQSClient extends AbstractRapidClient {
 
     private static final String SIGNED_HEADERS = "content-type;host;x-amz-date";
-    private static final String NEW_LINE = "\n";
-    private static final String DOT = ".";
 
-    private RapidSQSClient(String accessKey, String secretKey, String sessionToken, String region) {
-        super(accessKey, secretKey, sessionToken, region);
+    private RapidSQSClient(CredentialsProvider credentialsProvider, String region) {
+        super(credentialsProvider, region);
     }
 
+    /**
+     * Region from AWS_REGION, credentials from {@link RefreshingCredentialsProvider#defaultProvider()}
+     */
     public final static RapidSQSClient envAware() {
-        return new RapidSQSClient(System.getenv(AWS_ACCESS_KEY_ENV_VARIABLE), System.getenv(AWS_SECRET_KEY_ENV_VARIABLE), System.getenv(AWS_SESSION_TOKEN_ENV_VARIABLE), System.getenv(AWS_REGION_ENV_VARIABLE));
+        return new RapidSQSClient(RefreshingCredentialsProvider.defaultProvider(), System.getenv(AWS_REGION_ENV_VARIABLE));
     }
 
     public final static RapidSQSClient of(String accessKey, String secretKey, String sessionToken, String region) {
         if (isNull(accessKey) || isNull(secretKey) || isNull(region)) {
             throw new IllegalArgumentException("Missing mandatory AWS parameters");
         }
-        return new RapidSQSClient(accessKey, secretKey, sessionToken, region);
+        return new RapidSQSClient(StaticCredentialsProvider.of(accessKey, secretKey, sessionToken), region);
     }
 
-    @Override
-    protected void setBasicHeaders(HttpURLConnection connection, Request request, String awsDate, int contentLength) {
-        connection.setRequestProperty("Content-Type", ServiceName.SQS.getContentType());
-        connection.setRequestProperty("Host", host(ServiceName.SQS.getName()));
-        connection.setRequestProperty("X-Amz-Date", awsDate);
-    }
-
-    @Override
-    protected String canonicalRequest(int contentLength, String awsDate, Request request) throws NoSuchAlgorithmException {
-        SQSRequest sqsRequest = (SQSRequest) request;
-        String hashedPayload = hexBinary(SignatureVersion4.sha256(payload(sqsRequest))).toLowerCase();
-        String canonicalRequest = new StringBuilder()
-                .append(request.getMethod().name())
-                .append(NEW_LINE)
-                .append(resourcePath(sqsRequest.getQueueUrl()))
-                .append(NEW_LINE)
-                .append(NEW_LINE)
-                .append("content-type:")
-                .append(ServiceName.SQS.getContentType())
-                .append(NEW_LINE)
-                .append(canonicalHeaders(awsDate, ServiceName.SQS.getName()))
-                .append(NEW_LINE)
-                .append(NEW_LINE)
-                .append(SIGNED_HEADERS)
-                .append(NEW_LINE)
-                .append(hashedPayload)
-                .toString();
-        if (this.isPrintHeaders()) {
-            this.printHeader("Canonical request", canonicalRequest);
+    public final static RapidSQSClient of(CredentialsProvider credentialsProvider, String region) {
+        if (isNull(credentialsProvider) || isNull(region)) {
+            throw new IllegalArgumentException("Missing mandatory AWS parameters");
         }
-        return canonicalRequest;
+        return new RapidSQSClient(credentialsProvider, region);
     }
 
     @Override
-    protected String canonicalHeaders(String awsDate, String serviceName) {
-        return new StringBuilder()
-                .append("host:")
-                .append(host(serviceName))
-                .append(NEW_LINE)
-                .append("x-amz-date:")
-                .append(awsDate)
-                .toString();
+    protected void setBasicHeaders(HttpRequest httpRequest, Request request, String awsDate, long contentLength) {
+        httpRequest.setHeader("Content-Type", ServiceName.SQS.getContentType());
+        httpRequest.setHeader("Host", host(ServiceName.SQS));
+        httpRequest.setHeader("X-Amz-Date", awsDate);
     }
 
+    /**
+     * Queue URL is used as is unless SQS endpoint is overridden, then only its path is kept, so AWS queue URLs can be
+     * used with a local endpoint
+     */
     @Override
     protected String endpointUrl(Request request) {
-        return ((SQSRequest) request).getQueueUrl();
+        String queueUrl = ((SQSRequest) request).getQueueUrl();
+        if (isEndpointOverridden(ServiceName.SQS)) {
+            return serviceUrl(ServiceName.SQS, true) + Endpoint.pathOf(queueUrl);
+        }
+        return queueUrl;
     }
 
+    /**
+     * Queue URL without a queue path, only the SQS endpoint matters for priming
+     */
     @Override
-    protected String signedHeaders() {
-        return SIGNED_HEADERS;
+    protected Request primingRequest(ServiceName serviceName) {
+        return SQSRequest.of("GetQueueUrl", null, null, serviceUrl(ServiceName.SQS, true) + '/', HttpMethod.POST);
     }
 
-    @Override
-    protected String payload(Request request) {
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder
-                .append("Action=")
-                .append(request.getAction())
-                .append("&Version=2012-11-05")
-                .append("&MessageBody=")
-                .append(request.getPayload().replace(" ", "+"));
-        return stringBuilder.toString();
+    public PrimingReport prime() {
+        return prime(1, ServiceName.SQS);
     }
 
     @Override
-    protected String host(String serviceName) {
-        return new StringBuilder().append(serviceName)
-                .append(DOT)
-                .append(this.getRegion())
-                .append(DOT)
-                .append("amazonaws.com")
-                .toString();
+    protected String signedHeaders() {
+        return SIGNED_HEADERS;
     }
 
-    private String resourcePath(String queueUrl) {
-        String sqsEndpoint = "https://" + host(ServiceName.SQS.getName());
-        return queueUrl.substring(queueUrl.indexOf(sqsEndpoint) + sqsEndpoint.length());
+    /**
+     * Form encoded action, message body (when present) and request params, built once per request
+     */
+    @Override
+    protected RequestBody payload(Request request) {
+        return request.getBody();
     }
 
 }
@@ -0,0 +1,270 @@
+package pl.r6lab.rapidaws.sqs;
+
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClientException;
+import pl.r6lab.rapidaws.Response;
+import pl.r6lab.rapidaws.internal.Utf8;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Buffers messages sent to the same queue and sends them with SendMessageBatch. Batch is sent when it reaches
+ * configured number of messages or size, or when its first message waited for max linger time. Each message gets
+ * its own future completed with the message id. Messages failed on server side are retried, failures caused by the
+ * message itself complete the future exceptionally. Failed calls are retried by the retry policy of the client only.
+ */
+public final class SQSBatchProducer implements AutoCloseable {
+
+    private static final String SEND_MESSAGE_BATCH = "SendMessageBatch";
+    private static final String ENTRY_PREFIX = "SendMessageBatchRequestEntry.";
+
+    private final RapidSQSClient client;
+    private final SQSBatchProducerConfig config;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<String, QueueBuffer> buffers = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    private SQSBatchProducer(RapidSQSClient client, SQSBatchProducerConfig config) {
+        this.client = client;
+        this.config = config;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rapid-aws-sqs-producer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static SQSBatchProducer of(RapidSQSClient client) {
+        return new SQSBatchProducer(client, SQSBatchProducerConfig.defaults());
+    }
+
+    public static SQSBatchProducer of(RapidSQSClient client, SQSBatchProducerConfig config) {
+        return new SQSBatchProducer(client, config);
+    }
+
+    /**
+     * @return future completed with id assigned to the message by SQS
+     */
+    public CompletableFuture<String> send(String queueUrl, String messageBody) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new IllegalStateException("Producer is closed"));
+            return result;
+        }
+        int size = Utf8.length(messageBody);
+        if (size > config.getMaxBatchBytes()) {
+            result.completeExceptionally(new IllegalArgumentException("Message of " + size + " bytes exceeds batch limit of " + config.getMaxBatchBytes() + " bytes"));
+            return result;
+        }
+        QueueBuffer buffer = buffers.computeIfAbsent(queueUrl, QueueBuffer::new);
+        buffer.add(new Entry(messageBody, size, result));
+        return result;
+    }
+
+    /**
+     * Sends all buffered messages without waiting for linger time
+     */
+    public void flush() {
+        for (QueueBuffer buffer : buffers.values()) {
+            buffer.flush();
+        }
+    }
+
+    /**
+     * Flushes buffered messages and stops accepting new ones. Client is not closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flush();
+        scheduler.shutdown();
+    }
+
+    private void dispatch(String queueUrl, List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<String, String> params = new LinkedHashMap<>(batch.size() * 4);
+        for (int i = 0; i < batch.size(); ++i) {
+            String prefix = ENTRY_PREFIX + (i + 1) + '.';
+            params.put(prefix + "Id", Integer.toString(i));
+            params.put(prefix + "MessageBody", batch.get(i).messageBody);
+        }
+        SQSRequest request = SQSRequest.of(SEND_MESSAGE_BATCH, null, params, queueUrl, HttpMethod.POST);
+        client.executeAsync(request).whenComplete((response, error) -> {
+            if (isNull(error)) {
+                handleResponse(queueUrl, batch, response);
+            } else {
+                fail(batch, error);
+            }
+        });
+    }
+
+    private void handleResponse(String queueUrl, List<Entry> batch, Response response) {
+        String payload = response.getPayload();
+        if (!response.isSuccess()) {
+            // the call was already retried by the retry policy of the client
+            fail(batch, new RapidClientException(SEND_MESSAGE_BATCH + " failed with status " + response.getStatusCode() + ": " + payload));
+            return;
+        }
+        boolean[] handled = new boolean[batch.size()];
+        for (String result : SQSXml.elements(payload, "SendMessageBatchResultEntry")) {
+            int index = Integer.parseInt(SQSXml.text(result, "Id"));
+            handled[index] = true;
+            batch.get(index).result.complete(SQSXml.text(result, "MessageId"));
+        }
+        List<Entry> retries = new ArrayList<>();
+        RapidClientException retryError = null;
+        for (String result : SQSXml.elements(payload, "BatchResultErrorEntry")) {
+            int index = Integer.parseInt(SQSXml.text(result, "Id"));
+            handled[index] = true;
+            RapidClientException error = new RapidClientException(SQSXml.text(result, "Code") + ": " + SQSXml.text(result, "Message"));
+            if (Boolean.parseBoolean(SQSXml.text(result, "SenderFault"))) {
+                batch.get(index).result.completeExceptionally(error);
+            } else {
+                retries.add(batch.get(index));
+                retryError = error;
+            }
+        }
+        for (int i = 0; i < handled.length; ++i) {
+            if (!handled[i]) {
+                batch.get(i).result.completeExceptionally(new RapidClientException("Message missing in " + SEND_MESSAGE_BATCH + " response"));
+            }
+        }
+        if (!retries.isEmpty()) {
+            retryOrFail(queueUrl, retries, retryError);
+        }
+    }
+
+    private void retryOrFail(String queueUrl, List<Entry> entries, Throwable error) {
+        List<Entry> retries = new ArrayList<>(entries.size());
+        int attempt = 0;
+        for (Entry entry : entries) {
+            if (entry.attempts < config.getMaxRetries()) {
+                attempt = Math.max(attempt, ++entry.attempts);
+                retries.add(entry);
+            } else {
+                entry.result.completeExceptionally(error);
+            }
+        }
+        if (retries.isEmpty()) {
+            return;
+        }
+        long delay = config.getRetryBackoffMillis() << Math.min(attempt - 1, 16);
+        try {
+            scheduler.schedule(() -> dispatch(queueUrl, retries), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // producer closed, retry without delay
+            dispatch(queueUrl, retries);
+        }
+    }
+
+    private static void fail(List<Entry> entries, Throwable error) {
+        for (Entry entry : entries) {
+            entry.result.completeExceptionally(error);
+        }
+    }
+
+    private static final class Entry {
+        private final String messageBody;
+        private final int size;
+        private final CompletableFuture<String> result;
+        private int attempts;
+
+        private Entry(String messageBody, int size, CompletableFuture<String> result) {
+            this.messageBody = messageBody;
+            this.size = size;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Messages waiting for a batch of one queue. Generation changes with every taken batch, so linger timer of a
+     * batch already sent does not flush the next one too early.
+     */
+    private final class QueueBuffer {
+
+        private final String queueUrl;
+        private List<Entry> pending = new ArrayList<>(SQSBatchProducerConfig.MAX_ENTRIES);
+        private int bytes;
+        private long generation;
+
+        private QueueBuffer(String queueUrl) {
+            this.queueUrl = queueUrl;
+        }
+
+        private void add(Entry entry) {
+            List<Entry> overflow = null;
+            List<Entry> full = null;
+            synchronized (this) {
+                if (!pending.isEmpty() && bytes + entry.size > config.getMaxBatchBytes()) {
+                    overflow = take();
+                }
+                pending.add(entry);
+                bytes += entry.size;
+                if (pending.size() >= config.getMaxBatchSize()) {
+                    full = take();
+                } else if (pending.size() == 1) {
+                    scheduleLinger(generation);
+                }
+            }
+            if (overflow != null) {
+                dispatch(queueUrl, overflow);
+            }
+            if (full != null) {
+                dispatch(queueUrl, full);
+            }
+            if (closed) {
+                // linger timer is no longer available, don't leave the message behind
+                flush();
+            }
+        }
+
+        private void flush() {
+            List<Entry> batch;
+            synchronized (this) {
+                batch = take();
+            }
+            dispatch(queueUrl, batch);
+        }
+
+        private void flush(long expectedGeneration) {
+            List<Entry> batch;
+            synchronized (this) {
+                if (generation != expectedGeneration) {
+                    return;
+                }
+                batch = take();
+            }
+            dispatch(queueUrl, batch);
+        }
+
+        private void scheduleLinger(long batchGeneration) {
+            try {
+                scheduler.schedule(() -> flush(batchGeneration), config.getMaxLingerMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // producer closed while message was added, it is flushed by the caller
+            }
+        }
+
+        private List<Entry> take() {
+            List<Entry> batch = pending;
+            pending = new ArrayList<>(SQSBatchProducerConfig.MAX_ENTRIES);
+            bytes = 0;
+            ++generation;
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package pl.r6lab.rapidaws.sqs;
+
+/**
+ * Immutable batching producer settings. Start from {@link #defaults()} and adjust with the with* methods.
+ */
+public final class SQSBatchProducerConfig {
+
+    static final int MAX_ENTRIES = 10;
+    static final int MAX_BATCH_BYTES = 256 * 1024;
+
+    private static final long DEFAULT_MAX_LINGER_MILLIS = 10;
+    private static final int DEFAULT_MAX_RETRIES = 3;
+    private static final long DEFAULT_RETRY_BACKOFF_MILLIS = 50;
+
+    private final int maxBatchSize;
+    private final int maxBatchBytes;
+    private final long maxLingerMillis;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+
+    private SQSBatchProducerConfig(int maxBatchSize, int maxBatchBytes, long maxLingerMillis, int maxRetries, long retryBackoffMillis) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxLingerMillis = maxLingerMillis;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public static SQSBatchProducerConfig defaults() {
+        return new SQSBatchProducerConfig(MAX_ENTRIES, MAX_BATCH_BYTES, DEFAULT_MAX_LINGER_MILLIS, DEFAULT_MAX_RETRIES, DEFAULT_RETRY_BACKOFF_MILLIS);
+    }
+
+    /**
+     * @param maxBatchSize number of messages sent in one SendMessageBatch call, from 1 to 10
+     */
+    public SQSBatchProducerConfig withMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1 || maxBatchSize > MAX_ENTRIES) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + MAX_ENTRIES);
+        }
+        return new SQSBatchProducerConfig(maxBatchSize, maxBatchBytes, maxLingerMillis, maxRetries, retryBackoffMillis);
+    }
+
+    /**
+     * @param maxBatchBytes total size of message bodies in one call, up to 256 KB
+     */
+    public SQSBatchProducerConfig withMaxBatchBytes(int maxBatchBytes) {
+        if (maxBatchBytes < 1 || maxBatchBytes > MAX_BATCH_BYTES) {
+            throw new IllegalArgumentException("Batch bytes must be between 1 and " + MAX_BATCH_BYTES);
+        }
+        return new SQSBatchProducerConfig(maxBatchSize, maxBatchBytes, maxLingerMillis, maxRetries, retryBackoffMillis);
+    }
+
+    /**
+     * @param maxLingerMillis maximum time the first message of incomplete batch waits for other messages
+     */
+    public SQSBatchProducerConfig withMaxLingerMillis(long maxLingerMillis) {
+        return new SQSBatchProducerConfig(maxBatchSize, maxBatchBytes, maxLingerMillis, maxRetries, retryBackoffMillis);
+    }
+
+    /**
+     * @param maxRetries how many times a message failed on server side is sent again; failed calls are retried by the
+     *                   retry policy of the client
+     */
+    public SQSBatchProducerConfig withMaxRetries(int maxRetries) {
+        return new SQSBatchProducerConfig(maxBatchSize, maxBatchBytes, maxLingerMillis, maxRetries, retryBackoffMillis);
+    }
+
+    /**
+     * @param retryBackoffMillis delay before first retry, doubled with every next one
+     */
+    public SQSBatchProducerConfig withRetryBackoffMillis(long retryBackoffMillis) {
+        return new SQSBatchProducerConfig(maxBatchSize, maxBatchBytes, maxLingerMillis, maxRetries, retryBackoffMillis);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    public long getMaxLingerMillis() {
+        return maxLingerMillis;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getRetryBackoffMillis() {
+        return retryBackoffMillis;
+    }
+}
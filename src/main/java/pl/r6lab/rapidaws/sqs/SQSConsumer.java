@@ -0,0 +1,218 @@
+package pl.r6lab.rapidaws.sqs;
+
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClientException;
+import pl.r6lab.rapidaws.Response;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Consumes messages of a queue with concurrent ReceiveMessage long polls. Received messages are buffered and handed
+ * to a pool of workers; receivers pause while the buffer has no room for another receive. Message is deleted after
+ * the handler returns normally, deletes are coalesced into DeleteMessageBatch calls. Message whose handler threw an
+ * exception is not deleted and is redelivered after visibility timeout.
+ */
+public final class SQSConsumer implements AutoCloseable {
+
+    private static final String RECEIVE_MESSAGE = "ReceiveMessage";
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long ACK_FLUSH_TIMEOUT_MILLIS = 10_000;
+
+    private final RapidSQSClient client;
+    private final String queueUrl;
+    private final Consumer<SQSMessage> handler;
+    private final SQSConsumerConfig config;
+    private final Map<String, String> receiveParams;
+    private final BlockingQueue<SQSMessage> buffer;
+    private final Semaphore bufferPermits;
+    private final DeleteMessageBatcher deletes;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<>();
+    private final List<Thread> receivers = new ArrayList<>();
+    private CountDownLatch receiversDone;
+    private ScheduledExecutorService ackScheduler;
+    private volatile Consumer<Throwable> errorListener = error -> {
+    };
+    private volatile boolean running;
+
+    private SQSConsumer(RapidSQSClient client, String queueUrl, Consumer<SQSMessage> handler, SQSConsumerConfig config) {
+        this.client = client;
+        this.queueUrl = queueUrl;
+        this.handler = handler;
+        this.config = config;
+        this.receiveParams = receiveParams(config);
+        this.buffer = new ArrayBlockingQueue<>(config.getBufferCapacity());
+        this.bufferPermits = new Semaphore(config.getBufferCapacity());
+        this.deletes = new DeleteMessageBatcher(client, queueUrl, error -> this.errorListener.accept(error));
+    }
+
+    public static SQSConsumer of(RapidSQSClient client, String queueUrl, Consumer<SQSMessage> handler) {
+        return new SQSConsumer(client, queueUrl, handler, SQSConsumerConfig.defaults());
+    }
+
+    public static SQSConsumer of(RapidSQSClient client, String queueUrl, Consumer<SQSMessage> handler, SQSConsumerConfig config) {
+        return new SQSConsumer(client, queueUrl, handler, config);
+    }
+
+    /**
+     * @param errorListener notified about failed receives, handler exceptions and failed deletes
+     */
+    public void setErrorListener(Consumer<Throwable> errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    public synchronized void start() {
+        if (running || !receivers.isEmpty()) {
+            throw new IllegalStateException("Consumer can be started only once");
+        }
+        running = true;
+        receiversDone = new CountDownLatch(config.getReceivers());
+        ackScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> thread(runnable, "rapid-aws-sqs-ack"));
+        ackScheduler.scheduleWithFixedDelay(deletes::flush, config.getAckLingerMillis(), config.getAckLingerMillis(), TimeUnit.MILLISECONDS);
+        for (int i = 0; i < config.getReceivers(); ++i) {
+            receivers.add(thread(this::receive, "rapid-aws-sqs-receiver-" + i));
+        }
+        for (int i = 0; i < config.getWorkers(); ++i) {
+            workers.add(thread(this::work, "rapid-aws-sqs-worker-" + i));
+        }
+        receivers.forEach(Thread::start);
+        workers.forEach(Thread::start);
+    }
+
+    /**
+     * Stops receiving, waits for receives in progress (up to long poll duration) and processing of buffered messages,
+     * then deletes processed messages. When interrupted, sends deletes of messages processed so far without waiting
+     * and returns with the interrupt flag set.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ackScheduler.shutdown();
+            deletes.flush();
+            return;
+        }
+        ackScheduler.shutdown();
+        deletes.flushAndWait(ACK_FLUSH_TIMEOUT_MILLIS);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return number of messages received and waiting for a worker
+     */
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    private void receive() {
+        int maxMessages = config.getMaxMessagesPerReceive();
+        try {
+            while (running) {
+                if (!bufferPermits.tryAcquire(maxMessages, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+                int received = 0;
+                try {
+                    for (SQSMessage message : receiveMessages()) {
+                        buffer.add(message);
+                        ++received;
+                    }
+                } catch (RapidClientException e) {
+                    errorListener.accept(e);
+                    Thread.sleep(config.getReceiveErrorBackoffMillis());
+                } finally {
+                    bufferPermits.release(maxMessages - received);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            receiversDone.countDown();
+        }
+    }
+
+    private List<SQSMessage> receiveMessages() {
+        Response response = client.execute(SQSRequest.of(RECEIVE_MESSAGE, null, receiveParams, queueUrl, HttpMethod.POST));
+        if (!response.isSuccess()) {
+            throw new RapidClientException(RECEIVE_MESSAGE + " failed with status " + response.getStatusCode() + ": " + response.getPayload());
+        }
+        List<String> elements = SQSXml.elements(response.getPayload(), "Message");
+        List<SQSMessage> messages = new ArrayList<>(elements.size());
+        for (String element : elements) {
+            messages.add(SQSMessage.of(queueUrl, SQSXml.text(element, "MessageId"), SQSXml.text(element, "ReceiptHandle"), SQSXml.text(element, "Body")));
+        }
+        return messages;
+    }
+
+    private void work() {
+        try {
+            while (running || receiversDone.getCount() > 0 || !buffer.isEmpty()) {
+                SQSMessage message = buffer.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (message == null) {
+                    continue;
+                }
+                bufferPermits.release();
+                try {
+                    handler.accept(message);
+                    processed.incrementAndGet();
+                    deletes.ack(message.getReceiptHandle());
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    errorListener.accept(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> receiveParams(SQSConsumerConfig config) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("MaxNumberOfMessages", Integer.toString(config.getMaxMessagesPerReceive()));
+        params.put("WaitTimeSeconds", Integer.toString(config.getWaitTimeSeconds()));
+        if (config.getVisibilityTimeoutSeconds() > 0) {
+            params.put("VisibilityTimeout", Integer.toString(config.getVisibilityTimeoutSeconds()));
+        }
+        return params;
+    }
+
+    private static Thread thread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,131 @@
+package pl.r6lab.rapidaws.sqs;
+
+/**
+ * Immutable consumer settings. Start from {@link #defaults()} and adjust with the with* methods.
+ */
+public final class SQSConsumerConfig {
+
+    private static final int MAX_MESSAGES_PER_RECEIVE = 10;
+    private static final int MAX_WAIT_TIME_SECONDS = 20;
+
+    private static final int DEFAULT_RECEIVERS = 2;
+    private static final int DEFAULT_WORKERS = 10;
+    private static final int DEFAULT_BUFFER_CAPACITY = 50;
+    private static final long DEFAULT_ACK_LINGER_MILLIS = 100;
+    private static final long DEFAULT_RECEIVE_ERROR_BACKOFF_MILLIS = 1_000;
+
+    private final int receivers;
+    private final int workers;
+    private final int bufferCapacity;
+    private final int waitTimeSeconds;
+    private final int visibilityTimeoutSeconds;
+    private final long ackLingerMillis;
+    private final long receiveErrorBackoffMillis;
+
+    private SQSConsumerConfig(int receivers, int workers, int bufferCapacity, int waitTimeSeconds, int visibilityTimeoutSeconds,
+                              long ackLingerMillis, long receiveErrorBackoffMillis) {
+        this.receivers = receivers;
+        this.workers = workers;
+        this.bufferCapacity = bufferCapacity;
+        this.waitTimeSeconds = waitTimeSeconds;
+        this.visibilityTimeoutSeconds = visibilityTimeoutSeconds;
+        this.ackLingerMillis = ackLingerMillis;
+        this.receiveErrorBackoffMillis = receiveErrorBackoffMillis;
+    }
+
+    public static SQSConsumerConfig defaults() {
+        return new SQSConsumerConfig(DEFAULT_RECEIVERS, DEFAULT_WORKERS, DEFAULT_BUFFER_CAPACITY, MAX_WAIT_TIME_SECONDS, 0,
+                DEFAULT_ACK_LINGER_MILLIS, DEFAULT_RECEIVE_ERROR_BACKOFF_MILLIS);
+    }
+
+    /**
+     * @param receivers number of concurrent ReceiveMessage long polls
+     */
+    public SQSConsumerConfig withReceivers(int receivers) {
+        if (receivers < 1) {
+            throw new IllegalArgumentException("At least one receiver is required");
+        }
+        return new SQSConsumerConfig(receivers, workers, bufferCapacity, waitTimeSeconds, visibilityTimeoutSeconds, ackLingerMillis, receiveErrorBackoffMillis);
+    }
+
+    /**
+     * @param workers number of threads running the message handler
+     */
+    public SQSConsumerConfig withWorkers(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is required");
+        }
+        return new SQSConsumerConfig(receivers, workers, bufferCapacity, waitTimeSeconds, visibilityTimeoutSeconds, ackLingerMillis, receiveErrorBackoffMillis);
+    }
+
+    /**
+     * @param bufferCapacity maximum number of received messages waiting for a worker, receivers pause when buffer has
+     *                       no room for a full receive
+     */
+    public SQSConsumerConfig withBufferCapacity(int bufferCapacity) {
+        if (bufferCapacity < MAX_MESSAGES_PER_RECEIVE) {
+            throw new IllegalArgumentException("Buffer must fit at least " + MAX_MESSAGES_PER_RECEIVE + " messages");
+        }
+        return new SQSConsumerConfig(receivers, workers, bufferCapacity, waitTimeSeconds, visibilityTimeoutSeconds, ackLingerMillis, receiveErrorBackoffMillis);
+    }
+
+    /**
+     * @param waitTimeSeconds long poll duration, from 0 to 20 seconds
+     */
+    public SQSConsumerConfig withWaitTimeSeconds(int waitTimeSeconds) {
+        if (waitTimeSeconds < 0 || waitTimeSeconds > MAX_WAIT_TIME_SECONDS) {
+            throw new IllegalArgumentException("Wait time must be between 0 and " + MAX_WAIT_TIME_SECONDS + " seconds");
+        }
+        return new SQSConsumerConfig(receivers, workers, bufferCapacity, waitTimeSeconds, visibilityTimeoutSeconds, ackLingerMillis, receiveErrorBackoffMillis);
+    }
+
+    /**
+     * @param visibilityTimeoutSeconds visibility timeout of received messages, 0 uses the queue default
+     */
+    public SQSConsumerConfig withVisibilityTimeoutSeconds(int visibilityTimeoutSeconds) {
+        return new SQSConsumerConfig(receivers, workers, bufferCapacity, waitTimeSeconds, visibilityTimeoutSeconds, ackLingerMillis, receiveErrorBackoffMillis);
+    }
+
+    /**
+     * @param ackLingerMillis maximum time processed message waits to be deleted together with others
+     */
+    public SQSConsumerConfig withAckLingerMillis(long ackLingerMillis) {
+        return new SQSConsumerConfig(receivers, workers, bufferCapacity, waitTimeSeconds, visibilityTimeoutSeconds, ackLingerMillis, receiveErrorBackoffMillis);
+    }
+
+    public SQSConsumerConfig withReceiveErrorBackoffMillis(long receiveErrorBackoffMillis) {
+        return new SQSConsumerConfig(receivers, workers, bufferCapacity, waitTimeSeconds, visibilityTimeoutSeconds, ackLingerMillis, receiveErrorBackoffMillis);
+    }
+
+    public int getReceivers() {
+        return receivers;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    public int getMaxMessagesPerReceive() {
+        return MAX_MESSAGES_PER_RECEIVE;
+    }
+
+    public int getWaitTimeSeconds() {
+        return waitTimeSeconds;
+    }
+
+    public int getVisibilityTimeoutSeconds() {
+        return visibilityTimeoutSeconds;
+    }
+
+    public long getAckLingerMillis() {
+        return ackLingerMillis;
+    }
+
+    public long getReceiveErrorBackoffMillis() {
+        return receiveErrorBackoffMillis;
+    }
+}
@@ -0,0 +1,44 @@
+package pl.r6lab.rapidaws.sqs;
+
+/**
+ * Message received from a queue. Receipt handle is used to delete the message once it is processed.
+ */
+public final class SQSMessage {
+
+    private final String queueUrl;
+    private final String messageId;
+    private final String receiptHandle;
+    private final String body;
+
+    private SQSMessage(String queueUrl, String messageId, String receiptHandle, String body) {
+        this.queueUrl = queueUrl;
+        this.messageId = messageId;
+        this.receiptHandle = receiptHandle;
+        this.body = body;
+    }
+
+    public static SQSMessage of(String queueUrl, String messageId, String receiptHandle, String body) {
+        return new SQSMessage(queueUrl, messageId, receiptHandle, body);
+    }
+
+    public String getQueueUrl() {
+        return queueUrl;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public String getReceiptHandle() {
+        return receiptHandle;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return "SQSMessage{messageId='" + messageId + "', body='" + body + "'}";
+    }
+}
@@ -2,18 +2,26 @@ package pl.r6lab.rapidaws.sqs;
 
 import pl.r6lab.rapidaws.HttpMethod;
 import pl.r6lab.rapidaws.Request;
+import pl.r6lab.rapidaws.RequestBody;
 import pl.r6lab.rapidaws.ServiceName;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.util.Map;
 
+import static java.util.Objects.nonNull;
+
 public final class SQSRequest implements Request {
 
+    private static final String VERSION = "2012-11-05";
+
     private final ServiceName serviceName = ServiceName.SQS;
     private final String action;
     private final String payload;
     private final Map<String, String> params;
     private final String queueUrl;
     private final HttpMethod method;
+    private volatile RequestBody body;
 
     private SQSRequest(String action, String payload, Map<String, String> params, String queueUrl, HttpMethod method) {
         this.action = action;
@@ -35,6 +43,47 @@ public final class SQSRequest implements Request {
         return payload;
     }
 
+    /**
+     * @return form encoded action, message body (when present) and params, encoded once and reused by retries
+     */
+    @Override
+    public RequestBody getBody() {
+        RequestBody encoded = body;
+        if (encoded == null) {
+            encoded = RequestBody.of(form());
+            body = encoded;
+        }
+        return encoded;
+    }
+
+    private String form() {
+        StringBuilder form = new StringBuilder(256)
+                .append("Action=")
+                .append(action)
+                .append("&Version=")
+                .append(VERSION);
+        if (nonNull(payload)) {
+            form.append("&MessageBody=").append(encode(payload));
+        }
+        if (nonNull(params)) {
+            for (Map.Entry<String, String> param : params.entrySet()) {
+                form.append('&')
+                        .append(encode(param.getKey()))
+                        .append('=')
+                        .append(encode(param.getValue()));
+            }
+        }
+        return form.toString();
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public HttpMethod getMethod() {
         return method;
     }
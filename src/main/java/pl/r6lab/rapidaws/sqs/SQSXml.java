@@ -0,0 +1,85 @@
+package pl.r6lab.rapidaws.sqs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal extraction of elements from SQS query API responses, which are flat and never use attributes on the
+ * elements read here
+ */
+final class SQSXml {
+
+    private SQSXml() {
+    }
+
+    /**
+     * @return raw content of every element with given name, in document order
+     */
+    static List<String> elements(String xml, String name) {
+        List<String> elements = new ArrayList<>();
+        String open = '<' + name + '>';
+        String close = "</" + name + '>';
+        int from = 0;
+        int start;
+        while ((start = xml.indexOf(open, from)) >= 0) {
+            int end = xml.indexOf(close, start + open.length());
+            if (end < 0) {
+                break;
+            }
+            elements.add(xml.substring(start + open.length(), end));
+            from = end + close.length();
+        }
+        return elements;
+    }
+
+    /**
+     * @return unescaped text of the first element with given name or null when there is none
+     */
+    static String text(String xml, String name) {
+        String open = '<' + name + '>';
+        int start = xml.indexOf(open);
+        if (start < 0) {
+            return null;
+        }
+        int end = xml.indexOf("</" + name + '>', start + open.length());
+        return end < 0 ? null : unescape(xml.substring(start + open.length(), end));
+    }
+
+    static String unescape(String text) {
+        int ampersand = text.indexOf('&');
+        if (ampersand < 0) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length()).append(text, 0, ampersand);
+        int i = ampersand;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int end = c == '&' ? text.indexOf(';', i) : -1;
+            if (end < 0) {
+                result.append(c);
+                ++i;
+                continue;
+            }
+            String entity = text.substring(i + 1, end);
+            if (entity.equals("lt")) {
+                result.append('<');
+            } else if (entity.equals("gt")) {
+                result.append('>');
+            } else if (entity.equals("amp")) {
+                result.append('&');
+            } else if (entity.equals("quot")) {
+                result.append('"');
+            } else if (entity.equals("apos")) {
+                result.append('\'');
+            } else if (entity.startsWith("#x")) {
+                result.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+            } else if (entity.startsWith("#")) {
+                result.appendCodePoint(Integer.parseInt(entity.substring(1)));
+            } else {
+                result.append(text, i, end + 1);
+            }
+            i = end + 1;
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,32 @@
+package pl.r6lab.rapidaws;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Java 21+ version of the default executor. Every request runs on its own virtual thread, so blocking I/O does not
+ * hold a platform thread.
+ */
+public final class AsyncExecutors {
+
+    private static final String THREAD_NAME_PREFIX = "rapid-aws-async-";
+
+    private AsyncExecutors() {
+    }
+
+    public static ExecutorService defaultExecutor() {
+        return Holder.DEFAULT_EXECUTOR;
+    }
+
+    public static ExecutorService newExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(THREAD_NAME_PREFIX, 1).factory());
+    }
+
+    public static boolean isVirtualThreadsSupported() {
+        return true;
+    }
+
+    private static final class Holder {
+        private static final ExecutorService DEFAULT_EXECUTOR = newExecutor();
+    }
+}
@@ -0,0 +1,22 @@
+package pl.r6lab.rapidaws.standin;
+
+/**
+ * Reason of rejecting request signature, each service reports it with its own error code
+ */
+final class AuthFailure extends Exception {
+
+    enum Kind {
+        MISSING, UNKNOWN_ACCESS_KEY, SIGNATURE_MISMATCH
+    }
+
+    private final Kind kind;
+
+    AuthFailure(Kind kind, String message) {
+        super(message, null, false, false);
+        this.kind = kind;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+}
@@ -0,0 +1,260 @@
+package pl.r6lab.rapidaws.standin;
+
+import pl.r6lab.rapidaws.standin.DynamoDBTable.Scalar;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Subset of DynamoDB expressions understood by the stand-in: top level projections, SET and REMOVE updates with
+ * if_not_exists and numeric + and -, key conditions with partition key equality and an optional sort key condition.
+ * Anything else is rejected with ValidationException rather than silently ignored.
+ */
+final class DynamoDBExpressions {
+
+    private static final String PATH = "([#A-Za-z_][\\w.#-]*)";
+    private static final String VALUE = "(:[\\w-]+)";
+    private static final Pattern CLAUSE = Pattern.compile("(?i)\\b(SET|REMOVE)\\b");
+    private static final Pattern HASH_CONDITION = Pattern.compile("(?is)\\s*" + PATH + "\\s*=\\s*" + VALUE + "\\s*(?:AND\\s+(.+))?");
+    private static final Pattern COMPARISON = Pattern.compile("(?is)\\s*" + PATH + "\\s*(=|<=|<|>=|>)\\s*" + VALUE + "\\s*");
+    private static final Pattern BETWEEN = Pattern.compile("(?is)\\s*" + PATH + "\\s+BETWEEN\\s+" + VALUE + "\\s+AND\\s+" + VALUE + "\\s*");
+    private static final Pattern BEGINS_WITH = Pattern.compile("(?is)\\s*begins_with\\s*\\(\\s*" + PATH + "\\s*,\\s*" + VALUE + "\\s*\\)\\s*");
+    private static final Pattern IF_NOT_EXISTS = Pattern.compile("(?is)if_not_exists\\s*\\(\\s*" + PATH + "\\s*,\\s*(.+)\\)");
+
+    private final Map<String, String> names;
+    private final Map<String, String> values;
+
+    private DynamoDBExpressions(Map<String, String> names, Map<String, String> values) {
+        this.names = names;
+        this.values = values;
+    }
+
+    /**
+     * @param request members of the request with ExpressionAttributeNames and ExpressionAttributeValues
+     */
+    static DynamoDBExpressions of(Map<String, String> request) {
+        Map<String, String> names = new LinkedHashMap<>();
+        Json.object(request.get("ExpressionAttributeNames")).forEach((name, value) -> names.put(name, Json.string(value)));
+        return new DynamoDBExpressions(names, Json.object(request.get("ExpressionAttributeValues")));
+    }
+
+    /**
+     * @return copy of the item with projected top level attributes only, the item itself for null projection
+     */
+    Map<String, String> project(Map<String, String> item, String projection) {
+        if (isNull(projection)) {
+            return item;
+        }
+        Map<String, String> projected = new LinkedHashMap<>();
+        for (String path : projection.split(",")) {
+            String name = name(path.trim());
+            String value = item.get(name);
+            if (!isNull(value)) {
+                projected.put(name, value);
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * @param item current attributes, null when item does not exist
+     * @param key key attributes used when the item is created
+     */
+    Map<String, String> update(Map<String, String> item, Map<String, String> key, String expression) {
+        Map<String, String> updated = new LinkedHashMap<>(isNull(item) ? key : item);
+        Matcher clause = CLAUSE.matcher(expression);
+        List<int[]> bounds = new ArrayList<>();
+        while (clause.find()) {
+            bounds.add(new int[]{clause.start(), clause.end()});
+        }
+        if (bounds.isEmpty() || !expression.substring(0, bounds.get(0)[0]).trim().isEmpty()) {
+            throw StandInException.validation("Only SET and REMOVE update expressions are supported: " + expression);
+        }
+        for (int i = 0; i < bounds.size(); ++i) {
+            String keyword = expression.substring(bounds.get(i)[0], bounds.get(i)[1]).toUpperCase();
+            String actions = expression.substring(bounds.get(i)[1], i + 1 < bounds.size() ? bounds.get(i + 1)[0] : expression.length());
+            for (String action : splitTopLevel(actions)) {
+                if (keyword.equals("REMOVE")) {
+                    updated.remove(name(action.trim()));
+                    continue;
+                }
+                int equals = action.indexOf('=');
+                if (equals < 0) {
+                    throw StandInException.validation("Invalid SET action: " + action);
+                }
+                updated.put(name(action.substring(0, equals).trim()), evaluate(action.substring(equals + 1).trim(), item));
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * @return matcher of items of the partition given by partition key equality
+     */
+    KeyCondition keyCondition(String expression, TableSchema schema) {
+        Matcher hash = HASH_CONDITION.matcher(expression);
+        if (!hash.matches() || !name(hash.group(1)).equals(schema.getHashKey())) {
+            throw StandInException.validation("Query condition missed key schema element: " + schema.getHashKey());
+        }
+        Scalar hashValue = Scalar.parse(value(hash.group(2)));
+        String rangeCondition = hash.group(3);
+        if (isNull(rangeCondition)) {
+            return new KeyCondition(hashValue, range -> true);
+        }
+        Matcher matcher;
+        if ((matcher = BETWEEN.matcher(rangeCondition)).matches()) {
+            checkRangeKey(matcher.group(1), schema);
+            Scalar low = Scalar.parse(value(matcher.group(2)));
+            Scalar high = Scalar.parse(value(matcher.group(3)));
+            return new KeyCondition(hashValue, range -> range.compareTo(low) >= 0 && range.compareTo(high) <= 0);
+        }
+        if ((matcher = BEGINS_WITH.matcher(rangeCondition)).matches()) {
+            checkRangeKey(matcher.group(1), schema);
+            Scalar prefix = Scalar.parse(value(matcher.group(2)));
+            if (!prefix.isString()) {
+                throw StandInException.validation("begins_with supports only string and binary values");
+            }
+            return new KeyCondition(hashValue, range -> range.isString() && range.getValue().startsWith(prefix.getValue()));
+        }
+        if ((matcher = COMPARISON.matcher(rangeCondition)).matches()) {
+            checkRangeKey(matcher.group(1), schema);
+            Scalar operand = Scalar.parse(value(matcher.group(3)));
+            switch (matcher.group(2)) {
+                case "=":
+                    return new KeyCondition(hashValue, range -> range.compareTo(operand) == 0);
+                case "<":
+                    return new KeyCondition(hashValue, range -> range.compareTo(operand) < 0);
+                case "<=":
+                    return new KeyCondition(hashValue, range -> range.compareTo(operand) <= 0);
+                case ">":
+                    return new KeyCondition(hashValue, range -> range.compareTo(operand) > 0);
+                default:
+                    return new KeyCondition(hashValue, range -> range.compareTo(operand) >= 0);
+            }
+        }
+        throw StandInException.validation("Unsupported sort key condition: " + rangeCondition);
+    }
+
+    private void checkRangeKey(String path, TableSchema schema) {
+        if (!name(path).equals(schema.getRangeKey())) {
+            throw StandInException.validation("Query key condition not supported for attribute " + name(path));
+        }
+    }
+
+    private String evaluate(String operand, Map<String, String> item) {
+        Matcher ifNotExists = IF_NOT_EXISTS.matcher(operand);
+        if (ifNotExists.matches()) {
+            String current = isNull(item) ? null : item.get(name(ifNotExists.group(1)));
+            return isNull(current) ? evaluate(ifNotExists.group(2).trim(), item) : current;
+        }
+        int operator = arithmeticOperator(operand);
+        if (operator > 0) {
+            BigDecimal left = number(evaluate(operand.substring(0, operator).trim(), item));
+            BigDecimal right = number(evaluate(operand.substring(operator + 1).trim(), item));
+            BigDecimal result = operand.charAt(operator) == '+' ? left.add(right) : left.subtract(right);
+            return "{\"N\":\"" + result.toPlainString() + "\"}";
+        }
+        if (operand.startsWith(":")) {
+            return value(operand);
+        }
+        String current = isNull(item) ? null : item.get(name(operand));
+        if (isNull(current)) {
+            throw StandInException.validation("The provided expression refers to an attribute that does not exist in the item: " + operand);
+        }
+        return current;
+    }
+
+    /**
+     * @return position of + or - outside of parentheses, -1 when there is none
+     */
+    private static int arithmeticOperator(String operand) {
+        int depth = 0;
+        for (int i = 0; i < operand.length(); ++i) {
+            char c = operand.charAt(i);
+            if (c == '(') {
+                ++depth;
+            } else if (c == ')') {
+                --depth;
+            } else if (depth == 0 && (c == '+' || (c == '-' && i > 0 && operand.charAt(i - 1) == ' '))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static BigDecimal number(String attributeValue) {
+        String number = Json.string(Json.object(attributeValue).get("N"));
+        if (isNull(number)) {
+            throw StandInException.validation("An operand in the update expression has an incorrect data type");
+        }
+        return new BigDecimal(number);
+    }
+
+    private static List<String> splitTopLevel(String actions) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < actions.length(); ++i) {
+            char c = actions.charAt(i);
+            if (c == '(') {
+                ++depth;
+            } else if (c == ')') {
+                --depth;
+            } else if (c == ',' && depth == 0) {
+                parts.add(actions.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(actions.substring(start));
+        return parts;
+    }
+
+    private String name(String path) {
+        if (path.indexOf('.') >= 0 || path.indexOf('[') >= 0) {
+            throw StandInException.validation("Only top level attributes are supported: " + path);
+        }
+        if (path.startsWith("#")) {
+            String name = names.get(path);
+            if (isNull(name)) {
+                throw StandInException.validation("An expression attribute name used in the document path is not defined: " + path);
+            }
+            return name;
+        }
+        return path;
+    }
+
+    private String value(String placeholder) {
+        String value = values.get(placeholder);
+        if (isNull(value)) {
+            throw StandInException.validation("An expression attribute value used in expression is not defined: " + placeholder);
+        }
+        return value;
+    }
+
+    static final class KeyCondition {
+
+        private final Scalar hash;
+        private final Predicate<Scalar> range;
+
+        private KeyCondition(Scalar hash, Predicate<Scalar> range) {
+            this.hash = hash;
+            this.range = range;
+        }
+
+        Scalar getHash() {
+            return hash;
+        }
+
+        boolean matchesRange(Scalar value) {
+            return isNull(value) || range.test(value);
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package pl.r6lab.rapidaws.standin;
+
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.json.JsonWriter;
+import pl.r6lab.rapidaws.standin.DynamoDBExpressions.KeyCondition;
+import pl.r6lab.rapidaws.standin.DynamoDBTable.ItemKey;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * DynamoDB JSON protocol: table management, item CRUD, Query, Scan and batches. Responses carry x-amz-crc32 like
+ * the real service and are gzip compressed when the request accepts it, checksum then covers the compressed bytes. Batch items are returned as unprocessed according to {@link Faults#getUnprocessedProbability()}.
+ */
+final class DynamoDBStandIn implements ServiceStandIn {
+
+    private static final String TARGET_PREFIX = ServiceName.DYNAMODB.getVersion() + '.';
+    private static final String CONTENT_TYPE = ServiceName.DYNAMODB.getContentType();
+    private static final String ERROR_PREFIX = "com.amazonaws.dynamodb.v20120810#";
+    private static final int MAX_PAGE_BYTES = 1024 * 1024;
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_BATCH_GET_KEYS = 100;
+    private static final String CRC32_HEADER = "x-amz-crc32";
+    private static final String GZIP = "gzip";
+
+    private final ConcurrentMap<String, DynamoDBTable> tables = new ConcurrentHashMap<>();
+    private final FaultInjector faults;
+
+    private DynamoDBStandIn(FaultInjector faults) {
+        this.faults = faults;
+    }
+
+    static DynamoDBStandIn of(FaultInjector faults) {
+        return new DynamoDBStandIn(faults);
+    }
+
+    void createTable(String tableName, TableSchema schema) {
+        if (nonNull(tables.putIfAbsent(tableName, DynamoDBTable.of(tableName, schema)))) {
+            throw new StandInException(400, "ResourceInUseException", "Table already exists: " + tableName);
+        }
+    }
+
+    @Override
+    public ServiceName getServiceName() {
+        return ServiceName.DYNAMODB;
+    }
+
+    @Override
+    public boolean accepts(StandInRequest request) {
+        String target = request.getHeader("X-Amz-Target");
+        return nonNull(target) && target.startsWith(TARGET_PREFIX);
+    }
+
+    @Override
+    public StandInResponse handle(StandInRequest request) {
+        String action = request.getHeader("X-Amz-Target").substring(TARGET_PREFIX.length());
+        Map<String, String> body = Json.object(request.getBody());
+        String response;
+        switch (action) {
+            case "CreateTable":
+                response = createTable(body);
+                break;
+            case "DescribeTable":
+                response = describeTable(body);
+                break;
+            case "DeleteTable":
+                response = deleteTable(body);
+                break;
+            case "PutItem":
+                response = putItem(body);
+                break;
+            case "GetItem":
+                response = getItem(body);
+                break;
+            case "DeleteItem":
+                response = deleteItem(body);
+                break;
+            case "UpdateItem":
+                response = updateItem(body);
+                break;
+            case "Query":
+                response = query(body);
+                break;
+            case "Scan":
+                response = scan(body);
+                break;
+            case "BatchWriteItem":
+                response = batchWriteItem(body);
+                break;
+            case "BatchGetItem":
+                response = batchGetItem(body);
+                break;
+            default:
+                throw new StandInException(400, "UnknownOperationException", "Operation " + action + " is not supported by the stand-in");
+        }
+        return response(200, response);
+    }
+
+    @Override
+    public StandInResponse error(int statusCode, String code, String message) {
+        return response(statusCode, JsonWriter.create().beginObject()
+                .name("__type").value(ERROR_PREFIX + code)
+                .name("message").value(message)
+                .endObject()
+                .toString());
+    }
+
+    @Override
+    public StandInResponse throttled() {
+        return error(400, "ProvisionedThroughputExceededException", "The level of configured provisioned throughput for the table was exceeded. "
+                + "Consider increasing your provisioning level with the UpdateTable API.");
+    }
+
+    @Override
+    public StandInResponse internalError() {
+        return error(500, "InternalServerError", "Internal server error");
+    }
+
+    @Override
+    public StandInResponse authFailure(AuthFailure failure) {
+        switch (failure.getKind()) {
+            case MISSING:
+                return error(400, "MissingAuthenticationTokenException", failure.getMessage());
+            case UNKNOWN_ACCESS_KEY:
+                return error(400, "UnrecognizedClientException", failure.getMessage());
+            default:
+                return error(400, "InvalidSignatureException", failure.getMessage());
+        }
+    }
+
+    @Override
+    public StandInResponse encode(StandInRequest request, StandInResponse response) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (isNull(acceptEncoding) || !acceptEncoding.contains(GZIP) || response.getBody().length == 0) {
+            return response;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(response.getBody().length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(response.getBody());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] body = compressed.toByteArray();
+        return response.withBody(body)
+                .withHeader("Content-Encoding", GZIP)
+                .withHeader(CRC32_HEADER, crc32(body));
+    }
+
+    private static StandInResponse response(int statusCode, String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        return StandInResponse.of(statusCode, CONTENT_TYPE, body)
+                .withHeader(CRC32_HEADER, crc32(body));
+    }
+
+    private static String crc32(byte[] body) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(body);
+        return Long.toString(crc32.getValue());
+    }
+
+    private String createTable(Map<String, String> request) {
+        String tableName = tableName(request);
+        String hashKey = null;
+        String rangeKey = null;
+        for (String element : Json.array(request.get("KeySchema"))) {
+            Map<String, String> keyElement = Json.object(element);
+            String keyType = Json.string(keyElement.get("KeyType"));
+            if ("HASH".equals(keyType)) {
+                hashKey = Json.string(keyElement.get("AttributeName"));
+            } else if ("RANGE".equals(keyType)) {
+                rangeKey = Json.string(keyElement.get("AttributeName"));
+            }
+        }
+        if (isNull(hashKey)) {
+            throw StandInException.validation("KeySchema must contain a HASH key");
+        }
+        createTable(tableName, TableSchema.of(hashKey, rangeKey));
+        return JsonWriter.create().beginObject().name("TableDescription").rawValue(tableDescription(tables.get(tableName))).endObject().toString();
+    }
+
+    private String describeTable(Map<String, String> request) {
+        return JsonWriter.create().beginObject().name("Table").rawValue(tableDescription(table(request))).endObject().toString();
+    }
+
+    private String deleteTable(Map<String, String> request) {
+        DynamoDBTable table = table(request);
+        tables.remove(table.getName(), table);
+        return JsonWriter.create().beginObject().name("TableDescription").rawValue(tableDescription(table)).endObject().toString();
+    }
+
+    private static String tableDescription(DynamoDBTable table) {
+        JsonWriter json = JsonWriter.create().beginObject()
+                .name("TableName").value(table.getName())
+                .name("TableStatus").value("ACTIVE")
+                .name("ItemCount").value(table.size())
+                .name("KeySchema").beginArray()
+                .beginObject().name("AttributeName").value(table.getSchema().getHashKey()).name("KeyType").value("HASH").endObject();
+        if (table.getSchema().hasRangeKey()) {
+            json.beginObject().name("AttributeName").value(table.getSchema().getRangeKey()).name("KeyType").value("RANGE").endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private String putItem(Map<String, String> request) {
+        rejectConditions(request);
+        Map<String, String> previous = table(request).put(Json.object(request.get("Item")));
+        return returnValues(request, previous, null);
+    }
+
+    private String getItem(Map<String, String> request) {
+        DynamoDBTable table = table(request);
+        Map<String, String> item = table.get(table.key(Json.object(request.get("Key"))));
+        JsonWriter json = JsonWriter.create().beginObject();
+        if (nonNull(item)) {
+            json.name("Item");
+            writeItem(json, DynamoDBExpressions.of(request).project(item, Json.string(request.get("ProjectionExpression"))));
+        }
+        return json.endObject().toString();
+    }
+
+    private String deleteItem(Map<String, String> request) {
+        rejectConditions(request);
+        DynamoDBTable table = table(request);
+        Map<String, String> previous = table.delete(table.key(Json.object(request.get("Key"))));
+        return returnValues(request, previous, null);
+    }
+
+    private String updateItem(Map<String, String> request) {
+        rejectConditions(request);
+        String expression = Json.string(request.get("UpdateExpression"));
+        if (isNull(expression)) {
+            throw StandInException.validation("UpdateExpression is required by the stand-in, AttributeUpdates are not supported");
+        }
+        DynamoDBTable table = table(request);
+        Map<String, String> key = Json.object(request.get("Key"));
+        DynamoDBExpressions expressions = DynamoDBExpressions.of(request);
+        List<Map<String, String>> previous = new ArrayList<>(1);
+        Map<String, String> updated = table.update(table.key(key), item -> {
+            previous.add(item);
+            return expressions.update(item, key, expression);
+        });
+        return returnValues(request, previous.get(0), updated);
+    }
+
+    private static String returnValues(Map<String, String> request, Map<String, String> previous, Map<String, String> updated) {
+        String returnValues = Json.string(request.get("ReturnValues"));
+        JsonWriter json = JsonWriter.create().beginObject();
+        if (isNull(returnValues) || "NONE".equals(returnValues)) {
+            return json.endObject().toString();
+        }
+        Map<String, String> attributes;
+        if ("ALL_OLD".equals(returnValues)) {
+            attributes = previous;
+        } else if ("ALL_NEW".equals(returnValues) && nonNull(updated)) {
+            attributes = updated;
+        } else {
+            throw StandInException.validation("ReturnValues " + returnValues + " is not supported by the stand-in");
+        }
+        if (nonNull(attributes)) {
+            json.name("Attributes");
+            writeItem(json, attributes);
+        }
+        return json.endObject().toString();
+    }
+
+    private String query(Map<String, String> request) {
+        rejectUnsupported(request, "IndexName", "FilterExpression", "KeyConditions", "QueryFilter");
+        DynamoDBTable table = table(request);
+        String keyConditionExpression = Json.string(request.get("KeyConditionExpression"));
+        if (isNull(keyConditionExpression)) {
+            throw StandInException.validation("KeyConditionExpression is required");
+        }
+        DynamoDBExpressions expressions = DynamoDBExpressions.of(request);
+        KeyCondition condition = expressions.keyCondition(keyConditionExpression, table.getSchema());
+        boolean forward = !"false".equals(Json.string(request.get("ScanIndexForward")));
+        NavigableMap<ItemKey, Map<String, String>> partition = table.partition(condition.getHash(), exclusiveStartKey(table, request), forward);
+        return page(table, request, expressions, partition, key -> condition.matchesRange(key.getRange()));
+    }
+
+    private String scan(Map<String, String> request) {
+        rejectUnsupported(request, "IndexName", "FilterExpression", "ScanFilter");
+        DynamoDBTable table = table(request);
+        int totalSegments = Json.integer(request.get("TotalSegments"), 1);
+        int segment = Json.integer(request.get("Segment"), 0);
+        if (totalSegments < 1 || segment < 0 || segment >= totalSegments) {
+            throw StandInException.validation("Segment must be between 0 and TotalSegments - 1");
+        }
+        NavigableMap<ItemKey, Map<String, String>> items = table.scan(exclusiveStartKey(table, request));
+        return page(table, request, DynamoDBExpressions.of(request), items,
+                key -> (key.getHash().hashCode() & Integer.MAX_VALUE) % totalSegments == segment);
+    }
+
+    /**
+     * Writes page of matching items up to Limit and 1 MB, LastEvaluatedKey is set when more items may follow
+     */
+    private String page(DynamoDBTable table, Map<String, String> request, DynamoDBExpressions expressions,
+                        NavigableMap<ItemKey, Map<String, String>> items, Predicate<ItemKey> filter) {
+        int limit = Json.integer(request.get("Limit"), Integer.MAX_VALUE);
+        if (limit < 1) {
+            throw StandInException.validation("Limit must be greater than or equal to 1");
+        }
+        boolean countOnly = "COUNT".equals(Json.string(request.get("Select")));
+        String projection = Json.string(request.get("ProjectionExpression"));
+        JsonWriter json = JsonWriter.create().beginObject();
+        if (!countOnly) {
+            json.name("Items").beginArray();
+        }
+        int count = 0;
+        int start = json.length();
+        Map<String, String> last = null;
+        boolean more = false;
+        for (Map.Entry<ItemKey, Map<String, String>> entry : items.entrySet()) {
+            if (count == limit || json.length() - start > MAX_PAGE_BYTES) {
+                more = true;
+                break;
+            }
+            if (!filter.test(entry.getKey())) {
+                continue;
+            }
+            if (!countOnly) {
+                writeItem(json, expressions.project(entry.getValue(), projection));
+            }
+            last = entry.getValue();
+            ++count;
+        }
+        if (!countOnly) {
+            json.endArray();
+        }
+        json.name("Count").value(count).name("ScannedCount").value(count);
+        if (more && nonNull(last)) {
+            json.name("LastEvaluatedKey");
+            writeItem(json, table.keyAttributes(last));
+        }
+        return json.endObject().toString();
+    }
+
+    private String batchWriteItem(Map<String, String> request) {
+        Map<String, String> requestItems = Json.object(request.get("RequestItems"));
+        int total = 0;
+        for (String writes : requestItems.values()) {
+            total += Json.array(writes).size();
+        }
+        if (total == 0 || total > MAX_BATCH_WRITE_ITEMS) {
+            throw StandInException.validation("Too many items requested for the BatchWriteItem call");
+        }
+        JsonWriter json = JsonWriter.create().beginObject().name("UnprocessedItems").beginObject();
+        for (Map.Entry<String, String> tableWrites : requestItems.entrySet()) {
+            DynamoDBTable table = table(tableWrites.getKey());
+            List<String> unprocessed = new ArrayList<>();
+            for (String write : Json.array(tableWrites.getValue())) {
+                if (faults.unprocessed()) {
+                    unprocessed.add(write);
+                    continue;
+                }
+                Map<String, String> writeRequest = Json.object(write);
+                if (writeRequest.containsKey("PutRequest")) {
+                    table.put(Json.object(Json.object(writeRequest.get("PutRequest")).get("Item")));
+                } else if (writeRequest.containsKey("DeleteRequest")) {
+                    table.delete(table.key(Json.object(Json.object(writeRequest.get("DeleteRequest")).get("Key"))));
+                } else {
+                    throw StandInException.validation("Write request must contain PutRequest or DeleteRequest");
+                }
+            }
+            if (!unprocessed.isEmpty()) {
+                json.name(table.getName()).beginArray();
+                unprocessed.forEach(json::rawValue);
+                json.endArray();
+            }
+        }
+        return json.endObject().endObject().toString();
+    }
+
+    private String batchGetItem(Map<String, String> request) {
+        Map<String, String> requestItems = Json.object(request.get("RequestItems"));
+        int total = 0;
+        for (String tableKeys : requestItems.values()) {
+            total += Json.array(Json.object(tableKeys).get("Keys")).size();
+        }
+        if (total == 0 || total > MAX_BATCH_GET_KEYS) {
+            throw StandInException.validation("Too many items requested for the BatchGetItem call");
+        }
+        JsonWriter responses = JsonWriter.create().beginObject();
+        JsonWriter unprocessed = JsonWriter.create().beginObject();
+        for (Map.Entry<String, String> tableKeys : requestItems.entrySet()) {
+            DynamoDBTable table = table(tableKeys.getKey());
+            Map<String, String> keysAndAttributes = Json.object(tableKeys.getValue());
+            DynamoDBExpressions expressions = DynamoDBExpressions.of(keysAndAttributes);
+            String projection = Json.string(keysAndAttributes.get("ProjectionExpression"));
+            responses.name(table.getName()).beginArray();
+            List<String> unprocessedKeys = new ArrayList<>();
+            for (String key : Json.array(keysAndAttributes.get("Keys"))) {
+                if (faults.unprocessed()) {
+                    unprocessedKeys.add(key);
+                    continue;
+                }
+                Map<String, String> item = table.get(table.key(Json.object(key)));
+                if (nonNull(item)) {
+                    writeItem(responses, expressions.project(item, projection));
+                }
+            }
+            responses.endArray();
+            if (!unprocessedKeys.isEmpty()) {
+                unprocessed.name(table.getName()).beginObject().name("Keys").beginArray();
+                unprocessedKeys.forEach(unprocessed::rawValue);
+                unprocessed.endArray();
+                for (String member : new String[]{"ProjectionExpression", "ExpressionAttributeNames", "ConsistentRead"}) {
+                    if (keysAndAttributes.containsKey(member)) {
+                        unprocessed.name(member).rawValue(keysAndAttributes.get(member));
+                    }
+                }
+                unprocessed.endObject();
+            }
+        }
+        return JsonWriter.create().beginObject()
+                .name("Responses").rawValue(responses.endObject().toString())
+                .name("UnprocessedKeys").rawValue(unprocessed.endObject().toString())
+                .endObject()
+                .toString();
+    }
+
+    private static void writeItem(JsonWriter json, Map<String, String> item) {
+        json.beginObject();
+        for (Map.Entry<String, String> attribute : item.entrySet()) {
+            json.name(attribute.getKey()).rawValue(attribute.getValue());
+        }
+        json.endObject();
+    }
+
+    private static ItemKey exclusiveStartKey(DynamoDBTable table, Map<String, String> request) {
+        String exclusiveStartKey = request.get("ExclusiveStartKey");
+        return isNull(exclusiveStartKey) ? null : table.key(Json.object(exclusiveStartKey));
+    }
+
+    private static void rejectConditions(Map<String, String> request) {
+        rejectUnsupported(request, "ConditionExpression", "Expected");
+    }
+
+    private static void rejectUnsupported(Map<String, String> request, String... members) {
+        for (String member : members) {
+            if (request.containsKey(member)) {
+                throw StandInException.validation(member + " is not supported by the stand-in");
+            }
+        }
+    }
+
+    private DynamoDBTable table(Map<String, String> request) {
+        return table(tableName(request));
+    }
+
+    private DynamoDBTable table(String tableName) {
+        DynamoDBTable table = tables.get(tableName);
+        if (isNull(table)) {
+            throw new StandInException(400, "ResourceNotFoundException", "Requested resource not found: Table: " + tableName + " not found");
+        }
+        return table;
+    }
+
+    private static String tableName(Map<String, String> request) {
+        String tableName = Json.string(request.get("TableName"));
+        if (isNull(tableName)) {
+            throw StandInException.validation("TableName is required");
+        }
+        return tableName;
+    }
+}
@@ -0,0 +1,257 @@
+package pl.r6lab.rapidaws.standin;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.UnaryOperator;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Items of a stand-in table ordered by key. Attribute values are kept as raw DynamoDB JSON, only key attributes are
+ * parsed. Reads are lock free, writes of a table are serialized so UpdateItem sees a consistent item.
+ */
+final class DynamoDBTable {
+
+    private final String name;
+    private final TableSchema schema;
+    private final ConcurrentSkipListMap<ItemKey, Map<String, String>> items = new ConcurrentSkipListMap<>();
+
+    private DynamoDBTable(String name, TableSchema schema) {
+        this.name = name;
+        this.schema = schema;
+    }
+
+    static DynamoDBTable of(String name, TableSchema schema) {
+        return new DynamoDBTable(name, schema);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    TableSchema getSchema() {
+        return schema;
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    ItemKey key(Map<String, String> attributes) {
+        String hash = attributes.get(schema.getHashKey());
+        if (isNull(hash)) {
+            throw StandInException.validation("One of the required keys was not given a value: " + schema.getHashKey());
+        }
+        Scalar range = null;
+        if (schema.hasRangeKey()) {
+            String rangeValue = attributes.get(schema.getRangeKey());
+            if (isNull(rangeValue)) {
+                throw StandInException.validation("One of the required keys was not given a value: " + schema.getRangeKey());
+            }
+            range = Scalar.parse(rangeValue);
+        }
+        return new ItemKey(Scalar.parse(hash), range);
+    }
+
+    /**
+     * @return key attributes of the item as raw JSON, LastEvaluatedKey format
+     */
+    Map<String, String> keyAttributes(Map<String, String> item) {
+        Map<String, String> key = new LinkedHashMap<>();
+        key.put(schema.getHashKey(), item.get(schema.getHashKey()));
+        if (schema.hasRangeKey()) {
+            key.put(schema.getRangeKey(), item.get(schema.getRangeKey()));
+        }
+        return key;
+    }
+
+    Map<String, String> get(ItemKey key) {
+        return items.get(key);
+    }
+
+    /**
+     * @return previous item or null
+     */
+    synchronized Map<String, String> put(Map<String, String> item) {
+        return items.put(key(item), Collections.unmodifiableMap(new LinkedHashMap<>(item)));
+    }
+
+    synchronized Map<String, String> delete(ItemKey key) {
+        return items.remove(key);
+    }
+
+    /**
+     * @param update creates new item from previous one, which is null when the item does not exist
+     * @return new item
+     */
+    synchronized Map<String, String> update(ItemKey key, UnaryOperator<Map<String, String>> update) {
+        Map<String, String> updated = Collections.unmodifiableMap(update.apply(items.get(key)));
+        if (!key.equals(key(updated))) {
+            throw StandInException.validation("Cannot update attribute that is part of the key");
+        }
+        items.put(key, updated);
+        return updated;
+    }
+
+    /**
+     * @return items of one partition in key order, starting after exclusiveStartKey when given
+     */
+    NavigableMap<ItemKey, Map<String, String>> partition(Scalar hash, ItemKey exclusiveStartKey, boolean forward) {
+        NavigableMap<ItemKey, Map<String, String>> partition = items.subMap(new ItemKey(hash, null), true, new ItemKey(hash, Scalar.MAX), true);
+        if (!forward) {
+            partition = partition.descendingMap();
+        }
+        return nonNull(exclusiveStartKey) ? partition.tailMap(exclusiveStartKey, false) : partition;
+    }
+
+    NavigableMap<ItemKey, Map<String, String>> scan(ItemKey exclusiveStartKey) {
+        return nonNull(exclusiveStartKey) ? items.tailMap(exclusiveStartKey, false) : items;
+    }
+
+    /**
+     * Value of a key attribute, numbers compared by value, strings and binaries by their text
+     */
+    static final class Scalar implements Comparable<Scalar> {
+
+        /**
+         * Sorts after every real value, upper bound of a partition
+         */
+        static final Scalar MAX = new Scalar("~", "", null);
+
+        private final String type;
+        private final String value;
+        private final BigDecimal number;
+
+        private Scalar(String type, String value, BigDecimal number) {
+            this.type = type;
+            this.value = value;
+            this.number = number;
+        }
+
+        static Scalar parse(String attributeValue) {
+            Map<String, String> typed = Json.object(attributeValue);
+            if (typed.size() != 1) {
+                throw StandInException.validation("Key attribute must have exactly one type: " + attributeValue);
+            }
+            Map.Entry<String, String> entry = typed.entrySet().iterator().next();
+            String type = entry.getKey();
+            String value = Json.string(entry.getValue());
+            if (isNull(value)) {
+                throw StandInException.validation("Key attribute value must not be null");
+            }
+            switch (type) {
+                case "S":
+                case "B":
+                    return new Scalar(type, value, null);
+                case "N":
+                    try {
+                        BigDecimal number = new BigDecimal(value);
+                        return new Scalar(type, number.stripTrailingZeros().toPlainString(), number);
+                    } catch (NumberFormatException e) {
+                        throw StandInException.validation("Invalid number " + value);
+                    }
+                default:
+                    throw StandInException.validation("Key attribute must be of type S, N or B but was " + type);
+            }
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        boolean isString() {
+            return !"N".equals(type);
+        }
+
+        @Override
+        public int compareTo(Scalar other) {
+            int byType = type.compareTo(other.type);
+            if (byType != 0) {
+                return byType;
+            }
+            return nonNull(number) ? number.compareTo(other.number) : value.compareTo(other.value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Scalar)) {
+                return false;
+            }
+            Scalar scalar = (Scalar) o;
+            return type.equals(scalar.type) && value.equals(scalar.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + value.hashCode();
+        }
+    }
+
+    /**
+     * Primary key, null range sorts before every range value of the partition
+     */
+    static final class ItemKey implements Comparable<ItemKey> {
+
+        private final Scalar hash;
+        private final Scalar range;
+
+        ItemKey(Scalar hash, Scalar range) {
+            this.hash = hash;
+            this.range = range;
+        }
+
+        Scalar getHash() {
+            return hash;
+        }
+
+        Scalar getRange() {
+            return range;
+        }
+
+        @Override
+        public int compareTo(ItemKey other) {
+            int byHash = hash.compareTo(other.hash);
+            if (byHash != 0) {
+                return byHash;
+            }
+            if (range == other.range) {
+                return 0;
+            }
+            if (isNull(range)) {
+                return -1;
+            }
+            if (isNull(other.range)) {
+                return 1;
+            }
+            if (range == Scalar.MAX || other.range == Scalar.MAX) {
+                return range == Scalar.MAX ? 1 : -1;
+            }
+            return range.compareTo(other.range);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ItemKey)) {
+                return false;
+            }
+            ItemKey itemKey = (ItemKey) o;
+            return hash.equals(itemKey.hash) && (isNull(range) ? isNull(itemKey.range) : range.equals(itemKey.range));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * hash.hashCode() + (isNull(range) ? 0 : range.hashCode());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package pl.r6lab.rapidaws.standin;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides the fate of each request of one service from current {@link Faults}. Rate limit is a token bucket holding
+ * one second worth of requests.
+ */
+final class FaultInjector {
+
+    enum Outcome {
+        PASS, THROTTLE, ERROR
+    }
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile Faults faults = Faults.none();
+    private double tokens;
+    private long refilledAt;
+
+    void setFaults(Faults faults) {
+        synchronized (this) {
+            this.faults = faults;
+            this.tokens = faults.getRateLimit();
+            this.refilledAt = System.nanoTime();
+        }
+    }
+
+    Faults getFaults() {
+        return faults;
+    }
+
+    Outcome decide() {
+        requests.increment();
+        Faults current = faults;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if ((current.getRateLimit() > 0 && !tryAcquire(current.getRateLimit()))
+                || (current.getThrottleProbability() > 0.0 && random.nextDouble() < current.getThrottleProbability())) {
+            throttled.increment();
+            return Outcome.THROTTLE;
+        }
+        if (current.getErrorProbability() > 0.0 && random.nextDouble() < current.getErrorProbability()) {
+            failed.increment();
+            return Outcome.ERROR;
+        }
+        return Outcome.PASS;
+    }
+
+    long getRequests() {
+        return requests.sum();
+    }
+
+    long getThrottled() {
+        return throttled.sum();
+    }
+
+    long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return true when a single DynamoDB batch item should be returned as unprocessed
+     */
+    boolean unprocessed() {
+        double probability = faults.getUnprocessedProbability();
+        return probability > 0.0 && ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    /**
+     * @return true when the body of a response should be corrupted after its checksum was computed
+     */
+    boolean corrupt() {
+        double probability = faults.getCorruptionProbability();
+        return probability > 0.0 && ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    long delayMillis() {
+        Faults current = faults;
+        long jitter = current.getJitterMillis() > 0 ? ThreadLocalRandom.current().nextLong(current.getJitterMillis() + 1) : 0;
+        boolean stall = current.getStallProbability() > 0.0 && ThreadLocalRandom.current().nextDouble() < current.getStallProbability();
+        return current.getLatencyMillis() + jitter + (stall ? current.getStallMillis() : 0);
+    }
+
+    private synchronized boolean tryAcquire(int rateLimit) {
+        long now = System.nanoTime();
+        tokens = Math.min(rateLimit, tokens + (now - refilledAt) * rateLimit / 1e9);
+        refilledAt = now;
+        if (tokens < 1.0) {
+            return false;
+        }
+        tokens -= 1.0;
+        return true;
+    }
+}
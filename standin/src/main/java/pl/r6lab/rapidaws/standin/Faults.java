@@ -0,0 +1,165 @@
+package pl.r6lab.rapidaws.standin;
+
+/**
+ * Faults injected into responses of a stand-in service. Probabilities are applied per request, after the rate limit.
+ * Latency is added to every response, including throttled and failed ones.
+ */
+public final class Faults {
+
+    private static final Faults NONE = new Faults(0, 0, 0.0, 0.0, 0, 0.0, 0.0, 0.0, 0);
+
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double throttleProbability;
+    private final double errorProbability;
+    private final int rateLimit;
+    private final double unprocessedProbability;
+    private final double corruptionProbability;
+    private final double stallProbability;
+    private final long stallMillis;
+
+    private Faults(long latencyMillis, long jitterMillis, double throttleProbability, double errorProbability, int rateLimit, double unprocessedProbability,
+                   double corruptionProbability, double stallProbability, long stallMillis) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.throttleProbability = throttleProbability;
+        this.errorProbability = errorProbability;
+        this.rateLimit = rateLimit;
+        this.unprocessedProbability = unprocessedProbability;
+        this.corruptionProbability = corruptionProbability;
+        this.stallProbability = stallProbability;
+        this.stallMillis = stallMillis;
+    }
+
+    public static Faults none() {
+        return NONE;
+    }
+
+    /**
+     * @param latencyMillis fixed delay added before each response
+     */
+    public Faults withLatency(long latencyMillis) {
+        return new Faults(latencyMillis, jitterMillis, throttleProbability, errorProbability, rateLimit, unprocessedProbability, corruptionProbability,
+                stallProbability, stallMillis);
+    }
+
+    /**
+     * @param jitterMillis upper bound of uniformly distributed delay added on top of latency
+     */
+    public Faults withJitter(long jitterMillis) {
+        return new Faults(latencyMillis, jitterMillis, throttleProbability, errorProbability, rateLimit, unprocessedProbability, corruptionProbability,
+                stallProbability, stallMillis);
+    }
+
+    /**
+     * @param throttleProbability share of requests answered with the throttling error of the service
+     */
+    public Faults withThrottleProbability(double throttleProbability) {
+        return new Faults(latencyMillis, jitterMillis, probability(throttleProbability), errorProbability, rateLimit, unprocessedProbability, corruptionProbability,
+                stallProbability, stallMillis);
+    }
+
+    /**
+     * @param errorProbability share of requests answered with 500 internal error of the service
+     */
+    public Faults withErrorProbability(double errorProbability) {
+        return new Faults(latencyMillis, jitterMillis, throttleProbability, probability(errorProbability), rateLimit, unprocessedProbability, corruptionProbability,
+                stallProbability, stallMillis);
+    }
+
+    /**
+     * @param rateLimit requests per second accepted before throttling, token bucket with one second burst; 0 disables
+     */
+    public Faults withRateLimit(int rateLimit) {
+        if (rateLimit < 0) {
+            throw new IllegalArgumentException("Rate limit must not be negative");
+        }
+        return new Faults(latencyMillis, jitterMillis, throttleProbability, errorProbability, rateLimit, unprocessedProbability, corruptionProbability,
+                stallProbability, stallMillis);
+    }
+
+    /**
+     * @param unprocessedProbability share of batch entries failed individually: DynamoDB unprocessed items and keys,
+     *                               SQS batch error entries
+     */
+    public Faults withUnprocessedProbability(double unprocessedProbability) {
+        return new Faults(latencyMillis, jitterMillis, throttleProbability, errorProbability, rateLimit, probability(unprocessedProbability), corruptionProbability,
+                stallProbability, stallMillis);
+    }
+
+    /**
+     * @param corruptionProbability share of responses with a byte of the body flipped after checksum was computed,
+     *                              detected through x-amz-crc32 of DynamoDB responses
+     */
+    public Faults withCorruptionProbability(double corruptionProbability) {
+        return new Faults(latencyMillis, jitterMillis, throttleProbability, errorProbability, rateLimit, unprocessedProbability, probability(corruptionProbability),
+                stallProbability, stallMillis);
+    }
+
+    /**
+     * @param stallProbability share of responses delayed by stall millis on top of latency, a tail of slow responses
+     * @param stallMillis      delay of stalled responses
+     */
+    public Faults withStall(double stallProbability, long stallMillis) {
+        return new Faults(latencyMillis, jitterMillis, throttleProbability, errorProbability, rateLimit, unprocessedProbability, corruptionProbability,
+                probability(stallProbability), stallMillis);
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public long getJitterMillis() {
+        return jitterMillis;
+    }
+
+    public double getThrottleProbability() {
+        return throttleProbability;
+    }
+
+    public double getErrorProbability() {
+        return errorProbability;
+    }
+
+    public int getRateLimit() {
+        return rateLimit;
+    }
+
+    public double getUnprocessedProbability() {
+        return unprocessedProbability;
+    }
+
+    public double getCorruptionProbability() {
+        return corruptionProbability;
+    }
+
+    public double getStallProbability() {
+        return stallProbability;
+    }
+
+    public long getStallMillis() {
+        return stallMillis;
+    }
+
+    private static double probability(double value) {
+        if (value < 0.0 || value > 1.0) {
+            throw new IllegalArgumentException("Probability must be between 0 and 1");
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "Faults{" +
+                "latencyMillis=" + latencyMillis +
+                ", jitterMillis=" + jitterMillis +
+                ", throttleProbability=" + throttleProbability +
+                ", errorProbability=" + errorProbability +
+                ", rateLimit=" + rateLimit +
+                ", unprocessedProbability=" + unprocessedProbability +
+                ", corruptionProbability=" + corruptionProbability +
+                ", stallProbability=" + stallProbability +
+                ", stallMillis=" + stallMillis +
+                '}';
+    }
+}
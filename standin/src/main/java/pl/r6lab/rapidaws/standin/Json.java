@@ -0,0 +1,100 @@
+package pl.r6lab.rapidaws.standin;
+
+import pl.r6lab.rapidaws.json.JsonReader;
+import pl.r6lab.rapidaws.json.JsonToken;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Splits JSON documents into raw member values. Stand-ins keep attribute values as received and parse only the
+ * parts they act on.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * @return member names mapped to their raw JSON values, empty for null
+     */
+    static Map<String, String> object(String json) {
+        Map<String, String> members = new LinkedHashMap<>();
+        if (isNull(json)) {
+            return members;
+        }
+        JsonReader reader = JsonReader.of(json);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw StandInException.validation("Expected JSON object but got " + json);
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            members.put(reader.nextName(), reader.nextRawValue());
+        }
+        reader.endObject();
+        return members;
+    }
+
+    static Map<String, String> object(byte[] json) {
+        return object(new String(json, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return raw JSON values of array elements, empty for null
+     */
+    static List<String> array(String json) {
+        List<String> elements = new ArrayList<>();
+        if (isNull(json)) {
+            return elements;
+        }
+        JsonReader reader = JsonReader.of(json);
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            throw StandInException.validation("Expected JSON array but got " + json);
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            elements.add(reader.nextRawValue());
+        }
+        reader.endArray();
+        return elements;
+    }
+
+    /**
+     * @return decoded string value, null for null or absent value
+     */
+    static String string(String json) {
+        if (isNull(json)) {
+            return null;
+        }
+        JsonReader reader = JsonReader.of(json);
+        switch (reader.peek()) {
+            case STRING:
+                return reader.nextString();
+            case NUMBER:
+                return reader.nextNumber();
+            case BOOLEAN:
+                return Boolean.toString(reader.nextBoolean());
+            case NULL:
+                return null;
+            default:
+                throw StandInException.validation("Expected scalar value but got " + json);
+        }
+    }
+
+    static int integer(String json, int defaultValue) {
+        String value = string(json);
+        if (isNull(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw StandInException.validation("Expected integer but got " + value);
+        }
+    }
+}
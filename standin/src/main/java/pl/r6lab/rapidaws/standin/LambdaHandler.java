@@ -0,0 +1,15 @@
+package pl.r6lab.rapidaws.standin;
+
+/**
+ * Function registered in the stand-in. Exceptions are reported like unhandled function errors, with
+ * X-Amz-Function-Error header and 200 status.
+ */
+@FunctionalInterface
+public interface LambdaHandler {
+
+    byte[] handle(byte[] payload) throws Exception;
+
+    static LambdaHandler echo() {
+        return payload -> payload;
+    }
+}
@@ -0,0 +1,155 @@
+package pl.r6lab.rapidaws.standin;
+
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.json.JsonWriter;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Lambda Invoke API. Registered handlers run in the server, functions that were not registered echo the payload.
+ * Event invocations are accepted with 202 and run in the background, DryRun returns 204 without running anything.
+ */
+final class LambdaStandIn implements ServiceStandIn {
+
+    private static final String PATH_PREFIX = "/2015-03-31/functions/";
+    private static final String PATH_SUFFIX = "/invocations";
+    private static final String CONTENT_TYPE = "application/json";
+
+    private final ConcurrentMap<String, LambdaHandler> functions = new ConcurrentHashMap<>();
+    private final Executor eventExecutor;
+
+    private LambdaStandIn(Executor eventExecutor) {
+        this.eventExecutor = eventExecutor;
+    }
+
+    static LambdaStandIn of(Executor eventExecutor) {
+        return new LambdaStandIn(eventExecutor);
+    }
+
+    void registerFunction(String functionName, LambdaHandler handler) {
+        functions.put(functionName, handler);
+    }
+
+    @Override
+    public ServiceName getServiceName() {
+        return ServiceName.LAMBDA;
+    }
+
+    @Override
+    public boolean accepts(StandInRequest request) {
+        return request.getPath().startsWith(PATH_PREFIX);
+    }
+
+    @Override
+    public StandInResponse handle(StandInRequest request) {
+        String path = request.getPath();
+        if (!"POST".equals(request.getMethod()) || !path.endsWith(PATH_SUFFIX)) {
+            throw new StandInException(404, "ResourceNotFoundException", "Only Invoke is supported by the stand-in: " + path);
+        }
+        String functionName = functionName(decode(path.substring(PATH_PREFIX.length(), path.length() - PATH_SUFFIX.length())));
+        LambdaHandler handler = functions.getOrDefault(functionName, LambdaHandler.echo());
+        String invocationType = request.getHeader("X-Amz-Invocation-Type");
+        byte[] payload = request.getBody();
+        if ("DryRun".equals(invocationType)) {
+            return StandInResponse.empty(204);
+        }
+        if ("Event".equals(invocationType)) {
+            eventExecutor.execute(() -> invoke(handler, payload));
+            return StandInResponse.empty(202);
+        }
+        if (!isNull(invocationType) && !"RequestResponse".equals(invocationType)) {
+            throw new StandInException(400, "InvalidParameterValueException", "Invalid invocation type " + invocationType);
+        }
+        String requestId = UUID.randomUUID().toString();
+        StandInResponse response;
+        try {
+            byte[] result = handler.handle(payload);
+            response = StandInResponse.of(200, CONTENT_TYPE, isNull(result) ? "null".getBytes(StandardCharsets.UTF_8) : result);
+        } catch (Exception e) {
+            String error = JsonWriter.create().beginObject()
+                    .name("errorMessage").value(String.valueOf(e.getMessage()))
+                    .name("errorType").value(e.getClass().getSimpleName())
+                    .endObject()
+                    .toString();
+            response = StandInResponse.of(200, CONTENT_TYPE, error).withHeader("X-Amz-Function-Error", "Unhandled");
+        }
+        response.withHeader("X-Amz-Executed-Version", "$LATEST")
+                .withHeader("X-Amzn-RequestId", requestId);
+        if ("Tail".equals(request.getHeader("X-Amz-Log-Type"))) {
+            String log = "START RequestId: " + requestId + " Version: $LATEST\nEND RequestId: " + requestId + '\n';
+            response.withHeader("X-Amz-Log-Result", Base64.getEncoder().encodeToString(log.getBytes(StandardCharsets.UTF_8)));
+        }
+        return response;
+    }
+
+    @Override
+    public StandInResponse error(int statusCode, String code, String message) {
+        String body = JsonWriter.create().beginObject()
+                .name("Type").value(statusCode >= 500 ? "Service" : "User")
+                .name("message").value(message)
+                .endObject()
+                .toString();
+        return StandInResponse.of(statusCode, CONTENT_TYPE, body).withHeader("X-Amzn-ErrorType", code);
+    }
+
+    @Override
+    public StandInResponse throttled() {
+        return error(429, "TooManyRequestsException", "Rate Exceeded.");
+    }
+
+    @Override
+    public StandInResponse internalError() {
+        return error(500, "ServiceException", "An internal error occurred.");
+    }
+
+    @Override
+    public StandInResponse authFailure(AuthFailure failure) {
+        switch (failure.getKind()) {
+            case MISSING:
+                return error(403, "MissingAuthenticationTokenException", failure.getMessage());
+            case UNKNOWN_ACCESS_KEY:
+                return error(403, "UnrecognizedClientException", failure.getMessage());
+            default:
+                return error(403, "InvalidSignatureException", failure.getMessage());
+        }
+    }
+
+    private static void invoke(LambdaHandler handler, byte[] payload) {
+        try {
+            handler.handle(payload);
+        } catch (Exception e) {
+            // asynchronous invocation errors are not reported to the caller
+        }
+    }
+
+    /**
+     * @return plain function name from name, partial or full ARN, without qualifier
+     */
+    private static String functionName(String function) {
+        String[] parts = function.split(":");
+        if (function.startsWith("arn:") && parts.length >= 7) {
+            return parts[6];
+        }
+        if (parts.length >= 3) {
+            return parts[2];
+        }
+        return parts[0];
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
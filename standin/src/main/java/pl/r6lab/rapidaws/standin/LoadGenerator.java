@@ -0,0 +1,147 @@
+package pl.r6lab.rapidaws.standin;
+
+import pl.r6lab.rapidaws.AbstractRapidClient;
+import pl.r6lab.rapidaws.Request;
+import pl.r6lab.rapidaws.Response;
+import pl.r6lab.rapidaws.metrics.Histogram;
+import pl.r6lab.rapidaws.sqs.SQSBatchProducer;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Open loop load at a fixed rate: requests are sent with executeAsync on schedule, whether or not earlier ones have
+ * completed, so a slow or throttling server builds up queues like it would under real traffic. Retries, metrics
+ * and transport are those configured on the client. Messages of an {@link SQSBatchProducer} are sent the same way,
+ * one per scheduled send, so batched and single SendMessage runs compare at equal message rates.
+ */
+public final class LoadGenerator {
+
+    private static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Supplier<CompletableFuture<Boolean>> sends;
+    private final int rate;
+    private final Duration duration;
+    private final Duration warmup;
+    private final Duration drainTimeout;
+
+    /**
+     * @param sends starts one send, completed with true on success and false on an error response
+     */
+    private LoadGenerator(Supplier<CompletableFuture<Boolean>> sends, int rate, Duration duration, Duration warmup, Duration drainTimeout) {
+        this.sends = sends;
+        this.rate = rate;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * 100 requests per second for 10 seconds, without warmup
+     *
+     * @param requests called on the generator thread before every send
+     */
+    public static LoadGenerator of(AbstractRapidClient client, Supplier<? extends Request> requests) {
+        if (isNull(client) || isNull(requests)) {
+            throw new IllegalArgumentException("Client and request supplier are required");
+        }
+        return of(() -> client.executeAsync(requests.get()).thenApply(Response::isSuccess));
+    }
+
+    /**
+     * Same defaults, every send is one message given to the producer; latency lasts until its batch is acknowledged
+     *
+     * @param messageBodies called on the generator thread before every send
+     */
+    public static LoadGenerator of(SQSBatchProducer producer, String queueUrl, Supplier<String> messageBodies) {
+        if (isNull(producer) || isNull(queueUrl) || isNull(messageBodies)) {
+            throw new IllegalArgumentException("Producer, queue URL and message supplier are required");
+        }
+        return of(() -> producer.send(queueUrl, messageBodies.get()).thenApply(messageId -> true));
+    }
+
+    private static LoadGenerator of(Supplier<CompletableFuture<Boolean>> sends) {
+        return new LoadGenerator(sends, 100, Duration.ofSeconds(10), Duration.ZERO, DEFAULT_DRAIN_TIMEOUT);
+    }
+
+    public LoadGenerator withRate(int requestsPerSecond) {
+        if (requestsPerSecond < 1) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        return new LoadGenerator(sends, requestsPerSecond, duration, warmup, drainTimeout);
+    }
+
+    public LoadGenerator withDuration(Duration duration) {
+        return new LoadGenerator(sends, rate, duration, warmup, drainTimeout);
+    }
+
+    /**
+     * @param warmup time of load at the same rate sent before the measured run, results are discarded; lets JIT
+     *               compile hot paths and the pool open its connections
+     */
+    public LoadGenerator withWarmup(Duration warmup) {
+        return new LoadGenerator(sends, rate, duration, warmup, drainTimeout);
+    }
+
+    /**
+     * @param drainTimeout how long to wait for requests in flight after the last one was sent
+     */
+    public LoadGenerator withDrainTimeout(Duration drainTimeout) {
+        return new LoadGenerator(sends, rate, duration, warmup, drainTimeout);
+    }
+
+    /**
+     * Sends requests on the calling thread and waits for their completion
+     */
+    public LoadReport run() throws InterruptedException {
+        if (!warmup.isZero()) {
+            drive(warmup);
+        }
+        return drive(duration);
+    }
+
+    private LoadReport drive(Duration duration) throws InterruptedException {
+        Histogram latency = Histogram.create();
+        LongAdder succeeded = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long sent = 0;
+        for (long scheduledAt = start; scheduledAt - end < 0; scheduledAt = start + sent * intervalNanos) {
+            long wait;
+            while ((wait = scheduledAt - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            long intendedStart = scheduledAt;
+            sends.get().whenComplete((success, throwable) -> {
+                latency.record(System.nanoTime() - intendedStart);
+                if (!isNull(throwable)) {
+                    errors.increment();
+                } else if (success) {
+                    succeeded.increment();
+                } else {
+                    failed.increment();
+                }
+            });
+            ++sent;
+        }
+        long drainDeadline = System.nanoTime() + drainTimeout.toNanos();
+        while (succeeded.sum() + failed.sum() + errors.sum() < sent && System.nanoTime() - drainDeadline < 0) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        long elapsed = System.nanoTime() - start;
+        long completed = succeeded.sum() + failed.sum() + errors.sum();
+        return new LoadReport(sent, succeeded.sum(), failed.sum(), errors.sum() + (sent - completed), elapsed, latency.snapshot());
+    }
+}
@@ -0,0 +1,79 @@
+package pl.r6lab.rapidaws.standin;
+
+import pl.r6lab.rapidaws.metrics.HistogramSnapshot;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link LoadGenerator} run. Latency is measured from the time a request was scheduled to be sent, so
+ * queueing behind a slow server is included rather than hidden.
+ */
+public final class LoadReport {
+
+    private final long sent;
+    private final long succeeded;
+    private final long failed;
+    private final long errors;
+    private final long elapsedNanos;
+    private final HistogramSnapshot latency;
+
+    LoadReport(long sent, long succeeded, long failed, long errors, long elapsedNanos, HistogramSnapshot latency) {
+        this.sent = sent;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * @return responses with error status, after retries of the client
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return requests completed exceptionally, e.g. connection failures or requests still running after drain timeout
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return completed requests per second
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : (succeeded + failed) * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return latency in nanos of completed requests
+     */
+    public HistogramSnapshot getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("sent=%d, succeeded=%d, failed=%d, errors=%d, throughput=%.1f/s, latency ms: mean=%.2f, p50=%.2f, p99=%.2f, p99.9=%.2f, max=%.2f",
+                sent, succeeded, failed, errors, getThroughput(), latency.getMean() / 1e6, millis(50), millis(99), millis(99.9),
+                latency.getMax() / 1e6);
+    }
+
+    private double millis(double percentile) {
+        return latency.getValueAtPercentile(percentile) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
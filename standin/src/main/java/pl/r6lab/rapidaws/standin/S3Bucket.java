@@ -0,0 +1,150 @@
+package pl.r6lab.rapidaws.standin;
+
+import java.io.ByteArrayOutputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.isNull;
+
+/**
+ * In-memory bucket with multipart uploads. ETags follow S3: MD5 of the content for single uploads and MD5 of part
+ * MD5s with part count for multipart ones. Part size rules are checked on completion like S3 does.
+ */
+final class S3Bucket {
+
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    static final int MAX_PART_NUMBER = 10_000;
+
+    private final String name;
+    private final ConcurrentMap<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    private S3Bucket(String name) {
+        this.name = name;
+    }
+
+    static S3Bucket of(String name) {
+        return new S3Bucket(name);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    StoredObject get(String key) {
+        StoredObject object = objects.get(key);
+        if (isNull(object)) {
+            throw new StandInException(404, "NoSuchKey", "The specified key does not exist.");
+        }
+        return object;
+    }
+
+    StoredObject put(String key, byte[] content) {
+        StoredObject object = new StoredObject(content, '"' + SigV4Verifier.hex(md5(content)) + '"');
+        objects.put(key, object);
+        return object;
+    }
+
+    void delete(String key) {
+        objects.remove(key);
+    }
+
+    String createUpload(String key) {
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        uploads.put(uploadId, new Upload(key));
+        return uploadId;
+    }
+
+    StoredObject putPart(String key, String uploadId, int partNumber, byte[] content) {
+        if (partNumber < 1 || partNumber > MAX_PART_NUMBER) {
+            throw new StandInException(400, "InvalidArgument", "Part number must be an integer between 1 and " + MAX_PART_NUMBER);
+        }
+        StoredObject part = new StoredObject(content, '"' + SigV4Verifier.hex(md5(content)) + '"');
+        upload(key, uploadId).parts.put(partNumber, part);
+        return part;
+    }
+
+    /**
+     * @param parts part numbers with ETags in the order of the request
+     */
+    StoredObject complete(String key, String uploadId, List<Map.Entry<Integer, String>> parts) {
+        Upload upload = upload(key, uploadId);
+        if (parts.isEmpty()) {
+            throw new StandInException(400, "MalformedXML", "The XML you provided was not well-formed or did not validate against our published schema");
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ByteArrayOutputStream digests = new ByteArrayOutputStream(parts.size() * 16);
+        int previousNumber = 0;
+        for (int i = 0; i < parts.size(); ++i) {
+            int partNumber = parts.get(i).getKey();
+            if (partNumber <= previousNumber) {
+                throw new StandInException(400, "InvalidPartOrder", "The list of parts was not in ascending order. The parts list must be specified in order by part number.");
+            }
+            previousNumber = partNumber;
+            StoredObject part = upload.parts.get(partNumber);
+            if (isNull(part) || !unquote(part.etag).equals(unquote(parts.get(i).getValue()))) {
+                throw new StandInException(400, "InvalidPart", "One or more of the specified parts could not be found. Part " + partNumber);
+            }
+            if (i < parts.size() - 1 && part.content.length < MIN_PART_SIZE) {
+                throw new StandInException(400, "EntityTooSmall", "Your proposed upload is smaller than the minimum allowed size. Part " + partNumber);
+            }
+            content.write(part.content, 0, part.content.length);
+            byte[] digest = md5(part.content);
+            digests.write(digest, 0, digest.length);
+        }
+        if (!uploads.remove(uploadId, upload)) {
+            throw new StandInException(404, "NoSuchUpload", "The specified upload does not exist.");
+        }
+        StoredObject object = new StoredObject(content.toByteArray(), '"' + SigV4Verifier.hex(md5(digests.toByteArray())) + '-' + parts.size() + '"');
+        objects.put(key, object);
+        return object;
+    }
+
+    void abort(String key, String uploadId) {
+        uploads.remove(uploadId, upload(key, uploadId));
+    }
+
+    private Upload upload(String key, String uploadId) {
+        Upload upload = isNull(uploadId) ? null : uploads.get(uploadId);
+        if (isNull(upload) || !upload.key.equals(key)) {
+            throw new StandInException(404, "NoSuchUpload", "The specified upload does not exist.");
+        }
+        return upload;
+    }
+
+    private static String unquote(String etag) {
+        return etag.length() > 1 && etag.startsWith("\"") && etag.endsWith("\"") ? etag.substring(1, etag.length() - 1) : etag;
+    }
+
+    private static byte[] md5(byte[] content) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(content);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class StoredObject {
+        final byte[] content;
+        final String etag;
+
+        private StoredObject(byte[] content, String etag) {
+            this.content = content;
+            this.etag = etag;
+        }
+    }
+
+    private static final class Upload {
+        private final String key;
+        private final ConcurrentMap<Integer, StoredObject> parts = new ConcurrentHashMap<>();
+
+        private Upload(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package pl.r6lab.rapidaws.standin;
+
+import pl.r6lab.rapidaws.ServiceName;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * S3 objects with path-style addressing: CreateBucket, GetObject with single byte ranges and If-Match, PutObject,
+ * DeleteObject and multipart uploads. Requests are told apart from other services by the s3 credential scope, and
+ * like S3 the stand-in rejects requests without x-amz-content-sha256.
+ */
+final class S3StandIn implements ServiceStandIn {
+
+    private static final String CREDENTIAL_SCOPE = "/s3/aws4_request";
+    private static final String XML_CONTENT_TYPE = "application/xml";
+    private static final String OBJECT_CONTENT_TYPE = "binary/octet-stream";
+    private static final String NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+    private final ConcurrentMap<String, S3Bucket> buckets = new ConcurrentHashMap<>();
+
+    private S3StandIn() {
+    }
+
+    static S3StandIn create() {
+        return new S3StandIn();
+    }
+
+    void createBucket(String bucketName) {
+        buckets.computeIfAbsent(bucketName, S3Bucket::of);
+    }
+
+    @Override
+    public ServiceName getServiceName() {
+        return ServiceName.S3;
+    }
+
+    @Override
+    public boolean accepts(StandInRequest request) {
+        String authorization = request.getHeader("Authorization");
+        return nonNull(authorization) && authorization.contains(CREDENTIAL_SCOPE);
+    }
+
+    @Override
+    public StandInResponse handle(StandInRequest request) {
+        if (isNull(request.getHeader("X-Amz-Content-Sha256"))) {
+            throw new StandInException(400, "InvalidRequest", "Missing required header for this request: x-amz-content-sha256");
+        }
+        String path = request.getPath();
+        int slash = path.indexOf('/', 1);
+        String bucketName = decode(slash < 0 ? path.substring(1) : path.substring(1, slash));
+        String key = slash < 0 ? "" : decode(path.substring(slash + 1));
+        if (bucketName.isEmpty()) {
+            throw new StandInException(400, "InvalidRequest", "Only bucket and object operations are supported by the stand-in");
+        }
+        String method = request.getMethod();
+        if (key.isEmpty()) {
+            if (!"PUT".equals(method)) {
+                throw new StandInException(400, "InvalidRequest", "Only CreateBucket is supported on buckets by the stand-in");
+            }
+            createBucket(bucketName);
+            return StandInResponse.empty(200).withHeader("Location", '/' + bucketName);
+        }
+        S3Bucket bucket = buckets.get(bucketName);
+        if (isNull(bucket)) {
+            throw new StandInException(404, "NoSuchBucket", "The specified bucket does not exist");
+        }
+        Map<String, String> params = query(request.getQuery());
+        String uploadId = params.get("uploadId");
+        switch (method) {
+            case "GET":
+                return getObject(bucket.get(key), request);
+            case "PUT":
+                if (nonNull(uploadId)) {
+                    S3Bucket.StoredObject part = bucket.putPart(key, uploadId, partNumber(params.get("partNumber")), request.getBody());
+                    return StandInResponse.empty(200).withHeader("ETag", part.etag);
+                }
+                return StandInResponse.empty(200).withHeader("ETag", bucket.put(key, request.getBody()).etag);
+            case "POST":
+                if (params.containsKey("uploads")) {
+                    return xml("InitiateMultipartUploadResult", "<Bucket>" + escape(bucketName) + "</Bucket><Key>" + escape(key)
+                            + "</Key><UploadId>" + bucket.createUpload(key) + "</UploadId>");
+                }
+                if (nonNull(uploadId)) {
+                    S3Bucket.StoredObject object = bucket.complete(key, uploadId, parts(request.getBodyAsString()));
+                    return xml("CompleteMultipartUploadResult", "<Location>" + escape(request.getBaseUrl(false) + path) + "</Location><Bucket>"
+                            + escape(bucketName) + "</Bucket><Key>" + escape(key) + "</Key><ETag>" + escape(object.etag) + "</ETag>");
+                }
+                throw new StandInException(400, "InvalidRequest", "Only multipart upload POST requests are supported by the stand-in");
+            case "DELETE":
+                if (nonNull(uploadId)) {
+                    bucket.abort(key, uploadId);
+                } else {
+                    bucket.delete(key);
+                }
+                return StandInResponse.empty(204);
+            default:
+                throw new StandInException(405, "MethodNotAllowed", "The specified method is not allowed against this resource.");
+        }
+    }
+
+    @Override
+    public StandInResponse error(int statusCode, String code, String message) {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code + "</Code><Message>" + escape(message)
+                + "</Message><RequestId>" + UUID.randomUUID() + "</RequestId></Error>";
+        return StandInResponse.of(statusCode, XML_CONTENT_TYPE, xml);
+    }
+
+    @Override
+    public StandInResponse throttled() {
+        return error(503, "SlowDown", "Please reduce your request rate.");
+    }
+
+    @Override
+    public StandInResponse internalError() {
+        return error(500, "InternalError", "We encountered an internal error. Please try again.");
+    }
+
+    @Override
+    public StandInResponse authFailure(AuthFailure failure) {
+        switch (failure.getKind()) {
+            case MISSING:
+                return error(403, "AccessDenied", failure.getMessage());
+            case UNKNOWN_ACCESS_KEY:
+                return error(403, "InvalidAccessKeyId", failure.getMessage());
+            default:
+                return error(403, "SignatureDoesNotMatch", failure.getMessage());
+        }
+    }
+
+    /**
+     * Answers 206 with the requested bytes for single ranges, multiple ranges are ignored like S3 does
+     */
+    private static StandInResponse getObject(S3Bucket.StoredObject object, StandInRequest request) {
+        String ifMatch = request.getHeader("If-Match");
+        if (nonNull(ifMatch) && !ifMatch.equals("*") && !ifMatch.equals(object.etag)) {
+            throw new StandInException(412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+        }
+        long[] range = range(request.getHeader("Range"), object.content.length);
+        if (isNull(range)) {
+            return StandInResponse.of(200, OBJECT_CONTENT_TYPE, object.content)
+                    .withHeader("ETag", object.etag)
+                    .withHeader("Accept-Ranges", "bytes");
+        }
+        return StandInResponse.of(206, OBJECT_CONTENT_TYPE, Arrays.copyOfRange(object.content, (int) range[0], (int) range[1] + 1))
+                .withHeader("ETag", object.etag)
+                .withHeader("Accept-Ranges", "bytes")
+                .withHeader("Content-Range", "bytes " + range[0] + '-' + range[1] + '/' + object.content.length);
+    }
+
+    /**
+     * @return first and last byte of the range or null when the whole object is requested
+     */
+    private static long[] range(String header, long size) {
+        if (isNull(header) || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        long first;
+        long last = size - 1;
+        if (dash == 0) {
+            first = Math.max(0, size - Long.parseLong(spec.substring(1)));
+        } else {
+            first = Long.parseLong(spec.substring(0, dash));
+            if (dash < spec.length() - 1) {
+                last = Math.min(last, Long.parseLong(spec.substring(dash + 1)));
+            }
+        }
+        if (first >= size || first > last) {
+            throw new StandInException(416, "InvalidRange", "The requested range is not satisfiable");
+        }
+        return new long[]{first, last};
+    }
+
+    private static int partNumber(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new StandInException(400, "InvalidArgument", "Part number must be an integer between 1 and " + S3Bucket.MAX_PART_NUMBER);
+        }
+    }
+
+    /**
+     * Reads part numbers and ETags of CompleteMultipartUpload body
+     */
+    private static List<Map.Entry<Integer, String>> parts(String xml) {
+        List<Map.Entry<Integer, String>> parts = new ArrayList<>();
+        int from = 0;
+        int start;
+        while ((start = xml.indexOf("<Part>", from)) >= 0) {
+            int end = xml.indexOf("</Part>", start);
+            if (end < 0) {
+                break;
+            }
+            String part = xml.substring(start, end);
+            String partNumber = text(part, "PartNumber");
+            String etag = text(part, "ETag");
+            if (isNull(partNumber) || isNull(etag)) {
+                throw new StandInException(400, "MalformedXML", "The XML you provided was not well-formed or did not validate against our published schema");
+            }
+            parts.add(new AbstractMap.SimpleImmutableEntry<>(partNumber(partNumber.trim()), unescape(etag.trim())));
+            from = end;
+        }
+        return parts;
+    }
+
+    private static String text(String xml, String name) {
+        int start = xml.indexOf('<' + name + '>');
+        int end = xml.indexOf("</" + name + '>');
+        return start < 0 || end < start ? null : xml.substring(start + name.length() + 2, end);
+    }
+
+    private static StandInResponse xml(String root, String content) {
+        return StandInResponse.of(200, XML_CONTENT_TYPE, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><" + root + " xmlns=\"" + NAMESPACE + "\">"
+                + content + "</" + root + '>');
+    }
+
+    private static Map<String, String> query(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (isNull(query) || query.isEmpty()) {
+            return params;
+        }
+        for (String param : query.split("&")) {
+            int separator = param.indexOf('=');
+            if (separator < 0) {
+                params.put(decode(param), "");
+            } else {
+                params.put(decode(param.substring(0, separator)), decode(param.substring(separator + 1)));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Percent-decodes keys, unlike form decoding leaves plus signs as they are
+     */
+    private static String decode(String value) {
+        if (value.indexOf('%') < 0) {
+            return value;
+        }
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream(value.length());
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '%' && i + 2 < value.length()) {
+                decoded.write(Integer.parseInt(value.substring(i + 1, i + 3), 16));
+                i += 2;
+            } else {
+                byte[] bytes = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                decoded.write(bytes, 0, bytes.length);
+            }
+        }
+        return new String(decoded.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String unescape(String text) {
+        return text.replace("&quot;", "\"").replace("&#34;", "\"").replace("&lt;", "<").replace("&gt;", ">").replace("&amp;", "&");
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,138 @@
+package pl.r6lab.rapidaws.standin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+
+/**
+ * In-memory queue with visibility timeout. Received messages stay in flight until deleted or until the timeout
+ * expires, then they are visible again; receivers waiting in long poll are woken by new and returning messages.
+ */
+final class SQSQueue {
+
+    private final String name;
+    private final Deque<Message> visible = new ArrayDeque<>();
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+
+    private SQSQueue(String name) {
+        this.name = name;
+    }
+
+    static SQSQueue of(String name) {
+        return new SQSQueue(name);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    synchronized Message send(String body) {
+        Message message = new Message(UUID.randomUUID().toString(), body);
+        visible.addLast(message);
+        notifyAll();
+        return message;
+    }
+
+    /**
+     * @return received messages with fresh receipt handles, empty when nothing arrived within the wait time
+     */
+    synchronized List<Received> receive(int maxMessages, long visibilityTimeoutMillis, long waitMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        List<Received> received = new ArrayList<>(maxMessages);
+        while (true) {
+            long now = System.nanoTime();
+            returnExpired(now);
+            while (received.size() < maxMessages && !visible.isEmpty()) {
+                Message message = visible.pollFirst();
+                String receiptHandle = UUID.randomUUID().toString();
+                ++message.receiveCount;
+                inFlight.put(receiptHandle, new InFlight(message, now + TimeUnit.MILLISECONDS.toNanos(visibilityTimeoutMillis)));
+                received.add(new Received(message, receiptHandle));
+            }
+            long remaining = deadline - now;
+            if (!received.isEmpty() || remaining <= 0) {
+                return received;
+            }
+            // in flight messages may return before anything is sent, wake up to check their timeouts
+            TimeUnit.NANOSECONDS.timedWait(this, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)));
+        }
+    }
+
+    /**
+     * @return false when receipt handle is unknown or its visibility timeout expired
+     */
+    synchronized boolean delete(String receiptHandle) {
+        returnExpired(System.nanoTime());
+        return !isNull(inFlight.remove(receiptHandle));
+    }
+
+    synchronized int getVisibleCount() {
+        returnExpired(System.nanoTime());
+        return visible.size();
+    }
+
+    synchronized int getInFlightCount() {
+        returnExpired(System.nanoTime());
+        return inFlight.size();
+    }
+
+    synchronized void purge() {
+        visible.clear();
+        inFlight.clear();
+    }
+
+    private void returnExpired(long now) {
+        Iterator<InFlight> iterator = inFlight.values().iterator();
+        while (iterator.hasNext()) {
+            InFlight entry = iterator.next();
+            if (entry.visibleAt - now <= 0) {
+                iterator.remove();
+                visible.addFirst(entry.message);
+            }
+        }
+    }
+
+    static final class Message {
+
+        final String messageId;
+        final String body;
+        int receiveCount;
+
+        private Message(String messageId, String body) {
+            this.messageId = messageId;
+            this.body = body;
+        }
+    }
+
+    static final class Received {
+
+        final Message message;
+        final String receiptHandle;
+        final int receiveCount;
+
+        private Received(Message message, String receiptHandle) {
+            this.message = message;
+            this.receiptHandle = receiptHandle;
+            this.receiveCount = message.receiveCount;
+        }
+    }
+
+    private static final class InFlight {
+
+        private final Message message;
+        private final long visibleAt;
+
+        private InFlight(Message message, long visibleAt) {
+            this.message = message;
+            this.visibleAt = visibleAt;
+        }
+    }
+}
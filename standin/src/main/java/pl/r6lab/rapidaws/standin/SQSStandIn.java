@@ -0,0 +1,311 @@
+package pl.r6lab.rapidaws.standin;
+
+import pl.r6lab.rapidaws.ServiceName;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * SQS query protocol with form encoded requests and XML responses. Queues live under account 000000000000 of the
+ * host the client connected to. Batch entries fail according to {@link Faults#getUnprocessedProbability()}.
+ */
+final class SQSStandIn implements ServiceStandIn {
+
+    private static final String CONTENT_TYPE = ServiceName.SQS.getContentType();
+    private static final String ACCOUNT_PATH = "/000000000000/";
+    private static final String NAMESPACE = "http://queue.amazonaws.com/doc/2012-11-05/";
+    private static final int MAX_BATCH_ENTRIES = 10;
+    private static final int MAX_WAIT_SECONDS = 20;
+    private static final int DEFAULT_VISIBILITY_TIMEOUT_SECONDS = 30;
+
+    private final ConcurrentMap<String, SQSQueue> queues = new ConcurrentHashMap<>();
+    private final FaultInjector faults;
+
+    private SQSStandIn(FaultInjector faults) {
+        this.faults = faults;
+    }
+
+    static SQSStandIn of(FaultInjector faults) {
+        return new SQSStandIn(faults);
+    }
+
+    void createQueue(String queueName) {
+        queues.computeIfAbsent(queueName, SQSQueue::of);
+    }
+
+    @Override
+    public ServiceName getServiceName() {
+        return ServiceName.SQS;
+    }
+
+    @Override
+    public boolean accepts(StandInRequest request) {
+        String contentType = request.getHeader("Content-Type");
+        return nonNull(contentType) && contentType.startsWith(CONTENT_TYPE);
+    }
+
+    @Override
+    public StandInResponse handle(StandInRequest request) {
+        Map<String, String> params = form(request.getBodyAsString());
+        String action = params.get("Action");
+        if (isNull(action)) {
+            throw new StandInException(400, "MissingAction", "Action is required");
+        }
+        StringBuilder result = new StringBuilder(256);
+        switch (action) {
+            case "CreateQueue":
+                createQueue(required(params, "QueueName"));
+                result.append("<QueueUrl>").append(queueUrl(request, params.get("QueueName"))).append("</QueueUrl>");
+                break;
+            case "GetQueueUrl":
+                result.append("<QueueUrl>").append(queueUrl(request, queue(required(params, "QueueName")).getName())).append("</QueueUrl>");
+                break;
+            case "SendMessage":
+                sendMessage(queue(request, params), required(params, "MessageBody"), result);
+                break;
+            case "SendMessageBatch":
+                sendMessageBatch(queue(request, params), params, result);
+                break;
+            case "ReceiveMessage":
+                receiveMessage(queue(request, params), params, result);
+                break;
+            case "DeleteMessage":
+                if (!queue(request, params).delete(required(params, "ReceiptHandle"))) {
+                    throw new StandInException(400, "ReceiptHandleIsInvalid", "The receipt handle is not valid");
+                }
+                break;
+            case "DeleteMessageBatch":
+                deleteMessageBatch(queue(request, params), params, result);
+                break;
+            case "GetQueueAttributes":
+                SQSQueue queue = queue(request, params);
+                attribute(result, "ApproximateNumberOfMessages", Integer.toString(queue.getVisibleCount()));
+                attribute(result, "ApproximateNumberOfMessagesNotVisible", Integer.toString(queue.getInFlightCount()));
+                break;
+            case "PurgeQueue":
+                queue(request, params).purge();
+                break;
+            default:
+                throw new StandInException(400, "InvalidAction", "The action " + action + " is not valid for this endpoint");
+        }
+        String xml = "<?xml version=\"1.0\"?><" + action + "Response xmlns=\"" + NAMESPACE + "\">"
+                + (result.length() > 0 ? "<" + action + "Result>" + result + "</" + action + "Result>" : "")
+                + "<ResponseMetadata><RequestId>" + UUID.randomUUID() + "</RequestId></ResponseMetadata></" + action + "Response>";
+        return StandInResponse.of(200, "text/xml", xml);
+    }
+
+    @Override
+    public StandInResponse error(int statusCode, String code, String message) {
+        String xml = "<?xml version=\"1.0\"?><ErrorResponse xmlns=\"" + NAMESPACE + "\"><Error><Type>" + (statusCode >= 500 ? "Receiver" : "Sender")
+                + "</Type><Code>" + code + "</Code><Message>" + escape(message) + "</Message><Detail/></Error><RequestId>" + UUID.randomUUID()
+                + "</RequestId></ErrorResponse>";
+        return StandInResponse.of(statusCode, "text/xml", xml);
+    }
+
+    @Override
+    public StandInResponse throttled() {
+        return error(403, "RequestThrottled", "Request is throttled.");
+    }
+
+    @Override
+    public StandInResponse internalError() {
+        return error(500, "InternalError", "We encountered an internal error. Please try again.");
+    }
+
+    @Override
+    public StandInResponse authFailure(AuthFailure failure) {
+        switch (failure.getKind()) {
+            case MISSING:
+                return error(403, "MissingAuthenticationToken", failure.getMessage());
+            case UNKNOWN_ACCESS_KEY:
+                return error(403, "InvalidClientTokenId", failure.getMessage());
+            default:
+                return error(403, "SignatureDoesNotMatch", failure.getMessage());
+        }
+    }
+
+    private static void sendMessage(SQSQueue queue, String body, StringBuilder result) {
+        SQSQueue.Message message = queue.send(body);
+        result.append("<MD5OfMessageBody>").append(md5(body)).append("</MD5OfMessageBody><MessageId>").append(message.messageId).append("</MessageId>");
+    }
+
+    private void sendMessageBatch(SQSQueue queue, Map<String, String> params, StringBuilder result) {
+        StringBuilder errors = new StringBuilder();
+        for (int i = 1; params.containsKey("SendMessageBatchRequestEntry." + i + ".Id"); ++i) {
+            checkBatchSize(i);
+            String prefix = "SendMessageBatchRequestEntry." + i + '.';
+            String id = params.get(prefix + "Id");
+            if (faults.unprocessed()) {
+                batchError(errors, id, "InternalError");
+                continue;
+            }
+            result.append("<SendMessageBatchResultEntry><Id>").append(escape(id)).append("</Id>");
+            sendMessage(queue, required(params, prefix + "MessageBody"), result);
+            result.append("</SendMessageBatchResultEntry>");
+        }
+        result.append(errors);
+    }
+
+    private void receiveMessage(SQSQueue queue, Map<String, String> params, StringBuilder result) {
+        int maxMessages = integer(params, "MaxNumberOfMessages", 1);
+        int waitSeconds = integer(params, "WaitTimeSeconds", 0);
+        if (maxMessages < 1 || maxMessages > MAX_BATCH_ENTRIES || waitSeconds < 0 || waitSeconds > MAX_WAIT_SECONDS) {
+            throw new StandInException(400, "InvalidParameterValue", "MaxNumberOfMessages must be between 1 and 10, WaitTimeSeconds between 0 and 20");
+        }
+        int visibilityTimeout = integer(params, "VisibilityTimeout", DEFAULT_VISIBILITY_TIMEOUT_SECONDS);
+        List<SQSQueue.Received> messages;
+        try {
+            messages = queue.receive(maxMessages, visibilityTimeout * 1000L, waitSeconds * 1000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StandInException(500, "InternalError", "Stand-in is shutting down");
+        }
+        for (SQSQueue.Received received : messages) {
+            result.append("<Message><MessageId>").append(received.message.messageId)
+                    .append("</MessageId><ReceiptHandle>").append(received.receiptHandle)
+                    .append("</ReceiptHandle><MD5OfBody>").append(md5(received.message.body))
+                    .append("</MD5OfBody><Body>").append(escape(received.message.body))
+                    .append("</Body>");
+            attribute(result, "ApproximateReceiveCount", Integer.toString(received.receiveCount));
+            result.append("</Message>");
+        }
+    }
+
+    private void deleteMessageBatch(SQSQueue queue, Map<String, String> params, StringBuilder result) {
+        StringBuilder errors = new StringBuilder();
+        for (int i = 1; params.containsKey("DeleteMessageBatchRequestEntry." + i + ".Id"); ++i) {
+            checkBatchSize(i);
+            String prefix = "DeleteMessageBatchRequestEntry." + i + '.';
+            String id = params.get(prefix + "Id");
+            if (faults.unprocessed()) {
+                batchError(errors, id, "InternalError");
+            } else if (queue.delete(required(params, prefix + "ReceiptHandle"))) {
+                result.append("<DeleteMessageBatchResultEntry><Id>").append(escape(id)).append("</Id></DeleteMessageBatchResultEntry>");
+            } else {
+                batchError(errors, id, "ReceiptHandleIsInvalid");
+            }
+        }
+        result.append(errors);
+    }
+
+    private static void checkBatchSize(int entry) {
+        if (entry > MAX_BATCH_ENTRIES) {
+            throw new StandInException(400, "AWS.SimpleQueueService.TooManyEntriesInBatchRequest", "Maximum number of entries per request are 10");
+        }
+    }
+
+    private static void batchError(StringBuilder errors, String id, String code) {
+        boolean senderFault = !"InternalError".equals(code);
+        errors.append("<BatchResultErrorEntry><Id>").append(escape(id))
+                .append("</Id><Code>").append(code)
+                .append("</Code><Message>").append(senderFault ? "The receipt handle is not valid" : "Injected batch entry failure")
+                .append("</Message><SenderFault>").append(senderFault)
+                .append("</SenderFault></BatchResultErrorEntry>");
+    }
+
+    private static void attribute(StringBuilder result, String name, String value) {
+        result.append("<Attribute><Name>").append(name).append("</Name><Value>").append(value).append("</Value></Attribute>");
+    }
+
+    private SQSQueue queue(StandInRequest request, Map<String, String> params) {
+        String queueUrl = params.get("QueueUrl");
+        String path = nonNull(queueUrl) ? queueUrl : request.getPath();
+        return queue(path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    private SQSQueue queue(String queueName) {
+        SQSQueue queue = queues.get(queueName);
+        if (isNull(queue)) {
+            throw new StandInException(400, "AWS.SimpleQueueService.NonExistentQueue", "The specified queue does not exist for this wsdl version.");
+        }
+        return queue;
+    }
+
+    private static String queueUrl(StandInRequest request, String queueName) {
+        return request.getBaseUrl(false) + ACCOUNT_PATH + queueName;
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (isNull(value)) {
+            throw new StandInException(400, "MissingParameter", "The request must contain the parameter " + name);
+        }
+        return value;
+    }
+
+    private static int integer(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        try {
+            return isNull(value) ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new StandInException(400, "InvalidParameterValue", "Value " + value + " for parameter " + name + " is invalid");
+        }
+    }
+
+    private static Map<String, String> form(String body) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (String pair : body.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int separator = pair.indexOf('=');
+            params.put(decode(separator < 0 ? pair : pair.substring(0, separator)), separator < 0 ? "" : decode(pair.substring(separator + 1)));
+        }
+        return params;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String md5(String body) {
+        try {
+            return SigV4Verifier.hex(MessageDigest.getInstance("MD5").digest(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    escaped.append("&amp;");
+                    break;
+                case '<':
+                    escaped.append("&lt;");
+                    break;
+                case '>':
+                    escaped.append("&gt;");
+                    break;
+                case '"':
+                    escaped.append("&quot;");
+                    break;
+                case '\'':
+                    escaped.append("&apos;");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
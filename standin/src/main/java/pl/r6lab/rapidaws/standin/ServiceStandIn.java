@@ -0,0 +1,34 @@
+package pl.r6lab.rapidaws.standin;
+
+import pl.r6lab.rapidaws.ServiceName;
+
+/**
+ * Stand-in of a single AWS service. Errors are rendered in the protocol of the service, so clients classify them the
+ * same way as errors of the real one.
+ */
+interface ServiceStandIn {
+
+    ServiceName getServiceName();
+
+    /**
+     * @return true when the request uses protocol of this service
+     */
+    boolean accepts(StandInRequest request);
+
+    StandInResponse handle(StandInRequest request);
+
+    StandInResponse error(int statusCode, String code, String message);
+
+    StandInResponse throttled();
+
+    StandInResponse internalError();
+
+    StandInResponse authFailure(AuthFailure failure);
+
+    /**
+     * @return response in the content encoding accepted by the request, the same response by default
+     */
+    default StandInResponse encode(StandInRequest request, StandInResponse response) {
+        return response;
+    }
+}
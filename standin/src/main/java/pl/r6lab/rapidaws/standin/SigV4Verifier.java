@@ -0,0 +1,262 @@
+package pl.r6lab.rapidaws.standin;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Verifies AWS4-HMAC-SHA256 Authorization header. Written independently of the client signer, from the SigV4
+ * specification, so a signing bug is not mirrored here. Signed, unsigned and aws-chunked streaming payloads are
+ * supported; chunk signatures are checked while the body is decoded.
+ */
+final class SigV4Verifier {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String CHUNK_ALGORITHM = "AWS4-HMAC-SHA256-PAYLOAD";
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String STREAMING_PAYLOAD = "STREAMING-AWS4-HMAC-SHA256-PAYLOAD";
+    private static final String EMPTY_SHA256 = hex(sha256(new byte[0]));
+    private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(15);
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final Map<String, String> credentials;
+    private final boolean enabled;
+
+    private SigV4Verifier(Map<String, String> credentials, boolean enabled) {
+        this.credentials = credentials;
+        this.enabled = enabled;
+    }
+
+    static SigV4Verifier of(StandInConfig config) {
+        return new SigV4Verifier(config.getCredentials(), config.isVerifySignatures());
+    }
+
+    /**
+     * @param service signing name of the service the request was routed to
+     * @return request body, decoded when sent with aws-chunked encoding
+     */
+    byte[] verify(StandInRequest request, String service) throws AuthFailure {
+        String contentSha256 = request.getHeader("X-Amz-Content-Sha256");
+        if (!enabled) {
+            return STREAMING_PAYLOAD.equals(contentSha256) ? decodeChunks(request, null, null, null, null) : request.getBody();
+        }
+        String authorization = request.getHeader("Authorization");
+        if (isNull(authorization)) {
+            throw new AuthFailure(AuthFailure.Kind.MISSING, "Request is missing Authentication Token");
+        }
+        if (!authorization.startsWith(ALGORITHM + ' ')) {
+            throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Unsupported signature algorithm");
+        }
+        String credential = null;
+        String signedHeaders = null;
+        String signature = null;
+        for (String part : authorization.substring(ALGORITHM.length() + 1).split(",")) {
+            String trimmed = part.trim();
+            if (trimmed.startsWith("Credential=")) {
+                credential = trimmed.substring("Credential=".length());
+            } else if (trimmed.startsWith("SignedHeaders=")) {
+                signedHeaders = trimmed.substring("SignedHeaders=".length());
+            } else if (trimmed.startsWith("Signature=")) {
+                signature = trimmed.substring("Signature=".length());
+            }
+        }
+        if (isNull(credential) || isNull(signedHeaders) || isNull(signature)) {
+            throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Authorization header requires Credential, SignedHeaders and Signature");
+        }
+        String[] scopeParts = credential.split("/");
+        if (scopeParts.length != 5 || !"aws4_request".equals(scopeParts[4])) {
+            throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Credential should be scoped to a valid region and service");
+        }
+        String secretKey = credentials.get(scopeParts[0]);
+        if (isNull(secretKey)) {
+            throw new AuthFailure(AuthFailure.Kind.UNKNOWN_ACCESS_KEY, "The security token included in the request is invalid");
+        }
+        if (!service.equals(scopeParts[3])) {
+            throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Credential should be scoped to correct service: '" + service + "'");
+        }
+        if (!Arrays.asList(signedHeaders.split(";")).contains("host")) {
+            throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Host header must be signed");
+        }
+        String amzDate = request.getHeader("X-Amz-Date");
+        if (isNull(amzDate) || !amzDate.startsWith(scopeParts[1])) {
+            throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Date in Credential scope does not match X-Amz-Date");
+        }
+        checkClockSkew(amzDate);
+
+        byte[] body = request.getBody();
+        String payloadHash;
+        if (isNull(contentSha256)) {
+            payloadHash = hex(sha256(body));
+        } else if (UNSIGNED_PAYLOAD.equals(contentSha256) || STREAMING_PAYLOAD.equals(contentSha256)) {
+            payloadHash = contentSha256;
+        } else {
+            payloadHash = hex(sha256(body));
+            if (!payloadHash.equals(contentSha256)) {
+                throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "The provided x-amz-content-sha256 header does not match what was computed");
+            }
+        }
+
+        String scope = scopeParts[1] + '/' + scopeParts[2] + '/' + scopeParts[3] + "/aws4_request";
+        String canonicalRequest = canonicalRequest(request, signedHeaders, payloadHash);
+        String stringToSign = ALGORITHM + '\n' + amzDate + '\n' + scope + '\n' + hex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        byte[] signingKey = signingKey(secretKey, scopeParts[1], scopeParts[2], scopeParts[3]);
+        String expected = hex(hmac(signingKey, stringToSign));
+        if (!MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII), signature.getBytes(StandardCharsets.US_ASCII))) {
+            throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "The request signature we calculated does not match the signature you provided. "
+                    + "The Canonical String for this request should have been\n'" + canonicalRequest + "'\n\nThe String-to-Sign should have been\n'" + stringToSign + "'");
+        }
+        if (STREAMING_PAYLOAD.equals(contentSha256)) {
+            return decodeChunks(request, signingKey, amzDate, scope, signature);
+        }
+        return body;
+    }
+
+    private static void checkClockSkew(String amzDate) throws AuthFailure {
+        Instant signedAt;
+        try {
+            signedAt = Instant.from(AMZ_DATE.parse(amzDate));
+        } catch (DateTimeParseException e) {
+            throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Invalid X-Amz-Date " + amzDate);
+        }
+        if (Duration.between(signedAt, Instant.now()).abs().compareTo(MAX_CLOCK_SKEW) > 0) {
+            throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Signature expired: " + amzDate + " is more than 15 minutes away from server time");
+        }
+    }
+
+    private static String canonicalRequest(StandInRequest request, String signedHeaders, String payloadHash) {
+        StringBuilder canonical = new StringBuilder(512)
+                .append(request.getMethod()).append('\n')
+                .append(request.getPath().isEmpty() ? "/" : request.getPath()).append('\n');
+        String query = request.getQuery();
+        if (!isNull(query) && !query.isEmpty()) {
+            String[] parameters = query.split("&");
+            for (int i = 0; i < parameters.length; ++i) {
+                if (parameters[i].indexOf('=') < 0) {
+                    parameters[i] += '=';
+                }
+            }
+            // by name and then value; whole parameters would put "a-b=1" before "a=2"
+            Arrays.sort(parameters, Comparator.comparing((String parameter) -> parameter.substring(0, parameter.indexOf('=')))
+                    .thenComparing(parameter -> parameter.substring(parameter.indexOf('=') + 1)));
+            canonical.append(String.join("&", parameters));
+        }
+        canonical.append('\n');
+        for (String name : signedHeaders.split(";")) {
+            String value = request.getHeader(name);
+            canonical.append(name).append(':')
+                    .append(isNull(value) ? "" : value.trim().replaceAll(" +", " "))
+                    .append('\n');
+        }
+        return canonical.append('\n')
+                .append(signedHeaders).append('\n')
+                .append(payloadHash)
+                .toString();
+    }
+
+    /**
+     * Decodes aws-chunked body, verifying chained chunk signatures when signing key is given
+     */
+    private static byte[] decodeChunks(StandInRequest request, byte[] signingKey, String amzDate, String scope, String seedSignature) throws AuthFailure {
+        byte[] body = request.getBody();
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream(body.length);
+        String previousSignature = seedSignature;
+        int position = 0;
+        while (true) {
+            int lineEnd = indexOfCrlf(body, position);
+            if (lineEnd < 0) {
+                throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Malformed aws-chunked body");
+            }
+            String header = new String(body, position, lineEnd - position, StandardCharsets.US_ASCII);
+            int separator = header.indexOf(";chunk-signature=");
+            if (separator < 0) {
+                throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Chunk without signature");
+            }
+            int size;
+            try {
+                size = Integer.parseInt(header.substring(0, separator), 16);
+            } catch (NumberFormatException e) {
+                throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Malformed chunk size");
+            }
+            int dataStart = lineEnd + 2;
+            if (size < 0 || dataStart + size + 2 > body.length) {
+                throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Chunk exceeds body length");
+            }
+            if (signingKey != null) {
+                String chunkSignature = header.substring(separator + ";chunk-signature=".length());
+                String stringToSign = CHUNK_ALGORITHM + '\n' + amzDate + '\n' + scope + '\n' + previousSignature + '\n' + EMPTY_SHA256 + '\n'
+                        + hex(sha256(Arrays.copyOfRange(body, dataStart, dataStart + size)));
+                String expected = hex(hmac(signingKey, stringToSign));
+                if (!expected.equals(chunkSignature)) {
+                    throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Chunk signature does not match at offset " + decoded.size());
+                }
+                previousSignature = expected;
+            }
+            decoded.write(body, dataStart, size);
+            position = dataStart + size + 2;
+            if (size == 0) {
+                break;
+            }
+        }
+        String decodedLength = request.getHeader("X-Amz-Decoded-Content-Length");
+        if (!isNull(decodedLength) && Long.parseLong(decodedLength) != decoded.size()) {
+            throw new AuthFailure(AuthFailure.Kind.SIGNATURE_MISMATCH, "Decoded length " + decoded.size() + " does not match X-Amz-Decoded-Content-Length " + decodedLength);
+        }
+        return decoded.toByteArray();
+    }
+
+    private static int indexOfCrlf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length - 1; ++i) {
+            if (bytes[i] == '\r' && bytes[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] signingKey(String secretKey, String dateStamp, String region, String service) {
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), dateStamp);
+        key = hmac(key, region);
+        key = hmac(key, service);
+        return hmac(key, "aws4_request");
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            chars[2 * i] = Character.forDigit((bytes[i] >> 4) & 0xF, 16);
+            chars[2 * i + 1] = Character.forDigit(bytes[i] & 0xF, 16);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,133 @@
+package pl.r6lab.rapidaws.standin;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Immutable configuration of {@link StandInServer}. Tables, queues and buckets listed here exist on start, others can
+ * be created with CreateTable, CreateQueue and CreateBucket.
+ */
+public final class StandInConfig {
+
+    public static final String DEFAULT_ACCESS_KEY = "AKIDSTANDIN";
+    public static final String DEFAULT_SECRET_KEY = "standin-secret";
+
+    private static final String DEFAULT_HOST = "127.0.0.1";
+
+    private final String host;
+    private final int port;
+    private final boolean verifySignatures;
+    private final Map<String, String> credentials;
+    private final Map<String, TableSchema> tables;
+    private final Set<String> queues;
+    private final Set<String> buckets;
+
+    private StandInConfig(String host, int port, boolean verifySignatures, Map<String, String> credentials, Map<String, TableSchema> tables, Set<String> queues,
+                          Set<String> buckets) {
+        this.host = host;
+        this.port = port;
+        this.verifySignatures = verifySignatures;
+        this.credentials = credentials;
+        this.tables = tables;
+        this.queues = queues;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Random port on loopback, signatures verified against {@link #DEFAULT_ACCESS_KEY} and {@link #DEFAULT_SECRET_KEY}
+     */
+    public static StandInConfig defaults() {
+        return new StandInConfig(DEFAULT_HOST, 0, true, Collections.singletonMap(DEFAULT_ACCESS_KEY, DEFAULT_SECRET_KEY), Collections.emptyMap(), Collections.emptySet(),
+                Collections.emptySet());
+    }
+
+    public StandInConfig withHost(String host) {
+        if (isNull(host)) {
+            throw new IllegalArgumentException("Host must not be null");
+        }
+        return new StandInConfig(host, port, verifySignatures, credentials, tables, queues, buckets);
+    }
+
+    /**
+     * @param port listening port, 0 picks a free one
+     */
+    public StandInConfig withPort(int port) {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("Invalid port " + port);
+        }
+        return new StandInConfig(host, port, verifySignatures, credentials, tables, queues, buckets);
+    }
+
+    /**
+     * @param verifySignatures when false any Authorization header is accepted
+     */
+    public StandInConfig withVerifySignatures(boolean verifySignatures) {
+        return new StandInConfig(host, port, verifySignatures, credentials, tables, queues, buckets);
+    }
+
+    /**
+     * Adds access key accepted by the server, default credentials stay accepted
+     */
+    public StandInConfig withCredentials(String accessKey, String secretKey) {
+        if (isNull(accessKey) || isNull(secretKey)) {
+            throw new IllegalArgumentException("Access key and secret key must not be null");
+        }
+        Map<String, String> copy = new LinkedHashMap<>(credentials);
+        copy.put(accessKey, secretKey);
+        return new StandInConfig(host, port, verifySignatures, Collections.unmodifiableMap(copy), tables, queues, buckets);
+    }
+
+    /**
+     * @param rangeKey name of the sort key, null for tables with partition key only
+     */
+    public StandInConfig withTable(String tableName, String hashKey, String rangeKey) {
+        Map<String, TableSchema> copy = new LinkedHashMap<>(tables);
+        copy.put(tableName, TableSchema.of(hashKey, rangeKey));
+        return new StandInConfig(host, port, verifySignatures, credentials, Collections.unmodifiableMap(copy), queues, buckets);
+    }
+
+    public StandInConfig withQueue(String queueName) {
+        Set<String> copy = new LinkedHashSet<>(queues);
+        copy.add(queueName);
+        return new StandInConfig(host, port, verifySignatures, credentials, tables, Collections.unmodifiableSet(copy), buckets);
+    }
+
+    public StandInConfig withBucket(String bucketName) {
+        Set<String> copy = new LinkedHashSet<>(buckets);
+        copy.add(bucketName);
+        return new StandInConfig(host, port, verifySignatures, credentials, tables, queues, Collections.unmodifiableSet(copy));
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public boolean isVerifySignatures() {
+        return verifySignatures;
+    }
+
+    public Map<String, String> getCredentials() {
+        return credentials;
+    }
+
+    public Map<String, TableSchema> getTables() {
+        return tables;
+    }
+
+    public Set<String> getQueues() {
+        return queues;
+    }
+
+    public Set<String> getBuckets() {
+        return buckets;
+    }
+}
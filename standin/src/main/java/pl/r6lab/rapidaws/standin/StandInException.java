@@ -0,0 +1,28 @@
+package pl.r6lab.rapidaws.standin;
+
+/**
+ * Error answered to the client in the error format of the service handling the request
+ */
+final class StandInException extends RuntimeException {
+
+    private final int statusCode;
+    private final String code;
+
+    StandInException(int statusCode, String code, String message) {
+        super(message, null, false, false);
+        this.statusCode = statusCode;
+        this.code = code;
+    }
+
+    static StandInException validation(String message) {
+        return new StandInException(400, "ValidationException", message);
+    }
+
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    String getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,213 @@
+package pl.r6lab.rapidaws.standin;
+
+import pl.r6lab.rapidaws.AbstractRapidClient;
+import pl.r6lab.rapidaws.BasicRequest;
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClient;
+import pl.r6lab.rapidaws.Request;
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.http.ConnectionPoolConfig;
+import pl.r6lab.rapidaws.http.NioTransport;
+import pl.r6lab.rapidaws.json.JsonWriter;
+import pl.r6lab.rapidaws.lambda.LambdaInvokeRequest;
+import pl.r6lab.rapidaws.lambda.RapidLambdaInvocationClient;
+import pl.r6lab.rapidaws.sqs.RapidSQSClient;
+import pl.r6lab.rapidaws.sqs.SQSBatchProducer;
+import pl.r6lab.rapidaws.sqs.SQSBatchProducerConfig;
+import pl.r6lab.rapidaws.sqs.SQSRequest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Command line entry point.
+ * <pre>
+ * serve [--port 4566] [--table name:hashKey[:rangeKey]] [--queue name] [--bucket name] [faults]
+ * load --service dynamodb|sqs|lambda [--rate 500] [--duration 30] [--warmup 5] [--transport pool|nio] [--endpoint url] [faults]
+ *      [--producer single|batch] [--linger 10]
+ * faults: [--latency ms] [--jitter ms] [--throttle p] [--error p] [--rate-limit n] [--unprocessed p] [--corrupt p] [--stall p:ms] [--no-verify]
+ * </pre>
+ * Load without --endpoint starts its own stand-in in the same JVM. SQS load sends single SendMessage requests, or
+ * with --producer batch the same messages through {@link SQSBatchProducer} with given max linger time. Requests are signed with
+ * {@link StandInConfig#DEFAULT_ACCESS_KEY} unless AWS_ACCESS_KEY and AWS_SECRET_KEY are set.
+ */
+public final class StandInMain {
+
+    private static final String LOAD_TABLE = "load";
+    private static final String LOAD_QUEUE = "load";
+    private static final String LOAD_FUNCTION = "load";
+    private static final String REGION = "us-east-1";
+
+    private StandInMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || !(args[0].equals("serve") || args[0].equals("load"))) {
+            usage();
+            return;
+        }
+        Map<String, String> options = options(args);
+        StandInConfig config = StandInConfig.defaults()
+                .withVerifySignatures(!options.containsKey("no-verify"))
+                .withTable(LOAD_TABLE, "id", null)
+                .withQueue(LOAD_QUEUE);
+        if (options.containsKey("port")) {
+            config = config.withPort(Integer.parseInt(options.get("port"))).withHost("0.0.0.0");
+        }
+        for (String table : options.getOrDefault("table", "").split(",")) {
+            if (!table.isEmpty()) {
+                String[] parts = table.split(":");
+                config = config.withTable(parts[0], parts.length > 1 ? parts[1] : "id", parts.length > 2 ? parts[2] : null);
+            }
+        }
+        for (String queue : options.getOrDefault("queue", "").split(",")) {
+            if (!queue.isEmpty()) {
+                config = config.withQueue(queue);
+            }
+        }
+        for (String bucket : options.getOrDefault("bucket", "").split(",")) {
+            if (!bucket.isEmpty()) {
+                config = config.withBucket(bucket);
+            }
+        }
+        Faults faults = Faults.none()
+                .withLatency(Long.parseLong(options.getOrDefault("latency", "0")))
+                .withJitter(Long.parseLong(options.getOrDefault("jitter", "0")))
+                .withThrottleProbability(Double.parseDouble(options.getOrDefault("throttle", "0")))
+                .withErrorProbability(Double.parseDouble(options.getOrDefault("error", "0")))
+                .withRateLimit(Integer.parseInt(options.getOrDefault("rate-limit", "0")))
+                .withUnprocessedProbability(Double.parseDouble(options.getOrDefault("unprocessed", "0")))
+                .withCorruptionProbability(Double.parseDouble(options.getOrDefault("corrupt", "0")));
+        String[] stall = options.getOrDefault("stall", "0:0").split(":");
+        faults = faults.withStall(Double.parseDouble(stall[0]), stall.length > 1 ? Long.parseLong(stall[1]) : 0);
+
+        if (args[0].equals("serve")) {
+            StandInServer server = StandInServer.of(config).start();
+            server.setFaults(faults);
+            System.out.println("Stand-in listening on " + server.getEndpointUrl() + ", " + faults);
+            Thread.currentThread().join();
+            return;
+        }
+
+        String endpoint = options.get("endpoint");
+        StandInServer server = null;
+        if (isNull(endpoint)) {
+            server = StandInServer.of(config).start();
+            server.setFaults(faults);
+            endpoint = server.getEndpointUrl();
+        }
+        ServiceName serviceName = ServiceName.valueOf(options.getOrDefault("service", "dynamodb").toUpperCase());
+        AbstractRapidClient client = client(serviceName);
+        client.setEndpointOverride(endpoint);
+        if ("nio".equals(options.get("transport"))) {
+            client.setTransport(NioTransport.of(ConnectionPoolConfig.defaults()));
+        }
+        boolean batched = "batch".equals(options.getOrDefault("producer", "single"));
+        if (batched && serviceName != ServiceName.SQS) {
+            throw new IllegalArgumentException("Batching producer is supported only for sqs");
+        }
+        SQSBatchProducer producer = null;
+        LoadGenerator generator;
+        if (batched) {
+            producer = SQSBatchProducer.of((RapidSQSClient) client, SQSBatchProducerConfig.defaults()
+                    .withMaxLingerMillis(Long.parseLong(options.getOrDefault("linger", "10"))));
+            AtomicLong sequence = new AtomicLong();
+            generator = LoadGenerator.of(producer, queueUrl(endpoint), () -> "message-" + sequence.incrementAndGet());
+        } else {
+            generator = LoadGenerator.of(client, requests(serviceName, endpoint));
+        }
+        LoadReport report = generator
+                .withRate(Integer.parseInt(options.getOrDefault("rate", "500")))
+                .withDuration(Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30"))))
+                .withWarmup(Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5"))))
+                .run();
+        if (nonNull(producer)) {
+            producer.close();
+        }
+        System.out.println(serviceName + (batched ? " batched" : "") + " " + report);
+        if (nonNull(server)) {
+            System.out.println("Stand-in: requests=" + server.getRequestCount(serviceName) + ", throttled=" + server.getThrottledCount(serviceName)
+                    + ", injected errors=" + server.getInjectedErrorCount(serviceName));
+            server.close();
+        }
+        client.getTransport().close();
+    }
+
+    private static AbstractRapidClient client(ServiceName serviceName) {
+        String accessKey = System.getenv("AWS_ACCESS_KEY");
+        String secretKey = System.getenv("AWS_SECRET_KEY");
+        if (isNull(accessKey) || isNull(secretKey)) {
+            accessKey = StandInConfig.DEFAULT_ACCESS_KEY;
+            secretKey = StandInConfig.DEFAULT_SECRET_KEY;
+        }
+        switch (serviceName) {
+            case SQS:
+                return RapidSQSClient.of(accessKey, secretKey, null, REGION);
+            case LAMBDA:
+                return RapidLambdaInvocationClient.of(accessKey, secretKey, null, REGION);
+            case DYNAMODB:
+                return RapidClient.of(accessKey, secretKey, null, REGION);
+            default:
+                throw new IllegalArgumentException("Load is not supported for " + serviceName);
+        }
+    }
+
+    /**
+     * PutItem with growing ids, SendMessage and Invoke of a small payload
+     */
+    private static Supplier<Request> requests(ServiceName serviceName, String endpoint) {
+        AtomicLong sequence = new AtomicLong();
+        switch (serviceName) {
+            case SQS:
+                String queueUrl = queueUrl(endpoint);
+                return () -> SQSRequest.of("SendMessage", "message-" + sequence.incrementAndGet(), null, queueUrl, HttpMethod.POST);
+            case LAMBDA:
+                return () -> LambdaInvokeRequest.of(LOAD_FUNCTION, "{\"sequence\":" + sequence.incrementAndGet() + '}', HttpMethod.POST);
+            default:
+                return () -> BasicRequest.of(ServiceName.DYNAMODB, "PutItem", HttpMethod.POST, JsonWriter.create().beginObject()
+                        .name("TableName").value(LOAD_TABLE)
+                        .name("Item").beginObject()
+                        .name("id").beginObject().name("S").value(Long.toString(sequence.incrementAndGet())).endObject()
+                        .name("payload").beginObject().name("S").value("stand-in load").endObject()
+                        .endObject()
+                        .endObject()
+                        .toString());
+        }
+    }
+
+    private static String queueUrl(String endpoint) {
+        return endpoint + "/000000000000/" + LOAD_QUEUE;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; ++i) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+            String name = args[i].substring(2);
+            if (name.equals("no-verify")) {
+                options.put(name, "true");
+            } else if (i + 1 < args.length) {
+                options.merge(name, args[++i], (previous, value) -> previous + ',' + value);
+            } else {
+                throw new IllegalArgumentException("Missing value of " + args[i]);
+            }
+        }
+        return options;
+    }
+
+    private static void usage() {
+        System.out.println("Usage:\n"
+                + "  serve [--port 4566] [--table name:hashKey[:rangeKey]] [--queue name] [--bucket name] [faults]\n"
+                + "  load --service dynamodb|sqs|lambda [--rate 500] [--duration 30] [--warmup 5] [--transport pool|nio] [--endpoint url] [faults]\n"
+                + "       [--producer single|batch] [--linger 10]\n"
+                + "faults: [--latency ms] [--jitter ms] [--throttle p] [--error p] [--rate-limit n] [--unprocessed p] [--corrupt p] [--stall p:ms] [--no-verify]");
+    }
+}
@@ -0,0 +1,66 @@
+package pl.r6lab.rapidaws.standin;
+
+import com.sun.net.httpserver.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request received by the stand-in. Body is replaced with decoded content after aws-chunked signature verification.
+ */
+final class StandInRequest {
+
+    private final String method;
+    private final String path;
+    private final String query;
+    private final Headers headers;
+    private final byte[] body;
+
+    StandInRequest(String method, String path, String query, Headers headers, byte[] body) {
+        this.method = method;
+        this.path = path;
+        this.query = query;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    StandInRequest withBody(byte[] body) {
+        return new StandInRequest(method, path, query, headers, body);
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return raw, still URI encoded path
+     */
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * @return raw query string or null
+     */
+    String getQuery() {
+        return query;
+    }
+
+    String getHeader(String name) {
+        return headers.getFirst(name);
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    String getBodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return scheme and authority the client used, base of queue URLs
+     */
+    String getBaseUrl(boolean https) {
+        return (https ? "https://" : "http://") + getHeader("Host");
+    }
+}
@@ -0,0 +1,74 @@
+package pl.r6lab.rapidaws.standin;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+final class StandInResponse {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int statusCode;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private final byte[] body;
+
+    private StandInResponse(int statusCode, String contentType, byte[] body) {
+        this.statusCode = statusCode;
+        this.body = body;
+        if (body.length > 0) {
+            headers.put("Content-Type", contentType);
+        }
+    }
+
+    static StandInResponse of(int statusCode, String contentType, String body) {
+        return new StandInResponse(statusCode, contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static StandInResponse of(int statusCode, String contentType, byte[] body) {
+        return new StandInResponse(statusCode, contentType, body);
+    }
+
+    static StandInResponse empty(int statusCode) {
+        return new StandInResponse(statusCode, null, EMPTY);
+    }
+
+    StandInResponse withHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    /**
+     * @return response with the same status and headers but another body
+     */
+    StandInResponse withBody(byte[] body) {
+        StandInResponse response = new StandInResponse(statusCode, null, body);
+        response.headers.clear();
+        response.headers.putAll(headers);
+        return response;
+    }
+
+    /**
+     * @return response with one byte of the body flipped, headers describe the original body
+     */
+    StandInResponse corrupted() {
+        if (body.length == 0) {
+            return this;
+        }
+        byte[] corrupted = body.clone();
+        corrupted[ThreadLocalRandom.current().nextInt(corrupted.length)] ^= 0x5A;
+        return withBody(corrupted);
+    }
+
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+}
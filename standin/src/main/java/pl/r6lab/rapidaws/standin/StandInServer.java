@@ -0,0 +1,235 @@
+package pl.r6lab.rapidaws.standin;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.json.JsonException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Embedded stand-in of DynamoDB, SQS, Lambda and S3 for load and failure testing of rapid-aws clients. All services
+ * share one plain HTTP port and are told apart by protocol: X-Amz-Target for DynamoDB, the Invoke path for Lambda,
+ * form encoded body for SQS and the credential scope for S3. Every request is checked against SigV4 before faults are injected, so signing bugs show up
+ * as 403s here instead of in production.
+ * <pre>
+ * StandInServer server = StandInServer.of(StandInConfig.defaults().withTable("orders", "id", null)).start();
+ * client.setEndpointOverride(server.getEndpointUrl());
+ * </pre>
+ */
+public final class StandInServer implements AutoCloseable {
+
+    static {
+        // Response headers and body are written separately, without TCP_NODELAY delayed ACK adds 40ms to every call
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final StandInConfig config;
+    private final SigV4Verifier verifier;
+    private final ExecutorService executor;
+    private final Map<ServiceName, FaultInjector> injectors = new EnumMap<>(ServiceName.class);
+    private final DynamoDBStandIn dynamoDB;
+    private final SQSStandIn sqs;
+    private final LambdaStandIn lambda;
+    private final S3StandIn s3;
+    private final List<ServiceStandIn> services;
+    private HttpServer server;
+
+    private StandInServer(StandInConfig config) {
+        this.config = config;
+        this.verifier = SigV4Verifier.of(config);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "rapid-aws-standin");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (ServiceName serviceName : ServiceName.values()) {
+            injectors.put(serviceName, new FaultInjector());
+        }
+        this.dynamoDB = DynamoDBStandIn.of(injectors.get(ServiceName.DYNAMODB));
+        this.sqs = SQSStandIn.of(injectors.get(ServiceName.SQS));
+        this.lambda = LambdaStandIn.of(executor);
+        this.s3 = S3StandIn.create();
+        // Lambda before SQS, Invoke payload may be sent with form content type; S3 first, objects may be anything
+        this.services = Arrays.asList(s3, dynamoDB, lambda, sqs);
+        config.getTables().forEach(dynamoDB::createTable);
+        config.getQueues().forEach(sqs::createQueue);
+        config.getBuckets().forEach(s3::createBucket);
+    }
+
+    public static StandInServer of(StandInConfig config) {
+        return new StandInServer(config);
+    }
+
+    public synchronized StandInServer start() throws IOException {
+        if (!isNull(server)) {
+            throw new IllegalStateException("Stand-in is already started");
+        }
+        server = HttpServer.create(new InetSocketAddress(config.getHost(), config.getPort()), 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        return this;
+    }
+
+    /**
+     * @return URL to pass to {@code setEndpointOverride} of the clients
+     */
+    public String getEndpointUrl() {
+        if (isNull(server)) {
+            throw new IllegalStateException("Stand-in is not started");
+        }
+        String host = config.getHost().equals("0.0.0.0") ? "127.0.0.1" : config.getHost();
+        return "http://" + host + ':' + server.getAddress().getPort();
+    }
+
+    public void registerFunction(String functionName, LambdaHandler handler) {
+        lambda.registerFunction(functionName, handler);
+    }
+
+    public void createTable(String tableName, String hashKey, String rangeKey) {
+        dynamoDB.createTable(tableName, TableSchema.of(hashKey, rangeKey));
+    }
+
+    public void createQueue(String queueName) {
+        sqs.createQueue(queueName);
+    }
+
+    public void createBucket(String bucketName) {
+        s3.createBucket(bucketName);
+    }
+
+    /**
+     * Replaces faults of all services
+     */
+    public void setFaults(Faults faults) {
+        for (ServiceName serviceName : ServiceName.values()) {
+            setFaults(serviceName, faults);
+        }
+    }
+
+    public void setFaults(ServiceName serviceName, Faults faults) {
+        injectors.get(serviceName).setFaults(faults);
+    }
+
+    public Faults getFaults(ServiceName serviceName) {
+        return injectors.get(serviceName).getFaults();
+    }
+
+    /**
+     * @return requests of the service that passed signature verification
+     */
+    public long getRequestCount(ServiceName serviceName) {
+        return injectors.get(serviceName).getRequests();
+    }
+
+    public long getThrottledCount(ServiceName serviceName) {
+        return injectors.get(serviceName).getThrottled();
+    }
+
+    public long getInjectedErrorCount(ServiceName serviceName) {
+        return injectors.get(serviceName).getFailed();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!isNull(server)) {
+            server.stop(0);
+        }
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            StandInRequest request = new StandInRequest(exchange.getRequestMethod(), exchange.getRequestURI().getRawPath(),
+                    exchange.getRequestURI().getRawQuery(), exchange.getRequestHeaders(), readBody(exchange));
+            ServiceStandIn service = route(request);
+            if (isNull(service)) {
+                send(exchange, StandInResponse.of(400, "text/plain", "Request does not match DynamoDB, SQS, Lambda or S3 protocol"));
+                return;
+            }
+            FaultInjector injector = injectors.get(service.getServiceName());
+            StandInResponse response = service.encode(request, respond(service, injector, request));
+            if (injector.corrupt()) {
+                response = response.corrupted();
+            }
+            long delay = injector.delayMillis();
+            if (delay > 0) {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            }
+            send(exchange, response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private StandInResponse respond(ServiceStandIn service, FaultInjector injector, StandInRequest request) {
+        try {
+            StandInRequest verified = request.withBody(verifier.verify(request, service.getServiceName().getName()));
+            switch (injector.decide()) {
+                case THROTTLE:
+                    return service.throttled();
+                case ERROR:
+                    return service.internalError();
+                default:
+                    return service.handle(verified);
+            }
+        } catch (AuthFailure e) {
+            return service.authFailure(e);
+        } catch (StandInException e) {
+            return service.error(e.getStatusCode(), e.getCode(), e.getMessage());
+        } catch (JsonException | NumberFormatException e) {
+            return service.error(400, "SerializationException", String.valueOf(e.getMessage()));
+        } catch (RuntimeException e) {
+            // bug of the stand-in, reported to the client in the error message instead of a generic internal error
+            return service.error(500, "StandInFailure", String.valueOf(e));
+        }
+    }
+
+    private ServiceStandIn route(StandInRequest request) {
+        for (ServiceStandIn service : services) {
+            if (service.accepts(request)) {
+                return service;
+            }
+        }
+        return null;
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static void send(HttpExchange exchange, StandInResponse response) throws IOException {
+        response.getHeaders().forEach(exchange.getResponseHeaders()::set);
+        byte[] body = response.getBody();
+        exchange.sendResponseHeaders(response.getStatusCode(), body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package pl.r6lab.rapidaws.standin;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Key attributes of a stand-in DynamoDB table
+ */
+public final class TableSchema {
+
+    private final String hashKey;
+    private final String rangeKey;
+
+    private TableSchema(String hashKey, String rangeKey) {
+        this.hashKey = hashKey;
+        this.rangeKey = rangeKey;
+    }
+
+    public static TableSchema of(String hashKey, String rangeKey) {
+        if (isNull(hashKey)) {
+            throw new IllegalArgumentException("Hash key must not be null");
+        }
+        return new TableSchema(hashKey, rangeKey);
+    }
+
+    public String getHashKey() {
+        return hashKey;
+    }
+
+    /**
+     * @return sort key name or null
+     */
+    public String getRangeKey() {
+        return rangeKey;
+    }
+
+    public boolean hasRangeKey() {
+        return nonNull(rangeKey);
+    }
+}
@@ -0,0 +1,132 @@
+package pl.r6lab.rapidaws.standin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClient;
+import pl.r6lab.rapidaws.RapidClientException;
+import pl.r6lab.rapidaws.RetryPolicy;
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.dynamodb.DynamoDBBatchConfig;
+import pl.r6lab.rapidaws.dynamodb.DynamoDBBatchReader;
+import pl.r6lab.rapidaws.dynamodb.DynamoDBBatchWriter;
+import pl.r6lab.rapidaws.sqs.RapidSQSClient;
+import pl.r6lab.rapidaws.sqs.SQSBatchProducer;
+import pl.r6lab.rapidaws.sqs.SQSBatchProducerConfig;
+import pl.r6lab.rapidaws.sqs.SQSRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchPartialFailureTest {
+
+    private static final Pattern VISIBLE_MESSAGES = Pattern.compile("<Name>ApproximateNumberOfMessages</Name><Value>(\\d+)</Value>");
+
+    private StandInServer server;
+    private RapidSQSClient sqsClient;
+    private RapidClient dynamoDBClient;
+    private String queueUrl;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = StandInServer.of(StandInConfig.defaults().withTable("items", "id", null).withQueue("events")).start();
+        sqsClient = RapidSQSClient.of(StandInConfig.DEFAULT_ACCESS_KEY, StandInConfig.DEFAULT_SECRET_KEY, null, "us-east-1");
+        sqsClient.setEndpointOverride(server.getEndpointUrl());
+        dynamoDBClient = RapidClient.of(StandInConfig.DEFAULT_ACCESS_KEY, StandInConfig.DEFAULT_SECRET_KEY, null, "us-east-1");
+        dynamoDBClient.setEndpointOverride(server.getEndpointUrl());
+        queueUrl = server.getEndpointUrl() + "/000000000000/events";
+    }
+
+    @AfterEach
+    void stop() {
+        sqsClient.getTransport().close();
+        dynamoDBClient.getTransport().close();
+        server.close();
+    }
+
+    @Test
+    void producerResendsMessagesFailedOnServerSide() {
+        server.setFaults(ServiceName.SQS, Faults.none().withUnprocessedProbability(0.3));
+        SQSBatchProducer producer = SQSBatchProducer.of(sqsClient, SQSBatchProducerConfig.defaults().withMaxRetries(30).withRetryBackoffMillis(1));
+        List<CompletableFuture<String>> sent = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            sent.add(producer.send(queueUrl, "message-" + i));
+        }
+        producer.close();
+
+        HashSet<String> messageIds = new HashSet<>();
+        sent.forEach(future -> messageIds.add(future.join()));
+        assertEquals(100, messageIds.size());
+        assertTrue(server.getRequestCount(ServiceName.SQS) > 10, "failed entries should be sent again");
+        server.setFaults(ServiceName.SQS, Faults.none());
+        assertEquals(100, visibleMessages());
+    }
+
+    @Test
+    void producerLeavesFailedCallsToRetryPolicyOfClient() {
+        server.setFaults(ServiceName.SQS, Faults.none().withErrorProbability(1));
+        sqsClient.setRetryPolicy(RetryPolicy.defaults().withMaxAttempts(2).withBaseDelayMillis(1));
+        SQSBatchProducer producer = SQSBatchProducer.of(sqsClient, SQSBatchProducerConfig.defaults().withRetryBackoffMillis(1));
+        List<CompletableFuture<String>> sent = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            sent.add(producer.send(queueUrl, "message-" + i));
+        }
+        producer.close();
+
+        sent.forEach(future -> assertThrows(CompletionException.class, future::join));
+        assertEquals(2, server.getRequestCount(ServiceName.SQS));
+    }
+
+    @Test
+    void writerAndReaderResendUnprocessedItems() {
+        server.setFaults(ServiceName.DYNAMODB, Faults.none().withUnprocessedProbability(0.3));
+        DynamoDBBatchConfig config = DynamoDBBatchConfig.defaults().withMaxAttempts(30).withBaseBackoffMillis(1).withMaxBackoffMillis(5);
+        List<String> keys = new ArrayList<>();
+        try (DynamoDBBatchWriter writer = DynamoDBBatchWriter.of(dynamoDBClient, config)) {
+            for (int i = 0; i < 200; ++i) {
+                writer.put("items", "{\"id\":{\"S\":\"" + i + "\"},\"payload\":{\"S\":\"item " + i + "\"}}");
+                keys.add("{\"id\":{\"S\":\"" + i + "\"}}");
+            }
+            writer.flush();
+            assertEquals(200, writer.getWrittenCount());
+        }
+        assertTrue(server.getRequestCount(ServiceName.DYNAMODB) > 200 / 25, "unprocessed items should be sent again");
+
+        List<String> items = DynamoDBBatchReader.of(dynamoDBClient, config).getAll("items", keys);
+
+        assertEquals(200, items.size());
+        assertEquals(200, new HashSet<>(items).size());
+    }
+
+    @Test
+    void writerLeavesFailedCallsToRetryPolicyOfClient() {
+        server.setFaults(ServiceName.DYNAMODB, Faults.none().withErrorProbability(1));
+        dynamoDBClient.setRetryPolicy(RetryPolicy.defaults().withMaxAttempts(2).withBaseDelayMillis(1));
+        DynamoDBBatchWriter writer = DynamoDBBatchWriter.of(dynamoDBClient, DynamoDBBatchConfig.defaults().withBaseBackoffMillis(1));
+        for (int i = 0; i < 25; ++i) {
+            writer.put("items", "{\"id\":{\"S\":\"" + i + "\"}}");
+        }
+
+        assertThrows(RapidClientException.class, writer::flush);
+        assertEquals(0, writer.getWrittenCount());
+        assertEquals(2, server.getRequestCount(ServiceName.DYNAMODB));
+    }
+
+    private int visibleMessages() {
+        String response = sqsClient.execute(SQSRequest.of("GetQueueAttributes", null, null, queueUrl, HttpMethod.POST)).getPayload();
+        Matcher matcher = VISIBLE_MESSAGES.matcher(response);
+        assertTrue(matcher.find(), response);
+        return Integer.parseInt(matcher.group(1));
+    }
+}
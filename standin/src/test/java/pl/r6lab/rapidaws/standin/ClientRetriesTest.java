@@ -0,0 +1,105 @@
+package pl.r6lab.rapidaws.standin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.r6lab.rapidaws.BasicRequest;
+import pl.r6lab.rapidaws.HttpMethod;
+import pl.r6lab.rapidaws.RapidClient;
+import pl.r6lab.rapidaws.Request;
+import pl.r6lab.rapidaws.Response;
+import pl.r6lab.rapidaws.RetryPolicy;
+import pl.r6lab.rapidaws.ServiceName;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientRetriesTest {
+
+    private static final Request GET_ITEM = BasicRequest.of(ServiceName.DYNAMODB, "GetItem", HttpMethod.POST,
+            "{\"TableName\":\"items\",\"Key\":{\"id\":{\"S\":\"1\"}}}");
+
+    private StandInServer server;
+    private RapidClient client;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = StandInServer.of(StandInConfig.defaults().withTable("items", "id", null)).start();
+        client = RapidClient.of(StandInConfig.DEFAULT_ACCESS_KEY, StandInConfig.DEFAULT_SECRET_KEY, null, "us-east-1");
+        client.setEndpointOverride(server.getEndpointUrl());
+    }
+
+    @AfterEach
+    void stop() {
+        client.getTransport().close();
+        server.close();
+    }
+
+    @Test
+    void retriesServerErrorsUpToMaxAttempts() {
+        server.setFaults(Faults.none().withErrorProbability(1));
+        client.setRetryPolicy(RetryPolicy.defaults().withMaxAttempts(4).withBaseDelayMillis(1));
+
+        Response response = client.execute(GET_ITEM);
+
+        assertEquals(500, response.getStatusCode());
+        assertEquals(4, server.getRequestCount(ServiceName.DYNAMODB));
+    }
+
+    @Test
+    void retriesThrottlingUpToMaxAttempts() {
+        server.setFaults(Faults.none().withThrottleProbability(1));
+        client.setRetryPolicy(RetryPolicy.defaults().withMaxAttempts(3).withThrottlingBaseDelayMillis(1));
+
+        Response response = client.execute(GET_ITEM);
+
+        assertEquals(400, response.getStatusCode());
+        assertEquals(3, server.getRequestCount(ServiceName.DYNAMODB));
+        assertEquals(3, server.getThrottledCount(ServiceName.DYNAMODB));
+    }
+
+    @Test
+    void retriesAsyncRequestsUpToMaxAttempts() {
+        server.setFaults(Faults.none().withErrorProbability(1));
+        client.setRetryPolicy(RetryPolicy.defaults().withMaxAttempts(3).withBaseDelayMillis(1));
+
+        Response response = client.executeAsync(GET_ITEM).join();
+
+        assertEquals(500, response.getStatusCode());
+        assertEquals(3, server.getRequestCount(ServiceName.DYNAMODB));
+    }
+
+    @Test
+    void sendsRequestsOnceWhenRetryBudgetIsExhausted() {
+        server.setFaults(Faults.none().withThrottleProbability(1));
+        // a retry costs 5 tokens, so the budget pays for the two retries of the first request only
+        client.setRetryPolicy(RetryPolicy.defaults().withMaxAttempts(3).withThrottlingBaseDelayMillis(1).withRetryBudget(10));
+
+        for (int i = 0; i < 3; ++i) {
+            assertFalse(client.execute(GET_ITEM).isSuccess());
+        }
+
+        assertEquals(3 + 1 + 1, server.getRequestCount(ServiceName.DYNAMODB));
+    }
+
+    @Test
+    void successfulResponsesRefillRetryBudget() {
+        client.setRetryPolicy(RetryPolicy.defaults().withMaxAttempts(2).withThrottlingBaseDelayMillis(1).withRetryBudget(5));
+        server.setFaults(Faults.none().withThrottleProbability(1));
+        assertFalse(client.execute(GET_ITEM).isSuccess());
+        assertFalse(client.execute(GET_ITEM).isSuccess());
+        assertEquals(2 + 1, server.getRequestCount(ServiceName.DYNAMODB));
+
+        server.setFaults(Faults.none());
+        for (int i = 0; i < 5; ++i) {
+            assertTrue(client.execute(GET_ITEM).isSuccess());
+        }
+        server.setFaults(Faults.none().withThrottleProbability(1));
+        assertFalse(client.execute(GET_ITEM).isSuccess());
+
+        assertEquals(2 + 1 + 5 + 2, server.getRequestCount(ServiceName.DYNAMODB));
+    }
+}
@@ -0,0 +1,129 @@
+package pl.r6lab.rapidaws.standin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.r6lab.rapidaws.RapidClient;
+import pl.r6lab.rapidaws.RapidClientException;
+import pl.r6lab.rapidaws.RetryPolicy;
+import pl.r6lab.rapidaws.ServiceName;
+import pl.r6lab.rapidaws.dynamodb.DynamoDBBatchWriter;
+import pl.r6lab.rapidaws.dynamodb.DynamoDBPaginator;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaginationTest {
+
+    private static final int ITEMS = 120;
+
+    private StandInServer server;
+    private RapidClient client;
+    private ExecutorService executor;
+    private DynamoDBPaginator paginator;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = StandInServer.of(StandInConfig.defaults().withTable("items", "id", null)).start();
+        client = RapidClient.of(StandInConfig.DEFAULT_ACCESS_KEY, StandInConfig.DEFAULT_SECRET_KEY, null, "us-east-1");
+        client.setEndpointOverride(server.getEndpointUrl());
+        try (DynamoDBBatchWriter writer = DynamoDBBatchWriter.of(client)) {
+            for (int i = 0; i < ITEMS; ++i) {
+                writer.put("items", "{\"id\":{\"S\":\"" + i + "\"}}");
+            }
+        }
+        executor = Executors.newCachedThreadPool();
+        paginator = DynamoDBPaginator.of(client, executor);
+    }
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+        client.getTransport().close();
+        server.close();
+    }
+
+    @Test
+    void scanFollowsLastEvaluatedKeyToTheEnd() {
+        try (Stream<String> items = paginator.scan("{\"TableName\":\"items\",\"Limit\":7}")) {
+            List<String> scanned = items.collect(Collectors.toList());
+
+            assertEquals(ITEMS, scanned.size());
+            assertEquals(ITEMS, scanned.stream().distinct().count());
+        }
+    }
+
+    @Test
+    void closingScanStopsFetchingPages() throws InterruptedException {
+        long before = server.getRequestCount(ServiceName.DYNAMODB);
+        try (Stream<String> items = paginator.scan("{\"TableName\":\"items\",\"Limit\":1}")) {
+            Iterator<String> iterator = items.iterator();
+            iterator.next();
+            iterator.next();
+        }
+
+        // the pages read and the one prefetched page
+        assertTrue(settledRequestCount() - before <= 3);
+    }
+
+    @Test
+    void parallelScanReturnsEveryItemOnceAndFinishesSegments() throws InterruptedException {
+        try (Stream<String> items = paginator.scan("{\"TableName\":\"items\",\"Limit\":5}", 4)) {
+            List<String> scanned = items.collect(Collectors.toList());
+
+            assertEquals(ITEMS, scanned.size());
+            assertEquals(ITEMS, scanned.stream().distinct().count());
+        }
+        assertSegmentsFinished();
+    }
+
+    @Test
+    void closingParallelScanStopsSegments() throws InterruptedException {
+        try (Stream<String> items = paginator.scan("{\"TableName\":\"items\",\"Limit\":1}", 4)) {
+            Iterator<String> iterator = items.iterator();
+            for (int i = 0; i < 3; ++i) {
+                iterator.next();
+            }
+        }
+
+        assertSegmentsFinished();
+        assertTrue(settledRequestCount() < ITEMS, "segments should stop before scanning the whole table");
+    }
+
+    @Test
+    void failedSegmentEndsParallelScan() throws InterruptedException {
+        server.setFaults(ServiceName.DYNAMODB, Faults.none().withErrorProbability(1));
+        client.setRetryPolicy(RetryPolicy.none());
+
+        try (Stream<String> items = paginator.scan("{\"TableName\":\"items\",\"Limit\":5}", 4)) {
+            assertThrows(RapidClientException.class, items::count);
+        }
+        assertSegmentsFinished();
+    }
+
+    /**
+     * Waits for requests sent before close to arrive, then checks that no new ones follow
+     */
+    private long settledRequestCount() throws InterruptedException {
+        Thread.sleep(200);
+        long settled = server.getRequestCount(ServiceName.DYNAMODB);
+        Thread.sleep(200);
+        assertEquals(settled, server.getRequestCount(ServiceName.DYNAMODB));
+        return settled;
+    }
+
+    private void assertSegmentsFinished() throws InterruptedException {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS), "segment tasks should finish after the scan ends");
+    }
+}
@@ -0,0 +1,140 @@
+package pl.r6lab.rapidaws.standin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keep-alive HTTP server answering requests with scripted actions, in order of arrival. Stand-in answers every
+ * request, this one can also drop a reused connection or never answer.
+ */
+final class ScriptedHttpServer implements AutoCloseable {
+
+    enum Action {
+        RESPOND, CLOSE, STALL
+    }
+
+    private static final byte[] RESPONSE = "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok".getBytes(StandardCharsets.US_ASCII);
+
+    private final ServerSocket serverSocket;
+    private final List<Action> script;
+    private final List<Socket> sockets = new ArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private ScriptedHttpServer(List<Action> script) throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.script = script;
+        Thread acceptor = new Thread(this::accept, "scripted-http-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @param script actions of subsequent requests, requests beyond the script are answered
+     */
+    static ScriptedHttpServer of(Action... script) throws IOException {
+        return new ScriptedHttpServer(Arrays.asList(script));
+    }
+
+    String getEndpointUrl() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    int getRequestCount() {
+        return requests.get();
+    }
+
+    int getConnectionCount() {
+        return connections.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        synchronized (sockets) {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                synchronized (sockets) {
+                    sockets.add(socket);
+                }
+                Thread connection = new Thread(() -> serve(socket), "scripted-http-connection");
+                connection.setDaemon(true);
+                connection.start();
+            }
+        } catch (IOException e) {
+            // server closed
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket connection = socket) {
+            InputStream in = connection.getInputStream();
+            OutputStream out = connection.getOutputStream();
+            while (readRequest(in)) {
+                int index = requests.getAndIncrement();
+                Action action = index < script.size() ? script.get(index) : Action.RESPOND;
+                if (action == Action.CLOSE) {
+                    return;
+                }
+                if (action == Action.STALL) {
+                    // keeps the connection open without answering until the server is closed
+                    while (in.read() != -1) {
+                    }
+                    return;
+                }
+                out.write(RESPONSE);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // connection closed by the client or by close()
+        }
+    }
+
+    /**
+     * @return false at the end of stream before a request
+     */
+    private static boolean readRequest(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            int next = in.read();
+            if (next == -1) {
+                return false;
+            }
+            head.write(next);
+            matched = next == (matched % 2 == 0 ? '\r' : '\n') ? matched + 1 : next == '\r' ? 1 : 0;
+        }
+        long contentLength = 0;
+        for (String line : new String(head.toByteArray(), StandardCharsets.US_ASCII).split("\r\n")) {
+            if (line.toLowerCase(Locale.ROOT).startsWith("content-length:")) {
+                contentLength = Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            }
+        }
+        for (long i = 0; i < contentLength; ++i) {
+            if (in.read() == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
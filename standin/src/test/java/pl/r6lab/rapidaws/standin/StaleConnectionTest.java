@@ -0,0 +1,68 @@
+package pl.r6lab.rapidaws.standin;
+
+import org.junit.jupiter.api.Test;
+import pl.r6lab.rapidaws.http.ConnectionPool;
+import pl.r6lab.rapidaws.http.ConnectionPoolConfig;
+import pl.r6lab.rapidaws.http.HttpRequest;
+import pl.r6lab.rapidaws.http.NioTransport;
+import pl.r6lab.rapidaws.http.Transport;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static pl.r6lab.rapidaws.standin.ScriptedHttpServer.Action.CLOSE;
+import static pl.r6lab.rapidaws.standin.ScriptedHttpServer.Action.RESPOND;
+import static pl.r6lab.rapidaws.standin.ScriptedHttpServer.Action.STALL;
+
+class StaleConnectionTest {
+
+    private static final ConnectionPoolConfig CONFIG = ConnectionPoolConfig.defaults()
+            .withMaxConnectionsPerHost(1)
+            .withReadTimeoutMillis(300);
+
+    @Test
+    void poolResendsRequestWhenReusedConnectionIsClosed() throws IOException {
+        resendsRequestWhenReusedConnectionIsClosed(ConnectionPool.of(CONFIG));
+    }
+
+    @Test
+    void nioResendsRequestWhenReusedConnectionIsClosed() throws IOException {
+        resendsRequestWhenReusedConnectionIsClosed(NioTransport.of(CONFIG));
+    }
+
+    @Test
+    void poolDoesNotResendAfterReadTimeout() throws IOException {
+        doesNotResendAfterReadTimeout(ConnectionPool.of(CONFIG));
+    }
+
+    @Test
+    void nioDoesNotResendAfterReadTimeout() throws IOException {
+        doesNotResendAfterReadTimeout(NioTransport.of(CONFIG));
+    }
+
+    private static void resendsRequestWhenReusedConnectionIsClosed(Transport transport) throws IOException {
+        try (ScriptedHttpServer server = ScriptedHttpServer.of(RESPOND, CLOSE, RESPOND)) {
+            assertEquals(200, transport.execute(HttpRequest.of("GET", server.getEndpointUrl() + "/")).getStatusCode());
+            assertEquals(200, transport.execute(HttpRequest.of("GET", server.getEndpointUrl() + "/")).getStatusCode());
+
+            assertEquals(3, server.getRequestCount());
+            assertEquals(2, server.getConnectionCount());
+        } finally {
+            transport.close();
+        }
+    }
+
+    private static void doesNotResendAfterReadTimeout(Transport transport) throws IOException {
+        try (ScriptedHttpServer server = ScriptedHttpServer.of(RESPOND, STALL)) {
+            assertEquals(200, transport.execute(HttpRequest.of("GET", server.getEndpointUrl() + "/")).getStatusCode());
+            assertThrows(SocketTimeoutException.class, () -> transport.execute(HttpRequest.of("GET", server.getEndpointUrl() + "/")));
+
+            assertEquals(2, server.getRequestCount());
+            assertEquals(1, server.getConnectionCount());
+        } finally {
+            transport.close();
+        }
+    }
+}